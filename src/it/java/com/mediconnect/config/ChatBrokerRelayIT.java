@@ -0,0 +1,195 @@
+package com.mediconnect.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.mediconnect.dto.ChatMessageDTO;
+import com.mediconnect.security.WebSocketAuthenticationInterceptor;
+
+/**
+ * Chat across two nodes in relay mode (mediconnect.chat.broker.mode=relay): an embedded
+ * ActiveMQ Artemis broker with a STOMP acceptor stands in for the external broker, and two
+ * web contexts running WebSocketConfig relay to it. A client subscribed to an appointment's
+ * chat topic on one node receives a message that the other node broadcasts the way
+ * ChatController does, so the message goes out through one node's relay session and comes
+ * back through the other's.
+ *
+ * Run with: mvn -Pbenchmark verify
+ */
+class ChatBrokerRelayIT {
+
+    private static final long APPOINTMENT_ID = 77L;
+    private static final long TIMEOUT_SECONDS = 15;
+
+    private EmbeddedActiveMQ broker;
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private WebSocketStompClient stompClient;
+
+    @ImportAutoConfiguration({
+        PropertyPlaceholderAutoConfiguration.class,
+        JacksonAutoConfiguration.class,
+        ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        WebSocketServletAutoConfiguration.class })
+    @Import(WebSocketConfig.class)
+    static class RelayNode {
+    }
+
+    @BeforeEach
+    void startBrokerAndNodes() throws Exception {
+        int brokerPort = freePort();
+        // The prefixes map /topic/... to multicast and /queue/... to anycast addresses, as a
+        // Spring STOMP relay expects
+        Configuration configuration = new ConfigurationImpl()
+            .setPersistenceEnabled(false)
+            .setSecurityEnabled(false)
+            .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + brokerPort
+                + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        broker.start();
+
+        nodeA = startNode(brokerPort);
+        nodeB = startNode(brokerPort);
+
+        stompClient = new WebSocketStompClient(
+            new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterEach
+    void stopNodesAndBroker() throws Exception {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @Test
+    void chatMessageBroadcastOnOneNodeReachesSubscriberOnTheOther() throws Exception {
+        StompSession session = stompClient.connectAsync(
+                "ws://127.0.0.1:" + port(nodeA) + "/ws", new StompSessionHandlerAdapter() { })
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        session.setAutoReceipt(true);
+
+        BlockingQueue<ChatMessageDTO> received = new LinkedBlockingQueue<>();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        session.subscribe("/topic/appointment/" + APPOINTMENT_ID, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessageDTO.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ChatMessageDTO) payload);
+            }
+        }).addReceiptTask(subscribed::countDown);
+        // The broker acknowledges the SUBSCRIBE only once the subscription is in place
+        assertTrue(subscribed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "subscription was not acknowledged");
+
+        ChatMessageDTO message = new ChatMessageDTO();
+        message.setMessageId("relay-check-1");
+        message.setAppointmentId(APPOINTMENT_ID);
+        message.setSenderId(5L);
+        message.setSenderType("DOCTOR");
+        message.setSenderName("Dr. Vikram Mehta");
+        message.setMessageText("Your lab results are in");
+        nodeB.getBean(SimpMessagingTemplate.class)
+            .convertAndSend("/topic/appointment/" + APPOINTMENT_ID, message);
+
+        ChatMessageDTO delivered = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(delivered, "message did not arrive through the broker");
+        assertEquals("relay-check-1", delivered.getMessageId());
+        assertEquals(APPOINTMENT_ID, delivered.getAppointmentId());
+        assertEquals("Your lab results are in", delivered.getMessageText());
+
+        session.disconnect();
+    }
+
+    private static ConfigurableApplicationContext startNode(int brokerPort) throws InterruptedException {
+        CountDownLatch brokerAvailable = new CountDownLatch(1);
+        ApplicationListener<ApplicationEvent> relayListener = event -> {
+            if (event instanceof BrokerAvailabilityEvent && ((BrokerAvailabilityEvent) event).isBrokerAvailable()) {
+                brokerAvailable.countDown();
+            }
+        };
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RelayNode.class)
+            .properties(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "mediconnect.chat.broker.mode=relay",
+                "mediconnect.chat.broker.relay.host=127.0.0.1",
+                "mediconnect.chat.broker.relay.port=" + brokerPort)
+            // Anonymous connections to non-vitals destinations pass the interceptor without
+            // touching its JWT and session collaborators
+            .initializers(ctx -> ctx.getBeanFactory()
+                .registerSingleton("webSocketAuthenticationInterceptor", new WebSocketAuthenticationInterceptor()))
+            .listeners(relayListener)
+            .run();
+        // Client frames are refused until the relay's system session has connected
+        assertTrue(brokerAvailable.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "relay did not connect to the broker");
+        return context;
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.mediconnect.service.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.mediconnect.model.NotificationOutbox;
+
+/**
+ * EmailTransport against a GreenMail SMTP server: messages sent by several dispatcher threads
+ * must all arrive, over no more connections than the pool allows, with most of them sent on a
+ * connection that an earlier message already opened.
+ *
+ * Run with: mvn -Pbenchmark verify
+ */
+class EmailTransportPoolIT {
+
+    private static final int POOL_SIZE = 2;
+    private static final int WORKERS = 4;
+    private static final int MESSAGES = 40;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private EmailTransport transport;
+
+    @BeforeEach
+    void createTransport() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(greenMail.getSmtp().getPort());
+
+        // Same settings the application binds from spring.mail.* and mediconnect.mail.pool.*
+        transport = new EmailTransport();
+        ReflectionTestUtils.setField(transport, "emailSender", sender);
+        ReflectionTestUtils.setField(transport, "fromEmail", "noreply@mediconnect.test");
+        ReflectionTestUtils.setField(transport, "fromName", "MediConnect Health");
+        ReflectionTestUtils.setField(transport, "poolSize", POOL_SIZE);
+        ReflectionTestUtils.setField(transport, "maxMessagesPerConnection", 500);
+        ReflectionTestUtils.setField(transport, "idleTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(transport, "borrowTimeoutSeconds", 30L);
+        transport.init();
+    }
+
+    @AfterEach
+    void closeTransport() {
+        transport.shutdown();
+    }
+
+    @Test
+    void concurrentSendsReusePooledConnections() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < MESSAGES; i++) {
+                NotificationOutbox message = new NotificationOutbox();
+                message.setChannel(NotificationOutboxService.EMAIL);
+                message.setRecipient("patient" + (i % 5) + "@mediconnect.test");
+                message.setSubject("Appointment reminder " + i);
+                message.setBody("<p>Your appointment is tomorrow at 10:30 AM.</p>");
+                message.setHtml(true);
+                sends.add(workers.submit(() -> {
+                    transport.send(message);
+                    return null;
+                }));
+            }
+            for (Future<?> send : sends) {
+                // Rethrows a failed send
+                send.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            workers.shutdown();
+        }
+
+        assertTrue(greenMail.waitForIncomingEmail(10000, MESSAGES), "not every message reached the SMTP server");
+        assertEquals(MESSAGES, greenMail.getReceivedMessages().length);
+
+        Map<String, Object> stats = transport.getStats();
+        long opened = (Long) stats.get("connectionsOpened");
+        long reused = (Long) stats.get("sentOnReusedConnection");
+        assertEquals((long) MESSAGES, stats.get("sent"));
+        assertEquals(0L, stats.get("failed"));
+        assertTrue(opened >= 1 && opened <= POOL_SIZE, "opened " + opened + " connections for a pool of " + POOL_SIZE);
+        assertTrue(reused > 0, "no message was sent on a reused connection");
+        assertEquals(MESSAGES - opened, reused);
+    }
+}
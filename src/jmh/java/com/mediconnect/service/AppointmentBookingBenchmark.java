@@ -0,0 +1,216 @@
+package com.mediconnect.service;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.mediconnect.dto.AppointmentDTO;
+import com.mediconnect.exception.SlotUnavailableException;
+import com.mediconnect.model.Appointment;
+import com.mediconnect.model.Doctor;
+import com.mediconnect.model.Patient;
+import com.mediconnect.repository.AppointmentRepository;
+import com.mediconnect.repository.DoctorRepository;
+import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.scheduling.DoctorBookingLocks;
+import com.mediconnect.service.scheduling.DoctorCalendarService;
+
+/**
+ * Hundreds of patients booking the same doctor through AppointmentService.createAppointment.
+ *
+ * Each attempt asks for a 30 minute appointment starting on a quarter hour just ahead of a
+ * moving frontier, so around a dozen bookers contend for every slot and neighbouring requests
+ * overlap without sharing a slot_start (the unique index alone would let those through). The
+ * repository is an in-memory stand-in that parks for the INSERT round trip and enforces the
+ * (doctor_id, slot_start) index. After every iteration the stored bookings are checked for
+ * overlaps, and the run fails if any are found or if the index had to reject a booking that
+ * got past the lock. Throughput is reported for all attempts and, as secondary results, for
+ * booked and rejected attempts separately.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="-f 1 -wi 3 -i 5 AppointmentBookingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(200)
+public class AppointmentBookingBenchmark {
+
+    private static final long DOCTOR_ID = 42L;
+    private static final int DURATION_MINUTES = 30;
+    private static final int STEP_MINUTES = 15;
+    private static final int BOOKERS_PER_STEP = 12;
+
+    // Simulated INSERT round trip, held under the doctor's booking lock
+    @Param({"200"})
+    public int insertMicros;
+
+    private AppointmentService appointmentService;
+    private List<Appointment> stored;
+    private AtomicLong indexRejections;
+    private AtomicLong attempts;
+    private OffsetDateTime base;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long booked;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            booked = 0;
+            rejected = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws ReflectiveOperationException {
+        stored = new ArrayList<>();
+        indexRejections = new AtomicLong();
+        attempts = new AtomicLong();
+        base = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+
+        Doctor doctor = new Doctor();
+        doctor.setId(DOCTOR_ID);
+        Patient patient = new Patient();
+        patient.setId(7L);
+
+        DoctorBookingLocks bookingLocks = new DoctorBookingLocks();
+        inject(bookingLocks, "stripeCount", 256);
+        Method init = DoctorBookingLocks.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(bookingLocks);
+
+        appointmentService = new AppointmentService();
+        inject(appointmentService, "appointmentRepository", appointmentRepository());
+        inject(appointmentService, "doctorRepository", finder(DoctorRepository.class, doctor));
+        inject(appointmentService, "patientRepository", finder(PatientRepository.class, patient));
+        inject(appointmentService, "calendarService", new DoctorCalendarService());
+        inject(appointmentService, "bookingLocks", bookingLocks);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyNoDoubleBooking() {
+        List<Appointment> bookings;
+        synchronized (stored) {
+            bookings = new ArrayList<>(stored);
+        }
+        bookings.sort(Comparator.comparing(Appointment::getAppointmentDateTime));
+        for (int i = 1; i < bookings.size(); i++) {
+            Appointment previous = bookings.get(i - 1);
+            Appointment current = bookings.get(i);
+            OffsetDateTime previousEnd = previous.getAppointmentDateTime().plusMinutes(previous.getDurationMinutes());
+            if (current.getAppointmentDateTime().isBefore(previousEnd)) {
+                throw new IllegalStateException("Double booking: appointment " + previous.getId() + " at "
+                    + previous.getAppointmentDateTime() + " overlaps appointment " + current.getId() + " at "
+                    + current.getAppointmentDateTime());
+            }
+        }
+        if (indexRejections.get() > 0) {
+            throw new IllegalStateException(indexRejections.get()
+                + " bookings got past the booking lock and were only stopped by the unique index");
+        }
+    }
+
+    @Benchmark
+    public void book(Outcome outcome) {
+        long step = attempts.getAndIncrement() / BOOKERS_PER_STEP
+            + ThreadLocalRandom.current().nextInt(2);
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setDoctorId(DOCTOR_ID);
+        dto.setPatientId(7L);
+        dto.setAppointmentDateTime(base.plusMinutes(step * STEP_MINUTES).toString());
+        dto.setAppointmentType("physical");
+        dto.setDurationMinutes(DURATION_MINUTES);
+        dto.setFee(500.0);
+        try {
+            appointmentService.createAppointment(dto);
+            outcome.booked++;
+        } catch (SlotUnavailableException e) {
+            outcome.rejected++;
+        }
+    }
+
+    // Stands in for the appointments table: one INSERT per save, guarded by the slot index
+    private AppointmentRepository appointmentRepository() {
+        AtomicLong ids = new AtomicLong();
+        Map<OffsetDateTime, Long> slotIndex = new ConcurrentHashMap<>();
+        return repository(AppointmentRepository.class, (method, args) -> {
+            if (!method.getName().equals("save")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Appointment appointment = (Appointment) args[0];
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(insertMicros));
+            Long id = ids.incrementAndGet();
+            if (slotIndex.putIfAbsent(appointment.getAppointmentDateTime().toInstant()
+                    .atOffset(ZoneOffset.UTC), id) != null) {
+                indexRejections.incrementAndGet();
+                throw new DataIntegrityViolationException("Duplicate entry for key 'uk_appointments_doctor_slot'");
+            }
+            appointment.setId(id);
+            synchronized (stored) {
+                stored.add(appointment);
+            }
+            return appointment;
+        });
+    }
+
+    private static <T> T finder(Class<T> type, Object entity) {
+        return repository(type, (method, args) -> {
+            if (!method.getName().equals("findById")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return Optional.of(entity);
+        });
+    }
+
+    private interface Call {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T repository(Class<T> type, Call call) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return self == args[0];
+                    case "hashCode": return System.identityHashCode(self);
+                    default: return type.getSimpleName() + " stub";
+                }
+            }
+            return call.invoke(method, args);
+        });
+        return type.cast(proxy);
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,83 @@
+package com.mediconnect.service.render;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Rendering the appointment confirmation email through TemplateRenderer, with parsed templates
+ * cached, against the path it replaced: template caching off and a fresh writer per render.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TemplateRendererBenchmark {
+
+    private static final String TEMPLATE = "appointment-confirmation";
+
+    private SpringTemplateEngine uncachedEngine;
+    private TemplateRenderer renderer;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        uncachedEngine = engine(false);
+
+        renderer = new TemplateRenderer();
+        Field templateEngine = TemplateRenderer.class.getDeclaredField("templateEngine");
+        templateEngine.setAccessible(true);
+        templateEngine.set(renderer, engine(true));
+
+        variables = new HashMap<>();
+        variables.put("patientName", "Asha Rao");
+        variables.put("doctorName", "Dr. Vikram Mehta");
+        variables.put("specialization", "Cardiology");
+        variables.put("appointmentDate", "Monday, 12 October 2026");
+        variables.put("appointmentTime", "10:30 AM");
+        variables.put("appointmentType", "VIDEO_CONSULTATION");
+        variables.put("appointmentDuration", "30");
+        variables.put("appointmentNotes", "");
+        variables.put("jitsiMeetingLink", "https://meet.jit.si/mediconnect-1234");
+    }
+
+    // Same resolver settings as ThymeleafConfig, from the classpath instead of a Spring context
+    private static SpringTemplateEngine engine(boolean cacheable) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(cacheable);
+        resolver.setCacheTTLMs(null);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    @Benchmark
+    public String uncachedTemplate() {
+        Context context = new Context();
+        context.setVariables(variables);
+        return uncachedEngine.process(TEMPLATE, context);
+    }
+
+    @Benchmark
+    public String templateRenderer() {
+        return renderer.render(TEMPLATE, variables);
+    }
+}
@@ -1,14 +0,0 @@
-package com.mediconnect.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
-
-@Configuration
-public class AppConfig {
-
-    @Bean
-    RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-}
\ No newline at end of file
@@ -1,22 +1,52 @@
 package com.mediconnect.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * The application's single RestTemplate, used through AiHttpClient for every outbound AI call.
+ *
+ * It is backed by java.net.http.HttpClient, which keeps connections alive and reuses them.
+ * HTTPS endpoints negotiate HTTP/2 through ALPN, so concurrent calls to one model share a
+ * connection; plain HTTP endpoints (locally hosted models) stay on HTTP/1.1 so that no h2c
+ * upgrade is attempted. How many calls may be open per endpoint is limited by AiHttpClient.
+ */
 @Configuration
 public class RestTemplateConfig {
+
+    @Value("${mediconnect.ai.http.connect-timeout-ms:10000}")
+    private long connectTimeoutMillis;
+
+    @Value("${mediconnect.ai.http.read-timeout-ms:60000}")
+    private long readTimeoutMillis;
+
+    @Value("${mediconnect.ai.http.http2:true}")
+    private boolean http2;
+
     @Bean
     public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        
-        // Set connection timeouts
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
-        factory.setConnectTimeout(10000);
-        factory.setReadTimeout(30000);
-        
-        restTemplate.setRequestFactory(factory);
-        return restTemplate;
+        ClientHttpRequestFactory secure = requestFactory(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+        ClientHttpRequestFactory plain = requestFactory(HttpClient.Version.HTTP_1_1);
+        return new RestTemplate((uri, method) -> "https".equalsIgnoreCase(uri.getScheme())
+            ? secure.createRequest(uri, method)
+            : plain.createRequest(uri, method));
+    }
+
+    private ClientHttpRequestFactory requestFactory(HttpClient.Version version) {
+        HttpClient client = HttpClient.newBuilder()
+            .version(version)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return factory;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.mediconnect.config;
 
 import java.util.List;
 
+import jakarta.servlet.DispatcherType;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -69,6 +71,9 @@ public class SecurityConfig {
                 // ✅ CRITICAL FIX 1: Allow OPTIONS requests first (CORS preflight)
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 
+                // Async results (CompletableFuture endpoints) were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                
                 
                 // 🔌 WEBSOCKET ENDPOINTS - ADD THESE LINES:
                 .requestMatchers("/ws/**").permitAll()
@@ -84,6 +89,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/public/**").permitAll()
                 .requestMatchers("/api/doctors/public/**").permitAll()
                 .requestMatchers("/api/doctors/*/availability").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/doctors/*/slots").permitAll()
                 .requestMatchers("/api/auth/password-reset/**").permitAll()
                 .requestMatchers("/uploads/**").permitAll()
                 .requestMatchers("/error").permitAll()
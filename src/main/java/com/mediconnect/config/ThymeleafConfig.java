@@ -1,5 +1,6 @@
 package com.mediconnect.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.thymeleaf.spring6.SpringTemplateEngine;
@@ -9,6 +10,10 @@ import org.thymeleaf.templatemode.TemplateMode;
 @Configuration
 public class ThymeleafConfig {
 
+    // Keep parsed templates in memory; turn off while editing templates so changes show without a restart
+    @Value("${mediconnect.templates.cache:true}")
+    private boolean cacheTemplates;
+
     @Bean
     public SpringResourceTemplateResolver emailTemplateResolver() {
         SpringResourceTemplateResolver templateResolver = new SpringResourceTemplateResolver();
@@ -16,7 +21,9 @@ public class ThymeleafConfig {
         templateResolver.setSuffix(".html");
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding("UTF-8");
-        templateResolver.setCacheable(false); // For development, set to true in production
+        templateResolver.setCacheable(cacheTemplates);
+        // No TTL: templates ship inside the jar and cannot change while the application runs
+        templateResolver.setCacheTTLMs(null);
         return templateResolver;
     }
 
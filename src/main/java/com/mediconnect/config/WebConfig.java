@@ -2,6 +2,7 @@ package com.mediconnect.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,6 +12,15 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.upload-dir}")
     private String uploadDir;
     
+    @Value("${mediconnect.web.async-request-timeout-ms:90000}")
+    private long asyncRequestTimeoutMillis;
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // AI endpoints return a CompletableFuture that may wait for a model's full read timeout
+        configurer.setDefaultTimeout(asyncRequestTimeoutMillis);
+    }
+    
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Fix trailing slash for file: protocol
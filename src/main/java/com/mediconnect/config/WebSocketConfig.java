@@ -1,8 +1,13 @@
 package com.mediconnect.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -15,13 +20,58 @@ import org.springframework.beans.factory.annotation.Autowired;
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
     @Autowired
     private WebSocketAuthenticationInterceptor webSocketAuthInterceptor;
 
+    // "simple" keeps subscriptions in this JVM; "relay" forwards them to an external STOMP broker
+    // (RabbitMQ, ActiveMQ Artemis, ...) so clients connected to different nodes share chat rooms
+    @Value("${mediconnect.chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${mediconnect.chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${mediconnect.chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${mediconnect.chat.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${mediconnect.chat.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${mediconnect.chat.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${mediconnect.chat.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${mediconnect.chat.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Set prefix for messages bound for the message broker
-        config.enableSimpleBroker("/topic", "/queue", "/user");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setClientLogin(relayClientLogin)
+                .setClientPasscode(relayClientPasscode)
+                .setSystemLogin(relaySystemLogin)
+                .setSystemPasscode(relaySystemPasscode)
+                // Lets a node deliver to a user whose session lives on another node
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (StringUtils.hasText(relayVirtualHost)) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            log.info("WebSocket: relaying broker destinations to STOMP broker at {}:{}", relayHost, relayPort);
+        } else {
+            // Set prefix for messages bound for the message broker
+            config.enableSimpleBroker("/topic", "/queue", "/user");
+        }
         
         // Set prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
@@ -40,10 +90,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        // 🔧 TEMPORARILY DISABLED for debugging - uncomment when auth is working
-        // registration.interceptors(webSocketAuthInterceptor);
-        
-        // 🚀 TODO: Re-enable after fixing the authentication flow
-        System.out.println("🔌 WebSocket: Auth interceptor temporarily disabled");
+        // Authenticates CONNECT frames and guards subscriptions to patient data
+        registration.interceptors(webSocketAuthInterceptor);
     }
 }
\ No newline at end of file
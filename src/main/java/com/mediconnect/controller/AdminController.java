@@ -14,6 +14,7 @@ import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,7 +30,13 @@ import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.RoleRepository;
 import com.mediconnect.repository.UserRepository;
 import com.mediconnect.repository.AppointmentRepository;
+import com.mediconnect.service.ChatService;
 import com.mediconnect.service.PatientService;
+import com.mediconnect.service.ai.AiHttpClient;
+import com.mediconnect.service.ai.AiResponseCache;
+import com.mediconnect.service.ai.DrugInteractionIndex;
+import com.mediconnect.service.document.DocumentCache;
+import com.mediconnect.service.notification.NotificationOutboxService;
 
 import jakarta.persistence.EntityManager;
 import jakarta.servlet.http.HttpServletRequest;
@@ -57,6 +64,24 @@ public class AdminController {
     @Autowired
     private EntityManager entityManager;
     
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private DocumentCache documentCache;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private AiHttpClient aiHttpClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
+    @Autowired
+    private DrugInteractionIndex drugInteractionIndex;
+    
     @Autowired
     private PatientService patientService;
     
@@ -520,6 +545,92 @@ public ResponseEntity<?> deleteAdmin(@PathVariable Long id, HttpServletRequest r
         }
     }
 
+    /**
+     * Notification outbox backlog per channel and dispatcher metrics
+     */
+    @GetMapping("/notifications/outbox/stats")
+    public ResponseEntity<Map<String, Object>> getNotificationOutboxStats() {
+        return ResponseEntity.ok(notificationOutboxService.getStats());
+    }
+
+    /**
+     * Receipt and report cache occupancy and hit rates
+     */
+    @GetMapping("/documents/cache/stats")
+    public ResponseEntity<Map<String, Object>> getDocumentCacheStats() {
+        return ResponseEntity.ok(documentCache.getStats());
+    }
+
+    /**
+     * Chat write-behind queue depth, batch sizes and failures
+     */
+    @GetMapping("/chat/stats")
+    public ResponseEntity<Map<String, Object>> getChatStats() {
+        return ResponseEntity.ok(chatService.getStats());
+    }
+
+    /**
+     * Calls in flight, failures, rejections and latency per AI model endpoint
+     */
+    @GetMapping("/ai/http/stats")
+    public ResponseEntity<Map<String, Object>> getAiHttpStats() {
+        return ResponseEntity.ok(aiHttpClient.getStats());
+    }
+
+    /**
+     * AI response cache hits, misses and TTL per use case
+     */
+    @GetMapping("/ai/cache/stats")
+    public ResponseEntity<Map<String, Object>> getAiCacheStats() {
+        return ResponseEntity.ok(aiResponseCache.getStats());
+    }
+
+    /**
+     * Drop every cached AI response of a use case (e.g. after its model was replaced)
+     */
+    @DeleteMapping("/ai/cache/{useCase}")
+    public ResponseEntity<Map<String, Object>> invalidateAiCache(@PathVariable String useCase) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("useCase", useCase);
+        response.put("deleted", aiResponseCache.invalidate(useCase));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Version and size of the local drug interaction data, and how often it answered a pair
+     */
+    @GetMapping("/ai/interactions/stats")
+    public ResponseEntity<Map<String, Object>> getDrugInteractionStats() {
+        return ResponseEntity.ok(drugInteractionIndex.getStats());
+    }
+
+    /**
+     * Reload the drug interaction data file (e.g. after a new version was deployed)
+     */
+    @PostMapping("/ai/interactions/reload")
+    public ResponseEntity<Map<String, Object>> reloadDrugInteractions() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("version", drugInteractionIndex.reload());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("error", "Could not reload drug interaction data: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Retry a dead-lettered notification
+     */
+    @PostMapping("/notifications/outbox/{id}/retry")
+    public ResponseEntity<Map<String, Object>> retryNotification(@PathVariable Long id) {
+        notificationOutboxService.requeue(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        response.put("status", "PENDING");
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get users by role
      */
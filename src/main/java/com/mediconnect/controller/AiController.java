@@ -6,6 +6,7 @@ import com.mediconnect.dto.request.ChatbotMessageDTO;
 import com.mediconnect.dto.response.ChatbotResponseDTO;
 import com.mediconnect.dto.request.TranslationRequestDTO;
 import com.mediconnect.dto.response.TranslationResponseDTO;
+import com.mediconnect.service.ai.AiHttpClient;
 import com.mediconnect.util.LanguageDetectionUtil;
 import com.mediconnect.model.User;
 import com.mediconnect.service.ai.MedicalContextService;
@@ -19,7 +20,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.http.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -85,7 +87,8 @@ public class AiController {
     @Value("${huggingface.endpoints.translation}")
     private String translationModelUrl;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // ============ DEBUG ENDPOINT ============
@@ -254,39 +257,62 @@ public class AiController {
      */
     @PostMapping("/chat")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<ChatbotResponseDTO>> chat(@RequestBody ChatbotMessageDTO request) {
-        try {
-            // Step 1: Language get karo, default english
-            String language = request.getLanguage();
-            if (language == null || language.trim().isEmpty()) {
-                language = "english";
-            }
+    public CompletableFuture<ResponseEntity<ApiResponse<ChatbotResponseDTO>>> chat(@RequestBody ChatbotMessageDTO request) {
+        // Step 1: Language get karo, default english
+        String language = request.getLanguage();
+        if (language == null || language.trim().isEmpty()) {
+            language = "english";
+        }
 
-            // Step 2: Prompt mein language instruction daalo
-            String enhancedPrompt =
+        // Step 2: Prompt mein language instruction daalo (medical context is read on the request thread)
+        String enhancedPrompt;
+        try {
+            enhancedPrompt =
                 "Reply in " + language + " language only, using roman script if Hinglish. " +
                 medicalContextService.enhancePromptWithContext(request.getMessage());
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(chatError(e));
+        }
 
-            // Step 3: AI se response lo
-            String response = chatbotService.generateChatResponse(enhancedPrompt);
+        return offload(() -> {
+            try {
+                // Step 3: AI se response lo
+                String response = chatbotService.generateChatResponse(enhancedPrompt);
 
-            // Step 4: ChatbotResponseDTO banao
-            ChatbotResponseDTO chatResponse = new ChatbotResponseDTO();
-            chatResponse.setResponse(response);
-            chatResponse.setTimestamp(System.currentTimeMillis());
-            chatResponse.setSuccess(true);
+                // Step 4: ChatbotResponseDTO banao
+                ChatbotResponseDTO chatResponse = new ChatbotResponseDTO();
+                chatResponse.setResponse(response);
+                chatResponse.setTimestamp(System.currentTimeMillis());
+                chatResponse.setSuccess(true);
 
-            return ResponseEntity.ok(new ApiResponse<>(true, "Chat response generated successfully", chatResponse));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Chat response generated successfully", chatResponse));
 
-        } catch (Exception e) {
-            ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
-            errorResponse.setResponse("I'm experiencing technical difficulties. Please try again later or consult with a healthcare professional directly.");
-            errorResponse.setSuccess(false);
-            errorResponse.setError(e.getMessage());
+            } catch (Exception e) {
+                return chatError(e);
+            }
+        });
+    }
 
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Error generating chat response: " + e.getMessage(), errorResponse));
-        }
+    private ResponseEntity<ApiResponse<ChatbotResponseDTO>> chatError(Exception e) {
+        ChatbotResponseDTO errorResponse = new ChatbotResponseDTO();
+        errorResponse.setResponse("I'm experiencing technical difficulties. Please try again later or consult with a healthcare professional directly.");
+        errorResponse.setSuccess(false);
+        errorResponse.setError(e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new ApiResponse<>(false, "Error generating chat response: " + e.getMessage(), errorResponse));
+    }
+
+    /**
+     * Runs a model-backed endpoint on the AI client's pool, so the servlet thread is released
+     * while the model answers. Answers 503 when the pool is saturated.
+     */
+    private <T> CompletableFuture<ResponseEntity<ApiResponse<T>>> offload(Supplier<ResponseEntity<ApiResponse<T>>> call) {
+        return aiHttpClient.supplyAsync(call).exceptionally(error -> {
+            logger.warn("AI request could not be run: {}", error.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ApiResponse<>(false, "AI services are busy, please try again shortly", null));
+        });
     }
 
 
@@ -353,34 +379,36 @@ public class AiController {
      */
     @PostMapping("/analyze-image")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> analyzeImage(@RequestParam("file") MultipartFile file) {
-        try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "No file uploaded", null));
-            }
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> analyzeImage(@RequestParam("file") MultipartFile file) {
+        return offload(() -> {
+            try {
+                if (file.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "No file uploaded", null));
+                }
 
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Only image files are supported", null));
-            }
+                String contentType = file.getContentType();
+                if (contentType == null || !contentType.startsWith("image/")) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Only image files are supported", null));
+                }
 
-            byte[] imageBytes = file.getBytes();
-            String analysis = aiModelService.analyzeImage(imageBytes);
+                byte[] imageBytes = file.getBytes();
+                String analysis = aiModelService.analyzeImage(imageBytes);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("analysis", analysis);
-            result.put("fileName", file.getOriginalFilename());
-            result.put("fileSize", file.getSize());
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("analysis", analysis);
+                result.put("fileName", file.getOriginalFilename());
+                result.put("fileSize", file.getSize());
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Image analyzed successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Image analyzed successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to analyze image: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to analyze image: " + e.getMessage(), null));
+            }
+        });
     }
 
     /**
@@ -388,45 +416,47 @@ public class AiController {
      */
     @PostMapping("/analyze-document")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> analyzeDocument(@RequestParam("file") MultipartFile file) {
-        try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "No file uploaded", null));
-            }
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> analyzeDocument(@RequestParam("file") MultipartFile file) {
+        return offload(() -> {
+            try {
+                if (file.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "No file uploaded", null));
+                }
 
-            if (!documentProcessorService.isSupportedDocument(file)) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Unsupported document type. Please upload PDF, Word, or text files.", null));
-            }
+                if (!documentProcessorService.isSupportedDocument(file)) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Unsupported document type. Please upload PDF, Word, or text files.", null));
+                }
 
-            String extractedText = documentProcessorService.extractTextFromDocument(file);
+                String extractedText = documentProcessorService.extractTextFromDocument(file);
             
-            if (extractedText.trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "No text could be extracted from the document", null));
-            }
+                if (extractedText.trim().isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "No text could be extracted from the document", null));
+                }
 
-            String documentSummary = documentProcessorService.analyzeDocumentContent(extractedText);
+                String documentSummary = documentProcessorService.analyzeDocumentContent(extractedText);
             
-            String aiPrompt = "Please analyze this medical document and provide insights, possible conditions, recommendations, and next steps. Document content: " + extractedText;
-            String analysis = aiModelService.diagnoseFromDescription(aiPrompt);
+                String aiPrompt = "Please analyze this medical document and provide insights, possible conditions, recommendations, and next steps. Document content: " + extractedText;
+                String analysis = aiModelService.diagnoseFromDescription(aiPrompt);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("text", extractedText);
-            result.put("analysis", analysis);
-            result.put("summary", documentSummary);
-            result.put("documentType", documentProcessorService.getDocumentType(file));
-            result.put("fileName", file.getOriginalFilename());
-            result.put("fileSize", file.getSize());
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("text", extractedText);
+                result.put("analysis", analysis);
+                result.put("summary", documentSummary);
+                result.put("documentType", documentProcessorService.getDocumentType(file));
+                result.put("fileName", file.getOriginalFilename());
+                result.put("fileSize", file.getSize());
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Document analyzed successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Document analyzed successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to analyze document: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to analyze document: " + e.getMessage(), null));
+            }
+        });
     }
 
     // ============ SPEECH & TRANSLATION ============
@@ -437,29 +467,30 @@ public class AiController {
  // In AiController.java - Update the speech-to-text endpoint
     @PostMapping("/speech-to-text")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> speechToText(
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> speechToText(
         @RequestParam("audio") MultipartFile audioFile) { // ✅ Changed from "audio" to match frontend
-        
-        try {
-            if (audioFile.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "No audio file uploaded", null));
-            }
+        return offload(() -> {
+            try {
+                if (audioFile.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "No audio file uploaded", null));
+                }
 
-            byte[] audioBytes = audioFile.getBytes();
-            String transcription = speechToTextService.transcribeSpeech(audioBytes);
+                byte[] audioBytes = audioFile.getBytes();
+                String transcription = speechToTextService.transcribeSpeech(audioBytes);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("text", transcription);
-            result.put("transcription", transcription);
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("text", transcription);
+                result.put("transcription", transcription);
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Audio transcribed successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Audio transcribed successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to transcribe audio: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to transcribe audio: " + e.getMessage(), null));
+            }
+        });
     }
 
     /**
@@ -467,32 +498,34 @@ public class AiController {
      */
     @PostMapping("/translate")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<TranslationResponseDTO>> translate(@RequestBody TranslationRequestDTO request) {
-        try {
-            String translatedText = translationService.translateMedicalContent(
-                request.getText(),
-                request.getSourceLanguage(),
-                request.getTargetLanguage()
-            );
-            
-            TranslationResponseDTO response = new TranslationResponseDTO();
-            response.setTranslatedText(translatedText);
-            response.setTranslation(translatedText);
-            response.setSourceLanguage(request.getSourceLanguage());
-            response.setTargetLanguage(request.getTargetLanguage());
-            response.setSuccess(true);
-            response.setTimestamp(System.currentTimeMillis());
-            
-            return ResponseEntity.ok(new ApiResponse<>(true, "Translation completed successfully", response));
+    public CompletableFuture<ResponseEntity<ApiResponse<TranslationResponseDTO>>> translate(@RequestBody TranslationRequestDTO request) {
+        return offload(() -> {
+            try {
+                String translatedText = translationService.translateMedicalContent(
+                    request.getText(),
+                    request.getSourceLanguage(),
+                    request.getTargetLanguage()
+                );
+            
+                TranslationResponseDTO response = new TranslationResponseDTO();
+                response.setTranslatedText(translatedText);
+                response.setTranslation(translatedText);
+                response.setSourceLanguage(request.getSourceLanguage());
+                response.setTargetLanguage(request.getTargetLanguage());
+                response.setSuccess(true);
+                response.setTimestamp(System.currentTimeMillis());
+            
+                return ResponseEntity.ok(new ApiResponse<>(true, "Translation completed successfully", response));
             
-        } catch (Exception e) {
-            TranslationResponseDTO errorResponse = new TranslationResponseDTO();
-            errorResponse.setSuccess(false);
-            errorResponse.setError(e.getMessage());
+            } catch (Exception e) {
+                TranslationResponseDTO errorResponse = new TranslationResponseDTO();
+                errorResponse.setSuccess(false);
+                errorResponse.setError(e.getMessage());
             
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Translation failed: " + e.getMessage(), errorResponse));
-        }
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Translation failed: " + e.getMessage(), errorResponse));
+            }
+        });
     }
 
     /**
@@ -500,34 +533,36 @@ public class AiController {
      */
     @PostMapping("/smart-translate")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<TranslationResponseDTO>> smartTranslate(@RequestBody Map<String, String> request) {
-        try {
-            String text = request.get("text");
-            String targetLanguage = request.get("targetLanguage");
+    public CompletableFuture<ResponseEntity<ApiResponse<TranslationResponseDTO>>> smartTranslate(@RequestBody Map<String, String> request) {
+        return offload(() -> {
+            try {
+                String text = request.get("text");
+                String targetLanguage = request.get("targetLanguage");
             
-            // Auto-detect source language
-            String sourceLanguage = languageDetectionUtil.getMedicalContextLanguage(text);
+                // Auto-detect source language
+                String sourceLanguage = languageDetectionUtil.getMedicalContextLanguage(text);
             
-            String translatedText = translationService.translateMedicalContent(text, sourceLanguage, targetLanguage);
+                String translatedText = translationService.translateMedicalContent(text, sourceLanguage, targetLanguage);
             
-            TranslationResponseDTO response = new TranslationResponseDTO();
-            response.setTranslatedText(translatedText);
-            response.setTranslation(translatedText);
-            response.setSourceLanguage(sourceLanguage);
-            response.setTargetLanguage(targetLanguage);
-            response.setSuccess(true);
-            response.setTimestamp(System.currentTimeMillis());
+                TranslationResponseDTO response = new TranslationResponseDTO();
+                response.setTranslatedText(translatedText);
+                response.setTranslation(translatedText);
+                response.setSourceLanguage(sourceLanguage);
+                response.setTargetLanguage(targetLanguage);
+                response.setSuccess(true);
+                response.setTimestamp(System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Smart translation completed successfully", response));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Smart translation completed successfully", response));
             
-        } catch (Exception e) {
-            TranslationResponseDTO errorResponse = new TranslationResponseDTO();
-            errorResponse.setSuccess(false);
-            errorResponse.setError(e.getMessage());
+            } catch (Exception e) {
+                TranslationResponseDTO errorResponse = new TranslationResponseDTO();
+                errorResponse.setSuccess(false);
+                errorResponse.setError(e.getMessage());
             
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Smart translation failed: " + e.getMessage(), errorResponse));
-        }
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Smart translation failed: " + e.getMessage(), errorResponse));
+            }
+        });
     }
 
     // ============ MEDICAL SERVICES (DOCTOR ONLY) ============
@@ -537,26 +572,28 @@ public class AiController {
      */
     @PostMapping("/medical-coding")
     @PreAuthorize("hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getMedicalCoding(@RequestBody Map<String, String> request) {
-        try {
-            String clinicalText = request.get("text");
-            if (clinicalText == null || clinicalText.trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Clinical text is required", null));
-            }
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> getMedicalCoding(@RequestBody Map<String, String> request) {
+        return offload(() -> {
+            try {
+                String clinicalText = request.get("text");
+                if (clinicalText == null || clinicalText.trim().isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Clinical text is required", null));
+                }
 
-            String codingResult = medicalCodingService.generateMedicalCoding(clinicalText);
+                String codingResult = medicalCodingService.generateMedicalCoding(clinicalText);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("codes", codingResult);
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("codes", codingResult);
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Medical codes generated successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Medical codes generated successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to generate medical codes: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to generate medical codes: " + e.getMessage(), null));
+            }
+        });
     }
 
     /**
@@ -564,28 +601,30 @@ public class AiController {
      */
     @PostMapping("/treatment-recommendation")
     @PreAuthorize("hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getTreatmentRecommendation(@RequestBody Map<String, String> request) {
-        try {
-            String diagnosis = request.get("diagnosis");
-            String patientInfo = request.get("patientInfo");
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> getTreatmentRecommendation(@RequestBody Map<String, String> request) {
+        return offload(() -> {
+            try {
+                String diagnosis = request.get("diagnosis");
+                String patientInfo = request.get("patientInfo");
             
-            if (diagnosis == null || diagnosis.trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Diagnosis is required", null));
-            }
+                if (diagnosis == null || diagnosis.trim().isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Diagnosis is required", null));
+                }
 
-            String recommendation = treatmentRecommendationService.recommendTreatment(diagnosis, patientInfo);
+                String recommendation = treatmentRecommendationService.recommendTreatment(diagnosis, patientInfo);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("recommendation", recommendation);
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("recommendation", recommendation);
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Treatment recommendation generated successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Treatment recommendation generated successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to generate treatment recommendation: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to generate treatment recommendation: " + e.getMessage(), null));
+            }
+        });
     }
 
     // ============ MEDICATION & HEALTH PREDICTION ============
@@ -595,28 +634,30 @@ public class AiController {
      */
     @PostMapping("/medication-interaction")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> checkMedicationInteractions(@RequestBody Map<String, Object> request) {
-        try {
-            @SuppressWarnings("unchecked")
-            List<String> medications = (List<String>) request.get("medications");
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> checkMedicationInteractions(@RequestBody Map<String, Object> request) {
+        return offload(() -> {
+            try {
+                @SuppressWarnings("unchecked")
+                List<String> medications = (List<String>) request.get("medications");
             
-            if (medications == null || medications.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Medications list is required", null));
-            }
+                if (medications == null || medications.isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Medications list is required", null));
+                }
 
-            String interactionResult = medicationInteractionService.checkMedicationInteractions(medications);
+                String interactionResult = medicationInteractionService.checkMedicationInteractions(medications);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("interactions", interactionResult);
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("interactions", interactionResult);
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Medication interactions checked successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Medication interactions checked successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to check medication interactions: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to check medication interactions: " + e.getMessage(), null));
+            }
+        });
     }
 
     /**
@@ -624,27 +665,29 @@ public class AiController {
      */
     @PostMapping("/health-prediction")
     @PreAuthorize("hasAuthority('ROLE_PATIENT') or hasAuthority('ROLE_DOCTOR')")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> predictHealthRisks(@RequestBody Map<String, String> request) {
-        try {
-            String patientData = request.get("patientData");
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> predictHealthRisks(@RequestBody Map<String, String> request) {
+        return offload(() -> {
+            try {
+                String patientData = request.get("patientData");
             
-            if (patientData == null || patientData.trim().isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new ApiResponse<>(false, "Patient data is required", null));
-            }
+                if (patientData == null || patientData.trim().isEmpty()) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Patient data is required", null));
+                }
 
-            String prediction = healthPredictorService.predictHealthRisks(patientData);
+                String prediction = healthPredictorService.predictHealthRisks(patientData);
             
-            Map<String, Object> result = new HashMap<>();
-            result.put("prediction", prediction);
-            result.put("timestamp", System.currentTimeMillis());
+                Map<String, Object> result = new HashMap<>();
+                result.put("prediction", prediction);
+                result.put("timestamp", System.currentTimeMillis());
             
-            return ResponseEntity.ok(new ApiResponse<>(true, "Health risks predicted successfully", result));
+                return ResponseEntity.ok(new ApiResponse<>(true, "Health risks predicted successfully", result));
             
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ApiResponse<>(false, "Failed to predict health risks: " + e.getMessage(), null));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(false, "Failed to predict health risks: " + e.getMessage(), null));
+            }
+        });
     }
 
     // ============ LANGUAGE UTILITIES ============
@@ -825,7 +868,7 @@ public class AiController {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(chatModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(chatModelUrl, entity, String.class);
             
             if (response.getStatusCode() == HttpStatus.OK) {
                 JsonNode jsonResponse = objectMapper.readTree(response.getBody());
@@ -861,7 +904,7 @@ public class AiController {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(ocrModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(ocrModelUrl, entity, String.class);
             
             if (response.getStatusCode() == HttpStatus.OK) {
                 JsonNode jsonResponse = objectMapper.readTree(response.getBody());
@@ -911,7 +954,7 @@ public class AiController {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(translationModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(translationModelUrl, entity, String.class);
             
             if (response.getStatusCode() == HttpStatus.OK) {
                 JsonNode jsonResponse = objectMapper.readTree(response.getBody());
@@ -1,13 +1,15 @@
 package com.mediconnect.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import com.mediconnect.service.ai.AiHttpClient;
+
 /**
  * Test controller to verify AI service connectivity
  * Updated for Text Generation instead of deprecated Conversational
@@ -23,7 +25,8 @@ public class AiTestController {
     @Value("${huggingface.endpoints.chat}")
     private String chatEndpoint;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
 
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> testAiStatus() {
@@ -84,7 +87,7 @@ public class AiTestController {
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
             long startTime = System.currentTimeMillis();
-            ResponseEntity<String> apiResponse = restTemplate.exchange(
+            ResponseEntity<String> apiResponse = aiHttpClient.exchange(
                 chatEndpoint,
                 HttpMethod.POST,
                 entity,
@@ -158,7 +161,7 @@ public class AiTestController {
                 HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
                 
                 long startTime = System.currentTimeMillis();
-                ResponseEntity<String> apiResponse = restTemplate.exchange(
+                ResponseEntity<String> apiResponse = aiHttpClient.exchange(
                     endpoint,
                     HttpMethod.POST,
                     entity,
@@ -3,6 +3,7 @@ package com.mediconnect.controller;
 import com.mediconnect.dto.AppointmentDTO;
 import com.mediconnect.dto.AppointmentDetailsDTO;
 import com.mediconnect.dto.PatientDTO;
+import com.mediconnect.exception.SlotUnavailableException;
 import com.mediconnect.service.AppointmentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -120,6 +121,13 @@ public class AppointmentController {
             
             AppointmentDTO createdAppointment = appointmentService.createAppointment(appointmentDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdAppointment);
+        } catch (SlotUnavailableException e) {
+            log.info("Booking rejected for doctor {}: {}", appointmentDTO.getDoctorId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                    "success", false, 
+                    "message", e.getMessage()
+                ));
         } catch (Exception e) {
             log.error("Error creating appointment: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
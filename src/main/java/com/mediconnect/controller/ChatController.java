@@ -1,7 +1,11 @@
 package com.mediconnect.controller;
 
-import com.mediconnect.model.ChatMessage;
+import com.mediconnect.dto.ChatMessageDTO;
+import com.mediconnect.exception.BadRequestException;
 import com.mediconnect.service.ChatService;
+import com.mediconnect.service.chat.ChatHistoryPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -10,15 +14,15 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
 @CrossOrigin(origins = "*")
 public class ChatController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatController.class);
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
     
@@ -26,65 +30,52 @@ public class ChatController {
     private ChatService chatService;
 
     /**
-     * Handle incoming chat messages via WebSocket
+     * Handle incoming chat messages via WebSocket. The message is broadcast as soon as it has
+     * been queued for persistence; the database write happens in the background.
      */
     @MessageMapping("/chat.sendMessage")
-    public void sendMessage(@Payload Map<String, Object> payload) {
+    public void sendMessage(@Payload ChatMessageDTO payload) {
         try {
-            System.out.println("📨 CHAT: Raw payload received: " + payload);
-            
-            // Manually create ChatMessage to handle timestamp parsing
-            ChatMessage chatMessage = new ChatMessage();
-            chatMessage.setAppointmentId(Long.valueOf(payload.get("appointmentId").toString()));
-            chatMessage.setSenderId(Long.valueOf(payload.get("senderId").toString()));
-            chatMessage.setSenderType(payload.get("senderType").toString());
-            chatMessage.setSenderName(payload.get("senderName").toString());
-            chatMessage.setMessageText(payload.get("messageText").toString());
-            
-            // Handle timestamp manually
-            String timestampStr = payload.get("timestamp").toString();
-            if (timestampStr.endsWith("Z")) {
-                timestampStr = timestampStr.substring(0, timestampStr.length() - 1);
-            }
-            chatMessage.setTimestamp(LocalDateTime.parse(timestampStr));
-            
-            System.out.println("📨 CHAT: Parsed message: " + chatMessage.getMessageText());
-            
-            // Save message to database
-            ChatMessage savedMessage = chatService.saveMessage(chatMessage);
-            
-            // Send to specific appointment room
-            String destination = "/topic/appointment/" + chatMessage.getAppointmentId();
-            System.out.println("📤 CHAT: Broadcasting message to: " + destination);
-            
-            messagingTemplate.convertAndSend(destination, savedMessage);
-            
+            ChatMessageDTO accepted = chatService.acceptMessage(payload);
+            messagingTemplate.convertAndSend("/topic/appointment/" + accepted.getAppointmentId(), accepted);
+        } catch (BadRequestException e) {
+            log.warn("Rejected chat message: {}", e.getMessage());
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Error processing message: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error processing chat message: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * REST endpoint to get chat history
+     * REST endpoint to get chat history, newest page first; pass the returned nextBefore as
+     * {@code before} to get the page before it
      */
     @GetMapping("/api/chat/{appointmentId}/messages")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getChatHistory(@PathVariable Long appointmentId) {
+    public ResponseEntity<Map<String, Object>> getChatHistory(
+            @PathVariable Long appointmentId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
         try {
-            System.out.println("📜 CHAT: Getting chat history for appointment: " + appointmentId);
-            
-            List<ChatMessage> messages = chatService.getChatHistory(appointmentId);
+            ChatHistoryPage page = chatService.getChatHistory(appointmentId, before, limit);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", messages);
-            response.put("count", messages.size());
+            response.put("data", page.getMessages());
+            response.put("count", page.getMessages().size());
+            response.put("hasMore", page.isHasMore());
+            response.put("nextBefore", page.getNextBefore());
             
             return ResponseEntity.ok(response);
             
+        } catch (BadRequestException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.badRequest().body(errorResponse);
+            
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Error getting chat history: " + e.getMessage());
+            log.error("Error getting chat history: {}", e.getMessage());
             
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
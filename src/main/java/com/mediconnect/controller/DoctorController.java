@@ -12,6 +12,11 @@ import com.mediconnect.repository.DoctorRepository;
 import com.mediconnect.repository.UserRepository;
 import com.mediconnect.repository.RoleRepository;
 import com.mediconnect.service.FileStorageService;
+import com.mediconnect.service.search.DoctorSearchIndex;
+import com.mediconnect.service.search.DoctorSuggestIndex;
+import com.mediconnect.service.scheduling.DoctorCalendarService;
+import com.mediconnect.service.scheduling.FreeSlot;
+import com.mediconnect.service.scheduling.EarliestSlotFinder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,6 +24,11 @@ import com.mediconnect.security.UserDetailsImpl;
 import jakarta.persistence.Query;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,6 +38,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.persistence.EntityManager;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.regex.Pattern;
@@ -60,6 +72,18 @@ public class DoctorController {
     
     @Autowired
     private AppointmentRepository appointmentRepository;
+    
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+    
+    @Autowired
+    private DoctorSuggestIndex doctorSuggestIndex;
+    
+    @Autowired
+    private DoctorCalendarService doctorCalendarService;
+    
+    @Autowired
+    private EarliestSlotFinder earliestSlotFinder;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -72,6 +96,14 @@ public class DoctorController {
     // Time format validation pattern (HH:MM-HH:MM or "Closed")
     private static final Pattern TIME_PATTERN = Pattern.compile("^(([01]?[0-9]|2[0-3]):[0-5][0-9]-([01]?[0-9]|2[0-3]):[0-5][0-9]|Closed)$");
     
+    // Page size when size is not given, and the upper bound on an explicit size
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    
+    // Columns the search endpoint may sort on
+    private static final Set<String> SEARCH_SORT_PROPERTIES = Set.of(
+        "averageRating", "yearsOfExperience", "consultationFee", "reviewCount", "id");
+    
     @GetMapping("/by-user/{userId}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN')")
     public ResponseEntity<DoctorDTO> getDoctorByUserId(@PathVariable Long userId) {
@@ -298,6 +330,41 @@ public class DoctorController {
         }
     }
 
+    // Free appointment slots of a doctor (Public), served from the in-memory calendar
+    @GetMapping("/{id}/slots")
+    public ResponseEntity<Map<String, Object>> getAvailableSlots(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type) {
+        List<FreeSlot> slots = doctorCalendarService.findFreeSlots(id, from, to, type);
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctorId", id);
+        response.put("slots", slots);
+        response.put("count", slots.size());
+        return ResponseEntity.ok(response);
+    }
+
+    // Earliest free slots across all doctors matching a specialization and city (Public)
+    @GetMapping("/public/slots/earliest")
+    public ResponseEntity<Map<String, Object>> getEarliestSlots(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "0") int perDoctor,
+            @RequestParam(defaultValue = "rating") String sort) {
+        EarliestSlotFinder.SortOrder order = "fee".equalsIgnoreCase(sort)
+            ? EarliestSlotFinder.SortOrder.FEE : EarliestSlotFinder.SortOrder.RATING;
+        List<Map<String, Object>> slots = earliestSlotFinder.findEarliest(
+            specialization, city, type, from, limit, perDoctor, order);
+        Map<String, Object> response = new HashMap<>();
+        response.put("slots", slots);
+        response.put("count", slots.size());
+        return ResponseEntity.ok(response);
+    }
+
     // Search Doctors
     @GetMapping("/search")
     public ResponseEntity<List<DoctorDTO>> searchDoctors(
@@ -306,70 +373,84 @@ public class DoctorController {
             @RequestParam(value = "emergency", required = false) Boolean emergency,
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "city", required = false) String city,
-            @RequestParam(value = "onlineConsultation", required = false) Boolean onlineConsultation) {
+            @RequestParam(value = "onlineConsultation", required = false) Boolean onlineConsultation,
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "sortBy", defaultValue = "averageRating") String sortBy,
+            @RequestParam(value = "sortDirection", defaultValue = "DESC") String sortDirection) {
         try {
             System.out.println("🔍 Searching doctors with criteria");
             
-            List<Doctor> doctors = doctorRepository.findAll();
+            // Only whitelisted columns can be sorted on; unknown values fall back to rating
+            String sortProperty = SEARCH_SORT_PROPERTIES.contains(sortBy) ? sortBy : "averageRating";
+            Sort.Direction direction = "ASC".equalsIgnoreCase(sortDirection) ? Sort.Direction.ASC : Sort.Direction.DESC;
+            Sort sort = Sort.by(direction, sortProperty).and(Sort.by(Sort.Direction.ASC, "id"));
+            // Always paged, so a broad query can never load the whole directory
+            Pageable pageable = PageRequest.of(
+                Math.max(page == null ? 0 : page, 0),
+                Math.min(Math.max(size == null ? DEFAULT_SEARCH_PAGE_SIZE : size, 1), MAX_SEARCH_PAGE_SIZE),
+                sort);
             
-            // Apply filters
-            if (specialization != null && !specialization.trim().isEmpty()) {
-                doctors = doctors.stream()
-                    .filter(d -> d.getSpecialization() != null && 
-                               d.getSpecialization().toLowerCase().contains(specialization.toLowerCase()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (hospital != null && !hospital.trim().isEmpty()) {
-                doctors = doctors.stream()
-                    .filter(d -> d.getHospitalAffiliation() != null && 
-                               d.getHospitalAffiliation().toLowerCase().contains(hospital.toLowerCase()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (city != null && !city.trim().isEmpty()) {
-                doctors = doctors.stream()
-                    .filter(d -> d.getClinicCity() != null && 
-                               d.getClinicCity().toLowerCase().contains(city.toLowerCase()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (emergency != null && emergency) {
-                doctors = doctors.stream()
-                    .filter(Doctor::isAvailableForEmergency)
-                    .collect(Collectors.toList());
-            }
-            
-            if (onlineConsultation != null && onlineConsultation) {
-                doctors = doctors.stream()
-                    .filter(d -> d.getOnlineConsultation() != null && d.getOnlineConsultation())
-                    .collect(Collectors.toList());
-            }
-            
-            if (keyword != null && !keyword.trim().isEmpty()) {
-                String lowerKeyword = keyword.toLowerCase();
-                doctors = doctors.stream()
-                    .filter(d -> 
-                        (d.getUser().getFirstName() != null && d.getUser().getFirstName().toLowerCase().contains(lowerKeyword)) ||
-                        (d.getUser().getLastName() != null && d.getUser().getLastName().toLowerCase().contains(lowerKeyword)) ||
-                        (d.getSpecialization() != null && d.getSpecialization().toLowerCase().contains(lowerKeyword)) ||
-                        (d.getHospitalAffiliation() != null && d.getHospitalAffiliation().toLowerCase().contains(lowerKeyword))
-                    )
-                    .collect(Collectors.toList());
-            }
+            // Boolean filters only narrow the result when explicitly set to true
+            Page<Long> results = doctorRepository.searchDirectoryIds(
+                trimToNull(keyword),
+                trimToNull(specialization),
+                trimToNull(hospital),
+                trimToNull(city),
+                Boolean.TRUE.equals(emergency) ? Boolean.TRUE : null,
+                Boolean.TRUE.equals(onlineConsultation) ? Boolean.TRUE : null,
+                pageable);
             
-            List<DoctorDTO> doctorDTOs = doctors.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+            // Full profiles, as convertToDTO has always returned them, with one query for the
+            // doctors of the page and one for their languages
+            List<DoctorDTO> doctorDTOs = convertPageToDTOs(results.getContent());
                 
-            System.out.println("✅ Found " + doctorDTOs.size() + " doctors matching criteria");
-            return ResponseEntity.ok(doctorDTOs);
+            System.out.println("✅ Found " + results.getTotalElements() + " doctors matching criteria");
+            return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(results.getTotalPages()))
+                .body(doctorDTOs);
         } catch (Exception e) {
             System.err.println("❌ Error searching doctors: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    // Ranked full-text search served from the in-memory DoctorSearchIndex
+    @GetMapping("/search/text")
+    public ResponseEntity<List<DoctorDTO>> fullTextSearchDoctors(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        try {
+            DoctorSearchIndex.SearchPage results = doctorSearchIndex.search(query,
+                Math.max(page, 0), Math.min(Math.max(size, 1), DoctorSearchIndex.MAX_PAGE_SIZE));
+            List<Long> rankedIds = results.getHits().stream()
+                .map(DoctorSearchIndex.SearchHit::getDoctorId)
+                .collect(Collectors.toList());
+            
+            // Same full profiles as /search, in rank order
+            List<DoctorDTO> doctorDTOs = convertPageToDTOs(rankedIds);
+            
+            return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalHits()))
+                .body(doctorDTOs);
+        } catch (Exception e) {
+            System.err.println("❌ Error in full-text doctor search: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Typeahead suggestions for the doctor search box, served from the in-memory trie
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Map<String, Object>>> suggestDoctors(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return ResponseEntity.ok(doctorSuggestIndex.suggest(query, limit));
+    }
+
  // DOCTOR PROFILE MANAGEMENT ENDPOINTS
 
     // 1. Get Current Doctor Profile
@@ -1373,6 +1454,38 @@ public class DoctorController {
 
     // Convert Doctor Entity to DTO
     private DoctorDTO convertToDTO(Doctor doctor) {
+        return convertToDTO(doctor, null);
+    }
+
+    // Loads the doctors of a search page in id order and converts them with their languages
+    private List<DoctorDTO> convertPageToDTOs(List<Long> doctorIds) {
+        if (doctorIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Doctor> doctorsById = doctorRepository.findWithUserByIdIn(doctorIds).stream()
+            .collect(Collectors.toMap(Doctor::getId, doctor -> doctor));
+        
+        Map<Long, List<String>> languagesByDoctor = new HashMap<>();
+        try {
+            for (Object[] row : doctorLanguageRepository.findLanguagesByDoctorIds(doctorIds)) {
+                languagesByDoctor.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Error fetching languages for search results: " + e.getMessage());
+        }
+        
+        List<DoctorDTO> doctorDTOs = new ArrayList<>(doctorIds.size());
+        for (Long id : doctorIds) {
+            Doctor doctor = doctorsById.get(id);
+            if (doctor != null) {
+                doctorDTOs.add(convertToDTO(doctor, languagesByDoctor.getOrDefault(id, new ArrayList<>())));
+            }
+        }
+        return doctorDTOs;
+    }
+
+    // preloadedLanguages: the doctor's languages if already loaded, or null to look them up
+    private DoctorDTO convertToDTO(Doctor doctor, List<String> preloadedLanguages) {
         DoctorDTO dto = new DoctorDTO();
         
         try {
@@ -1467,11 +1580,13 @@ public class DoctorController {
             
             // Get languages safely
             try {
-                List<DoctorLanguage> doctorLanguages = doctorLanguageRepository.findByDoctorId(doctor.getId());
-                if (!doctorLanguages.isEmpty()) {
-                    List<String> languages = doctorLanguages.stream()
+                List<String> languages = preloadedLanguages;
+                if (languages == null) {
+                    languages = doctorLanguageRepository.findByDoctorId(doctor.getId()).stream()
                         .map(DoctorLanguage::getLanguage)
                         .collect(Collectors.toList());
+                }
+                if (!languages.isEmpty()) {
                     dto.setLanguages(languages);
                 } else {
                     dto.setLanguages(Arrays.asList("English", "Hindi"));
@@ -1489,6 +1604,10 @@ public class DoctorController {
         return dto;
     }
 
+    private String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
     // Helper method to parse JSON to List
     private List<Map<String, Object>> parseJsonToList(String jsonString, List<Map<String, Object>> defaultValue) {
         if (jsonString == null || jsonString.trim().isEmpty()) {
@@ -1,18 +1,18 @@
 package com.mediconnect.controller;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -24,6 +24,8 @@ import com.mediconnect.security.UserDetailsImpl;
 import com.mediconnect.service.PatientService;
 import com.mediconnect.service.PdfGenerationService;
 import com.mediconnect.service.RazorpayServiceInterface;
+import com.mediconnect.service.document.CachedDocument;
+import com.mediconnect.util.DocumentResponseUtil;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -166,7 +168,7 @@ public class PaymentReceiptController {
     @GetMapping("/receipt/{paymentId}")
     @PreAuthorize("hasRole('PATIENT') or hasRole('ADMIN') or hasRole('DOCTOR')")
     @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
-    public ResponseEntity<InputStreamResource> downloadReceipt(
+    public CompletableFuture<ResponseEntity<Resource>> downloadReceipt(
             @PathVariable Long paymentId,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
         try {
@@ -178,7 +180,7 @@ public class PaymentReceiptController {
             
             if (patient == null) {
                 log.error("❌ No patient profile found for user: {}", userDetails.getUser().getId());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
             }
 
             // Find payment by ID and verify ownership
@@ -190,56 +192,53 @@ public class PaymentReceiptController {
             
             if (payment == null) {
                 log.error("❌ Payment not found or access denied for payment ID: {}", paymentId);
-                return ResponseEntity.notFound().build();
+                return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
             }
 
             // Check if payment is completed
             if (!"CAPTURED".equals(payment.getStatus().toString())) {
                 log.error("❌ Cannot generate receipt for non-completed payment: {}", paymentId);
-                return ResponseEntity.badRequest().build();
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
             }
 
-            String pdfPath;
+            CompletableFuture<CachedDocument> receiptPdf;
             String fileName;
 
-            // Generate appropriate receipt based on payment type
+            // Generate appropriate receipt based on payment type. A receipt whose content has not
+            // changed comes from the document cache; otherwise it is rendered on the PDF pool and
+            // the request thread is released until it is ready. The response carries an ETag, so
+            // a repeat download with If-None-Match gets a 304, and Range requests are honoured.
             if ("LAB_TEST".equals(payment.getBookingType()) && payment.getLabTestBooking() != null) {
                 log.info("🧪 Generating lab test receipt for payment: {}", paymentId);
-                pdfPath = pdfGenerationService.generateLabTestReceipt(payment, payment.getLabTestBooking());
+                receiptPdf = pdfGenerationService.labTestReceiptAsync(payment, payment.getLabTestBooking());
                 fileName = "lab_test_receipt_" + paymentId + ".pdf";
             } else if (payment.getAppointment() != null) {
                 log.info("🏥 Generating appointment receipt for payment: {}", paymentId);
-                pdfPath = pdfGenerationService.generatePaymentReceipt(payment, payment.getAppointment());
+                receiptPdf = pdfGenerationService.paymentReceiptAsync(payment, payment.getAppointment());
                 fileName = "appointment_receipt_" + paymentId + ".pdf";
             } else {
                 log.error("❌ Invalid payment type for receipt generation: {}", paymentId);
-                return ResponseEntity.badRequest().build();
-            }
-
-            // Serve the PDF file
-            File pdfFile = new File(pdfPath);
-            if (!pdfFile.exists()) {
-                log.error("❌ Generated PDF file not found: {}", pdfPath);
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
             }
 
-            InputStreamResource resource = new InputStreamResource(new FileInputStream(pdfFile));
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
-            headers.add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE);
+            return receiptPdf.handle((pdf, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    log.error("❌ Error generating receipt for payment {}: {}", paymentId, cause.getMessage(), cause);
+                    // Queue full or render timed out: tell the client to retry rather than report a failure
+                    HttpStatus status = cause.getCause() instanceof RejectedExecutionException
+                            || cause.getCause() instanceof TimeoutException
+                            ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+                    return ResponseEntity.status(status).<Resource>build();
+                }
 
-            log.info("✅ Receipt generated successfully for payment: {}", paymentId);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .contentLength(pdfFile.length())
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(resource);
+                log.info("✅ Receipt ready for payment: {}", paymentId);
+                return DocumentResponseUtil.pdfAttachment(pdf, fileName);
+            });
 
         } catch (Exception e) {
             log.error("❌ Error generating receipt for payment {}: {}", paymentId, e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         }
     }
 
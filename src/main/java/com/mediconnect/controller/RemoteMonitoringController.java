@@ -0,0 +1,134 @@
+package com.mediconnect.controller;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import com.mediconnect.dto.DeviceReadingDTO;
+import com.mediconnect.exception.MonitoringException;
+import com.mediconnect.security.WebSocketAuthenticationInterceptor;
+import com.mediconnect.service.monitoring.ReadingIngestionPipeline;
+import com.mediconnect.service.monitoring.ReadingIngestionPipeline.IngestResult;
+import com.mediconnect.service.monitoring.VitalsPushService;
+import com.mediconnect.service.monitoring.archive.DeviceReadingArchiveService;
+
+@RestController
+@RequestMapping("/api/monitoring")
+@CrossOrigin(origins = "*")
+public class RemoteMonitoringController {
+
+    // Hint sent with 429 responses; the drainer normally empties a full queue within a few seconds
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Autowired
+    private ReadingIngestionPipeline ingestionPipeline;
+
+    @Autowired
+    private DeviceReadingArchiveService archiveService;
+
+    @Autowired
+    private VitalsPushService vitalsPushService;
+
+    /**
+     * Bulk ingestion endpoint for wearables. Returns 202 when everything valid was queued and
+     * 429 (with retryFrom) when the ingestion queue is full. Readings for devices of patients the
+     * caller may not write for are rejected.
+     */
+    @PostMapping("/readings/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
+    public ResponseEntity<Map<String, Object>> ingestReadings(@RequestBody List<DeviceReadingDTO> readings,
+                                                              Authentication authentication) {
+        try {
+            IngestResult result = ingestionPipeline.submit(readings, authentication);
+            if (result.isThrottled()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header("Retry-After", RETRY_AFTER_SECONDS)
+                        .body(toResponse(result));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(result));
+        } catch (MonitoringException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/ingest/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        return ResponseEntity.ok(ingestionPipeline.getStats());
+    }
+
+    /**
+     * Writes reading batches that were dead-lettered after failed writes again.
+     */
+    @PostMapping("/ingest/dead-letters/replay")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("replayed", ingestionPipeline.replayDeadLetters());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/archive/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getArchiveStats() {
+        return ResponseEntity.ok(archiveService.getStats());
+    }
+
+    @GetMapping("/vitals/push/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getVitalsPushStats() {
+        return ResponseEntity.ok(vitalsPushService.getStats());
+    }
+
+    /**
+     * STOMP ingestion: clients send a JSON array of readings to /app/monitoring.readings and
+     * receive the same result body as the REST endpoint on /user/queue/monitoring/ingest. The
+     * WebSocket session must be logged in (see WebSocketAuthenticationInterceptor).
+     */
+    @MessageMapping("/monitoring.readings")
+    @SendToUser(destinations = "/queue/monitoring/ingest", broadcast = false)
+    public Map<String, Object> ingestReadingsOverWebSocket(@Payload List<DeviceReadingDTO> readings, Principal principal) {
+        Authentication authentication = WebSocketAuthenticationInterceptor.sessionAuthenticationOf(principal);
+        if (authentication == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Login required");
+            return response;
+        }
+        try {
+            return toResponse(ingestionPipeline.submit(readings, authentication));
+        } catch (MonitoringException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return response;
+        }
+    }
+
+    private Map<String, Object> toResponse(IngestResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", !result.isThrottled());
+        response.put("accepted", result.getAccepted());
+        response.put("rejected", result.getRejected());
+        response.put("queueDepth", result.getQueueDepth());
+        if (result.isThrottled()) {
+            response.put("retryFrom", result.getRetryFrom());
+            response.put("message", "Ingestion queue is full, resend from index " + result.getRetryFrom());
+        }
+        return response;
+    }
+}
@@ -4,9 +4,7 @@ import java.time.LocalDateTime;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,6 +14,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.mediconnect.service.ReportService;
+import com.mediconnect.service.document.CachedDocument;
+import com.mediconnect.util.DocumentResponseUtil;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -26,18 +26,15 @@ public class ReportController {
     
     /**
      * Generate patient medical history report
+     *
+     * Reports are cached until their content changes; responses carry an ETag for conditional
+     * requests and support Range requests.
      */
     @GetMapping("/patient/{patientId}/medical-history")
     @PreAuthorize("hasRole('ADMIN') or @securityService.isPatientWithId(#patientId) or hasRole('DOCTOR')")
-    public ResponseEntity<byte[]> generatePatientMedicalHistoryReport(@PathVariable Long patientId) {
-        byte[] pdfBytes = reportService.generatePatientMedicalHistoryReport(patientId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "patient-medical-history.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    public ResponseEntity<Resource> generatePatientMedicalHistoryReport(@PathVariable Long patientId) {
+        CachedDocument report = reportService.generatePatientMedicalHistoryReport(patientId);
+        return DocumentResponseUtil.pdfAttachment(report, "patient-medical-history.pdf");
     }
     
     /**
@@ -45,19 +42,13 @@ public class ReportController {
      */
     @GetMapping("/doctor/{doctorId}/appointments")
     @PreAuthorize("hasRole('ADMIN') or @securityService.isDoctorWithId(#doctorId)")
-    public ResponseEntity<byte[]> generateDoctorAppointmentReport(
+    public ResponseEntity<Resource> generateDoctorAppointmentReport(
             @PathVariable Long doctorId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         
-        byte[] pdfBytes = reportService.generateDoctorAppointmentReport(doctorId, startDate, endDate);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "doctor-appointment-summary.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+        CachedDocument report = reportService.generateDoctorAppointmentReport(doctorId, startDate, endDate);
+        return DocumentResponseUtil.pdfAttachment(report, "doctor-appointment-summary.pdf");
     }
     
     /**
@@ -65,15 +56,9 @@ public class ReportController {
      */
     @GetMapping("/prescription/{prescriptionId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or @securityService.canAccessPrescription(#prescriptionId)")
-    public ResponseEntity<byte[]> generatePrescriptionReport(@PathVariable Long prescriptionId) {
-        byte[] pdfBytes = reportService.generatePrescriptionReport(prescriptionId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "prescription.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    public ResponseEntity<Resource> generatePrescriptionReport(@PathVariable Long prescriptionId) {
+        CachedDocument report = reportService.generatePrescriptionReport(prescriptionId);
+        return DocumentResponseUtil.pdfAttachment(report, "prescription.pdf");
     }
     
     /**
@@ -81,15 +66,9 @@ public class ReportController {
      */
     @GetMapping("/ai-diagnosis/{aiDiagnosisId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or @securityService.canAccessAiDiagnosis(#aiDiagnosisId)")
-    public ResponseEntity<byte[]> generateAiDiagnosisReport(@PathVariable Long aiDiagnosisId) {
-        byte[] pdfBytes = reportService.generateAiDiagnosisReport(aiDiagnosisId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "ai-diagnosis-report.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    public ResponseEntity<Resource> generateAiDiagnosisReport(@PathVariable Long aiDiagnosisId) {
+        CachedDocument report = reportService.generateAiDiagnosisReport(aiDiagnosisId);
+        return DocumentResponseUtil.pdfAttachment(report, "ai-diagnosis-report.pdf");
     }
     
     /**
@@ -97,14 +76,8 @@ public class ReportController {
      */
     @GetMapping("/payment/{paymentId}/invoice")
     @PreAuthorize("hasRole('ADMIN') or @securityService.canAccessPayment(#paymentId)")
-    public ResponseEntity<byte[]> generatePaymentInvoice(@PathVariable Long paymentId) {
-        byte[] pdfBytes = reportService.generatePaymentInvoice(paymentId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "invoice.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    public ResponseEntity<Resource> generatePaymentInvoice(@PathVariable Long paymentId) {
+        CachedDocument report = reportService.generatePaymentInvoice(paymentId);
+        return DocumentResponseUtil.pdfAttachment(report, "invoice.pdf");
     }
 }
\ No newline at end of file
@@ -2,18 +2,22 @@ package com.mediconnect.controller;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.mediconnect.dto.VitalSignDTO;
 import com.mediconnect.model.VitalSign;
 import com.mediconnect.service.VitalSignService;
+import com.mediconnect.service.monitoring.VitalsPushService;
 
 import jakarta.validation.Valid;
 
@@ -24,6 +28,9 @@ public class VitalSignsController {
     @Autowired
     private VitalSignService vitalSignService;
 
+    @Autowired
+    private VitalsPushService vitalsPushService;
+
     @GetMapping("/patient/{patientId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or @securityService.isPatientWithId(#patientId)")
     public ResponseEntity<List<VitalSign>> getVitalSignsByPatientId(@PathVariable Long patientId) {
@@ -62,6 +69,25 @@ List<VitalSignDTO> vitalSignDTOs = vitalSigns.stream()
 return new ResponseEntity<>(vitalSignDTOs, HttpStatus.OK);
     }
 
+    /**
+     * Latest value per type from the in-memory live snapshot; replaces polling /latest.
+     */
+    @GetMapping("/patient/{patientId}/live")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or @securityService.isPatientWithId(#patientId)")
+    public ResponseEntity<Map<String, Object>> getLiveVitalSigns(@PathVariable Long patientId) {
+        return new ResponseEntity<>(vitalsPushService.getSnapshot(patientId), HttpStatus.OK);
+    }
+
+    /**
+     * STOMP: subscribing to /app/vitals/{patientId} returns the current snapshot once; live
+     * changes then arrive on /topic/vitals/{patientId}. Both subscriptions are only let through
+     * for the patient, their doctors and admins (see WebSocketAuthenticationInterceptor).
+     */
+    @SubscribeMapping("/vitals/{patientId}")
+    public Map<String, Object> subscribeToVitals(@DestinationVariable Long patientId) {
+        return vitalsPushService.getSnapshot(patientId);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or hasRole('PATIENT')")
     public ResponseEntity<VitalSign> addVitalSign(@Valid @RequestBody VitalSignDTO vitalSignDTO) {
@@ -101,4 +127,14 @@ return new ResponseEntity<>(vitalSignDTOs, HttpStatus.OK);
         List<VitalSign> vitalSigns = vitalSignService.getVitalSignHistoryForAnalytics(patientId, vitalType, timeFrame);
         return new ResponseEntity<>(vitalSigns, HttpStatus.OK);
     }
+
+    @GetMapping("/patient/{patientId}/analytics/{vitalType}/trend")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR') or @securityService.isPatientWithId(#patientId)")
+    public ResponseEntity<Map<String, Object>> getVitalSignTrend(
+            @PathVariable Long patientId,
+            @PathVariable String vitalType,
+            @RequestParam(required = false) String timeFrame) {
+        Map<String, Object> trend = vitalSignService.getVitalSignTrend(patientId, vitalType, timeFrame);
+        return new ResponseEntity<>(trend, HttpStatus.OK);
+    }
 }
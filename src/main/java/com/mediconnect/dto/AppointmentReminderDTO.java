@@ -0,0 +1,46 @@
+package com.mediconnect.dto;
+
+import java.time.OffsetDateTime;
+
+import com.mediconnect.model.Appointment.AppointmentType;
+
+/**
+ * The fields a reminder email needs, selected directly so reminder runs never load
+ * appointment entity graphs.
+ */
+public class AppointmentReminderDTO {
+    private final Long appointmentId;
+    private final OffsetDateTime appointmentDateTime;
+    private final String appointmentType;
+    private final String patientFirstName;
+    private final String patientLastName;
+    private final String patientEmail;
+    private final String doctorFirstName;
+    private final String doctorLastName;
+    private final String doctorEmail;
+
+    public AppointmentReminderDTO(Long appointmentId, OffsetDateTime appointmentDateTime, AppointmentType appointmentType,
+                                  String patientFirstName, String patientLastName, String patientEmail,
+                                  String doctorFirstName, String doctorLastName, String doctorEmail) {
+        this.appointmentId = appointmentId;
+        this.appointmentDateTime = appointmentDateTime;
+        this.appointmentType = appointmentType != null ? appointmentType.toString() : null;
+        this.patientFirstName = patientFirstName;
+        this.patientLastName = patientLastName;
+        this.patientEmail = patientEmail;
+        this.doctorFirstName = doctorFirstName;
+        this.doctorLastName = doctorLastName;
+        this.doctorEmail = doctorEmail;
+    }
+
+    // ======= Getters =======
+    public Long getAppointmentId() { return appointmentId; }
+    public OffsetDateTime getAppointmentDateTime() { return appointmentDateTime; }
+    public String getAppointmentType() { return appointmentType; }
+    public String getPatientFirstName() { return patientFirstName; }
+    public String getPatientLastName() { return patientLastName; }
+    public String getPatientEmail() { return patientEmail; }
+    public String getDoctorFirstName() { return doctorFirstName; }
+    public String getDoctorLastName() { return doctorLastName; }
+    public String getDoctorEmail() { return doctorEmail; }
+}
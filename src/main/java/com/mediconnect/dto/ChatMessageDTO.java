@@ -0,0 +1,137 @@
+package com.mediconnect.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mediconnect.model.ChatMessage;
+
+/**
+ * Chat message as it travels over STOMP: sent by clients to /app/chat.sendMessage and
+ * broadcast to /topic/appointment/{appointmentId}.
+ *
+ * messageId identifies a message before it has a database id, which it only gets once the
+ * write-behind queue has flushed it; the server always assigns it. To match the broadcast to
+ * the message they sent, clients may send a clientMessageId, which is echoed in the broadcast
+ * only and never stored. The timestamp is the time the server received the message, so
+ * ordering does not depend on client clocks.
+ */
+public class ChatMessageDTO {
+
+    private String messageId;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String clientMessageId;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+
+    private Long appointmentId;
+    private Long senderId;
+    private String senderType;
+    private String senderName;
+    private String messageText;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Boolean isRead;
+
+    public static ChatMessageDTO from(ChatMessage message) {
+        ChatMessageDTO dto = new ChatMessageDTO();
+        // Rows from before message keys existed get the same key the startup backfill gives them
+        dto.setMessageId(message.getMessageKey() != null ? message.getMessageKey() : "m-" + message.getId());
+        dto.setId(message.getId());
+        dto.setAppointmentId(message.getAppointmentId());
+        dto.setSenderId(message.getSenderId());
+        dto.setSenderType(message.getSenderType());
+        dto.setSenderName(message.getSenderName());
+        dto.setMessageText(message.getMessageText());
+        dto.setTimestamp(message.getTimestamp());
+        dto.setIsRead(message.getIsRead());
+        return dto;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getClientMessageId() {
+        return clientMessageId;
+    }
+
+    public void setClientMessageId(String clientMessageId) {
+        this.clientMessageId = clientMessageId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId;
+    }
+
+    public String getSenderType() {
+        return senderType;
+    }
+
+    public void setSenderType(String senderType) {
+        this.senderType = senderType;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public void setMessageText(String messageText) {
+        this.messageText = messageText;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Boolean getIsRead() {
+        return isRead;
+    }
+
+    public void setIsRead(Boolean isRead) {
+        this.isRead = isRead;
+    }
+}
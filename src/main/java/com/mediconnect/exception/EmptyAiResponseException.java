@@ -0,0 +1,19 @@
+package com.mediconnect.exception;
+
+/**
+ * Thrown when a model call succeeded but produced no usable answer (no generated text, or a
+ * body that is not the expected array). Thrown inside AiResponseCache calls so that nothing
+ * is cached; callers answer with their fallback text instead.
+ */
+public class EmptyAiResponseException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EmptyAiResponseException(String message) {
+        super(message);
+    }
+
+    public EmptyAiResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
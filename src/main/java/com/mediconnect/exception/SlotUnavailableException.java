@@ -0,0 +1,18 @@
+package com.mediconnect.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class SlotUnavailableException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public SlotUnavailableException(String message) {
+        super(message);
+    }
+    
+    public SlotUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
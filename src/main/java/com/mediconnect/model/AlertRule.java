@@ -2,7 +2,10 @@ package com.mediconnect.model;
 
 import java.time.LocalDateTime;
 
+import com.mediconnect.service.monitoring.AlertRuleIndexListener;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -13,6 +16,7 @@ import lombok.Data;
 
 @Entity
 @Table(name = "alert_rules")
+@EntityListeners(AlertRuleIndexListener.class)
 @Data
 public class AlertRule {
     
@@ -96,6 +100,22 @@ public class AlertRule {
 		this.lastTriggeredAt = lastTriggeredAt;
 	}
 
+	public Integer getWindowMinutes() {
+		return windowMinutes;
+	}
+
+	public void setWindowMinutes(Integer windowMinutes) {
+		this.windowMinutes = windowMinutes;
+	}
+
+	public Double getClearThreshold() {
+		return clearThreshold;
+	}
+
+	public void setClearThreshold(Double clearThreshold) {
+		this.clearThreshold = clearThreshold;
+	}
+
 	@Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -119,4 +139,10 @@ public class AlertRule {
     private LocalDateTime createdAt;
     
     private LocalDateTime lastTriggeredAt;
+    
+    // Look-back window for RATE_OF_CHANGE and duration for SUSTAINED_ABOVE/SUSTAINED_BELOW
+    private Integer windowMinutes;
+    
+    // When set, a triggered rule stays silent until the value crosses back past this level
+    private Double clearThreshold;
 }
\ No newline at end of file
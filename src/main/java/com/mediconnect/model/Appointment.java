@@ -4,14 +4,17 @@ import java.time.OffsetDateTime;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.mediconnect.service.scheduling.DoctorCalendarListener;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -25,7 +28,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appointments_doctor_time", columnList = "doctor_id, appointment_date_time"),
+    @Index(name = "uk_appointments_doctor_slot", columnList = "doctor_id, slot_start", unique = true),
+    @Index(name = "idx_appointments_hold_expires", columnList = "hold_expires_at"),
+    @Index(name = "idx_appointments_status_time", columnList = "status, appointment_date_time")
+})
+@EntityListeners(DoctorCalendarListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -166,7 +175,19 @@ public class Appointment {
 
 	public void setVideoRoomName(String videoRoomName) {
 		this.videoRoomName = videoRoomName;
-	}  
+	}
+
+    public OffsetDateTime getSlotStart() {
+        return slotStart;
+    }
+
+    public OffsetDateTime getHoldExpiresAt() {
+        return holdExpiresAt;
+    }
+
+    public void setHoldExpiresAt(OffsetDateTime holdExpiresAt) {
+        this.holdExpiresAt = holdExpiresAt;
+    }  
 	
 
     @Id
@@ -210,6 +231,15 @@ public class Appointment {
     
     @Column(name = "video_room_name")
     private String videoRoomName;
+
+    // Copy of appointmentDateTime while the appointment holds its slot, NULL once cancelled.
+    // The unique (doctor_id, slot_start) index makes a second booking of the same slot fail.
+    @Column(name = "slot_start")
+    private OffsetDateTime slotStart;
+
+    // Unpaid bookings made while a payment hold is configured are cancelled after this time
+    @Column(name = "hold_expires_at")
+    private OffsetDateTime holdExpiresAt;
     
     @OneToOne(mappedBy = "appointment")
     @JsonIgnoreProperties("appointment")
@@ -237,11 +267,20 @@ public class Appointment {
         if (isPaid == null) {
             isPaid = false;
         }
+        syncSlot();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = OffsetDateTime.now();
+        syncSlot();
+    }
+
+    private void syncSlot() {
+        slotStart = status == AppointmentStatus.cancelled ? null : appointmentDateTime;
+        if (Boolean.TRUE.equals(isPaid) || status != AppointmentStatus.upcoming) {
+            holdExpiresAt = null;
+        }
     }
 
     public enum AppointmentType {
@@ -0,0 +1,48 @@
+package com.mediconnect.model;
+
+import java.time.OffsetDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Marks that a reminder of one kind went out for an appointment. The unique key is what
+ * guarantees a reminder is sent at most once, whichever node or run picks it up.
+ */
+@Entity
+@Table(name = "appointment_reminder_log", indexes = {
+    @Index(name = "uk_appointment_reminder_log_kind", columnList = "appointment_id, reminder_kind", unique = true)
+})
+public class AppointmentReminderLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    @Column(name = "reminder_kind", nullable = false, length = 40)
+    private String reminderKind;
+
+    @Column(name = "sent_at", nullable = false)
+    private OffsetDateTime sentAt;
+
+    // ====== Getters and Setters =====
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getAppointmentId() { return appointmentId; }
+    public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+
+    public String getReminderKind() { return reminderKind; }
+    public void setReminderKind(String reminderKind) { this.reminderKind = reminderKind; }
+
+    public OffsetDateTime getSentAt() { return sentAt; }
+    public void setSentAt(OffsetDateTime sentAt) { this.sentAt = sentAt; }
+}
@@ -5,13 +5,20 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    @Index(name = "uk_chat_messages_message_key", columnList = "message_key", unique = true),
+    @Index(name = "idx_chat_messages_history", columnList = "appointment_id, timestamp, message_key")
+})
 public class ChatMessage {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Assigned when the message is received, before it is written; see ChatMessageDTO
+    @Column(name = "message_key", length = 36)
+    private String messageKey;
+    
     @Column(name = "appointment_id", nullable = false)
     private Long appointmentId;
     
@@ -60,6 +67,14 @@ public class ChatMessage {
         this.id = id;
     }
 
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public void setMessageKey(String messageKey) {
+        this.messageKey = messageKey;
+    }
+
     public Long getAppointmentId() {
         return appointmentId;
     }
@@ -120,6 +135,7 @@ public class ChatMessage {
     public String toString() {
         return "ChatMessage{" +
                 "id=" + id +
+                ", messageKey='" + messageKey + '\'' +
                 ", appointmentId=" + appointmentId +
                 ", senderId=" + senderId +
                 ", senderType='" + senderType + '\'' +
@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -17,7 +18,10 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 @Entity
-@Table(name = "device_readings")
+@Table(name = "device_readings", indexes = {
+    @Index(name = "idx_device_readings_device_type_time", columnList = "device_id, reading_type, timestamp"),
+    @Index(name = "idx_device_readings_timestamp", columnList = "timestamp")
+})
 @Data
 public class DeviceReading {
     
@@ -0,0 +1,98 @@
+package com.mediconnect.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+/**
+ * One sealed, compressed block of device readings: everything a single device reported on
+ * one day once that day moved out of the hot device_readings table.
+ *
+ * The payload is produced by ReadingBlockCodec and is grouped per reading type, so readers
+ * interested in one type can skip the rest without decoding it.
+ */
+@Entity
+@Table(name = "device_reading_archives", indexes = {
+    @Index(name = "uk_device_reading_archives_device_day", columnList = "device_id, block_day", unique = true),
+    @Index(name = "idx_device_reading_archives_patient_day", columnList = "patient_id, block_day")
+})
+public class DeviceReadingArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Primary key of monitoring_devices
+    @Column(name = "device_id", nullable = false)
+    private Long devicePk;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "block_day", nullable = false)
+    private LocalDate blockDay;
+
+    @Column(name = "reading_count", nullable = false)
+    private int readingCount;
+
+    @Column(name = "first_time", nullable = false)
+    private LocalDateTime firstTime;
+
+    @Column(name = "last_time", nullable = false)
+    private LocalDateTime lastTime;
+
+    @Column(name = "codec_version", nullable = false)
+    private int codecVersion;
+
+    @Column(name = "payload_bytes", nullable = false)
+    private int payloadBytes;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] payload;
+
+    @Column(name = "sealed_at", nullable = false)
+    private LocalDateTime sealedAt;
+
+    // ====== Getters and Setters =====
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getDevicePk() { return devicePk; }
+    public void setDevicePk(Long devicePk) { this.devicePk = devicePk; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public LocalDate getBlockDay() { return blockDay; }
+    public void setBlockDay(LocalDate blockDay) { this.blockDay = blockDay; }
+
+    public int getReadingCount() { return readingCount; }
+    public void setReadingCount(int readingCount) { this.readingCount = readingCount; }
+
+    public LocalDateTime getFirstTime() { return firstTime; }
+    public void setFirstTime(LocalDateTime firstTime) { this.firstTime = firstTime; }
+
+    public LocalDateTime getLastTime() { return lastTime; }
+    public void setLastTime(LocalDateTime lastTime) { this.lastTime = lastTime; }
+
+    public int getCodecVersion() { return codecVersion; }
+    public void setCodecVersion(int codecVersion) { this.codecVersion = codecVersion; }
+
+    public int getPayloadBytes() { return payloadBytes; }
+    public void setPayloadBytes(int payloadBytes) { this.payloadBytes = payloadBytes; }
+
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+
+    public LocalDateTime getSealedAt() { return sealedAt; }
+    public void setSealedAt(LocalDateTime sealedAt) { this.sealedAt = sealedAt; }
+}
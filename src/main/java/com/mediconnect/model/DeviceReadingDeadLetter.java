@@ -0,0 +1,61 @@
+package com.mediconnect.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A batch of ingested device readings that could not be written to device_readings after all
+ * retries. The readings are kept as a JSON array so they can be replayed once the cause is
+ * fixed; replayed_at is set when a replay has written them.
+ */
+@Entity
+@Table(name = "device_reading_dead_letters", indexes = {
+    @Index(name = "idx_device_reading_dead_letters_pending", columnList = "replayed_at, id")
+})
+public class DeviceReadingDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "reading_count", nullable = false)
+    private int readingCount;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+
+    // ====== Getters and Setters =====
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public int getReadingCount() { return readingCount; }
+    public void setReadingCount(int readingCount) { this.readingCount = readingCount; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getReplayedAt() { return replayedAt; }
+    public void setReplayedAt(LocalDateTime replayedAt) { this.replayedAt = replayedAt; }
+}
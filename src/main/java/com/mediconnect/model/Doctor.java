@@ -6,9 +6,11 @@ import java.util.HashSet;
 import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.mediconnect.service.search.DoctorSearchIndexListener;
 
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 @Entity
+@EntityListeners(DoctorSearchIndexListener.class)
 @Table(name = "doctors")
 public class Doctor {
     @Id
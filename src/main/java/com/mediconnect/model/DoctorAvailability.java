@@ -4,9 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
 import com.mediconnect.model.AppointmentType;
+import com.mediconnect.service.scheduling.DoctorCalendarListener;
 
 @Entity
 @Table(name = "doctor_availability")
+@EntityListeners(DoctorCalendarListener.class)
 public class DoctorAvailability {
 
     @Id
@@ -0,0 +1,117 @@
+package com.mediconnect.model;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A daily medication reminder for one prescription item at one time of day.
+ *
+ * next_fire_at is the only column the scheduler scans (through its index, never the whole
+ * table). A node that intends to fire a reminder first takes a lease on it by writing its
+ * claim token to lease_owner; firing advances next_fire_at conditionally on that token, so a
+ * reminder occurrence is delivered by exactly one node.
+ */
+@Entity
+@Table(name = "medication_reminders", indexes = {
+    @Index(name = "uk_medication_reminders_item_time", columnList = "medication_id, reminder_time", unique = true),
+    @Index(name = "idx_medication_reminders_due", columnList = "active, next_fire_at"),
+    @Index(name = "idx_medication_reminders_lease_owner", columnList = "lease_owner")
+})
+public class MedicationReminder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    // Primary key of prescription_items
+    @Column(name = "medication_id", nullable = false)
+    private Long medicationId;
+
+    @Column(name = "medication_name")
+    private String medicationName;
+
+    private String dosage;
+
+    // As given by the prescription, e.g. "09:00 AM, after meal"
+    @Column(name = "reminder_time", nullable = false, length = 100)
+    private String reminderTime;
+
+    @Column(name = "time_of_day", nullable = false)
+    private LocalTime timeOfDay;
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+
+    // Null once the reminder has no further occurrences
+    @Column(name = "next_fire_at")
+    private LocalDateTime nextFireAt;
+
+    @Column(name = "last_fired_at")
+    private LocalDateTime lastFiredAt;
+
+    @Column(nullable = false)
+    private boolean active = true;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // ====== Getters and Setters =====
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+
+    public Long getMedicationId() { return medicationId; }
+    public void setMedicationId(Long medicationId) { this.medicationId = medicationId; }
+
+    public String getMedicationName() { return medicationName; }
+    public void setMedicationName(String medicationName) { this.medicationName = medicationName; }
+
+    public String getDosage() { return dosage; }
+    public void setDosage(String dosage) { this.dosage = dosage; }
+
+    public String getReminderTime() { return reminderTime; }
+    public void setReminderTime(String reminderTime) { this.reminderTime = reminderTime; }
+
+    public LocalTime getTimeOfDay() { return timeOfDay; }
+    public void setTimeOfDay(LocalTime timeOfDay) { this.timeOfDay = timeOfDay; }
+
+    public LocalDateTime getValidUntil() { return validUntil; }
+    public void setValidUntil(LocalDateTime validUntil) { this.validUntil = validUntil; }
+
+    public LocalDateTime getNextFireAt() { return nextFireAt; }
+    public void setNextFireAt(LocalDateTime nextFireAt) { this.nextFireAt = nextFireAt; }
+
+    public LocalDateTime getLastFiredAt() { return lastFiredAt; }
+    public void setLastFiredAt(LocalDateTime lastFiredAt) { this.lastFiredAt = lastFiredAt; }
+
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,119 @@
+package com.mediconnect.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Pre-aggregated statistics for one patient / reading type / time bucket.
+ *
+ * Rows are written only by ReadingRollupService (batched INSERT ... ON DUPLICATE KEY UPDATE),
+ * so this entity is read-only from JPA's point of view. Besides the usual moments, each row
+ * keeps time sums relative to its bucket start (in seconds) so a least-squares trend over
+ * many buckets is exact rather than an average of averages.
+ */
+@Entity
+@Table(name = "reading_rollups", indexes = {
+    @Index(name = "uk_reading_rollups_bucket",
+           columnList = "source, patient_id, reading_type, resolution, bucket_start", unique = true)
+})
+public class ReadingRollup {
+
+    public enum Source {
+        DEVICE, VITAL
+    }
+
+    public enum Resolution {
+        MINUTE, HOUR, DAY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 10)
+    private Source source;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "reading_type", nullable = false, length = 100)
+    private String readingType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false, length = 10)
+    private Resolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private long sampleCount;
+
+    @Column(name = "sum_value", nullable = false)
+    private double sumValue;
+
+    @Column(name = "sum_squares", nullable = false)
+    private double sumSquares;
+
+    @Column(name = "min_value", nullable = false)
+    private double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private double maxValue;
+
+    // Sums of t, t^2 and t*value, with t = seconds since bucket_start
+    @Column(name = "sum_t", nullable = false)
+    private double sumT;
+
+    @Column(name = "sum_tt", nullable = false)
+    private double sumTT;
+
+    @Column(name = "sum_tv", nullable = false)
+    private double sumTV;
+
+    @Column(name = "first_time", nullable = false)
+    private LocalDateTime firstTime;
+
+    @Column(name = "first_value", nullable = false)
+    private double firstValue;
+
+    @Column(name = "last_time", nullable = false)
+    private LocalDateTime lastTime;
+
+    @Column(name = "last_value", nullable = false)
+    private double lastValue;
+
+    @Column(name = "unit", length = 50)
+    private String unit;
+
+    // ====== Getters =====
+    public Long getId() { return id; }
+    public Source getSource() { return source; }
+    public Long getPatientId() { return patientId; }
+    public String getReadingType() { return readingType; }
+    public Resolution getResolution() { return resolution; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public long getSampleCount() { return sampleCount; }
+    public double getSumValue() { return sumValue; }
+    public double getSumSquares() { return sumSquares; }
+    public double getMinValue() { return minValue; }
+    public double getMaxValue() { return maxValue; }
+    public double getSumT() { return sumT; }
+    public double getSumTT() { return sumTT; }
+    public double getSumTV() { return sumTV; }
+    public LocalDateTime getFirstTime() { return firstTime; }
+    public double getFirstValue() { return firstValue; }
+    public LocalDateTime getLastTime() { return lastTime; }
+    public double getLastValue() { return lastValue; }
+    public String getUnit() { return unit; }
+}
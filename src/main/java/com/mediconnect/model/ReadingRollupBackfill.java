@@ -0,0 +1,61 @@
+package com.mediconnect.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import com.mediconnect.model.ReadingRollup.Source;
+
+/**
+ * Marks that one node has taken on the one-time rollup backfill of a source. Rollup upserts
+ * add to existing buckets, so the unique key is what keeps two nodes starting at the same
+ * time from counting the same raw rows twice.
+ */
+@Entity
+@Table(name = "reading_rollup_backfills", indexes = {
+    @Index(name = "uk_reading_rollup_backfills_source", columnList = "source", unique = true)
+})
+public class ReadingRollupBackfill {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 10)
+    private Source source;
+
+    // Highest raw id covered by the backfill; newer rows were recorded live
+    @Column(name = "up_to_id", nullable = false)
+    private Long upToId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // ====== Getters and Setters =====
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Source getSource() { return source; }
+    public void setSource(Source source) { this.source = source; }
+
+    public Long getUpToId() { return upToId; }
+    public void setUpToId(Long upToId) { this.upToId = upToId; }
+
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
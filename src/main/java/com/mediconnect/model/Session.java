@@ -3,8 +3,17 @@ package com.mediconnect.model;
 import java.time.LocalDateTime;
 import jakarta.persistence.*;
 
+import com.mediconnect.security.AuthenticationCacheListener;
+import com.mediconnect.util.TokenHashUtil;
+
 @Entity
-@Table(name = "sessions")
+@EntityListeners(AuthenticationCacheListener.class)
+@Table(name = "sessions", indexes = {
+    @Index(name = "uk_sessions_jwt_token_hash", columnList = "jwt_token_hash", unique = true),
+    @Index(name = "uk_sessions_session_token_hash", columnList = "session_token_hash", unique = true),
+    @Index(name = "idx_sessions_logout_time", columnList = "logout_time"),
+    @Index(name = "idx_sessions_login_time", columnList = "login_time")
+})
 public class Session {
 
     @Id
@@ -21,6 +30,13 @@ public class Session {
     @Column(name = "session_token", nullable = false, length = 500)
     private String sessionToken;
 
+    // SHA-256 of the tokens above; all lookups go through these narrow indexed columns
+    @Column(name = "jwt_token_hash", length = 64)
+    private String jwtTokenHash;
+
+    @Column(name = "session_token_hash", length = 64)
+    private String sessionTokenHash;
+
     @Column(name = "remember_me", nullable = false)
     private boolean rememberMe;
 
@@ -39,6 +55,13 @@ public class Session {
         this.rememberMe = rememberMe;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void refreshTokenHashes() {
+        this.jwtTokenHash = TokenHashUtil.sha256Hex(jwtToken);
+        this.sessionTokenHash = TokenHashUtil.sha256Hex(sessionToken);
+    }
+
     public Long getId() {
         return id;
     }
@@ -64,6 +87,14 @@ public class Session {
         this.sessionToken = sessionToken;
     }
 
+    public String getJwtTokenHash() {
+        return jwtTokenHash;
+    }
+
+    public String getSessionTokenHash() {
+        return sessionTokenHash;
+    }
+
     public boolean isRememberMe() {
         return rememberMe;
     }
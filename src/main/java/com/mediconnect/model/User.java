@@ -6,6 +6,7 @@ import java.util.Set;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -24,7 +25,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.mediconnect.security.AuthenticationCacheListener;
+import com.mediconnect.service.search.DoctorSearchIndexListener;
+
 @Entity
+@EntityListeners({DoctorSearchIndexListener.class, AuthenticationCacheListener.class})
 @Table(name = "users")
 @Data
 @NoArgsConstructor
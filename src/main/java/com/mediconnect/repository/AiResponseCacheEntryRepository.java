@@ -0,0 +1,40 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.AiResponseCacheEntry;
+
+@Repository
+public interface AiResponseCacheEntryRepository extends JpaRepository<AiResponseCacheEntry, Long> {
+
+    Optional<AiResponseCacheEntry> findByCacheKey(String cacheKey);
+
+    // Replaces the response of an existing key, e.g. one that expired or was stored by another node
+    @Modifying
+    @Transactional
+    @Query("UPDATE AiResponseCacheEntry e SET e.response = :response, e.createdAt = :createdAt, e.expiresAt = :expiresAt " +
+           "WHERE e.cacheKey = :cacheKey")
+    int replace(
+            @Param("cacheKey") String cacheKey,
+            @Param("response") String response,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AiResponseCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AiResponseCacheEntry e WHERE e.useCase = :useCase")
+    int deleteByUseCase(@Param("useCase") String useCase);
+}
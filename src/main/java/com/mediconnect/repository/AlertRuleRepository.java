@@ -3,6 +3,7 @@ package com.mediconnect.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.mediconnect.model.AlertRule;
@@ -12,4 +13,10 @@ public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
     
     List<AlertRule> findByPatientIdAndReadingType(Long patientId, String readingType);
     
-}
\ No newline at end of file
+    // Rows of [id, patient id, readingType, conditionType, thresholdValue, windowMinutes,
+    // clearThreshold, ruleName, alertLevel] for compiling the in-memory rule index
+    @Query("SELECT r.id, r.patient.id, r.readingType, r.conditionType, r.thresholdValue, r.windowMinutes, " +
+           "r.clearThreshold, r.ruleName, r.alertLevel FROM AlertRule r")
+    List<Object[]> findAllForCompilation();
+    
+}
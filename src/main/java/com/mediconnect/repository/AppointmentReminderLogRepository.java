@@ -0,0 +1,32 @@
+package com.mediconnect.repository;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.AppointmentReminderLog;
+
+@Repository
+public interface AppointmentReminderLogRepository extends JpaRepository<AppointmentReminderLog, Long> {
+
+    // Returns 1 if this caller recorded the reminder, 0 if it was already recorded
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO appointment_reminder_log (appointment_id, reminder_kind, sent_at) " +
+                   "VALUES (:appointmentId, :kind, :sentAt)",
+           nativeQuery = true)
+    int claim(
+            @Param("appointmentId") Long appointmentId,
+            @Param("kind") String kind,
+            @Param("sentAt") OffsetDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AppointmentReminderLog l WHERE l.appointmentId = :appointmentId AND l.reminderKind = :kind")
+    int release(@Param("appointmentId") Long appointmentId, @Param("kind") String kind);
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.mediconnect.dto.AppointmentReminderDTO;
 import com.mediconnect.model.Appointment;
 import com.mediconnect.model.Appointment.AppointmentStatus;
 import com.mediconnect.model.Appointment.AppointmentType;
@@ -26,6 +27,10 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByDoctorIdAndStatus(Long doctorId, AppointmentStatus status);
     
     List<Appointment> findByPatientIdAndStatus(Long patientId, AppointmentStatus status);
+
+    // Whether the doctor with this user account has ever had an appointment with the patient
+    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.doctor.user.id = :userId AND a.patient.id = :patientId")
+    boolean isDoctorOfPatient(@Param("userId") Long doctorUserId, @Param("patientId") Long patientId);
     
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND " +
            "a.appointmentDateTime BETWEEN :startDate AND :endDate")
@@ -69,10 +74,24 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findTodaysAppointments();
     
     /**
-     * NEW: Find appointments coming up in the next X hours for reminders
+     * One keyset page of appointments starting in (from, to] that have no reminder of the given
+     * kind yet, ordered by (appointmentDateTime, id) and resuming after (afterTime, afterId)
      */
-    @Query("SELECT a FROM Appointment a WHERE a.appointmentDateTime BETWEEN CURRENT_TIMESTAMP AND :futureTime AND a.status = 'upcoming'")
-    List<Appointment> findUpcomingAppointmentsInNextHours(@Param("futureTime") OffsetDateTime futureTime);
+    @Query("SELECT new com.mediconnect.dto.AppointmentReminderDTO(a.id, a.appointmentDateTime, a.appointmentType, " +
+           "pu.firstName, pu.lastName, pu.email, du.firstName, du.lastName, du.email) " +
+           "FROM Appointment a JOIN a.patient p JOIN p.user pu JOIN a.doctor d JOIN d.user du " +
+           "WHERE a.status = :status AND a.appointmentDateTime > :from AND a.appointmentDateTime <= :to " +
+           "AND (a.appointmentDateTime > :afterTime OR (a.appointmentDateTime = :afterTime AND a.id > :afterId)) " +
+           "AND NOT EXISTS (SELECT l.id FROM AppointmentReminderLog l WHERE l.appointmentId = a.id AND l.reminderKind = :kind) " +
+           "ORDER BY a.appointmentDateTime, a.id")
+    List<AppointmentReminderDTO> findReminderCandidates(
+            @Param("kind") String kind,
+            @Param("status") AppointmentStatus status,
+            @Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to,
+            @Param("afterTime") OffsetDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
     
     /**
      * NEW: Find unpaid appointments that are coming up (for payment reminders)
@@ -112,20 +131,69 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             Pageable pageable);
     
     /**
-     * Find overlapping appointments for a doctor
+     * Candidate overlaps for a doctor: appointments starting in [earliestStart, endTime).
+     * Callers pass earliestStart = startTime minus the longest possible appointment and drop
+     * candidates that end before startTime, which keeps the predicate on the indexed column.
      */
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND " +
-           "a.status <> 'CANCELLED' AND " +
-           "((a.appointmentDateTime <= :endTime AND " +
-           "a.appointmentDateTime >= :startTime) OR " +
-           "(DATEADD(MINUTE, a.durationMinutes, a.appointmentDateTime) >= :startTime AND " +
-           "DATEADD(MINUTE, a.durationMinutes, a.appointmentDateTime) <= :endTime) OR " +
-           "(a.appointmentDateTime <= :startTime AND " +
-           "DATEADD(MINUTE, a.durationMinutes, a.appointmentDateTime) >= :endTime))")
+           "a.status <> :cancelled AND " +
+           "a.appointmentDateTime >= :earliestStart AND a.appointmentDateTime < :endTime")
     List<Appointment> findOverlappingAppointments(
             @Param("doctorId") Long doctorId,
-            @Param("startTime") OffsetDateTime startTime,
-            @Param("endTime") OffsetDateTime endTime);
+            @Param("earliestStart") OffsetDateTime earliestStart,
+            @Param("endTime") OffsetDateTime endTime,
+            @Param("cancelled") AppointmentStatus cancelled);
+    
+    /**
+     * [id, doctorId, appointmentDateTime, durationMinutes] of non-cancelled appointments from a
+     * point in time on, for the slot calendars
+     */
+    @Query("SELECT a.id, a.doctor.id, a.appointmentDateTime, a.durationMinutes FROM Appointment a " +
+           "WHERE a.appointmentDateTime >= :since AND a.status <> :cancelled " +
+           "AND (:doctorId IS NULL OR a.doctor.id = :doctorId)")
+    List<Object[]> findCalendarBookings(
+            @Param("since") OffsetDateTime since,
+            @Param("cancelled") AppointmentStatus cancelled,
+            @Param("doctorId") Long doctorId);
+    
+    /**
+     * Unpaid bookings whose payment hold has run out, oldest first
+     */
+    List<Appointment> findTop200ByHoldExpiresAtBeforeAndIsPaidFalseAndStatusOrderByHoldExpiresAtAsc(
+            OffsetDateTime now, AppointmentStatus status);
+    
+    /**
+     * Gives appointments booked before slot_start existed their slot, so the unique
+     * (doctor_id, slot_start) index covers them too. IGNORE skips a row whose slot another
+     * appointment already holds; with ORDER BY id the oldest booking of a slot keeps it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE IGNORE appointments SET slot_start = appointment_date_time " +
+                   "WHERE slot_start IS NULL AND status <> 'cancelled' AND appointment_date_time IS NOT NULL " +
+                   "ORDER BY id",
+           nativeQuery = true)
+    int assignMissingSlots();
+
+    // Active appointments left without a slot by assignMissingSlots, i.e. double bookings
+    @Query(value = "SELECT id FROM appointments " +
+                   "WHERE slot_start IS NULL AND status <> 'cancelled' AND appointment_date_time IS NOT NULL",
+           nativeQuery = true)
+    List<Long> findActiveWithoutSlot();
+
+    /**
+     * Cancels a booking only if it is still unpaid and upcoming, so a payment that lands at the
+     * same moment wins. Returns 1 when the hold was released.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = :cancelled, a.slotStart = NULL, a.holdExpiresAt = NULL, " +
+           "a.updatedAt = :now WHERE a.id = :id AND a.isPaid = false AND a.status = :upcoming")
+    int releaseExpiredHold(
+            @Param("id") Long id,
+            @Param("now") OffsetDateTime now,
+            @Param("cancelled") AppointmentStatus cancelled,
+            @Param("upcoming") AppointmentStatus upcoming);
     
     /**
      * Find appointments with specific duration
@@ -136,17 +204,6 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             @Param("minDuration") Integer minDuration,
             @Param("maxDuration") Integer maxDuration);
     
-    /**
-     * Find available doctors for the given time slot and specialty
-     */
-    @Query("SELECT d.id, u.firstName, u.lastName, d.specialization, d.averageRating FROM Doctor d " +
-           "JOIN d.user u " +
-           "WHERE d.specialization = :specialty " +
-           "AND d.id NOT IN (SELECT a.doctor.id FROM Appointment a WHERE a.appointmentDateTime BETWEEN :startTime AND :endTime)")
-    List<Object[]> findAvailableDoctors(
-            @Param("startTime") OffsetDateTime startTime,
-            @Param("endTime") OffsetDateTime endTime,
-            @Param("specialty") String specialty);
     
     
  // Add this method to your AppointmentRepository interface
@@ -1,42 +1,89 @@
 package com.mediconnect.repository;
 
 import com.mediconnect.model.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    
+
     /**
      * Find all messages for a specific appointment ordered by timestamp
      */
     List<ChatMessage> findByAppointmentIdOrderByTimestampAsc(Long appointmentId);
-    
+
+    /**
+     * Newest messages of an appointment, newest first (first page of history)
+     */
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.appointmentId = :appointmentId " +
+           "ORDER BY cm.timestamp DESC, cm.messageKey DESC")
+    List<ChatMessage> findLatest(@Param("appointmentId") Long appointmentId, Pageable pageable);
+
+    /**
+     * Messages of an appointment older than the cursor (timestamp, messageKey), newest first
+     */
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.appointmentId = :appointmentId " +
+           "AND (cm.timestamp < :timestamp OR (cm.timestamp = :timestamp AND cm.messageKey < :messageKey)) " +
+           "ORDER BY cm.timestamp DESC, cm.messageKey DESC")
+    List<ChatMessage> findBefore(@Param("appointmentId") Long appointmentId,
+                                 @Param("timestamp") LocalDateTime timestamp,
+                                 @Param("messageKey") String messageKey,
+                                 Pageable pageable);
+
+    Optional<ChatMessage> findByMessageKey(String messageKey);
+
     /**
      * Find unread messages for a specific appointment and user
      */
     @Query("SELECT cm FROM ChatMessage cm WHERE cm.appointmentId = :appointmentId " +
            "AND cm.senderId != :userId AND cm.isRead = false ORDER BY cm.timestamp ASC")
-    List<ChatMessage> findUnreadMessages(@Param("appointmentId") Long appointmentId, 
+    List<ChatMessage> findUnreadMessages(@Param("appointmentId") Long appointmentId,
                                        @Param("userId") Long userId);
-    
+
     /**
      * Count unread messages for a specific appointment and user
      */
     @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.appointmentId = :appointmentId " +
            "AND cm.senderId != :userId AND cm.isRead = false")
-    Long countUnreadMessages(@Param("appointmentId") Long appointmentId, 
+    Long countUnreadMessages(@Param("appointmentId") Long appointmentId,
                             @Param("userId") Long userId);
-    
+
+    /**
+     * Count unread messages for a user, leaving out the given messages (those still queued for writing)
+     */
+    @Query("SELECT COUNT(cm) FROM ChatMessage cm WHERE cm.appointmentId = :appointmentId " +
+           "AND cm.senderId != :userId AND cm.isRead = false AND cm.messageKey NOT IN :excludedKeys")
+    Long countUnreadMessagesExcluding(@Param("appointmentId") Long appointmentId,
+                                      @Param("userId") Long userId,
+                                      @Param("excludedKeys") List<String> excludedKeys);
+
     /**
-     * Mark messages as read
+     * Mark messages sent to a user up to a point in time as read
      */
+    @Modifying
+    @Transactional
     @Query("UPDATE ChatMessage cm SET cm.isRead = true WHERE cm.appointmentId = :appointmentId " +
-           "AND cm.senderId != :userId AND cm.isRead = false")
-    void markMessagesAsRead(@Param("appointmentId") Long appointmentId, 
-                           @Param("userId") Long userId);
-}
\ No newline at end of file
+           "AND cm.senderId != :userId AND cm.isRead = false AND cm.timestamp <= :upTo")
+    int markMessagesAsRead(@Param("appointmentId") Long appointmentId,
+                           @Param("userId") Long userId,
+                           @Param("upTo") LocalDateTime upTo);
+
+    /**
+     * Gives messages stored before message keys existed a key derived from their id, so every
+     * message can serve as a history cursor
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE chat_messages SET message_key = CONCAT('m-', id) WHERE message_key IS NULL",
+           nativeQuery = true)
+    int assignMissingMessageKeys();
+}
@@ -0,0 +1,24 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mediconnect.model.DeviceReadingArchive;
+
+@Repository
+public interface DeviceReadingArchiveRepository extends JpaRepository<DeviceReadingArchive, Long> {
+
+    Optional<DeviceReadingArchive> findByDevicePkAndBlockDay(Long devicePk, LocalDate blockDay);
+
+    List<DeviceReadingArchive> findByPatientIdAndBlockDayBetweenOrderByBlockDayAsc(
+            Long patientId, LocalDate fromDay, LocalDate toDay);
+
+    // Returns [block count, reading count, payload bytes]
+    @Query("SELECT COUNT(a), COALESCE(SUM(a.readingCount), 0), COALESCE(SUM(a.payloadBytes), 0) FROM DeviceReadingArchive a")
+    List<Object[]> summarizeArchive();
+}
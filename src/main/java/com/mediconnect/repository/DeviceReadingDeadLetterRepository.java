@@ -0,0 +1,33 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.DeviceReadingDeadLetter;
+
+@Repository
+public interface DeviceReadingDeadLetterRepository extends JpaRepository<DeviceReadingDeadLetter, Long> {
+
+    List<DeviceReadingDeadLetter> findTop50ByReplayedAtIsNullOrderByIdAsc();
+
+    long countByReplayedAtIsNull();
+
+    // Claims a dead letter for replay; 0 when another node already replayed it
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeviceReadingDeadLetter d SET d.replayedAt = :now WHERE d.id = :id AND d.replayedAt IS NULL")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Gives a claimed dead letter back after its replay failed
+    @Modifying
+    @Transactional
+    @Query("UPDATE DeviceReadingDeadLetter d SET d.replayedAt = null, d.lastError = :lastError WHERE d.id = :id")
+    int release(@Param("id") Long id, @Param("lastError") String lastError);
+}
@@ -27,5 +27,14 @@ public interface DeviceReadingRepository extends JpaRepository<DeviceReading, Lo
             @Param("readingType") String readingType,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
-    
+
+    // Latest [readingType, value, unit, timestamp] per reading type across a patient's devices
+    @Query("SELECT r.readingType, r.value, r.unit, r.timestamp FROM DeviceReading r " +
+           "WHERE r.device.patient.id = :patientId AND r.timestamp >= :since " +
+           "AND r.timestamp = (SELECT MAX(r2.timestamp) FROM DeviceReading r2 " +
+           "WHERE r2.device.patient.id = :patientId AND r2.readingType = r.readingType AND r2.timestamp >= :since)")
+    List<Object[]> findLatestPerTypeByPatientId(
+            @Param("patientId") Long patientId,
+            @Param("since") LocalDateTime since);
+
 }
\ No newline at end of file
@@ -36,4 +36,9 @@ public interface DoctorAvailabilityRepository extends JpaRepository<DoctorAvaila
         @Param("dayOfWeek") String dayOfWeek, 
         @Param("appointmentType") String appointmentType
     );
-}
\ No newline at end of file
+
+    // [id, doctorId, dayOfWeek, startTime, endTime, slotDurationMinutes, isAvailable, typeCode] for the slot calendars
+    @Query("SELECT da.id, da.doctor.id, da.dayOfWeek, da.startTime, da.endTime, da.slotDurationMinutes, da.isAvailable, t.typeCode " +
+           "FROM DoctorAvailability da LEFT JOIN da.appointmentType t WHERE (:doctorId IS NULL OR da.doctor.id = :doctorId)")
+    List<Object[]> findAllForCalendar(@Param("doctorId") Long doctorId);
+}
@@ -1,8 +1,11 @@
 package com.mediconnect.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.mediconnect.model.DoctorLanguage;
@@ -12,6 +15,10 @@ public interface DoctorLanguageRepository extends JpaRepository<DoctorLanguage,
     
     List<DoctorLanguage> findByDoctorId(Long doctorId);
     
+    // Returns (doctorId, language) pairs without loading the owning Doctor entities
+    @Query("SELECT dl.doctor.id, dl.language FROM DoctorLanguage dl WHERE dl.doctor.id IN :doctorIds")
+    List<Object[]> findLanguagesByDoctorIds(@Param("doctorIds") Collection<Long> doctorIds);
+    
     List<DoctorLanguage> findByLanguageIgnoreCase(String language);
     
     void deleteByDoctorId(Long doctorId);
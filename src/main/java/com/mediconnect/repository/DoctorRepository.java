@@ -1,11 +1,14 @@
 package com.mediconnect.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +16,8 @@ import org.springframework.stereotype.Repository;
 import com.mediconnect.model.Doctor;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor>,
+        DoctorSearchRepository {
     
     // Basic finder methods
     Optional<Doctor> findByUserId(Long userId);
@@ -64,31 +68,60 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     /**
      * Advanced doctor search with multiple criteria
      */
-    @Query("SELECT DISTINCT d FROM Doctor d JOIN d.user u WHERE " +
-           "(:name IS NULL OR LOWER(u.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:specialization IS NULL OR LOWER(d.specialization) LIKE LOWER(CONCAT('%', :specialization, '%'))) AND " +
-           "(:hospitalAffiliation IS NULL OR LOWER(d.hospitalAffiliation) LIKE LOWER(CONCAT('%', :hospitalAffiliation, '%'))) AND " +
-           "(:city IS NULL OR LOWER(d.clinicCity) LIKE LOWER(CONCAT('%', :city, '%'))) AND " +
-           "(:state IS NULL OR LOWER(d.clinicState) LIKE LOWER(CONCAT('%', :state, '%'))) AND " +
-           "(:minYearsExperience IS NULL OR d.yearsOfExperience >= :minYearsExperience) AND " +
-           "(:maxFee IS NULL OR d.consultationFee <= :maxFee) AND " +
-           "(:minRating IS NULL OR d.averageRating >= :minRating) AND " +
-           "(:isEmergencyAvailable IS NULL OR d.isAvailableForEmergency = :isEmergencyAvailable) AND " +
-           "(:isOnlineConsultation IS NULL OR d.onlineConsultation = :isOnlineConsultation)")
-    Page<Doctor> advancedSearch(
-            @Param("name") String name,
-            @Param("specialization") String specialization,
-            @Param("hospitalAffiliation") String hospitalAffiliation,
-            @Param("city") String city,
-            @Param("state") String state,
-            @Param("minYearsExperience") Integer minYearsExperience,
-            @Param("maxFee") Double maxFee,
-            @Param("minRating") Integer minRating,
-            @Param("isEmergencyAvailable") Boolean isEmergencyAvailable,
-            @Param("isOnlineConsultation") Boolean isOnlineConsultation,
-            Pageable pageable);
-    
+    default Page<Doctor> advancedSearch(
+            String name,
+            String specialization,
+            String hospitalAffiliation,
+            String city,
+            String state,
+            Integer minYearsExperience,
+            Double maxFee,
+            Integer minRating,
+            Boolean isEmergencyAvailable,
+            Boolean isOnlineConsultation,
+            Pageable pageable) {
+        return findAll(Specification.where(DoctorSpecifications.nameContains(name))
+                .and(DoctorSpecifications.specializationContains(specialization))
+                .and(DoctorSpecifications.hospitalContains(hospitalAffiliation))
+                .and(DoctorSpecifications.cityContains(city))
+                .and(DoctorSpecifications.stateContains(state))
+                .and(DoctorSpecifications.minYearsExperience(minYearsExperience))
+                .and(DoctorSpecifications.maxFee(maxFee))
+                .and(DoctorSpecifications.minRating(minRating))
+                .and(DoctorSpecifications.emergencyAvailable(isEmergencyAvailable))
+                .and(DoctorSpecifications.onlineConsultation(isOnlineConsultation)),
+            pageable);
+    }
+
+    /**
+     * Directory search backing /api/doctors/search. Built from the same DoctorSpecifications
+     * predicates as advancedSearch, filters, sorts and pages in the database and returns only
+     * the ids of the page; the page's doctors are then loaded with findWithUserByIdIn.
+     */
+    default Page<Long> searchDirectoryIds(
+            String keyword,
+            String specialization,
+            String hospitalAffiliation,
+            String city,
+            Boolean isEmergencyAvailable,
+            Boolean isOnlineConsultation,
+            Pageable pageable) {
+        return findIds(Specification.where(DoctorSpecifications.keywordContains(keyword))
+                .and(DoctorSpecifications.specializationContains(specialization))
+                .and(DoctorSpecifications.hospitalContains(hospitalAffiliation))
+                .and(DoctorSpecifications.cityContains(city))
+                .and(DoctorSpecifications.emergencyAvailable(isEmergencyAvailable))
+                .and(DoctorSpecifications.onlineConsultation(isOnlineConsultation)),
+            pageable);
+    }
+
+    /**
+     * Doctors with their users, in one query, for a page of ids returned by searchDirectoryIds
+     * or ranked by DoctorSearchIndex
+     */
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user WHERE d.id IN :ids")
+    List<Doctor> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find doctors available on specific days based on clinic timings
      */
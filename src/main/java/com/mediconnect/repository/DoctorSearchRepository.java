@@ -0,0 +1,16 @@
+package com.mediconnect.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mediconnect.model.Doctor;
+
+/**
+ * Id-only paging over a doctor Specification, for searches that load the page's doctors
+ * separately (see DoctorRepository.searchDirectoryIds)
+ */
+public interface DoctorSearchRepository {
+
+    Page<Long> findIds(Specification<Doctor> spec, Pageable pageable);
+}
@@ -0,0 +1,110 @@
+package com.mediconnect.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.mediconnect.model.Doctor;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Doctor search predicates shared by advancedSearch and searchDirectoryIds. Every factory
+ * returns null for a null argument, which Specification.where/and treat as "no filter",
+ * matching the ":param IS NULL OR ..." form of the JPQL queries they replaced.
+ */
+public final class DoctorSpecifications {
+
+    private DoctorSpecifications() {
+    }
+
+    // First or last name
+    public static Specification<Doctor> nameContains(String name) {
+        if (name == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Join<?, ?> user = user(root);
+            return cb.or(
+                contains(cb, user.<String>get("firstName"), name),
+                contains(cb, user.<String>get("lastName"), name));
+        };
+    }
+
+    // Name, specialization or hospital, as typed into the directory search box
+    public static Specification<Doctor> keywordContains(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Join<?, ?> user = user(root);
+            return cb.or(
+                contains(cb, user.<String>get("firstName"), keyword),
+                contains(cb, user.<String>get("lastName"), keyword),
+                contains(cb, root.<String>get("specialization"), keyword),
+                contains(cb, root.<String>get("hospitalAffiliation"), keyword));
+        };
+    }
+
+    public static Specification<Doctor> specializationContains(String specialization) {
+        return attributeContains("specialization", specialization);
+    }
+
+    public static Specification<Doctor> hospitalContains(String hospitalAffiliation) {
+        return attributeContains("hospitalAffiliation", hospitalAffiliation);
+    }
+
+    public static Specification<Doctor> cityContains(String city) {
+        return attributeContains("clinicCity", city);
+    }
+
+    public static Specification<Doctor> stateContains(String state) {
+        return attributeContains("clinicState", state);
+    }
+
+    public static Specification<Doctor> minYearsExperience(Integer years) {
+        return years == null ? null
+            : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("yearsOfExperience"), years);
+    }
+
+    public static Specification<Doctor> maxFee(Double fee) {
+        return fee == null ? null
+            : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("consultationFee"), fee);
+    }
+
+    public static Specification<Doctor> minRating(Integer rating) {
+        return rating == null ? null
+            : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("averageRating"), rating);
+    }
+
+    public static Specification<Doctor> emergencyAvailable(Boolean available) {
+        return available == null ? null
+            : (root, query, cb) -> cb.equal(root.get("isAvailableForEmergency"), available);
+    }
+
+    public static Specification<Doctor> onlineConsultation(Boolean online) {
+        return online == null ? null
+            : (root, query, cb) -> cb.equal(root.get("onlineConsultation"), online);
+    }
+
+    private static Specification<Doctor> attributeContains(String attribute, String value) {
+        return value == null ? null : (root, query, cb) -> contains(cb, root.<String>get(attribute), value);
+    }
+
+    private static Predicate contains(CriteriaBuilder cb, Expression<String> path, String value) {
+        return cb.like(cb.lower(path), "%" + value.toLowerCase() + "%");
+    }
+
+    // One join to users per query, however many predicates need it
+    private static Join<?, ?> user(Root<Doctor> root) {
+        for (Join<Doctor, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("user")) {
+                return join;
+            }
+        }
+        return root.join("user", JoinType.INNER);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
     List<MedicalRecord> findByPatientIdOrderByRecordDateDesc(Long patientId);
@@ -16,6 +17,8 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     @Query("SELECT m FROM MedicalRecord m WHERE m.patient.id = :patientId ORDER BY m.recordDate DESC")
     List<MedicalRecord> findLatestRecordsByPatientId(@Param("patientId") Long patientId);
 
+    Optional<MedicalRecord> findFirstByPatientIdOrderByRecordDateDesc(Long patientId);
+
     @Query("SELECT m FROM MedicalRecord m WHERE m.patient.id = :patientId AND m.recordDate BETWEEN :start AND :end")
     List<MedicalRecord> findByPatientIdAndDateRange(@Param("patientId") Long patientId,
                                                     @Param("start") LocalDateTime start,
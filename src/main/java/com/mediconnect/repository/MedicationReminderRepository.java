@@ -0,0 +1,72 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.MedicationReminder;
+
+@Repository
+public interface MedicationReminderRepository extends JpaRepository<MedicationReminder, Long> {
+
+    Optional<MedicationReminder> findByMedicationIdAndReminderTime(Long medicationId, String reminderTime);
+
+    List<MedicationReminder> findByLeaseOwner(String leaseOwner);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MedicationReminder r SET r.active = false, r.leaseOwner = null, r.leaseUntil = null " +
+           "WHERE r.medicationId = :medicationId AND r.active = true")
+    int deactivateByMedicationId(@Param("medicationId") Long medicationId);
+
+    // Ids of active reminders due by the horizon that no node holds a live lease on, earliest first
+    @Query("SELECT r.id FROM MedicationReminder r WHERE r.active = true AND r.nextFireAt <= :horizon " +
+           "AND (r.leaseUntil IS NULL OR r.leaseUntil < :now) ORDER BY r.nextFireAt")
+    List<Long> findClaimableIds(
+            @Param("horizon") LocalDateTime horizon,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // Takes the lease on whichever of the ids are still unclaimed; a concurrent node wins the rest
+    @Modifying
+    @Transactional
+    @Query("UPDATE MedicationReminder r SET r.leaseOwner = :owner, r.leaseUntil = :leaseUntil " +
+           "WHERE r.id IN :ids AND r.active = true AND (r.leaseUntil IS NULL OR r.leaseUntil < :now)")
+    int claim(
+            @Param("ids") Collection<Long> ids,
+            @Param("owner") String owner,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now);
+
+    // Moves a fired occurrence on, only if the caller still holds the lease on exactly that occurrence
+    @Modifying
+    @Transactional
+    @Query("UPDATE MedicationReminder r SET r.nextFireAt = :next, r.active = :active, r.lastFiredAt = :firedAt, " +
+           "r.leaseOwner = null, r.leaseUntil = null " +
+           "WHERE r.id = :id AND r.leaseOwner = :owner AND r.nextFireAt = :due AND r.active = true")
+    int advance(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("due") LocalDateTime due,
+            @Param("next") LocalDateTime next,
+            @Param("active") boolean active,
+            @Param("firedAt") LocalDateTime firedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MedicationReminder r SET r.leaseOwner = null, r.leaseUntil = null " +
+           "WHERE r.leaseOwner LIKE CONCAT(:ownerPrefix, '%')")
+    int releaseLeases(@Param("ownerPrefix") String ownerPrefix);
+
+    @Query("SELECT COUNT(r) FROM MedicationReminder r WHERE r.active = true")
+    long countActive();
+}
@@ -1,9 +1,12 @@
 package com.mediconnect.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.mediconnect.model.MonitoringDevice;
@@ -15,4 +18,8 @@ public interface MonitoringDeviceRepository extends JpaRepository<MonitoringDevi
     
     Optional<MonitoringDevice> findByDeviceId(String deviceId);
     
+    // Returns rows of [deviceId, id, patient id, active] without loading the entities
+    @Query("SELECT d.deviceId, d.id, d.patient.id, d.active FROM MonitoringDevice d WHERE d.deviceId IN :deviceIds")
+    List<Object[]> findIngestRefsByDeviceIds(@Param("deviceIds") Collection<String> deviceIds);
+    
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.NotificationOutbox;
+import com.mediconnect.model.NotificationOutbox.Status;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    List<NotificationOutbox> findByLeaseOwner(String leaseOwner);
+
+    // Ids of pending messages of a channel that are due and not leased by a live dispatcher, oldest first
+    @Query("SELECT o.id FROM NotificationOutbox o WHERE o.status = :status AND o.channel = :channel " +
+           "AND o.nextAttemptAt <= :now AND (o.leaseUntil IS NULL OR o.leaseUntil < :now) ORDER BY o.nextAttemptAt")
+    List<Long> findClaimableIds(
+            @Param("status") Status status,
+            @Param("channel") String channel,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.leaseOwner = :owner, o.leaseUntil = :leaseUntil " +
+           "WHERE o.id IN :ids AND o.status = :status AND (o.leaseUntil IS NULL OR o.leaseUntil < :now)")
+    int claim(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") Status status,
+            @Param("owner") String owner,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now);
+
+    // Records the outcome of an attempt, only if the caller still holds the lease
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, " +
+           "o.lastError = :lastError, o.sentAt = :sentAt, o.leaseOwner = null, o.leaseUntil = null " +
+           "WHERE o.id = :id AND o.leaseOwner = :owner")
+    int complete(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("status") Status status,
+            @Param("attempts") int attempts,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("lastError") String lastError,
+            @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.leaseOwner = null, o.leaseUntil = null " +
+           "WHERE o.leaseOwner LIKE CONCAT(:ownerPrefix, '%')")
+    int releaseLeases(@Param("ownerPrefix") String ownerPrefix);
+
+    // Puts a dead-lettered message back in the queue with a fresh set of attempts
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox o SET o.status = :pending, o.attempts = 0, o.nextAttemptAt = :now, o.lastError = null " +
+           "WHERE o.id = :id AND o.status = :dead")
+    int requeue(
+            @Param("id") Long id,
+            @Param("pending") Status pending,
+            @Param("dead") Status dead,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = :status AND o.sentAt < :before")
+    int deleteSentBefore(@Param("status") Status status, @Param("before") LocalDateTime before);
+
+    // Returns [channel, status, count]
+    @Query("SELECT o.channel, o.status, COUNT(o) FROM NotificationOutbox o GROUP BY o.channel, o.status")
+    List<Object[]> countByChannelAndStatus();
+}
@@ -0,0 +1,33 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.ReadingRollupBackfill;
+
+@Repository
+public interface ReadingRollupBackfillRepository extends JpaRepository<ReadingRollupBackfill, Long> {
+
+    // Returns 1 if this caller took on the backfill of the source, 0 if another node already has
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO reading_rollup_backfills (source, up_to_id, claimed_at) " +
+                   "VALUES (:source, :upToId, :claimedAt)",
+           nativeQuery = true)
+    int claim(
+            @Param("source") String source,
+            @Param("upToId") long upToId,
+            @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reading_rollup_backfills SET completed_at = :completedAt WHERE source = :source",
+           nativeQuery = true)
+    int complete(@Param("source") String source, @Param("completedAt") LocalDateTime completedAt);
+}
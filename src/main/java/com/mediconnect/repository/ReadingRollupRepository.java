@@ -0,0 +1,44 @@
+package com.mediconnect.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.model.ReadingRollup;
+import com.mediconnect.model.ReadingRollup.Resolution;
+import com.mediconnect.model.ReadingRollup.Source;
+
+@Repository
+public interface ReadingRollupRepository extends JpaRepository<ReadingRollup, Long> {
+
+    @Query("SELECT r FROM ReadingRollup r WHERE r.source = :source AND r.patientId = :patientId " +
+           "AND r.readingType = :readingType AND r.resolution = :resolution " +
+           "AND r.bucketStart >= :start AND r.bucketStart < :end ORDER BY r.bucketStart")
+    List<ReadingRollup> findBuckets(
+            @Param("source") Source source,
+            @Param("patientId") Long patientId,
+            @Param("readingType") String readingType,
+            @Param("resolution") Resolution resolution,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    boolean existsBySource(Source source);
+
+    // Removes every resolution's buckets inside [start, end) so they can be recomputed from raw rows
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReadingRollup r WHERE r.source = :source AND r.patientId = :patientId " +
+           "AND r.readingType = :readingType AND r.bucketStart >= :start AND r.bucketStart < :end")
+    int deleteBuckets(
+            @Param("source") Source source,
+            @Param("patientId") Long patientId,
+            @Param("readingType") String readingType,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+}
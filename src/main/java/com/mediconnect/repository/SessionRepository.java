@@ -1,12 +1,50 @@
 package com.mediconnect.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.mediconnect.model.Session;
+import com.mediconnect.util.TokenHashUtil;
 
 public interface SessionRepository extends JpaRepository<Session, Long> {
-    Optional<Session> findByJwtToken(String jwtToken);
-    Optional<Session> findBySessionToken(String sessionToken);
+    Optional<Session> findByJwtTokenHash(String jwtTokenHash);
+    Optional<Session> findBySessionTokenHash(String sessionTokenHash);
     List<Session> findByUser_IdAndLogoutTimeIsNull(Long userId);
+
+    // Raw-token lookups hash first so they hit the unique digest indexes
+    default Optional<Session> findByJwtToken(String jwtToken) {
+        return findByJwtTokenHash(TokenHashUtil.sha256Hex(jwtToken));
+    }
+
+    default Optional<Session> findBySessionToken(String sessionToken) {
+        return findBySessionTokenHash(TokenHashUtil.sha256Hex(sessionToken));
+    }
+
+    /**
+     * Rows created before the digest columns existed (backfilled at startup)
+     */
+    List<Session> findTop500ByJwtTokenHashIsNullAndIdGreaterThanOrderByIdAsc(Long afterId);
+
+    /**
+     * Delete one batch of sessions logged out before the cutoff (MySQL DELETE ... LIMIT keeps locks short)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM sessions WHERE logout_time IS NOT NULL AND logout_time < :cutoff LIMIT :batchSize",
+           nativeQuery = true)
+    int deleteLoggedOutBefore(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    /**
+     * Delete one batch of never-logged-out sessions whose JWT has already expired
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM sessions WHERE logout_time IS NULL AND login_time < :loginCutoff LIMIT :batchSize",
+           nativeQuery = true)
+    int deleteExpiredBefore(@Param("loginCutoff") LocalDateTime loginCutoff, @Param("batchSize") int batchSize);
 }
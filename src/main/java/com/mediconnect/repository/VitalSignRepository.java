@@ -33,6 +33,10 @@ public interface VitalSignRepository extends JpaRepository<VitalSign, Long> {
     @Query("SELECT v FROM VitalSign v WHERE v.patient.id = :patientId AND v.vitalType = :vitalType AND v.readingDate > :startDate ORDER BY v.readingDate")
     List<VitalSign> findByPatientIdAndVitalTypeAndReadingDateAfterOrderByReadingDate(@Param("patientId") Long patientId, @Param("vitalType") String vitalType, @Param("startDate") Date startDate);
 
+    // 5b. Same window, newest first (analytics history)
+    @Query("SELECT v FROM VitalSign v WHERE v.patient.id = :patientId AND v.vitalType = :vitalType AND v.readingDate > :startDate ORDER BY v.readingDate DESC")
+    List<VitalSign> findByPatientIdAndVitalTypeAndReadingDateAfterOrderByReadingDateDesc(@Param("patientId") Long patientId, @Param("vitalType") String vitalType, @Param("startDate") Date startDate);
+
     // 6. Find latest readings per type for a patient with proper JOINs - COMPLETELY REWRITTEN
     @Query("SELECT v FROM VitalSign v JOIN FETCH v.patient p JOIN FETCH p.user " +
            "LEFT JOIN FETCH v.doctor d LEFT JOIN FETCH d.user " +
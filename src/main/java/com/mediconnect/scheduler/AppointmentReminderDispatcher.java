@@ -0,0 +1,151 @@
+package com.mediconnect.scheduler;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.dto.AppointmentReminderDTO;
+import com.mediconnect.model.Appointment.AppointmentStatus;
+import com.mediconnect.repository.AppointmentReminderLogRepository;
+import com.mediconnect.repository.AppointmentRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends appointment reminders of a given kind for every upcoming appointment that has entered
+ * the kind's lead window.
+ *
+ * Appointments are read as {@link AppointmentReminderDTO} rows in keyset-paged chunks, so a run
+ * never holds more than one page in memory. Each reminder is recorded in
+ * appointment_reminder_log before it is handed to a bounded sender pool; the record's unique key
+ * makes the send at-most-once across runs and nodes, and it is removed again if the send fails
+ * so the next run retries. When the pool's queue is full the paging thread sends the reminder
+ * itself, which throttles paging to the pool's pace.
+ */
+@Component
+public class AppointmentReminderDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentReminderDispatcher.class);
+
+    /**
+     * Delivers one reminder; throwing releases the reminder for a retry on the next run.
+     */
+    @FunctionalInterface
+    public interface ReminderSender {
+        void send(AppointmentReminderDTO reminder) throws Exception;
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentReminderLogRepository reminderLogRepository;
+
+    @Value("${mediconnect.appointments.reminders.page-size:500}")
+    private int pageSize;
+
+    @Value("${mediconnect.appointments.reminders.sender-threads:8}")
+    private int senderThreads;
+
+    @Value("${mediconnect.appointments.reminders.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor senders;
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "AppointmentReminder-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Appointment reminder senders did not finish within 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a reminder of the given kind for every upcoming appointment starting within the lead
+     * time that has not had one yet.
+     *
+     * @return number of reminders queued
+     */
+    public int dispatch(String kind, Duration lead, ReminderSender sender) {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime until = now.plus(lead);
+        OffsetDateTime afterTime = now;
+        Long afterId = 0L;
+        int queued = 0;
+        while (true) {
+            List<AppointmentReminderDTO> page = appointmentRepository.findReminderCandidates(kind,
+                AppointmentStatus.upcoming, now, until, afterTime, afterId, PageRequest.of(0, pageSize));
+            for (AppointmentReminderDTO reminder : page) {
+                if (reminderLogRepository.claim(reminder.getAppointmentId(), kind, OffsetDateTime.now()) == 1) {
+                    senders.execute(() -> send(kind, reminder, sender));
+                    queued++;
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            AppointmentReminderDTO last = page.get(page.size() - 1);
+            afterTime = last.getAppointmentDateTime();
+            afterId = last.getAppointmentId();
+        }
+        return queued;
+    }
+
+    private void send(String kind, AppointmentReminderDTO reminder, ReminderSender sender) {
+        try {
+            sender.send(reminder);
+            sentCount.incrementAndGet();
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            log.error("Failed to send {} reminder for appointment ID: {}", kind, reminder.getAppointmentId(), e);
+            try {
+                reminderLogRepository.release(reminder.getAppointmentId(), kind);
+            } catch (Exception releaseError) {
+                log.error("Could not release {} reminder for appointment ID: {}; it will not be retried",
+                    kind, reminder.getAppointmentId(), releaseError);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sent", sentCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("queued", senders.getQueue().size());
+        stats.put("activeSenders", senders.getActiveCount());
+        return stats;
+    }
+}
@@ -1,17 +1,14 @@
 package com.mediconnect.scheduler;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.util.List;
+import java.time.Duration;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import com.mediconnect.model.Appointment;
-import com.mediconnect.repository.AppointmentRepository;
 import com.mediconnect.service.EmailService;
 
 @Component
@@ -19,40 +16,31 @@ public class EmailReminderScheduler {
     
     private static final Logger log = LoggerFactory.getLogger(EmailReminderScheduler.class);
 
+    private static final String DAY_BEFORE_REMINDER = "day-before";
+
     @Autowired
-    private AppointmentRepository appointmentRepository;
+    private AppointmentReminderDispatcher reminderDispatcher;
     
     @Autowired
     private EmailService emailService;
+
+    @Value("${mediconnect.appointments.reminders.lead-hours:24}")
+    private int leadHours;
     
     /**
-     * Send reminders for appointments happening in the next 24 hours
-     * Runs every day at 8:00 AM
+     * Send a reminder for each appointment once it is less than lead-hours away
+     * Runs every few minutes; each appointment is reminded only once
      */
-    @Scheduled(cron = "0 0 8 * * ?")
-    public void sendDailyReminders() {
-        log.info("Starting daily appointment reminder job");
-        
-        LocalDateTime start = LocalDateTime.now();
-        LocalDateTime end = start.plusHours(24);
-        
-        List<Appointment> upcomingAppointments = appointmentRepository.findByAppointmentDateTimeBetween(
-        	    start.atOffset(ZoneOffset.ofHoursMinutes(5, 30)),
-        	    end.atOffset(ZoneOffset.ofHoursMinutes(5, 30))
-        	);
-
-        
-        log.info("Found {} upcoming appointments for reminder", upcomingAppointments.size());
-        
-        for (Appointment appointment : upcomingAppointments) {
-            try {
-                emailService.sendAppointmentReminder(appointment);
-                log.info("Sent reminder for appointment ID: {}", appointment.getId());
-            } catch (Exception e) {
-                log.error("Failed to send reminder for appointment ID: {}", appointment.getId(), e);
+    @Scheduled(fixedDelayString = "${mediconnect.appointments.reminders.interval-ms:300000}")
+    public void sendDueReminders() {
+        try {
+            int queued = reminderDispatcher.dispatch(DAY_BEFORE_REMINDER, Duration.ofHours(leadHours),
+                emailService::sendAppointmentReminder);
+            if (queued > 0) {
+                log.info("Queued {} appointment reminders ({})", queued, reminderDispatcher.getStats());
             }
+        } catch (Exception e) {
+            log.error("Error dispatching appointment reminders: {}", e.getMessage(), e);
         }
-        
-        log.info("Completed daily appointment reminder job");
     }
-}
\ No newline at end of file
+}
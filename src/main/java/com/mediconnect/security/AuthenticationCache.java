@@ -0,0 +1,116 @@
+package com.mediconnect.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, TTL-evicting cache of validated JWTs used by {@link JwtAuthenticationFilter}.
+ *
+ * A hit means the token's signature, expiry, session row and user were all checked within
+ * the last TTL, so the request can be authenticated without parsing the JWT or touching the
+ * database. Entries are dropped by {@link AuthenticationCacheListener} as soon as a session
+ * is logged out or the owning user (password, roles, enabled flag) changes.
+ */
+@Component
+public class AuthenticationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationCache.class);
+
+    private final Map<String, CachedAuthentication> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+
+    public AuthenticationCache(
+        @Value("${mediconnect.auth.cache.ttl-seconds:300}") long ttlSeconds,
+        @Value("${mediconnect.auth.cache.max-entries:10000}") int maxEntries
+    ) {
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached authentication for a token, or null when absent or expired.
+     */
+    public CachedAuthentication get(String jwt) {
+        CachedAuthentication cached = entries.get(jwt);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(jwt, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Caches a validated token until the earlier of the cache TTL and the token's own expiry.
+     *
+     * @param sessionToken the X-Session-Id verified against the sessions table, or null when
+     *                     only the JWT itself was checked
+     */
+    public void put(String jwt, UserDetailsImpl userDetails, String sessionToken, long tokenExpiresAt) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        long expiresAt = Math.min(System.currentTimeMillis() + ttlMs, tokenExpiresAt);
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(jwt, new CachedAuthentication(userDetails, sessionToken, expiresAt));
+    }
+
+    public void invalidateToken(String jwt) {
+        if (jwt != null) {
+            entries.remove(jwt);
+        }
+    }
+
+    /**
+     * Drops every cached token for a user, e.g. after a password or role change.
+     */
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            entries.values().removeIf(cached -> userId.equals(cached.userDetails.getId()));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Removes expired entries first; if still full, drops arbitrary entries down to 90% capacity
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(cached -> cached.expiresAt <= now);
+
+        int target = (int) (maxEntries * 0.9);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+        logger.debug("Authentication cache evicted down to {} entries", entries.size());
+    }
+
+    public static final class CachedAuthentication {
+        private final UserDetailsImpl userDetails;
+        private final String sessionToken;
+        private final long expiresAt;
+
+        private CachedAuthentication(UserDetailsImpl userDetails, String sessionToken, long expiresAt) {
+            this.userDetails = userDetails;
+            this.sessionToken = sessionToken;
+            this.expiresAt = expiresAt;
+        }
+
+        public UserDetailsImpl getUserDetails() { return userDetails; }
+        public String getSessionToken() { return sessionToken; }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mediconnect.security;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mediconnect.config.ApplicationContextProvider;
+import com.mediconnect.model.Session;
+import com.mediconnect.model.User;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that evicts {@link AuthenticationCache} entries when a session is
+ * logged out or a user's credentials change, so revoked tokens fail on the next request.
+ *
+ * Eviction happens both at flush and again after commit, so a request racing the
+ * transaction cannot re-populate the cache with the pre-commit state.
+ */
+public class AuthenticationCacheListener {
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Session session) {
+            String jwt = session.getJwtToken();
+            evict(cache -> cache.invalidateToken(jwt));
+        } else if (entity instanceof User user) {
+            Long userId = user.getId();
+            evict(cache -> cache.invalidateUser(userId));
+        }
+    }
+
+    private void evict(CacheEviction eviction) {
+        AuthenticationCache cache = ApplicationContextProvider.getBean(AuthenticationCache.class);
+        if (cache == null) {
+            return;
+        }
+        eviction.apply(cache);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.apply(cache);
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface CacheEviction {
+        void apply(AuthenticationCache cache);
+    }
+}
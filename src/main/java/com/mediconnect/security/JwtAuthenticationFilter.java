@@ -18,6 +18,8 @@ import com.mediconnect.util.JwtUtil;
 import com.mediconnect.repository.SessionRepository;
 import com.mediconnect.model.Session;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -37,6 +39,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private SessionRepository sessionRepo;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -61,32 +66,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = parseJwt(request);
             String sessionToken = request.getHeader("X-Session-Id");
+            boolean hasSession = StringUtils.hasText(sessionToken);
 
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                // ✅ Make session validation optional for AI endpoints
-                if (StringUtils.hasText(sessionToken)) {
-                    // Full session validation for regular endpoints
-                    Optional<Session> sessionOpt = sessionRepo.findByJwtToken(jwt)
-                        .filter(s -> s.getSessionToken().equals(sessionToken))
-                        .filter(s -> s.getLogoutTime() == null);
-
-                    if (sessionOpt.isPresent()) {
-                        setAuthentication(jwt, request);
-                    } else {
-                        logger.warn("Session validation failed for token: {}", sessionToken);
-                    }
+            if (jwt != null) {
+                if (!hasSession && !requestURI.startsWith("/api/ai/")) {
+                    logger.warn("Missing session token for non-AI endpoint: {}", requestURI);
                 } else {
-                    // ✅ For AI endpoints, allow JWT without session validation
-                    if (requestURI.startsWith("/api/ai/")) {
-                        logger.debug("AI endpoint detected, using JWT-only authentication");
-                        setAuthentication(jwt, request);
+                    // Fast path: token already validated against this session (or JWT-only for AI endpoints)
+                    AuthenticationCache.CachedAuthentication cached = authenticationCache.get(jwt);
+                    if (cached != null && (!hasSession || sessionToken.equals(cached.getSessionToken()))) {
+                        setAuthentication(cached.getUserDetails(), request);
                     } else {
-                        logger.warn("Missing session token for non-AI endpoint: {}", requestURI);
+                        authenticateAndCache(jwt, hasSession ? sessionToken : null, request);
                     }
                 }
-            } else if (jwt != null) {
-                logger.warn("Invalid JWT token provided");
             }
+        } catch (JwtException e) {
+            logger.warn("Invalid JWT token provided: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Cannot set user authentication for {}: {}", request.getRequestURI(), e.getMessage());
         }
@@ -94,30 +90,51 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Slow path: parse the JWT once, check the session row when a session header was sent,
+     * load the user and remember the result in the authentication cache.
+     */
+    private void authenticateAndCache(String jwt, String sessionToken, HttpServletRequest request) {
+        // Throws JwtException for a bad signature or an expired token
+        Claims claims = jwtUtil.extractAllClaims(jwt);
+
+        if (sessionToken != null) {
+            // Full session validation for regular endpoints
+            Optional<Session> sessionOpt = sessionRepo.findByJwtToken(jwt)
+                .filter(s -> s.getSessionToken().equals(sessionToken))
+                .filter(s -> s.getLogoutTime() == null);
+
+            if (sessionOpt.isEmpty()) {
+                logger.warn("Session validation failed for token: {}", sessionToken);
+                return;
+            }
+        } else {
+            // ✅ For AI endpoints, allow JWT without session validation
+            logger.debug("AI endpoint detected, using JWT-only authentication");
+        }
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject());
+        authenticationCache.put(jwt, userDetails, sessionToken, claims.getExpiration().getTime());
+        setAuthentication(userDetails, request);
+    }
+
     /**
      * ✅ Helper method to set authentication
      */
-    private void setAuthentication(String jwt, HttpServletRequest request) {
-        try {
-            String username = jwtUtil.extractUsername(jwt);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            
-            UsernamePasswordAuthenticationToken authentication =
-                new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities()
-                );
-            authentication.setDetails(
-                new WebAuthenticationDetailsSource().buildDetails(request)
+    private void setAuthentication(UserDetails userDetails, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
             );
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            
-            logger.debug("Successfully authenticated user: {} with authorities: {}", 
-                        username, userDetails.getAuthorities());
-        } catch (Exception e) {
-            logger.error("Failed to set authentication: {}", e.getMessage());
-        }
+        authentication.setDetails(
+            new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        logger.debug("Successfully authenticated user: {} with authorities: {}",
+                    userDetails.getUsername(), userDetails.getAuthorities());
     }
 
     /**
@@ -212,11 +212,35 @@ public class SecurityService {
             && diagnosis.get().getMedicalRecord().getDoctor().getUser().getId().equals(userId);
     }
     
+    /**
+     * Check if the given user may see a patient's data: the patient, a doctor the patient has an
+     * appointment with, or an admin. Takes the authentication explicitly so that it also works
+     * outside an HTTP request, e.g. for STOMP subscriptions.
+     */
+    public boolean canAccessPatient(Authentication authentication, Long patientId) {
+        UserDetailsImpl userDetails = getUserDetails(authentication);
+        if (userDetails == null || userDetails.getId() == null || patientId == null) return false;
+
+        boolean admin = userDetails.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (admin) return true;
+
+        Optional<Patient> patient = patientRepository.findById(patientId);
+        boolean patientCheck = patient.isPresent()
+            && patient.get().getUser() != null
+            && userDetails.getId().equals(patient.get().getUser().getId());
+
+        return patientCheck || appointmentRepository.isDoctorOfPatient(userDetails.getId(), patientId);
+    }
+
     /**
      * Get the current authenticated user details
      */
     private UserDetailsImpl getCurrentUserDetails() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return getUserDetails(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private UserDetailsImpl getUserDetails(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return null;
         }
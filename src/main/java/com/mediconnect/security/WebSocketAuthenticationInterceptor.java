@@ -1,26 +1,179 @@
 package com.mediconnect.security;
 
+import java.security.Principal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.mediconnect.model.Session;
+import com.mediconnect.repository.SessionRepository;
+import com.mediconnect.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 
+/**
+ * Authenticates STOMP connections and guards destinations that carry patient data.
+ *
+ * A CONNECT frame may carry the same "Authorization: Bearer ..." and "X-Session-Id" headers as
+ * a REST call; they are checked the same way as in JwtAuthenticationFilter and the user becomes
+ * the principal of the WebSocket session. A bearer token without X-Session-Id gives a JWT-only
+ * login, as on the AI endpoints, and connections without a token stay anonymous. Patient data
+ * needs a login whose session was checked: a SUBSCRIBE to /topic/vitals/{patientId} or
+ * /app/vitals/{patientId} is rejected before it reaches the broker or the snapshot handler
+ * unless such a user is that patient, one of their doctors or an admin, and only such a user
+ * can send readings to /app/monitoring.readings.
+ */
 @Component
 public class WebSocketAuthenticationInterceptor implements ChannelInterceptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketAuthenticationInterceptor.class);
+
+    private static final Pattern VITALS_DESTINATION = Pattern.compile("^/(?:topic|app)/vitals/([^/]+)$");
+
+    // Application destinations that write patient data and need a logged-in session
+    private static final Set<String> LOGIN_REQUIRED_SENDS = Set.of("/app/monitoring.readings");
+
+    // Authentication details of a connection that sent a bearer token but no X-Session-Id
+    private static final String JWT_ONLY = "jwt-only";
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private SessionRepository sessionRepo;
+
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
+    @Autowired
+    private SecurityService securityService;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
-        
-        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-            // For now, allow all connections
-            // In production, you should validate JWT tokens here
-            System.out.println("🔐 WebSocket: Connection attempt");
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            Authentication authentication = authenticate(accessor);
+            if (authentication != null) {
+                accessor.setUser(authentication);
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            checkSubscription(accessor);
+        } else if (StompCommand.SEND.equals(accessor.getCommand())
+                && LOGIN_REQUIRED_SENDS.contains(accessor.getDestination())
+                && sessionAuthenticationOf(accessor.getUser()) == null) {
+            throw new AccessDeniedException("Login required to send to " + accessor.getDestination());
         }
-        
         return message;
     }
-}
\ No newline at end of file
+
+    private void checkSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        Matcher vitals = VITALS_DESTINATION.matcher(destination);
+        if (!vitals.matches()) {
+            return;
+        }
+        Authentication authentication = sessionAuthenticationOf(accessor.getUser());
+        if (authentication == null) {
+            throw new AccessDeniedException("Login required to subscribe to " + destination);
+        }
+        Long patientId;
+        try {
+            patientId = Long.valueOf(vitals.group(1));
+        } catch (NumberFormatException e) {
+            throw new AccessDeniedException("Unknown patient in " + destination);
+        }
+        if (!securityService.canAccessPatient(authentication, patientId)) {
+            logger.warn("User {} may not subscribe to {}", authentication.getName(), destination);
+            throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+        }
+    }
+
+    /**
+     * The user of a STOMP session, or null when the session is anonymous.
+     */
+    public static Authentication authenticationOf(Principal principal) {
+        if (principal instanceof Authentication && ((Authentication) principal).isAuthenticated()
+                && ((Authentication) principal).getPrincipal() instanceof UserDetailsImpl) {
+            return (Authentication) principal;
+        }
+        return null;
+    }
+
+    /**
+     * The user of a STOMP session whose X-Session-Id was checked against the sessions table, or
+     * null when the session is anonymous or JWT-only.
+     */
+    public static Authentication sessionAuthenticationOf(Principal principal) {
+        Authentication authentication = authenticationOf(principal);
+        return authentication != null && !JWT_ONLY.equals(authentication.getDetails()) ? authentication : null;
+    }
+
+    private Authentication authenticate(StompHeaderAccessor accessor) {
+        String headerAuth = accessor.getFirstNativeHeader("Authorization");
+        if (!StringUtils.hasText(headerAuth) || !headerAuth.startsWith("Bearer ")) {
+            return null;
+        }
+        String jwt = headerAuth.substring(7);
+        String sessionToken = accessor.getFirstNativeHeader("X-Session-Id");
+        boolean hasSession = StringUtils.hasText(sessionToken);
+
+        AuthenticationCache.CachedAuthentication cached = authenticationCache.get(jwt);
+        if (cached != null && (!hasSession || sessionToken.equals(cached.getSessionToken()))) {
+            return toAuthentication(cached.getUserDetails(), hasSession);
+        }
+
+        try {
+            Claims claims = jwtUtil.extractAllClaims(jwt);
+            if (hasSession) {
+                Optional<Session> session = sessionRepo.findByJwtToken(jwt)
+                    .filter(s -> s.getSessionToken().equals(sessionToken))
+                    .filter(s -> s.getLogoutTime() == null);
+                if (session.isEmpty()) {
+                    throw new AccessDeniedException("Session validation failed");
+                }
+            }
+            UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject());
+            authenticationCache.put(jwt, userDetails, hasSession ? sessionToken : null, claims.getExpiration().getTime());
+            return toAuthentication(userDetails, hasSession);
+        } catch (JwtException e) {
+            logger.warn("Invalid JWT token on WebSocket connect: {}", e.getMessage());
+            throw new AccessDeniedException("Invalid token");
+        }
+    }
+
+    private static Authentication toAuthentication(UserDetailsImpl userDetails, boolean sessionChecked) {
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        if (!sessionChecked) {
+            authentication.setDetails(JWT_ONLY);
+        }
+        return authentication;
+    }
+}
@@ -6,22 +6,35 @@ import com.mediconnect.dto.PatientSearchDTO;
 import com.mediconnect.model.Appointment;
 import com.mediconnect.model.Doctor;
 import com.mediconnect.model.Patient;
+import com.mediconnect.repository.AppointmentRepository;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.scheduling.DoctorCalendarService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class AdvancedSearchService {
 
+    // Upper bound on an appointment's length, used to keep the overlap query a start-time range
+    private static final int MAX_APPOINTMENT_HOURS = 24;
+
+    private static final ZoneId CLINIC_ZONE = ZoneId.of("Asia/Kolkata");
+
     private final PatientRepository patientRepository;
 
-    public AdvancedSearchService(PatientRepository patientRepository) {
+    private final AppointmentRepository appointmentRepository;
+
+    public AdvancedSearchService(PatientRepository patientRepository, AppointmentRepository appointmentRepository) {
         this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
     }
 
     public Page<Patient> advancedSearch(PatientSearchDTO searchDTO, Pageable pageable) {
@@ -73,7 +86,16 @@ public class AdvancedSearchService {
     public List<Appointment> findOverlappingAppointments(Long doctorId,
                                                          LocalDateTime start,
                                                          LocalDateTime end) {
-        // Placeholder
-        return Collections.emptyList();
+        // Times are clinic-local, like the slots served by DoctorCalendarService
+        OffsetDateTime startTime = start.atZone(CLINIC_ZONE).toOffsetDateTime();
+        OffsetDateTime endTime = end.atZone(CLINIC_ZONE).toOffsetDateTime();
+        return appointmentRepository.findOverlappingAppointments(doctorId,
+                startTime.minusHours(MAX_APPOINTMENT_HOURS), endTime, Appointment.AppointmentStatus.cancelled)
+            .stream()
+            .filter(appointment -> appointment.getAppointmentDateTime()
+                .plusMinutes(appointment.getDurationMinutes() != null
+                    ? appointment.getDurationMinutes() : DoctorCalendarService.DEFAULT_APPOINTMENT_MINUTES)
+                .isAfter(startTime))
+            .collect(Collectors.toList());
     }
 }
@@ -21,6 +21,7 @@ import com.mediconnect.model.MedicalRecord;
 import com.mediconnect.repository.AiDiagnosisResultRepository;
 import com.mediconnect.repository.DiagnosisPredictionRepository;
 import com.mediconnect.repository.MedicalRecordRepository;
+import com.mediconnect.service.document.DocumentCache;
 import com.mediconnect.util.AiModelUtil;
 
 @Service
@@ -28,6 +29,9 @@ public class AiDiagnosticService {
     
     @Autowired
     private AiDiagnosisResultRepository aiDiagnosisResultRepository;
+
+    @Autowired
+    private DocumentCache documentCache;
     
     @Autowired
     private DiagnosisPredictionRepository diagnosisPredictionRepository;
@@ -263,5 +267,6 @@ public class AiDiagnosticService {
         
         // Delete diagnosis result
         aiDiagnosisResultRepository.delete(aiDiagnosisResult);
+        documentCache.evict("ai-diagnosis-report", id);
     }
 }
\ No newline at end of file
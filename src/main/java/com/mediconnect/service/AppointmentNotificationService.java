@@ -55,12 +55,11 @@ public class AppointmentNotificationService {
             String appointmentDateTime = formatAppointmentDateTime(appointment);
 
             // Generate PDF receipt
-            String pdfPath = pdfGenerationService.generatePaymentReceipt(payment, appointment);
-            log.info("PDF receipt generated: {}", pdfPath);
+            byte[] receiptPdf = pdfGenerationService.renderPaymentReceipt(payment, appointment);
 
             // Send notifications asynchronously
             CompletableFuture<Void> allNotifications = CompletableFuture.allOf(
-                sendPaymentConfirmationAsync(payment, appointment, patientEmail, patientName, doctorName, appointmentDateTime, pdfPath),
+                sendPaymentConfirmationAsync(payment, appointment, patientEmail, patientName, doctorName, appointmentDateTime, receiptPdf),
                 sendAppointmentConfirmationAsync(payment, appointment, patientEmail, patientName, doctorName, appointmentDateTime)
             );
 
@@ -80,7 +79,7 @@ public class AppointmentNotificationService {
     private CompletableFuture<Void> sendPaymentConfirmationAsync(RazorpayPayment payment, Appointment appointment, 
             String patientEmail, String patientName, 
             String doctorName, String appointmentDateTime,
-            String pdfPath) {
+            byte[] receiptPdf) {
 return CompletableFuture.runAsync(() -> {
 if (paymentConfirmationEnabled) {
 try {
@@ -105,7 +104,7 @@ doctorName,
 getDoctorSpecialization(appointment),
 appointmentDateTime,
 appointmentType, // Pass the correct type
-pdfPath
+receiptPdf
 );
 
 log.info("Payment confirmation email sent successfully to: {}", patientEmail);
@@ -182,7 +181,7 @@ log.info("Payment confirmation email disabled");
             log.info("Sending standalone payment confirmation");
             
             // Generate PDF receipt
-            String pdfPath = pdfGenerationService.generatePaymentReceipt(payment, appointment);
+            byte[] receiptPdf = pdfGenerationService.renderPaymentReceipt(payment, appointment);
             
             emailService.sendPaymentConfirmationEmail(
                 getPatientEmail(appointment),
@@ -193,7 +192,7 @@ log.info("Payment confirmation email disabled");
                 getDoctorName(appointment),
                 getDoctorSpecialization(appointment),
                 formatAppointmentDateTime(appointment),
-                pdfPath
+                receiptPdf
             );
             
             log.info("Standalone payment confirmation sent successfully");
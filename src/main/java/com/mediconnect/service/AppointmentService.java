@@ -8,14 +8,25 @@ import com.mediconnect.model.Patient;
 import com.mediconnect.repository.AppointmentRepository;
 import com.mediconnect.repository.DoctorRepository;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.exception.SlotUnavailableException;
+import com.mediconnect.scheduler.AppointmentReminderDispatcher;
+import com.mediconnect.service.scheduling.DoctorBookingLocks;
+import com.mediconnect.service.scheduling.DoctorCalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -41,6 +52,19 @@ public class AppointmentService {
     @Autowired
     private AppointmentNotificationService appointmentNotificationService;
 
+    @Autowired
+    private DoctorCalendarService calendarService;
+
+    @Autowired
+    private DoctorBookingLocks bookingLocks;
+
+    @Autowired
+    private AppointmentReminderDispatcher appointmentReminderDispatcher;
+
+    // 0 keeps unpaid bookings until they are paid or cancelled (payment reminders rely on this)
+    @Value("${mediconnect.appointments.payment-hold-minutes:0}")
+    private int paymentHoldMinutes;
+
     public List<AppointmentDTO> getAppointmentsByPatientId(Long patientId) {
         List<Appointment> appointments = appointmentRepository.findByPatientId(patientId);
         return appointments.stream().map(AppointmentDTO::new).collect(Collectors.toList());
@@ -65,6 +89,13 @@ public class AppointmentService {
         }
     }
 
+    /**
+     * Books a slot. The overlap check against the doctor's in-memory calendar and the single
+     * INSERT run under the doctor's booking lock, so concurrent bookers of one slot cannot
+     * both succeed; the unique (doctor_id, slot_start) index is the cross-node backstop.
+     *
+     * @throws SlotUnavailableException when the interval overlaps an existing booking
+     */
     public AppointmentDTO createAppointment(AppointmentDTO dto) {
         Appointment appointment = new Appointment();
 
@@ -94,24 +125,45 @@ public class AppointmentService {
         appointment.setIsPaid(false);
         appointment.setPatientNotes(dto.getPatientNotes());
         appointment.setDoctorNotes(dto.getDoctorNotes());
-		
-		if (appointment.getAppointmentType() == Appointment.AppointmentType.video) {
-        String roomName = "mediconnect-doctor-" + doctor.getId() + 
-                         "-patient-" + patient.getId() + "-" + System.currentTimeMillis();
-        appointment.setVideoRoomName(roomName);
-        log.info("Generated video room name for new appointment: {}", roomName);
-    }
+        if (paymentHoldMinutes > 0) {
+            appointment.setHoldExpiresAt(OffsetDateTime.now().plusMinutes(paymentHoldMinutes));
+        }
 
-        Appointment saved = appointmentRepository.save(appointment);
-		
-		 // Update room name with actual appointment ID
-    if (saved.getAppointmentType() == Appointment.AppointmentType.video) {
-        String finalRoomName = "mediconnect-doctor-" + doctor.getId() + 
-                              "-patient-" + patient.getId() + "-" + saved.getId();
-        saved.setVideoRoomName(finalRoomName);
-        saved = appointmentRepository.save(saved);
-        log.info("Updated video room name with appointment ID: {}", finalRoomName);
-    }
+        // Random suffix instead of the appointment ID, so the row is written with a single INSERT
+        if (appointment.getAppointmentType() == Appointment.AppointmentType.video) {
+            String roomName = "mediconnect-doctor-" + doctor.getId() +
+                             "-patient-" + patient.getId() + "-" + UUID.randomUUID().toString().replace("-", "");
+            appointment.setVideoRoomName(roomName);
+            log.info("Generated video room name for new appointment: {}", roomName);
+        }
+
+        Long doctorId = doctor.getId();
+        OffsetDateTime start = appointment.getAppointmentDateTime();
+        int duration = bookedMinutes(appointment);
+
+        // Fast rejection without queueing on the lock during booking storms
+        if (!calendarService.isFree(doctorId, start, duration, null)) {
+            throw new SlotUnavailableException("The selected slot is no longer available");
+        }
+
+        Appointment saved;
+        ReentrantLock lock = bookingLocks.forDoctor(doctorId);
+        lock.lock();
+        try {
+            if (!calendarService.isFree(doctorId, start, duration, null)) {
+                throw new SlotUnavailableException("The selected slot is no longer available");
+            }
+            try {
+                saved = appointmentRepository.save(appointment);
+            } catch (DataIntegrityViolationException e) {
+                throw new SlotUnavailableException("The selected slot is no longer available", e);
+            }
+            // The entity listener does this after commit too; doing it here makes sure the next
+            // booker waiting on this lock sees the slot as taken
+            calendarService.putBooking(saved.getId(), doctorId, start, duration);
+        } finally {
+            lock.unlock();
+        }
 
  // Only send notification if appointment is paid (direct booking)
  // For payment flow, notifications are handled by AppointmentNotificationService
@@ -130,6 +182,11 @@ public class AppointmentService {
         return new AppointmentDTO(saved);
     }
 
+    private int bookedMinutes(Appointment appointment) {
+        return appointment.getDurationMinutes() != null && appointment.getDurationMinutes() > 0
+            ? appointment.getDurationMinutes() : DoctorCalendarService.DEFAULT_APPOINTMENT_MINUTES;
+    }
+
     public AppointmentDTO updateAppointmentStatus(Long id, String status) {
         Optional<Appointment> appointmentOpt = appointmentRepository.findById(id);
         if (appointmentOpt.isPresent()) {
@@ -142,6 +199,10 @@ public class AppointmentService {
             if (status != null) {
                 try {
                     Appointment.AppointmentStatus newStatus = Appointment.AppointmentStatus.valueOf(status.toLowerCase());
+                    if (previousStatus == Appointment.AppointmentStatus.cancelled
+                            && newStatus != Appointment.AppointmentStatus.cancelled) {
+                        return reactivateAppointment(appointment, newStatus);
+                    }
                     appointment.setStatus(newStatus);
                     
                     // TRIGGER NOTIFICATIONS BASED ON STATUS CHANGE
@@ -169,6 +230,30 @@ public class AppointmentService {
         return null;
     }
 
+    // A cancelled appointment gave its slot away, so taking it back goes through the booking lock
+    private AppointmentDTO reactivateAppointment(Appointment appointment, Appointment.AppointmentStatus newStatus) {
+        Long doctorId = appointment.getDoctor().getId();
+        ReentrantLock lock = bookingLocks.forDoctor(doctorId);
+        lock.lock();
+        try {
+            if (!calendarService.isFree(doctorId, appointment.getAppointmentDateTime(), bookedMinutes(appointment),
+                    appointment.getId())) {
+                throw new SlotUnavailableException("The appointment's slot has been booked by someone else");
+            }
+            appointment.setStatus(newStatus);
+            Appointment updated;
+            try {
+                updated = appointmentRepository.save(appointment);
+            } catch (DataIntegrityViolationException e) {
+                throw new SlotUnavailableException("The appointment's slot has been booked by someone else", e);
+            }
+            calendarService.putBooking(updated.getId(), doctorId, updated.getAppointmentDateTime(), bookedMinutes(updated));
+            return new AppointmentDTO(updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public Appointment updateAppointment(Appointment appointment) {
         return appointmentRepository.save(appointment);
     }
@@ -196,6 +281,27 @@ public class AppointmentService {
         appointmentRepository.deleteById(id);
     }
 
+    /**
+     * Gives appointments booked before slot_start existed their slot, so the double-booking
+     * backstop covers them. Existing double bookings cannot both hold the slot; they are logged
+     * for manual review.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void assignMissingSlots() {
+        try {
+            int updated = appointmentRepository.assignMissingSlots();
+            if (updated > 0) {
+                log.info("Assigned slots to {} existing appointments", updated);
+            }
+            List<Long> conflicting = appointmentRepository.findActiveWithoutSlot();
+            if (!conflicting.isEmpty()) {
+                log.warn("Appointments {} are booked into slots another appointment already holds", conflicting);
+            }
+        } catch (Exception e) {
+            log.error("Could not assign slots to existing appointments: {}", e.getMessage(), e);
+        }
+    }
+
     public List<AppointmentDTO> getAllAppointments() {
         List<Appointment> appointments = appointmentRepository.findAll();
         return appointments.stream().map(AppointmentDTO::new).collect(Collectors.toList());
@@ -203,22 +309,13 @@ public class AppointmentService {
 
     public void sendAppointmentReminders(int hoursBeforeAppointment) {
         try {
-            // This would typically be called by a scheduled task
-            // Find appointments that are X hours away
-            OffsetDateTime futureTime = OffsetDateTime.now().plusHours(hoursBeforeAppointment);
-            List<Appointment> upcomingAppointments = appointmentRepository.findUpcomingAppointmentsInNextHours(futureTime);
-            
-            for (Appointment appointment : upcomingAppointments) {
-                try {
-                    notificationService.sendAppointmentReminderToPatient(appointment, hoursBeforeAppointment);
-                    notificationService.sendAppointmentReminderToDoctor(appointment, hoursBeforeAppointment);
-                    log.info("Reminder notifications sent for appointment: {} ({} hours before)", 
-                            appointment.getId(), hoursBeforeAppointment);
-                } catch (Exception e) {
-                    log.error("Failed to send reminder notifications for appointment: {} - Error: {}", 
-                            appointment.getId(), e.getMessage());
-                }
-            }
+            // Each appointment gets this reminder once, when it comes within the given number of hours
+            int queued = appointmentReminderDispatcher.dispatch("notify-" + hoursBeforeAppointment + "h",
+                    Duration.ofHours(hoursBeforeAppointment), reminder -> {
+                notificationService.sendAppointmentReminderToPatient(reminder, hoursBeforeAppointment);
+                notificationService.sendAppointmentReminderToDoctor(reminder, hoursBeforeAppointment);
+            });
+            log.info("Queued {} reminder notifications ({} hours before)", queued, hoursBeforeAppointment);
         } catch (Exception e) {
             log.error("Error in sendAppointmentReminders process: {}", e.getMessage());
         }
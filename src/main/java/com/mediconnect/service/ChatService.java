@@ -1,46 +1,135 @@
 package com.mediconnect.service;
 
+import com.mediconnect.dto.ChatMessageDTO;
+import com.mediconnect.exception.BadRequestException;
 import com.mediconnect.model.ChatMessage;
 import com.mediconnect.repository.ChatMessageRepository;
+import com.mediconnect.service.chat.ChatHistoryPage;
+import com.mediconnect.service.chat.ChatRoomCache;
+import com.mediconnect.service.chat.ChatUnreadCounters;
+import com.mediconnect.service.chat.ChatWriteBehindQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
 @Transactional
 public class ChatService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+
+    private static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;
+
     @Autowired
     private ChatMessageRepository chatMessageRepository;
 
+    @Autowired
+    private ChatWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private ChatRoomCache roomCache;
+
+    @Autowired
+    private ChatUnreadCounters unreadCounters;
+
+    @Value("${mediconnect.chat.max-message-length:4000}")
+    private int maxMessageLength;
+
+    /**
+     * Accepts a message sent over STOMP: validates it, stamps it with the receive time and a
+     * message key, and queues it for write-behind persistence. The returned DTO is what gets
+     * broadcast; it has no database id yet.
+     *
+     * The message key is always generated here: it is unique across all rooms, so a key chosen
+     * by a client could collide with (or be copied from) another message, and the insert of the
+     * later one would be ignored. The id the client sent is only echoed back as clientMessageId.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatMessageDTO acceptMessage(ChatMessageDTO payload) {
+        if (payload == null || payload.getAppointmentId() == null || payload.getSenderId() == null) {
+            throw new BadRequestException("Chat message must have an appointment and a sender");
+        }
+        if (!StringUtils.hasText(payload.getSenderType()) || !StringUtils.hasText(payload.getSenderName())) {
+            throw new BadRequestException("Chat message must have a sender type and name");
+        }
+        if (!StringUtils.hasText(payload.getMessageText())) {
+            throw new BadRequestException("Chat message text is required");
+        }
+        if (payload.getMessageText().length() > maxMessageLength) {
+            throw new BadRequestException("Chat message is longer than " + maxMessageLength + " characters");
+        }
+
+        ChatMessage chatMessage = new ChatMessage(payload.getAppointmentId(), payload.getSenderId(),
+            payload.getSenderType(), payload.getSenderName(), payload.getMessageText());
+        String messageKey = UUID.randomUUID().toString();
+        chatMessage.setMessageKey(messageKey);
+        // Millisecond precision survives the round trip through the database, so cursors taken
+        // from the ring and from the table compare the same way
+        chatMessage.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+
+        unreadCounters.accept(chatMessage, () -> writeBehindQueue.submit(chatMessage));
+        roomCache.append(ChatMessageDTO.from(chatMessage));
+
+        ChatMessageDTO accepted = ChatMessageDTO.from(chatMessage);
+        // Older clients sent their id as messageId
+        String clientMessageId = StringUtils.hasText(payload.getClientMessageId())
+            ? payload.getClientMessageId() : payload.getMessageId();
+        if (StringUtils.hasText(clientMessageId) && clientMessageId.length() <= MAX_CLIENT_MESSAGE_ID_LENGTH) {
+            accepted.setClientMessageId(clientMessageId);
+        }
+        log.debug("Chat message {} queued for appointment {}", messageKey, chatMessage.getAppointmentId());
+        return accepted;
+    }
+
+    /**
+     * Gives messages stored before message keys existed a key, so they can be history cursors
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assignMissingMessageKeys() {
+        int updated = chatMessageRepository.assignMissingMessageKeys();
+        if (updated > 0) {
+            log.info("Assigned message keys to {} existing chat messages", updated);
+        }
+    }
+
     /**
      * Save a chat message to the database
      */
     public ChatMessage saveMessage(ChatMessage chatMessage) {
         try {
+            if (chatMessage.getMessageKey() == null) {
+                chatMessage.setMessageKey(UUID.randomUUID().toString());
+            }
             ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
-            System.out.println("💾 CHAT: Message saved to database: " + savedMessage.getId());
+            log.debug("Chat message saved to database: {}", savedMessage.getId());
             return savedMessage;
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Failed to save message: " + e.getMessage());
+            log.error("Failed to save chat message: {}", e.getMessage());
             throw new RuntimeException("Failed to save chat message", e);
         }
     }
 
     /**
-     * Get chat history for an appointment
+     * Get a page of chat history for an appointment, newest messages when {@code before} is null
      */
-    public List<ChatMessage> getChatHistory(Long appointmentId) {
-        try {
-            List<ChatMessage> messages = chatMessageRepository.findByAppointmentIdOrderByTimestampAsc(appointmentId);
-            System.out.println("📜 CHAT: Retrieved " + messages.size() + " messages for appointment " + appointmentId);
-            return messages;
-        } catch (Exception e) {
-            System.err.println("❌ CHAT: Failed to get chat history: " + e.getMessage());
-            throw new RuntimeException("Failed to retrieve chat history", e);
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatHistoryPage getChatHistory(Long appointmentId, String before, Integer limit) {
+        return roomCache.page(appointmentId, before, limit);
     }
 
     /**
@@ -50,7 +139,7 @@ public class ChatService {
         try {
             return chatMessageRepository.findUnreadMessages(appointmentId, userId);
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Failed to get unread messages: " + e.getMessage());
+            log.error("Failed to get unread chat messages: {}", e.getMessage());
             throw new RuntimeException("Failed to retrieve unread messages", e);
         }
     }
@@ -58,11 +147,12 @@ public class ChatService {
     /**
      * Count unread messages for a user in an appointment
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long countUnreadMessages(Long appointmentId, Long userId) {
         try {
-            return chatMessageRepository.countUnreadMessages(appointmentId, userId);
+            return unreadCounters.count(appointmentId, userId);
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Failed to count unread messages: " + e.getMessage());
+            log.error("Failed to count unread chat messages: {}", e.getMessage());
             return 0L;
         }
     }
@@ -70,12 +160,23 @@ public class ChatService {
     /**
      * Mark messages as read for a user in an appointment
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void markMessagesAsRead(Long appointmentId, Long userId) {
         try {
-            chatMessageRepository.markMessagesAsRead(appointmentId, userId);
-            System.out.println("✅ CHAT: Messages marked as read for user " + userId + " in appointment " + appointmentId);
+            LocalDateTime upTo = LocalDateTime.now();
+            unreadCounters.markRead(appointmentId, userId, upTo);
+            roomCache.markRead(appointmentId, userId, upTo);
+            log.debug("Chat messages marked as read for user {} in appointment {}", userId, appointmentId);
         } catch (Exception e) {
-            System.err.println("❌ CHAT: Failed to mark messages as read: " + e.getMessage());
+            log.error("Failed to mark chat messages as read: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", writeBehindQueue.getStats());
+        stats.put("history", roomCache.getStats());
+        stats.put("unread", unreadCounters.getStats());
+        return stats;
+    }
+}
@@ -16,7 +16,6 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.ChatbotMessageDTO;
 import com.mediconnect.dto.ChatbotResponseDTO;
@@ -24,10 +23,11 @@ import com.mediconnect.exception.ChatbotException;
 import com.mediconnect.model.ChatSession;
 import com.mediconnect.model.Patient;
 import com.mediconnect.model.Prescription;
-import com.mediconnect.repository.AppointmentRepository;
 import com.mediconnect.repository.ChatSessionRepository;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.PrescriptionRepository;
+import com.mediconnect.service.ai.AiHttpClient;
+import com.mediconnect.service.scheduling.EarliestSlotFinder;
 
 @Service
 public class ChatbotService {
@@ -39,14 +39,11 @@ public class ChatbotService {
     private String chatbotApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private PatientRepository patientRepository;
     
-    @Autowired
-    private AppointmentRepository appointmentRepository;
-    
     @Autowired
     private PrescriptionRepository prescriptionRepository;
     
@@ -56,6 +53,12 @@ public class ChatbotService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private EarliestSlotFinder earliestSlotFinder;
+    
+    // Doctors offered when the chatbot proposes an appointment
+    private static final int AVAILABLE_DOCTOR_LIMIT = 5;
+    
     /**
      * Process a user message and generate response
      */
@@ -86,7 +89,7 @@ public class ChatbotService {
             
             // Call chatbot API
             @SuppressWarnings("unchecked")
-			Map<String, Object> apiResponse = restTemplate.postForObject(
+			Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     chatbotApiUrl, 
                     requestEntity, 
                     Map.class);
@@ -301,25 +304,25 @@ public class ChatbotService {
     }
     
     /**
-     * Find available doctors for appointment
+     * Find available doctors for appointment: each matching doctor's first free slot at or
+     * after the requested time, earliest first
      */
     private List<Map<String, Object>> findAvailableDoctors(LocalDateTime appointmentDateTime, String specialty) {
-        // Query for available doctors
-    	List<Object[]> availableDoctors = appointmentRepository.findAvailableDoctors(
-    		    appointmentDateTime.atOffset(ZoneOffset.ofHoursMinutes(5, 30)),
-    		    appointmentDateTime.plusMinutes(30).atOffset(ZoneOffset.ofHoursMinutes(5, 30)),
-    		    specialty
-    		);
+        List<Map<String, Object>> slots = earliestSlotFinder.findEarliest(specialty, null, null,
+                appointmentDateTime.atOffset(ZoneOffset.ofHoursMinutes(5, 30)), AVAILABLE_DOCTOR_LIMIT, 1,
+                EarliestSlotFinder.SortOrder.RATING);
         
         List<Map<String, Object>> result = new ArrayList<>();
         
-        for (Object[] doctor : availableDoctors) {
+        for (Map<String, Object> slot : slots) {
             Map<String, Object> doctorInfo = new HashMap<>();
-            doctorInfo.put("id", doctor[0]);
-            doctorInfo.put("firstName", doctor[1]);
-            doctorInfo.put("lastName", doctor[2]);
-            doctorInfo.put("specialization", doctor[3]);
-            doctorInfo.put("rating", doctor[4]);
+            doctorInfo.put("id", slot.get("doctorId"));
+            doctorInfo.put("firstName", slot.get("firstName"));
+            doctorInfo.put("lastName", slot.get("lastName"));
+            doctorInfo.put("specialization", slot.get("specialization"));
+            doctorInfo.put("rating", slot.get("rating"));
+            doctorInfo.put("availableFrom", slot.get("start"));
+            doctorInfo.put("clinicCity", slot.get("clinicCity"));
             result.add(doctorInfo);
         }
         
@@ -28,6 +28,7 @@ import com.mediconnect.repository.DoctorLanguageRepository;
 import com.mediconnect.repository.DoctorRepository;
 import com.mediconnect.repository.RoleRepository;
 import com.mediconnect.repository.UserRepository;
+import com.mediconnect.service.search.DoctorSearchIndex;
 
 @Service
 public class DoctorService {
@@ -46,6 +47,9 @@ public class DoctorService {
     @Autowired
     private DoctorLanguageRepository doctorLanguageRepository;
     
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+    
     // Basic CRUD Operations
     public List<Doctor> getAllDoctors() {
         return doctorRepository.findAll();
@@ -69,7 +73,17 @@ public class DoctorService {
     }
     
     public List<Doctor> searchDoctors(String keyword) {
-        return doctorRepository.searchDoctors(keyword);
+        // Ranked by the in-memory index; only the matching rows are loaded, by primary key
+        DoctorSearchIndex.SearchPage results = doctorSearchIndex.search(keyword, 0, DoctorSearchIndex.MAX_PAGE_SIZE);
+        List<Long> rankedIds = results.getHits().stream()
+                .map(DoctorSearchIndex.SearchHit::getDoctorId)
+                .collect(Collectors.toList());
+        Map<Long, Doctor> doctorsById = doctorRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, doctor -> doctor));
+        return rankedIds.stream()
+                .map(doctorsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
     
     public List<Doctor> getDoctorsByMaxConsultationFee(Double maxFee) {
@@ -1,26 +1,16 @@
 package com.mediconnect.service;
 
-import java.io.File;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
+import com.mediconnect.dto.AppointmentReminderDTO;
 import com.mediconnect.model.Appointment;
 import com.mediconnect.model.Doctor;
 import com.mediconnect.model.Patient;
@@ -28,6 +18,8 @@ import com.mediconnect.model.Prescription;
 import com.mediconnect.model.RazorpayPayment;
 import com.mediconnect.model.User;
 import com.mediconnect.model.VideoSession;
+import com.mediconnect.service.notification.NotificationOutboxService;
+import com.mediconnect.service.render.TemplateRenderer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,27 +30,19 @@ public class EmailService {
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
 
     @Autowired
-    private JavaMailSender emailSender;
+    private NotificationOutboxService outboxService;
     
     @Autowired
-    private SpringTemplateEngine templateEngine;
-    
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
-    @Value("${spring.mail.from-name:MediConnect Health}")
-    private String fromName;
+    private TemplateRenderer templateRenderer;
     
     /**
      * Send a simple text email
+     *
+     * All send methods queue the message in the notification outbox and return once it is
+     * stored; delivery, retries and dead-lettering happen in NotificationOutboxDispatcher.
      */
     public void sendSimpleMessage(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        emailSender.send(message);
+        outboxService.enqueueEmail(NotificationOutboxService.EMAIL, to, subject, text, false, null, null);
     }
     
     /**
@@ -66,31 +50,20 @@ public class EmailService {
      */
     public void sendTemplateMessage(String to, String subject, String templateName, Map<String, Object> templateModel) 
             throws MessagingException {
+        sendTemplateMessage(to, subject, templateName, templateModel, NotificationOutboxService.EMAIL);
+    }
+    
+    /**
+     * Send HTML email using Thymeleaf template on the given outbox channel
+     */
+    public void sendTemplateMessage(String to, String subject, String templateName, Map<String, Object> templateModel,
+            String channel) throws MessagingException {
         try {
-            Context context = new Context();
-            context.setVariables(templateModel);
-            String htmlContent = templateEngine.process(templateName, context);
-            
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, 
-                    MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED, 
-                    StandardCharsets.UTF_8.name());
-            
-            // FIXED: Handle UnsupportedEncodingException
-            try {
-                helper.setFrom(fromEmail, fromName);
-            } catch (UnsupportedEncodingException e) {
-                log.warn("Failed to set from name, using email only: {}", e.getMessage());
-                helper.setFrom(fromEmail);
-            }
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-            
-            emailSender.send(message);
-            log.info("Template email sent successfully to: {} with template: {}", to, templateName);
+            String htmlContent = renderTemplate(templateName, templateModel);
+            outboxService.enqueueEmail(channel, to, subject, htmlContent, true, null, null);
+            log.info("Template email queued for: {} with template: {}", to, templateName);
         } catch (Exception e) {
-            log.error("Failed to send template email to: {} with template: {} - Error: ", to, templateName, e);
+            log.error("Failed to queue template email to: {} with template: {} - Error: ", to, templateName, e);
             throw new MessagingException("Email sending failed: " + e.getMessage(), e);
         }
     }
@@ -100,30 +73,8 @@ public class EmailService {
      */
     public void sendMessageWithAttachment(String to, String subject, String text, String pathToAttachment) 
             throws MessagingException {
-        MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
-        
-        // FIXED: Handle UnsupportedEncodingException
-        try {
-            helper.setFrom(fromEmail, fromName);
-        } catch (UnsupportedEncodingException e) {
-            log.warn("Failed to set from name, using email only: {}", e.getMessage());
-            helper.setFrom(fromEmail);
-        }
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(text, true);
-        
-        if (StringUtils.hasText(pathToAttachment)) {
-            FileSystemResource file = new FileSystemResource(new File(pathToAttachment));
-            if (file.exists()) {
-                helper.addAttachment(file.getFilename(), file);
-            } else {
-                log.warn("Attachment file not found: {}", pathToAttachment);
-            }
-        }
-        
-        emailSender.send(message);
+        outboxService.enqueueEmail(NotificationOutboxService.EMAIL, to, subject, text, true,
+                StringUtils.hasText(pathToAttachment) ? pathToAttachment : null, null);
     }
 
     /**
@@ -132,61 +83,49 @@ public class EmailService {
     public void sendTemplateMessageWithAttachment(String to, String subject, String templateName, 
                                                 Map<String, Object> templateModel, String attachmentPath, 
                                                 String attachmentName) throws MessagingException {
-        Context context = new Context();
-        context.setVariables(templateModel);
-        String htmlContent = templateEngine.process(templateName, context);
-        
-        MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
-        
-        // FIXED: Handle UnsupportedEncodingException
-        try {
-            helper.setFrom(fromEmail, fromName);
-        } catch (UnsupportedEncodingException e) {
-            log.warn("Failed to set from name, using email only: {}", e.getMessage());
-            helper.setFrom(fromEmail);
-        }
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(htmlContent, true);
-        
-        // Add attachment if provided
-        if (StringUtils.hasText(attachmentPath)) {
-            FileSystemResource file = new FileSystemResource(new File(attachmentPath));
-            if (file.exists()) {
-                String fileName = StringUtils.hasText(attachmentName) ? attachmentName : file.getFilename();
-                helper.addAttachment(fileName, file);
-            } else {
-                log.warn("Attachment file not found: {}", attachmentPath);
-            }
-        }
-        
-        emailSender.send(message);
+        String htmlContent = renderTemplate(templateName, templateModel);
+        outboxService.enqueueEmail(NotificationOutboxService.EMAIL, to, subject, htmlContent, true,
+                StringUtils.hasText(attachmentPath) ? attachmentPath : null, attachmentName);
+    }
+
+    /**
+     * Send HTML email with template and an attachment rendered in memory, such as a PDF receipt
+     */
+    public void sendTemplateMessageWithAttachmentData(String to, String subject, String templateName,
+                                                      Map<String, Object> templateModel, byte[] attachmentData,
+                                                      String attachmentName) throws MessagingException {
+        String htmlContent = renderTemplate(templateName, templateModel);
+        outboxService.enqueueEmailWithAttachmentData(NotificationOutboxService.EMAIL, to, subject, htmlContent, true,
+                attachmentData, attachmentName);
+    }
+
+    private String renderTemplate(String templateName, Map<String, Object> templateModel) {
+        return templateRenderer.render(templateName, templateModel);
     }
 
     /**
-     * Send email asynchronously
+     * Send email asynchronously. Queuing is a single insert and delivery already happens on the
+     * outbox dispatcher's own workers, so the future completes as soon as the message is queued
+     * rather than occupying a pool thread.
      */
     public CompletableFuture<Boolean> sendEmailAsync(String to, String subject, String templateName, 
                                                    Map<String, Object> templateModel, String attachmentPath, 
                                                    String attachmentName) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                sendTemplateMessageWithAttachment(to, subject, templateName, templateModel, attachmentPath, attachmentName);
-                log.info("Email sent successfully to: {} with subject: {}", to, subject);
-                return true;
-            } catch (Exception e) {
-                log.error("Failed to send email to: {} - Error: ", to, e);
-                return false;
-            }
-        });
+        try {
+            sendTemplateMessageWithAttachment(to, subject, templateName, templateModel, attachmentPath, attachmentName);
+            log.info("Email queued successfully to: {} with subject: {}", to, subject);
+            return CompletableFuture.completedFuture(true);
+        } catch (Exception e) {
+            log.error("Failed to queue email to: {} - Error: ", to, e);
+            return CompletableFuture.completedFuture(false);
+        }
     }
 
     /**
      * Send payment confirmation email with PDF attachment
      */
     public boolean sendPaymentConfirmationEmail(String toEmail, String patientName, String transactionId, 
-            String orderId, String amount, String doctorName, String specialization, String appointmentDateTime, String pdfPath) {
+            String orderId, String amount, String doctorName, String specialization, String appointmentDateTime, byte[] receiptPdf) {
         try {
             Map<String, Object> templateModel = new HashMap<>();
             templateModel.put("patientName", patientName);
@@ -211,12 +150,12 @@ public class EmailService {
             // DEFAULT TO VIDEO - will be overridden by actual appointment type
             templateModel.put("appointmentType", "Video Consultation"); // Default to Video, not In-Person
             
-            sendTemplateMessageWithAttachment(
+            sendTemplateMessageWithAttachmentData(
                 toEmail,
                 "Payment Confirmation - MediConnect",
                 "payment-confirmation",
                 templateModel,
-                pdfPath,
+                receiptPdf,
                 "Payment_Receipt.pdf"
             );
             
@@ -233,7 +172,7 @@ public class EmailService {
      */
     public boolean sendPaymentConfirmationEmailWithType(String toEmail, String patientName, String transactionId, 
             String orderId, String amount, String doctorName, String specialization, String appointmentDateTime, 
-            String appointmentType, String pdfPath) {
+            String appointmentType, byte[] receiptPdf) {
         try {
             Map<String, Object> templateModel = new HashMap<>();
             templateModel.put("patientName", patientName);
@@ -261,12 +200,12 @@ public class EmailService {
             log.info("Payment confirmation template data: Date={}, Time={}, Type={}", 
                     templateModel.get("appointmentDate"), templateModel.get("appointmentTime"), appointmentType);
             
-            sendTemplateMessageWithAttachment(
+            sendTemplateMessageWithAttachmentData(
                 toEmail,
                 "Payment Confirmation - MediConnect",
                 "payment-confirmation",
                 templateModel,
-                pdfPath,
+                receiptPdf,
                 "Payment_Receipt.pdf"
             );
             
@@ -350,25 +289,21 @@ public class EmailService {
     /**
      * Send appointment reminder email (24 hours before)
      */
-    public void sendAppointmentReminder(Appointment appointment) throws MessagingException {
-        Patient patient = appointment.getPatient();
-        Doctor doctor = appointment.getDoctor();
-        User patientUser = patient.getUser();
-        User doctorUser = doctor.getUser();
-        
+    public void sendAppointmentReminder(AppointmentReminderDTO reminder) throws MessagingException {
         Map<String, Object> templateModel = Map.of(
-            "patientName", patientUser.getFirstName() + " " + patientUser.getLastName(),
-            "doctorName", "Dr. " + doctorUser.getFirstName() + " " + doctorUser.getLastName(),
-            "appointmentDate", appointment.getAppointmentDateTime().toLocalDate().toString(),
-            "appointmentTime", appointment.getAppointmentDateTime().toLocalTime().toString(),
-            "appointmentType", appointment.getAppointmentType().toString()
+            "patientName", reminder.getPatientFirstName() + " " + reminder.getPatientLastName(),
+            "doctorName", "Dr. " + reminder.getDoctorFirstName() + " " + reminder.getDoctorLastName(),
+            "appointmentDate", reminder.getAppointmentDateTime().toLocalDate().toString(),
+            "appointmentTime", reminder.getAppointmentDateTime().toLocalTime().toString(),
+            "appointmentType", reminder.getAppointmentType()
         );
         
         sendTemplateMessage(
-            patientUser.getEmail(),
+            reminder.getPatientEmail(),
             "Reminder: Your Appointment Tomorrow",
             "appointment-reminder",
-            templateModel
+            templateModel,
+            NotificationOutboxService.EMAIL_BULK
         );
     }
     
@@ -459,7 +394,7 @@ public class EmailService {
      */
     public boolean sendLabTestPaymentConfirmationEmail(String toEmail, String patientName, String transactionId, 
             String orderId, String amount, String testName, String sampleType, String bookingDateTime, 
-            String collectionType, String pdfPath) {
+            String collectionType, byte[] receiptPdf) {
         try {
             Map<String, Object> templateModel = new HashMap<>();
             templateModel.put("patientName", patientName);
@@ -484,12 +419,12 @@ public class EmailService {
             templateModel.put("collectionType", collectionType);
             templateModel.put("isLabTest", true); // Flag to identify lab test emails
             
-            sendTemplateMessageWithAttachment(
+            sendTemplateMessageWithAttachmentData(
                 toEmail,
                 "Lab Test Payment Confirmation - MediConnect",
                 "lab-test-payment-confirmation", // You'll need to create this template
                 templateModel,
-                pdfPath,
+                receiptPdf,
                 "Lab_Test_Receipt.pdf"
             );
             
@@ -636,20 +571,12 @@ public class EmailService {
      */
     private boolean sendHtmlEmailSimple(String toEmail, String subject, String htmlContent) {
         try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-            
-            emailSender.send(message);
-            log.info("HTML email sent successfully to: {}", toEmail);
+            outboxService.enqueueEmail(NotificationOutboxService.EMAIL, toEmail, subject, htmlContent, true, null, null);
+            log.info("HTML email queued for: {}", toEmail);
             return true;
             
-        } catch (MessagingException e) {
-            log.error("Failed to send HTML email to {}: {}", toEmail, e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to queue HTML email to {}: {}", toEmail, e.getMessage());
             return false;
         }
     }
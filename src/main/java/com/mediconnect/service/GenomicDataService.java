@@ -15,7 +15,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -29,6 +28,7 @@ import com.mediconnect.repository.GenomicDataRepository;
 import com.mediconnect.repository.GenomicRiskFactorRepository;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.service.FileStorageService;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @SuppressWarnings("unused")
 @Service
@@ -41,7 +41,7 @@ public class GenomicDataService {
     private String genomicApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private PatientRepository patientRepository;
@@ -147,7 +147,7 @@ public class GenomicDataService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call genomic analysis API
-            Map<String, Object> apiResponse = restTemplate.postForObject(
+            Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     genomicApiUrl + "/analyze", 
                     requestEntity, 
                     Map.class);
@@ -227,7 +227,7 @@ public class GenomicDataService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call medication recommendation API
-            List<Map<String, Object>> apiResponse = restTemplate.postForObject(
+            List<Map<String, Object>> apiResponse = aiHttpClient.postForObject(
                     genomicApiUrl + "/medication-recommendations", 
                     requestEntity, 
                     List.class);
@@ -12,7 +12,6 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.HealthRiskAssessmentDTO;
 import com.mediconnect.exception.HealthPredictionException;
@@ -22,6 +21,7 @@ import com.mediconnect.model.HealthRiskAssessment;
 import com.mediconnect.repository.HealthRiskAssessmentRepository;
 import com.mediconnect.repository.MedicalRecordRepository;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class HealthPredictorService {
@@ -42,12 +42,12 @@ public class HealthPredictorService {
 		this.predictorApiKey = predictorApiKey;
 	}
 
-	public RestTemplate getRestTemplate() {
-		return restTemplate;
+	public AiHttpClient getAiHttpClient() {
+		return aiHttpClient;
 	}
 
-	public void setRestTemplate(RestTemplate restTemplate) {
-		this.restTemplate = restTemplate;
+	public void setAiHttpClient(AiHttpClient aiHttpClient) {
+		this.aiHttpClient = aiHttpClient;
 	}
 
 	public PatientRepository getPatientRepository() {
@@ -81,7 +81,7 @@ public class HealthPredictorService {
     private String predictorApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private PatientRepository patientRepository;
@@ -118,7 +118,7 @@ public class HealthPredictorService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call health predictor API
-            Map<String, Object> apiResponse = restTemplate.postForObject(
+            Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     predictorApiUrl + "/predict", 
                     requestEntity, 
                     Map.class);
@@ -37,10 +37,9 @@ public class LabTestNotificationService {
             String patientEmail = patientUser.getEmail();
             
             // Generate PDF receipt
-            String pdfPath = null;
+            byte[] receiptPdf = null;
             try {
-                pdfPath = pdfGenerationService.generateLabTestReceipt(payment, labTestBooking);
-                log.info("Lab test PDF receipt generated: {}", pdfPath);
+                receiptPdf = pdfGenerationService.renderLabTestReceipt(payment, labTestBooking);
             } catch (Exception e) {
                 log.error("Failed to generate lab test PDF receipt: ", e);
                 // Continue without PDF - don't fail the entire notification process
@@ -70,7 +69,7 @@ public class LabTestNotificationService {
                 labTestBooking.getSampleType(),
                 bookingDateTime,
                 collectionType,
-                pdfPath
+                receiptPdf
             );
             
             if (emailSent) {
@@ -14,7 +14,6 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -23,6 +22,7 @@ import com.mediconnect.model.ImageAnalysisResult;
 import com.mediconnect.model.MedicalRecord;
 import com.mediconnect.repository.ImageAnalysisResultRepository;
 import com.mediconnect.repository.MedicalRecordRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class MedicalImageAnalysisService {
@@ -34,7 +34,7 @@ public class MedicalImageAnalysisService {
     private String apiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
@@ -79,7 +79,7 @@ public class MedicalImageAnalysisService {
             
             // Make API call
             @SuppressWarnings("unchecked")
-			Map<String, Object> apiResponse = restTemplate.postForObject(
+			Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     apiUrl + "/analyze", 
                     requestEntity, 
                     Map.class);
@@ -13,12 +13,12 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.InteractionWarningDTO;
 import com.mediconnect.exception.MedicationInteractionException;
 import com.mediconnect.model.Patient;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class MedicationInteractionService {
@@ -30,7 +30,7 @@ public class MedicationInteractionService {
  private String medicationApiKey;
  
  @Autowired
- private RestTemplate restTemplate;
+ private AiHttpClient aiHttpClient;
  
  @Autowired
  private PatientRepository patientRepository;
@@ -60,7 +60,7 @@ public class MedicationInteractionService {
          
          // Call medication interaction API
          @SuppressWarnings("unchecked")
-		 Map<String, Object> apiResponse = restTemplate.postForObject(
+		 Map<String, Object> apiResponse = aiHttpClient.postForObject(
                  medicationApiUrl + "/interactions", 
                  requestEntity, 
                  Map.class);
@@ -106,12 +106,12 @@ public void setMedicationApiKey(String medicationApiKey) {
 	this.medicationApiKey = medicationApiKey;
 }
 
-public RestTemplate getRestTemplate() {
-	return restTemplate;
+public AiHttpClient getAiHttpClient() {
+	return aiHttpClient;
 }
 
-public void setRestTemplate(RestTemplate restTemplate) {
-	this.restTemplate = restTemplate;
+public void setAiHttpClient(AiHttpClient aiHttpClient) {
+	this.aiHttpClient = aiHttpClient;
 }
 
 public PatientRepository getPatientRepository() {
@@ -6,6 +6,7 @@ import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.mediconnect.dto.AppointmentReminderDTO;
 import com.mediconnect.model.Appointment;
 import com.mediconnect.model.Doctor;
 import com.mediconnect.model.ImageAnalysisResult;
@@ -13,6 +14,7 @@ import com.mediconnect.model.Patient;
 import com.mediconnect.model.TriageRecord;
 import com.mediconnect.model.User;
 import com.mediconnect.model.VideoSession;
+import com.mediconnect.service.notification.NotificationOutboxService;
 
 import jakarta.mail.MessagingException;
 import org.slf4j.Logger;
@@ -257,58 +259,45 @@ public class NotificationService {
         }
     }
 
-    public void sendAppointmentReminderToPatient(Appointment appointment, int hoursBeforeAppointment) {
-        Patient patient = appointment.getPatient();
-        User patientUser = patient.getUser();
-        Doctor doctor = appointment.getDoctor();
-        User doctorUser = doctor.getUser();
+    // Throws when the reminder cannot be queued, so the reminder dispatcher releases it for a retry
+    public void sendAppointmentReminderToPatient(AppointmentReminderDTO reminder, int hoursBeforeAppointment)
+            throws MessagingException {
+        Map<String, Object> templateModel = new HashMap<>();
+        templateModel.put("patientName", reminder.getPatientFirstName());
+        templateModel.put("doctorName", "Dr. " + reminder.getDoctorLastName());
+        templateModel.put("appointmentDate", reminder.getAppointmentDateTime().toLocalDate().toString());
+        templateModel.put("appointmentTime", reminder.getAppointmentDateTime().toLocalTime().toString());
+        templateModel.put("appointmentType", reminder.getAppointmentType());
+        templateModel.put("hoursBeforeAppointment", hoursBeforeAppointment);
         
-        try {
-            Map<String, Object> templateModel = new HashMap<>();
-            templateModel.put("patientName", patientUser.getFirstName());
-            templateModel.put("doctorName", "Dr. " + doctorUser.getLastName());
-            templateModel.put("appointmentDate", appointment.getAppointmentDateTime().toLocalDate().toString());
-            templateModel.put("appointmentTime", appointment.getAppointmentDateTime().toLocalTime().toString());
-            templateModel.put("appointmentType", appointment.getAppointmentType().toString());
-            templateModel.put("hoursBeforeAppointment", hoursBeforeAppointment);
-            
-            emailService.sendTemplateMessage(
-                patientUser.getEmail(),
-                "Appointment Reminder - " + hoursBeforeAppointment + " hours",
-                "appointment-reminder-patient",
-                templateModel
-            );
-            log.info("Sent appointment reminder email to patient: {}", patientUser.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send appointment reminder email: {}", e.getMessage(), e);
-        }
+        emailService.sendTemplateMessage(
+            reminder.getPatientEmail(),
+            "Appointment Reminder - " + hoursBeforeAppointment + " hours",
+            "appointment-reminder-patient",
+            templateModel,
+            NotificationOutboxService.EMAIL_BULK
+        );
+        log.info("Queued appointment reminder email to patient: {}", reminder.getPatientEmail());
     }
 
-    public void sendAppointmentReminderToDoctor(Appointment appointment, int hoursBeforeAppointment) {
-        Patient patient = appointment.getPatient();
-        User patientUser = patient.getUser();
-        Doctor doctor = appointment.getDoctor();
-        User doctorUser = doctor.getUser();
+    public void sendAppointmentReminderToDoctor(AppointmentReminderDTO reminder, int hoursBeforeAppointment)
+            throws MessagingException {
+        Map<String, Object> templateModel = new HashMap<>();
+        templateModel.put("doctorName", reminder.getDoctorFirstName());
+        templateModel.put("patientName", reminder.getPatientFirstName() + " " + reminder.getPatientLastName());
+        templateModel.put("appointmentDate", reminder.getAppointmentDateTime().toLocalDate().toString());
+        templateModel.put("appointmentTime", reminder.getAppointmentDateTime().toLocalTime().toString());
+        templateModel.put("appointmentType", reminder.getAppointmentType());
+        templateModel.put("hoursBeforeAppointment", hoursBeforeAppointment);
         
-        try {
-            Map<String, Object> templateModel = new HashMap<>();
-            templateModel.put("doctorName", doctorUser.getFirstName());
-            templateModel.put("patientName", patientUser.getFirstName() + " " + patientUser.getLastName());
-            templateModel.put("appointmentDate", appointment.getAppointmentDateTime().toLocalDate().toString());
-            templateModel.put("appointmentTime", appointment.getAppointmentDateTime().toLocalTime().toString());
-            templateModel.put("appointmentType", appointment.getAppointmentType().toString());
-            templateModel.put("hoursBeforeAppointment", hoursBeforeAppointment);
-            
-            emailService.sendTemplateMessage(
-                doctorUser.getEmail(),
-                "Appointment Reminder - " + hoursBeforeAppointment + " hours",
-                "appointment-reminder-doctor",
-                templateModel
-            );
-            log.info("Sent appointment reminder email to doctor: {}", doctorUser.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send appointment reminder email: {}", e.getMessage(), e);
-        }
+        emailService.sendTemplateMessage(
+            reminder.getDoctorEmail(),
+            "Appointment Reminder - " + hoursBeforeAppointment + " hours",
+            "appointment-reminder-doctor",
+            templateModel,
+            NotificationOutboxService.EMAIL_BULK
+        );
+        log.info("Queued appointment reminder email to doctor: {}", reminder.getDoctorEmail());
     }
 
     public void sendPrescriptionNotificationToPatient(Patient patient, String prescriptionUrl) {
@@ -462,7 +451,8 @@ public class NotificationService {
                 patientEmail,
                 "Medication Reminder",
                 "medication-reminder",
-                templateModel
+                templateModel,
+                NotificationOutboxService.EMAIL_BULK
             );
             log.info("Sent medication reminder email to: {}", patientEmail);
         } catch (MessagingException e) {
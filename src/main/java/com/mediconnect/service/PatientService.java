@@ -33,6 +33,7 @@ import com.mediconnect.model.User;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.RoleRepository;
 import com.mediconnect.repository.UserRepository;
+import com.mediconnect.service.document.DocumentCache;
 
 @Service
 public class PatientService {
@@ -48,6 +49,9 @@ public class PatientService {
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DocumentCache documentCache;
     
     /**
      * Get all patients (entity version)
@@ -259,6 +263,7 @@ public class PatientService {
     public void deletePatient(Long id) {
         Patient patient = getPatientById(id);
         patientRepository.delete(patient);
+        documentCache.evictOwner(DocumentCache.patientOwner(id));
     }
 
     /**
@@ -357,6 +362,9 @@ public class PatientService {
             
             // STEP 8: Verify deletion
             verifyCompleteDeleteion(patientId, userId);
+
+            // STEP 9: Drop the patient's cached reports and receipts
+            documentCache.evictOwner(DocumentCache.patientOwner(patientId));
             
         } catch (Exception e) {
             System.err.println("❌ Error in FIXED complete deletion: " + e.getMessage());
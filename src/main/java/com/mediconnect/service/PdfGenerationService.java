@@ -1,22 +1,39 @@
 package com.mediconnect.service;
 
+import com.mediconnect.exception.ReportGenerationException;
 import com.mediconnect.model.Appointment;
 import com.mediconnect.model.LabTestBooking;
+import com.mediconnect.model.Patient;
 import com.mediconnect.model.RazorpayPayment;
+import com.mediconnect.service.document.CachedDocument;
+import com.mediconnect.service.document.DocumentCache;
+import com.mediconnect.util.TokenHashUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 import org.xhtmlrenderer.pdf.ITextRenderer;
 
-import java.io.FileOutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -24,8 +41,97 @@ public class PdfGenerationService {
 
     private static final Logger log = LoggerFactory.getLogger(PdfGenerationService.class);
 
-    @Value("${mediconnect.pdf.output-path:${java.io.tmpdir}/receipts/}")
-    private String pdfOutputPath;
+    private static final int INITIAL_BUFFER_CHARS = 16 * 1024;
+    private static final int MAX_RETAINED_BUFFER_CHARS = 256 * 1024;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("hh:mm a");
+    private static final DateTimeFormatter FULL_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm a");
+
+    private static final int INITIAL_PDF_BYTES = 64 * 1024;
+    private static final int MAX_RETAINED_PDF_BYTES = 4 * 1024 * 1024;
+
+    // Receipts are rendered on request and notification threads; each reuses its own buffer
+    private static final ThreadLocal<StringBuilder> RECEIPT_BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CHARS));
+
+    // One per render thread, so a thread's fonts, resource loading and output buffer are set up once
+    private static final ThreadLocal<RenderWorker> RENDER_WORKER = ThreadLocal.withInitial(RenderWorker::new);
+
+    private static final String MEDICONNECT_LOGO_SVG =
+            "<svg width=\"200\" height=\"50\" viewBox=\"0 0 200 50\" xmlns=\"http://www.w3.org/2000/svg\">" +
+            "<defs>" +
+            "<linearGradient id=\"textGradient\" x1=\"0%\" y1=\"0%\" x2=\"100%\" y2=\"100%\">" +
+            "<stop offset=\"0%\" style=\"stop-color:#7C3AED;stop-opacity:1\" />" +
+            "<stop offset=\"100%\" style=\"stop-color:#EC4899;stop-opacity:1\" />" +
+            "</linearGradient>" +
+            "</defs>" +
+            // Purple solid background box with rounded corners
+            "<rect x=\"5\" y=\"8\" width=\"40\" height=\"40\" rx=\"8\" fill=\"#8B5CF6\"/>" +
+            // White "M" letter centered
+            "<text x=\"25\" y=\"34\" font-family=\"Arial, sans-serif\" font-size=\"24\" font-weight=\"bold\" fill=\"white\" text-anchor=\"middle\">M</text>" +
+            // Orange "+" symbol at top-right corner of the box
+            "<text x=\"37\" y=\"20\" font-family=\"Arial, sans-serif\" font-size=\"14\" font-weight=\"bold\" fill=\"#FB923C\">+</text>" +
+            // "MediConnect" text with gradient, positioned right after the box
+            "<text x=\"55\" y=\"25\" font-family=\"Arial, sans-serif\" font-size=\"18\" font-weight=\"bold\" fill=\"url(#textGradient)\">MediConnect</text>" +
+            // "HEALTH" text in orange, smaller, positioned after MediConnect
+            "<text x=\"175\" y=\"25\" font-family=\"Arial, sans-serif\" font-size=\"12\" font-weight=\"600\" fill=\"#F97316\">HEALTH</text>" +
+            "</svg>";
+
+    // Document start up to the <title> text
+    private static final String RECEIPT_HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+"<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">\n" +
+"<html xmlns=\"http://www.w3.org/1999/xhtml\">\n" +
+"<head>\n" +
+"    <meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />\n" +
+"    <title>";
+
+    private static final String RECEIPT_STYLE =
+"    <style type=\"text/css\">\n" +
+"        body { font-family: Arial, sans-serif; margin: 0; padding: 20px; font-size: 12px; color: #333; }\n" +
+"        .header { display: flex; align-items: center; border-bottom: 2px solid #7C3AED; padding-bottom: 15px; margin-bottom: 20px; }\n" +
+"        .logo { margin-right: 20px; }\n" +
+"        .company-info { flex: 1; }\n" +
+"        .company-name { font-size: 24px; font-weight: bold; color: #7C3AED; margin-bottom: 5px; }\n" +
+"        .company-subtitle { font-size: 14px; color: #666; margin-bottom: 3px; }\n" +
+"        .bill-title { text-align: center; font-size: 18px; font-weight: bold; margin: 20px 0; }\n" +
+"        .bill-info { width: 100%; display: flex; justify-content: space-between; margin-bottom: 20px; }\n" +
+"        .patient-info, .bill-details { width: 48%; }\n" +
+"        .info-row { margin-bottom: 5px; }\n" +
+"        .label { font-weight: bold; display: inline-block; width: 120px; }\n" +
+"        .services-table { width: 100%; border-collapse: collapse; margin: 20px 0; }\n" +
+"        .services-table th, .services-table td { border: 1px solid #ddd; padding: 8px; text-align: left; }\n" +
+"        .services-table th { background-color: #7C3AED; color: white; font-weight: bold; }\n" +
+"        .amount-section { margin: 20px 0; border: 1px solid #7C3AED; padding: 15px; background-color: #f8f9ff; }\n" +
+"        .amount-row { display: flex; justify-content: space-between; margin-bottom: 5px; }\n" +
+"        .total-row { font-weight: bold; font-size: 14px; border-top: 1px solid #7C3AED; padding-top: 5px; margin-top: 10px; }\n" +
+"        .footer { margin-top: 30px; border-top: 1px solid #ddd; padding-top: 15px; font-size: 10px; color: #666; }\n" +
+"        .qr-section { text-align: center; margin-top: 20px; }\n" +
+"    </style>\n";
+
+    private static final String BILL_INFO_OPEN = "</div>\n" +
+"    <div class=\"bill-info\">\n" +
+"        <div class=\"patient-info\">\n";
+
+    private static final String BILL_DETAILS_OPEN = "        </div>\n" +
+"        <div class=\"bill-details\">\n";
+
+    private static final String SERVICES_TABLE_OPEN = "        </div>\n" +
+"    </div>\n" +
+"    <table class=\"services-table\">\n" +
+"        <thead><tr><th>Particulars</th><th>Date</th><th>Qty</th><th>Unit Rate</th><th>Amount (₹)</th></tr></thead>\n" +
+"        <tbody>\n";
+
+    private static final String SERVICES_TABLE_CLOSE = "        </tbody>\n" +
+"    </table>\n" +
+"    <div class=\"amount-section\">\n";
+
+    private static final String RECEIPT_TAIL =
+"        <p>Thank you for choosing MediConnect Health. Your health is our priority.</p>\n" +
+"        <div class=\"qr-section\"></div>\n" +
+"    </div>\n" +
+"</body>\n" +
+"</html>";
 
     @Value("${mediconnect.company.name:MediConnect Health}")
     private String companyName;
@@ -42,47 +148,146 @@ public class PdfGenerationService {
     @Value("${mediconnect.company.gstin:19MEDICONNECT1Z9}")
     private String companyGstin;
 
-    public String generatePaymentReceipt(RazorpayPayment payment, Appointment appointment) {
+    @Autowired
+    private DocumentCache documentCache;
+
+    @Value("${mediconnect.pdf.render.threads:2}")
+    private int renderThreads;
+
+    @Value("${mediconnect.pdf.render.queue-capacity:50}")
+    private int renderQueueCapacity;
+
+    @Value("${mediconnect.pdf.render.timeout-seconds:30}")
+    private long renderTimeoutSeconds;
+
+    // From </title> up to the bill title text: stylesheet, logo and company details
+    private String receiptHeader;
+
+    private ThreadPoolExecutor renderers;
+
+    @PostConstruct
+    public void start() {
+        prerenderReceiptFragments();
+        AtomicInteger threadNumber = new AtomicInteger();
+        renderers = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(renderQueueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "PdfRender-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        renderers.shutdown();
         try {
-            // Create output directory if not exists
-            Path outputDir = Paths.get(pdfOutputPath);
-            if (!Files.exists(outputDir)) {
-                Files.createDirectories(outputDir);
+            if (!renderers.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("PDF renders did not finish within 30 seconds");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Renders an appointment payment receipt and waits for it; for callers that are not request
+     * threads, such as notification jobs.
+     */
+    public byte[] renderPaymentReceipt(RazorpayPayment payment, Appointment appointment) {
+        return await(paymentReceiptAsync(payment, appointment));
+    }
 
-            // Generate unique filename
-            String fileName = "receipt_" + payment.getId() + "_" + System.currentTimeMillis() + ".pdf";
-            String filePath = pdfOutputPath + fileName;
+    /**
+     * The receipt from the document cache, laid out on the PDF pool only if its content changed
+     * since it was last rendered.
+     */
+    public CompletableFuture<CachedDocument> paymentReceiptAsync(RazorpayPayment payment, Appointment appointment) {
+        // The XHTML is built on the calling thread, which may still have the entities' session
+        String htmlContent = generateReceiptHtml(payment, appointment);
+        return documentCache.getOrRenderAsync("receipt", payment.getId(), TokenHashUtil.sha256Hex(htmlContent),
+                ownerOf(appointment.getPatient()), () -> submit(htmlContent, "receipt_" + payment.getId()));
+    }
+
+    public byte[] renderLabTestReceipt(RazorpayPayment payment, LabTestBooking labTestBooking) {
+        return await(labTestReceiptAsync(payment, labTestBooking));
+    }
 
-            // Create XHTML content
-            String htmlContent = generateReceiptHtml(payment, appointment);
+    public CompletableFuture<CachedDocument> labTestReceiptAsync(RazorpayPayment payment, LabTestBooking labTestBooking) {
+        String htmlContent = generateLabTestReceiptHtml(payment, labTestBooking);
+        return documentCache.getOrRenderAsync("lab-test-receipt", payment.getId(), TokenHashUtil.sha256Hex(htmlContent),
+                ownerOf(labTestBooking.getPatient()), () -> submit(htmlContent, "lab_test_receipt_" + payment.getId()));
+    }
 
-            // Generate PDF
-            ITextRenderer renderer = new ITextRenderer();
-            renderer.setDocumentFromString(htmlContent);
-            renderer.layout();
+    // Receipts are dropped from the document cache with the rest of the patient's documents
+    private static String ownerOf(Patient patient) {
+        return patient != null && patient.getId() != null ? DocumentCache.patientOwner(patient.getId()) : null;
+    }
 
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                renderer.createPDF(fos);
+    /**
+     * Queues a render on the PDF pool. The future fails with a ReportGenerationException caused
+     * by a RejectedExecutionException when the queue is full, or by a TimeoutException when the
+     * render does not finish within the configured timeout.
+     */
+    private CompletableFuture<byte[]> submit(String htmlContent, String name) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        try {
+            renderers.execute(() -> {
+                // Skip renders whose caller already gave up while they were queued
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(renderPdf(htmlContent, name));
+                } catch (Exception e) {
+                    log.error("Error generating PDF {}: ", name, e);
+                    result.completeExceptionally(new ReportGenerationException("Failed to generate PDF " + name, e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("PDF render queue is full, rejecting {}", name);
+            result.completeExceptionally(new ReportGenerationException("PDF renderer is busy", e));
+        }
+        return result.orTimeout(renderTimeoutSeconds, TimeUnit.SECONDS).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ReportGenerationException) {
+                throw (ReportGenerationException) cause;
             }
+            throw new ReportGenerationException("PDF " + name + " was not rendered within " + renderTimeoutSeconds + " seconds", cause);
+        });
+    }
 
-            log.info("PDF receipt generated successfully: {}", filePath);
-            return filePath;
+    private static byte[] await(CompletableFuture<CachedDocument> pdf) {
+        try {
+            return pdf.join().readBytes();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ReportGenerationException) {
+                throw (ReportGenerationException) e.getCause();
+            }
+            throw new ReportGenerationException("Failed to generate PDF", e.getCause());
+        } catch (IOException e) {
+            throw new ReportGenerationException("Failed to read cached PDF", e);
+        }
+    }
 
+    // Runs on a render thread: lays out with the thread's renderer into the thread's buffer
+    private byte[] renderPdf(String htmlContent, String name) throws Exception {
+        RenderWorker worker = RENDER_WORKER.get();
+        ByteArrayOutputStream out = worker.buffer();
+        try {
+            worker.renderer.setDocumentFromString(htmlContent);
+            worker.renderer.layout();
+            worker.renderer.createPDF(out);
         } catch (Exception e) {
-            log.error("Error generating PDF receipt: ", e);
-            throw new RuntimeException("Failed to generate PDF receipt", e);
+            // A renderer that failed mid-document is not reused
+            RENDER_WORKER.remove();
+            throw e;
         }
+        byte[] pdf = out.toByteArray();
+        log.info("PDF {} generated ({} bytes)", name, pdf.length);
+        return pdf;
     }
 
     private String generateReceiptHtml(RazorpayPayment payment, Appointment appointment) {
-        String logoSvg = getMediConnectLogoSvg();
-
-        // Format dates
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
-        DateTimeFormatter fullFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm a");
-
         // Safe value methods to avoid null
         String patientName = getPatientName(appointment);
         String patientId = "MED" + (appointment.getId() != null ? appointment.getId() : "");
@@ -93,7 +298,7 @@ public class PdfGenerationService {
             try {
                 // Convert to IST timezone for PDF
                 ZonedDateTime istDateTime = appointment.getAppointmentDateTime().atZoneSameInstant(ZoneId.of("Asia/Kolkata"));
-                appointmentDateTime = istDateTime.format(dateFormatter) + " " + istDateTime.format(timeFormatter);
+                appointmentDateTime = istDateTime.format(DATE_FORMATTER) + " " + istDateTime.format(TIME_FORMATTER);
                 log.info("PDF appointment datetime for ID {}: {}", appointment.getId(), appointmentDateTime);
             } catch (Exception e) {
                 log.error("Error formatting PDF datetime: ", e);
@@ -102,15 +307,15 @@ public class PdfGenerationService {
         }
         String billNo = "INV-" + (payment.getId() != null ? payment.getId() : "");
         String paymentDate = payment.getCompletedAt() != null
-                ? payment.getCompletedAt().format(fullFormatter)
-                : (payment.getCreatedAt() != null ? payment.getCreatedAt().format(fullFormatter) : "");
+                ? payment.getCompletedAt().format(FULL_FORMATTER)
+                : (payment.getCreatedAt() != null ? payment.getCreatedAt().format(FULL_FORMATTER) : "");
         String razorpayPaymentId = payment.getRazorpayPaymentId() != null ? payment.getRazorpayPaymentId() : "";
         String razorpayOrderId = payment.getRazorpayOrderId() != null ? payment.getRazorpayOrderId() : "";
         String doctorName = getDoctorName(appointment);
         String appointmentType = (appointment.getAppointmentType() != null && appointment.getAppointmentType().equals(Appointment.AppointmentType.video))
                 ? "Video" : "In-Person";
         String consultTypeText = appointmentType + " Consultation - Dr. " + doctorName;
-        String consultDate = appointment.getAppointmentDateTime() != null ? appointment.getAppointmentDateTime().format(dateFormatter) : "";
+        String consultDate = appointment.getAppointmentDateTime() != null ? appointment.getAppointmentDateTime().format(DATE_FORMATTER) : "";
         double consultationFee = getConsultationFee(appointment);
         double registrationFee = getRegistrationFee(appointment);
         String regFeeDate = consultDate;
@@ -120,252 +325,96 @@ public class PdfGenerationService {
         String gstin = companyGstin != null ? companyGstin : "";
         String paymentStatus = payment.getStatus() != null ? payment.getStatus().toString() : "";
 
-        // Now, XHTML-compliant template:
-        return String.format(
-"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
-"<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">\n" +
-"<html xmlns=\"http://www.w3.org/1999/xhtml\">\n" +
-"<head>\n" +
-"    <meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />\n" +
-"    <title>Payment Receipt</title>\n" +
-"    <style type=\"text/css\">\n" +
-"        body {\n" +
-"            font-family: Arial, sans-serif;\n" +
-"            margin: 0;\n" +
-"            padding: 20px;\n" +
-"            font-size: 12px;\n" +
-"            color: #333;\n" +
-"        }\n" +
-"        .header {\n" +
-"            display: flex;\n" +
-"            align-items: center;\n" +
-"            border-bottom: 2px solid #7C3AED;\n" +
-"            padding-bottom: 15px;\n" +
-"            margin-bottom: 20px;\n" +
-"        }\n" +
-"        .logo {\n" +
-"            margin-right: 20px;\n" +
-"        }\n" +
-"        .company-info {\n" +
-"            flex: 1;\n" +
-"        }\n" +
-"        .company-name {\n" +
-"            font-size: 24px;\n" +
-"            font-weight: bold;\n" +
-"            color: #7C3AED;\n" +
-"            margin-bottom: 5px;\n" +
-"        }\n" +
-"        .company-subtitle {\n" +
-"            font-size: 14px;\n" +
-"            color: #666;\n" +
-"            margin-bottom: 3px;\n" +
-"        }\n" +
-"        .bill-title {\n" +
-"            text-align: center;\n" +
-"            font-size: 18px;\n" +
-"            font-weight: bold;\n" +
-"            margin: 20px 0;\n" +
-"        }\n" +
-"        .bill-info {\n" +
-"            width: 100%%;\n" +
-"            display: flex;\n" +
-"            justify-content: space-between;\n" +
-"            margin-bottom: 20px;\n" +
-"        }\n" +
-"        .patient-info, .bill-details {\n" +
-"            width: 48%%;\n" +
-"        }\n" +
-"        .info-row {\n" +
-"            margin-bottom: 5px;\n" +
-"        }\n" +
-"        .label {\n" +
-"            font-weight: bold;\n" +
-"            display: inline-block;\n" +
-"            width: 120px;\n" +
-"        }\n" +
-"        .services-table {\n" +
-"            width: 100%%;\n" +
-"            border-collapse: collapse;\n" +
-"            margin: 20px 0;\n" +
-"        }\n" +
-"        .services-table th, .services-table td {\n" +
-"            border: 1px solid #ddd;\n" +
-"            padding: 8px;\n" +
-"            text-align: left;\n" +
-"        }\n" +
-"        .services-table th {\n" +
-"            background-color: #7C3AED;\n" +
-"            color: white;\n" +
-"            font-weight: bold;\n" +
-"        }\n" +
-"        .amount-section {\n" +
-"            margin: 20px 0;\n" +
-"            border: 1px solid #7C3AED;\n" +
-"            padding: 15px;\n" +
-"            background-color: #f8f9ff;\n" +
-"        }\n" +
-"        .amount-row {\n" +
-"            display: flex;\n" +
-"            justify-content: space-between;\n" +
-"            margin-bottom: 5px;\n" +
-"        }\n" +
-"        .total-row {\n" +
-"            font-weight: bold;\n" +
-"            font-size: 14px;\n" +
-"            border-top: 1px solid #7C3AED;\n" +
-"            padding-top: 5px;\n" +
-"            margin-top: 10px;\n" +
-"        }\n" +
-"        .footer {\n" +
-"            margin-top: 30px;\n" +
-"            border-top: 1px solid #ddd;\n" +
-"            padding-top: 15px;\n" +
-"            font-size: 10px;\n" +
-"            color: #666;\n" +
-"        }\n" +
-"        .qr-section {\n" +
-"            text-align: center;\n" +
-"            margin-top: 20px;\n" +
-"        }\n" +
-"    </style>\n" +
-"</head>\n" +
-"<body>\n" +
-"    <div class=\"header\">\n" +
-"        <div class=\"logo\">\n" +
-"            %s\n" +
-"        </div>\n" +
-"        <div class=\"company-info\">\n" +
-"            <div class=\"company-name\">%s</div>\n" +
-"            <div class=\"company-subtitle\">Advanced Healthcare Solutions</div>\n" +
-"            <div class=\"company-subtitle\">%s</div>\n" +
-"            <div class=\"company-subtitle\">Phone: %s | Email: %s</div>\n" +
-"        </div>\n" +
-"    </div>\n" +
-"\n" +
-"    <div class=\"bill-title\">BILL AND RECEIPT</div>\n" +
-"\n" +
-"    <div class=\"bill-info\">\n" +
-"        <div class=\"patient-info\">\n" +
-"            <div class=\"info-row\"><span class=\"label\">Patient Name:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Patient ID:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Phone No:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Email:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Appointment:</span> %s</div>\n" +
-"        </div>\n" +
-"        <div class=\"bill-details\">\n" +
-"            <div class=\"info-row\"><span class=\"label\">Bill No:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Date:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Payment ID:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Order ID:</span> %s</div>\n" +
-"            <div class=\"info-row\"><span class=\"label\">Consultant:</span> Dr. %s</div>\n" +
-"        </div>\n" +
-"    </div>\n" +
-"\n" +
-"    <table class=\"services-table\">\n" +
-"        <thead>\n" +
-"            <tr>\n" +
-"                <th>Particulars</th>\n" +
-"                <th>Date</th>\n" +
-"                <th>Qty</th>\n" +
-"                <th>Unit Rate</th>\n" +
-"                <th>Amount (Rs)</th>\n" +
-"            </tr>\n" +
-"        </thead>\n" +
-"        <tbody>\n" +
-"            <tr>\n" +
-"                <td>%s</td>\n" +
-"                <td>%s</td>\n" +
-"                <td>1</td>\n" +
-"                <td>%.2f</td>\n" +
-"                <td>%.2f</td>\n" +
-"            </tr>\n" +
-"            <tr>\n" +
-"                <td>Registration Fee</td>\n" +
-"                <td>%s</td>\n" +
-"                <td>1</td>\n" +
-"                <td>%.2f</td>\n" +
-"                <td>%.2f</td>\n" +
-"            </tr>\n" +
-"        </tbody>\n" +
-"    </table>\n" +
-"\n" +
-"    <div class=\"amount-section\">\n" +
-"        <div class=\"amount-row\">\n" +
-"            <span>Total Hospital Charges:</span>\n" +
-"            <span>₹%.2f</span>\n" +
-"        </div>\n" +
-"        <div class=\"amount-row\">\n" +
-"            <span>GST (18%%):</span>\n" +
-"            <span>₹%.2f</span>\n" +
-"        </div>\n" +
-"        <div class=\"amount-row total-row\">\n" +
-"            <span>Total Amount:</span>\n" +
-"            <span>₹%.2f</span>\n" +
-"        </div>\n" +
-"        <div class=\"amount-row\">\n" +
-"            <span>Amount Paid:</span>\n" +
-"            <span>₹%.2f</span>\n" +
-"        </div>\n" +
-"        <div class=\"amount-row total-row\">\n" +
-"            <span>Balance:</span>\n" +
-"            <span>₹0.00</span>\n" +
-"        </div>\n" +
-"    </div>\n" +
-"\n" +
-"    <div class=\"footer\">\n" +
-"        <p><strong>GSTIN:</strong> %s</p>\n" +
-"        <p><strong>Payment Status:</strong> %s</p>\n" +
-"        <p>Thank you for choosing MediConnect Health. Your health is our priority.</p>\n" +
-"        <div class=\"qr-section\">\n" +
-"            \n" +
-"        </div>\n" +
-"    </div>\n" +
-"</body>\n" +
-"</html>",
-            logoSvg,
-            companyName,
-            companyAddress,
-            companyPhone, companyEmail,
-            patientName,
-            patientId,
-            patientPhone,
-            patientEmail,
-            appointmentDateTime,
-            billNo,
-            paymentDate,
-            razorpayPaymentId,
-            razorpayOrderId,
-            doctorName,
-            consultTypeText, consultDate, consultationFee, consultationFee,
-            regFeeDate, registrationFee, registrationFee,
-            total,
-            gst,
-            amountPaid,
-            amountPaid,
-            gstin,
-            paymentStatus
-        );
+        StringBuilder html = receiptBuffer();
+        html.append(RECEIPT_HEAD).append("Payment Receipt").append(receiptHeader).append("BILL AND RECEIPT");
+        html.append(BILL_INFO_OPEN);
+        infoRow(html, "Patient Name:", patientName);
+        infoRow(html, "Patient ID:", patientId);
+        infoRow(html, "Phone No:", patientPhone);
+        infoRow(html, "Email:", patientEmail);
+        infoRow(html, "Appointment:", appointmentDateTime);
+        html.append(BILL_DETAILS_OPEN);
+        infoRow(html, "Bill No:", billNo);
+        infoRow(html, "Date:", paymentDate);
+        infoRow(html, "Payment ID:", razorpayPaymentId);
+        infoRow(html, "Order ID:", razorpayOrderId);
+        infoRow(html, "Consultant:", "Dr. " + doctorName);
+        html.append(SERVICES_TABLE_OPEN);
+        serviceRow(html, consultTypeText, consultDate, consultationFee);
+        serviceRow(html, "Registration Fee", regFeeDate, registrationFee);
+        appendAmounts(html, "Total Hospital Charges:", total, gst, amountPaid);
+        appendFooter(html, gstin, paymentStatus);
+        return html.toString();
+    }
+
+    /**
+     * Renders the parts of a receipt that depend only on configuration. Each receipt then only
+     * formats its own values into a reused per-thread buffer; the logo, stylesheet, company
+     * header and footer are copied in as-is.
+     */
+    private void prerenderReceiptFragments() {
+        StringBuilder header = new StringBuilder(4096);
+        header.append("</title>\n").append(RECEIPT_STYLE).append("</head>\n<body>\n")
+              .append("    <div class=\"header\">\n")
+              .append("        <div class=\"logo\">").append(MEDICONNECT_LOGO_SVG).append("</div>\n")
+              .append("        <div class=\"company-info\">\n")
+              .append("            <div class=\"company-name\">").append(escape(companyName)).append("</div>\n")
+              .append("            <div class=\"company-subtitle\">Advanced Healthcare Solutions</div>\n")
+              .append("            <div class=\"company-subtitle\">").append(escape(companyAddress)).append("</div>\n")
+              .append("            <div class=\"company-subtitle\">Phone: ").append(escape(companyPhone))
+              .append(" | Email: ").append(escape(companyEmail)).append("</div>\n")
+              .append("        </div>\n")
+              .append("    </div>\n")
+              .append("    <div class=\"bill-title\">");
+        receiptHeader = header.toString();
+    }
+
+    private static StringBuilder receiptBuffer() {
+        StringBuilder buffer = RECEIPT_BUFFER.get();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_CHARS) {
+            buffer = new StringBuilder(INITIAL_BUFFER_CHARS);
+            RECEIPT_BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static void infoRow(StringBuilder html, String label, String value) {
+        html.append("            <div class=\"info-row\"><span class=\"label\">").append(label).append("</span> ")
+            .append(escape(value != null ? value : "")).append("</div>\n");
+    }
+
+    private static void serviceRow(StringBuilder html, String particulars, String date, double amount) {
+        String formatted = money(amount);
+        html.append("            <tr><td>").append(escape(particulars != null ? particulars : ""))
+            .append("</td><td>").append(escape(date != null ? date : ""))
+            .append("</td><td>1</td><td>").append(formatted).append("</td><td>").append(formatted).append("</td></tr>\n");
+    }
+
+    private static void appendAmounts(StringBuilder html, String totalLabel, double total, double gst, double amountPaid) {
+        html.append(SERVICES_TABLE_CLOSE)
+            .append("        <div class=\"amount-row\"><span>").append(totalLabel).append("</span><span>₹").append(money(total)).append("</span></div>\n")
+            .append("        <div class=\"amount-row\"><span>GST (18%):</span><span>₹").append(money(gst)).append("</span></div>\n")
+            .append("        <div class=\"amount-row total-row\"><span>Total Amount:</span><span>₹").append(money(amountPaid)).append("</span></div>\n")
+            .append("        <div class=\"amount-row\"><span>Amount Paid:</span><span>₹").append(money(amountPaid)).append("</span></div>\n")
+            .append("        <div class=\"amount-row total-row\"><span>Balance:</span><span>₹0.00</span></div>\n")
+            .append("    </div>\n");
     }
 
-    private String getMediConnectLogoSvg() {
-        return "<svg width=\"200\" height=\"50\" viewBox=\"0 0 200 50\" xmlns=\"http://www.w3.org/2000/svg\">" +
-               "<defs>" +
-               "<linearGradient id=\"textGradient\" x1=\"0%\" y1=\"0%\" x2=\"100%\" y2=\"100%\">" +
-               "<stop offset=\"0%\" style=\"stop-color:#7C3AED;stop-opacity:1\" />" +
-               "<stop offset=\"100%\" style=\"stop-color:#EC4899;stop-opacity:1\" />" +
-               "</linearGradient>" +
-               "</defs>" +
-               // Purple solid background box with rounded corners
-               "<rect x=\"5\" y=\"8\" width=\"40\" height=\"40\" rx=\"8\" fill=\"#8B5CF6\"/>" +
-               // White "M" letter centered
-               "<text x=\"25\" y=\"34\" font-family=\"Arial, sans-serif\" font-size=\"24\" font-weight=\"bold\" fill=\"white\" text-anchor=\"middle\">M</text>" +
-               // Orange "+" symbol at top-right corner of the box
-               "<text x=\"37\" y=\"20\" font-family=\"Arial, sans-serif\" font-size=\"14\" font-weight=\"bold\" fill=\"#FB923C\">+</text>" +
-               // "MediConnect" text with gradient, positioned right after the box
-               "<text x=\"55\" y=\"25\" font-family=\"Arial, sans-serif\" font-size=\"18\" font-weight=\"bold\" fill=\"url(#textGradient)\">MediConnect</text>" +
-               // "HEALTH" text in orange, smaller, positioned after MediConnect
-               "<text x=\"175\" y=\"25\" font-family=\"Arial, sans-serif\" font-size=\"12\" font-weight=\"600\" fill=\"#F97316\">HEALTH</text>" +
-               "</svg>";
+    private static void appendFooter(StringBuilder html, String gstin, String paymentStatus) {
+        html.append("    <div class=\"footer\">\n")
+            .append("        <p><strong>GSTIN:</strong> ").append(escape(gstin)).append("</p>\n")
+            .append("        <p><strong>Payment Status:</strong> ").append(escape(paymentStatus)).append("</p>\n")
+            .append(RECEIPT_TAIL);
+    }
+
+    private static String escape(String value) {
+        return HtmlUtils.htmlEscape(value, StandardCharsets.UTF_8.name());
+    }
+
+    // Same rounding as %.2f, without parsing a format string per value
+    private static String money(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).toPlainString();
     }
 
     // Helper methods
@@ -414,49 +463,7 @@ public class PdfGenerationService {
         return (getConsultationFee(appointment) + getRegistrationFee(appointment)) * 0.18;
     }
     
- // Add this method to your existing PdfGenerationService.java
-
- public String generateLabTestReceipt(RazorpayPayment payment, LabTestBooking labTestBooking) {
-     try {
-         // Create output directory if not exists
-         Path outputDir = Paths.get(pdfOutputPath);
-         if (!Files.exists(outputDir)) {
-             Files.createDirectories(outputDir);
-         }
-
-         // Generate unique filename
-         String fileName = "lab_test_receipt_" + payment.getId() + "_" + System.currentTimeMillis() + ".pdf";
-         String filePath = pdfOutputPath + fileName;
-
-         // Create XHTML content
-         String htmlContent = generateLabTestReceiptHtml(payment, labTestBooking);
-
-         // Generate PDF
-         ITextRenderer renderer = new ITextRenderer();
-         renderer.setDocumentFromString(htmlContent);
-         renderer.layout();
-
-         try (FileOutputStream fos = new FileOutputStream(filePath)) {
-             renderer.createPDF(fos);
-         }
-
-         log.info("Lab test PDF receipt generated successfully: {}", filePath);
-         return filePath;
-
-     } catch (Exception e) {
-         log.error("Error generating lab test PDF receipt: ", e);
-         throw new RuntimeException("Failed to generate lab test PDF receipt", e);
-     }
- }
-
  private String generateLabTestReceiptHtml(RazorpayPayment payment, LabTestBooking labTestBooking) {
-     String logoSvg = getMediConnectLogoSvg();
-
-     // Format dates
-     DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-     DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
-     DateTimeFormatter fullFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm a");
-
      // Safe value methods to avoid null
      String patientName = getLabTestPatientName(labTestBooking);
      String patientId = "LAB" + (labTestBooking.getId() != null ? labTestBooking.getId() : "");
@@ -467,8 +474,8 @@ public class PdfGenerationService {
      String bookingDateTime = "Sample collection to be scheduled";
      if (labTestBooking.getScheduledDate() != null) {
          try {
-             bookingDateTime = labTestBooking.getScheduledDate().format(dateFormatter) + " " + 
-                             labTestBooking.getScheduledDate().format(timeFormatter);
+             bookingDateTime = labTestBooking.getScheduledDate().format(DATE_FORMATTER) + " " + 
+                             labTestBooking.getScheduledDate().format(TIME_FORMATTER);
              log.info("PDF lab test datetime for ID {}: {}", labTestBooking.getId(), bookingDateTime);
          } catch (Exception e) {
              log.error("Error formatting PDF lab test datetime: ", e);
@@ -478,14 +485,14 @@ public class PdfGenerationService {
      
      String billNo = "LAB-INV-" + (payment.getId() != null ? payment.getId() : "");
      String paymentDate = payment.getCompletedAt() != null
-             ? payment.getCompletedAt().format(fullFormatter)
-             : (payment.getCreatedAt() != null ? payment.getCreatedAt().format(fullFormatter) : "");
+             ? payment.getCompletedAt().format(FULL_FORMATTER)
+             : (payment.getCreatedAt() != null ? payment.getCreatedAt().format(FULL_FORMATTER) : "");
      String razorpayPaymentId = payment.getRazorpayPaymentId() != null ? payment.getRazorpayPaymentId() : "";
      String razorpayOrderId = payment.getRazorpayOrderId() != null ? payment.getRazorpayOrderId() : "";
      String testName = labTestBooking.getTestName() != null ? labTestBooking.getTestName() : "Lab Test";
      String sampleType = labTestBooking.getSampleType() != null ? labTestBooking.getSampleType() : "Blood";
      String collectionType = labTestBooking.getHomeCollection() ? "Home Collection" : "Lab Visit";
-     String testDate = labTestBooking.getScheduledDate() != null ? labTestBooking.getScheduledDate().format(dateFormatter) : "";
+     String testDate = labTestBooking.getScheduledDate() != null ? labTestBooking.getScheduledDate().format(DATE_FORMATTER) : "";
      double testPrice = labTestBooking.getTestPrice() != null ? labTestBooking.getTestPrice().doubleValue() : 0.0;
      double registrationFee = labTestBooking.getRegistrationFee() != null ? labTestBooking.getRegistrationFee().doubleValue() : 50.0;
      String regFeeDate = testDate;
@@ -495,92 +502,26 @@ public class PdfGenerationService {
      String gstin = companyGstin != null ? companyGstin : "";
      String paymentStatus = payment.getStatus() != null ? payment.getStatus().toString() : "";
 
-     // Same HTML template as your appointment receipt but for lab tests
-     return String.format(
- "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
- "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">\n" +
- "<html xmlns=\"http://www.w3.org/1999/xhtml\">\n" +
- "<head>\n" +
- "    <meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />\n" +
- "    <title>Lab Test Receipt</title>\n" +
- "    <style type=\"text/css\">\n" +
- "        body { font-family: Arial, sans-serif; margin: 0; padding: 20px; font-size: 12px; color: #333; }\n" +
- "        .header { display: flex; align-items: center; border-bottom: 2px solid #7C3AED; padding-bottom: 15px; margin-bottom: 20px; }\n" +
- "        .logo { margin-right: 20px; }\n" +
- "        .company-info { flex: 1; }\n" +
- "        .company-name { font-size: 24px; font-weight: bold; color: #7C3AED; margin-bottom: 5px; }\n" +
- "        .company-subtitle { font-size: 14px; color: #666; margin-bottom: 3px; }\n" +
- "        .bill-title { text-align: center; font-size: 18px; font-weight: bold; margin: 20px 0; }\n" +
- "        .bill-info { width: 100%%; display: flex; justify-content: space-between; margin-bottom: 20px; }\n" +
- "        .patient-info, .bill-details { width: 48%%; }\n" +
- "        .info-row { margin-bottom: 5px; }\n" +
- "        .label { font-weight: bold; display: inline-block; width: 120px; }\n" +
- "        .services-table { width: 100%%; border-collapse: collapse; margin: 20px 0; }\n" +
- "        .services-table th, .services-table td { border: 1px solid #ddd; padding: 8px; text-align: left; }\n" +
- "        .services-table th { background-color: #7C3AED; color: white; font-weight: bold; }\n" +
- "        .amount-section { margin: 20px 0; border: 1px solid #7C3AED; padding: 15px; background-color: #f8f9ff; }\n" +
- "        .amount-row { display: flex; justify-content: space-between; margin-bottom: 5px; }\n" +
- "        .total-row { font-weight: bold; font-size: 14px; border-top: 1px solid #7C3AED; padding-top: 5px; margin-top: 10px; }\n" +
- "        .footer { margin-top: 30px; border-top: 1px solid #ddd; padding-top: 15px; font-size: 10px; color: #666; }\n" +
- "        .qr-section { text-align: center; margin-top: 20px; }\n" +
- "    </style>\n" +
- "</head>\n" +
- "<body>\n" +
- "    <div class=\"header\">\n" +
- "        <div class=\"logo\">%s</div>\n" +
- "        <div class=\"company-info\">\n" +
- "            <div class=\"company-name\">%s</div>\n" +
- "            <div class=\"company-subtitle\">Advanced Healthcare Solutions</div>\n" +
- "            <div class=\"company-subtitle\">%s</div>\n" +
- "            <div class=\"company-subtitle\">Phone: %s | Email: %s</div>\n" +
- "        </div>\n" +
- "    </div>\n" +
- "    <div class=\"bill-title\">LAB TEST BILL AND RECEIPT</div>\n" +
- "    <div class=\"bill-info\">\n" +
- "        <div class=\"patient-info\">\n" +
- "            <div class=\"info-row\"><span class=\"label\">Patient Name:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Patient ID:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Phone No:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Email:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Collection:</span> %s</div>\n" +
- "        </div>\n" +
- "        <div class=\"bill-details\">\n" +
- "            <div class=\"info-row\"><span class=\"label\">Bill No:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Date:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Payment ID:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Order ID:</span> %s</div>\n" +
- "            <div class=\"info-row\"><span class=\"label\">Sample Type:</span> %s</div>\n" +
- "        </div>\n" +
- "    </div>\n" +
- "    <table class=\"services-table\">\n" +
- "        <thead><tr><th>Particulars</th><th>Date</th><th>Qty</th><th>Unit Rate</th><th>Amount (₹)</th></tr></thead>\n" +
- "        <tbody>\n" +
- "            <tr><td>%s - %s</td><td>%s</td><td>1</td><td>%.2f</td><td>%.2f</td></tr>\n" +
- "            <tr><td>Lab Registration Fee</td><td>%s</td><td>1</td><td>%.2f</td><td>%.2f</td></tr>\n" +
- "        </tbody>\n" +
- "    </table>\n" +
- "    <div class=\"amount-section\">\n" +
- "        <div class=\"amount-row\"><span>Total Lab Charges:</span><span>₹%.2f</span></div>\n" +
- "        <div class=\"amount-row\"><span>GST (18%%):</span><span>₹%.2f</span></div>\n" +
- "        <div class=\"amount-row total-row\"><span>Total Amount:</span><span>₹%.2f</span></div>\n" +
- "        <div class=\"amount-row\"><span>Amount Paid:</span><span>₹%.2f</span></div>\n" +
- "        <div class=\"amount-row total-row\"><span>Balance:</span><span>₹0.00</span></div>\n" +
- "    </div>\n" +
- "    <div class=\"footer\">\n" +
- "        <p><strong>GSTIN:</strong> %s</p>\n" +
- "        <p><strong>Payment Status:</strong> %s</p>\n" +
- "        <p>Thank you for choosing MediConnect Health. Your health is our priority.</p>\n" +
- "        <div class=\"qr-section\"><p></div>\n" +
- "    </div>\n" +
- "</body>\n" +
- "</html>",
-         logoSvg, companyName, companyAddress, companyPhone, companyEmail,
-         patientName, patientId, patientPhone, patientEmail, bookingDateTime,
-         billNo, paymentDate, razorpayPaymentId, razorpayOrderId, sampleType,
-         testName, collectionType, testDate, testPrice, testPrice,
-         regFeeDate, registrationFee, registrationFee,
-         total, gst, amountPaid, amountPaid, gstin, paymentStatus
-     );
+     StringBuilder html = receiptBuffer();
+     html.append(RECEIPT_HEAD).append("Lab Test Receipt").append(receiptHeader).append("LAB TEST BILL AND RECEIPT");
+     html.append(BILL_INFO_OPEN);
+     infoRow(html, "Patient Name:", patientName);
+     infoRow(html, "Patient ID:", patientId);
+     infoRow(html, "Phone No:", patientPhone);
+     infoRow(html, "Email:", patientEmail);
+     infoRow(html, "Collection:", bookingDateTime);
+     html.append(BILL_DETAILS_OPEN);
+     infoRow(html, "Bill No:", billNo);
+     infoRow(html, "Date:", paymentDate);
+     infoRow(html, "Payment ID:", razorpayPaymentId);
+     infoRow(html, "Order ID:", razorpayOrderId);
+     infoRow(html, "Sample Type:", sampleType);
+     html.append(SERVICES_TABLE_OPEN);
+     serviceRow(html, testName + " - " + collectionType, testDate, testPrice);
+     serviceRow(html, "Lab Registration Fee", regFeeDate, registrationFee);
+     appendAmounts(html, "Total Lab Charges:", total, gst, amountPaid);
+     appendFooter(html, gstin, paymentStatus);
+     return html.toString();
  }
 
  // Helper methods for lab test
@@ -612,4 +553,17 @@ public class PdfGenerationService {
      }
      return "Not provided";
  }
+
+ private static final class RenderWorker {
+     private final ITextRenderer renderer = new ITextRenderer();
+     private ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_PDF_BYTES);
+
+     ByteArrayOutputStream buffer() {
+         if (buffer.size() > MAX_RETAINED_PDF_BYTES) {
+             buffer = new ByteArrayOutputStream(INITIAL_PDF_BYTES);
+         }
+         buffer.reset();
+         return buffer;
+     }
+ }
 }
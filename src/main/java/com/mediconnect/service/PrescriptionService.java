@@ -23,6 +23,7 @@ import com.mediconnect.repository.DoctorRepository;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.PrescriptionItemRepository;
 import com.mediconnect.repository.PrescriptionRepository;
+import com.mediconnect.service.document.DocumentCache;
 
 @Service
 public class PrescriptionService {
@@ -48,6 +49,9 @@ public class PrescriptionService {
     @Autowired
     private ReminderService reminderService;
 
+    @Autowired
+    private DocumentCache documentCache;
+
     // ===== DTO MAPPING =====
     public static PrescriptionDTO mapToDTO(Prescription p) {
         PrescriptionDTO dto = new PrescriptionDTO();
@@ -256,6 +260,7 @@ public class PrescriptionService {
         Prescription prescription = getPrescriptionById(id);
         prescriptionItemRepository.deleteByPrescriptionId(id);
         prescriptionRepository.delete(prescription);
+        documentCache.evict("prescription-report", id);
     }
 
     @Transactional
@@ -3,41 +3,25 @@ package com.mediconnect.service;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.TaskScheduler;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.mediconnect.model.Patient;
+import com.mediconnect.model.MedicationReminder;
+import com.mediconnect.repository.MedicationReminderRepository;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.reminder.ReminderScheduler;
 
 /**
  * Service for managing medication reminders
+ *
+ * Reminders are stored in medication_reminders and fired by {@link ReminderScheduler}.
  */
 @Service
 public class ReminderService {
 
-    public TaskScheduler getTaskScheduler() {
-		return taskScheduler;
-	}
-
-	public void setTaskScheduler(TaskScheduler taskScheduler) {
-		this.taskScheduler = taskScheduler;
-	}
-
-	public NotificationService getNotificationService() {
-		return notificationService;
-	}
-
-	public void setNotificationService(NotificationService notificationService) {
-		this.notificationService = notificationService;
-	}
-
-	public PatientRepository getPatientRepository() {
+    public PatientRepository getPatientRepository() {
 		return patientRepository;
 	}
 
@@ -45,30 +29,18 @@ public class ReminderService {
 		this.patientRepository = patientRepository;
 	}
 
-	public Map<String, Map<String, Object>> getScheduledReminders() {
-		return scheduledReminders;
-	}
-
-	public void setScheduledReminders(Map<String, Map<String, Object>> scheduledReminders) {
-		this.scheduledReminders = scheduledReminders;
-	}
-
 	@Autowired
-    private TaskScheduler taskScheduler;
-    
-    @Autowired
-    private NotificationService notificationService;
-    
-    @Autowired
     private PatientRepository patientRepository;
-    
-    // In-memory store of scheduled reminders
-    // In a production app, this would be stored in a database
-    private Map<String, Map<String, Object>> scheduledReminders = new ConcurrentHashMap<>();
-    
+
+    @Autowired
+    private MedicationReminderRepository reminderRepository;
+
     /**
      * Schedule a reminder for a medication
+     *
+     * Scheduling the same medication and reminder time again updates the existing reminder.
      */
+    @Transactional
     public void scheduleReminderForMedication(
             Long patientId,
             Long medicationId,
@@ -76,104 +48,53 @@ public class ReminderService {
             String dosage,
             String reminderTime,
             LocalDateTime validUntil) {
-        
+
         try {
-            @SuppressWarnings("unused")
-			Patient patient = patientRepository.findById(patientId)
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
-            
-            // Parse the reminder time (e.g., "09:00 AM")
-            LocalTime time = null;
-            boolean isDailyReminder = false;
-            
-            if (reminderTime.contains(":")) {
-                // It's a specific time of day
-                String timeStr = reminderTime.split(",")[0].trim();
-                time = LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("hh:mm a"));
-                isDailyReminder = true;
+            if (!patientRepository.existsById(patientId)) {
+                throw new RuntimeException("Patient not found");
+            }
+
+            // Only reminders at a specific time of day (e.g., "09:00 AM") can be fired
+            if (!reminderTime.contains(":")) {
+                System.out.println("Skipped reminder without a time of day for " + medicationName + ": " + reminderTime);
+                return;
+            }
+            String timeStr = reminderTime.split(",")[0].trim();
+            LocalTime time = LocalTime.parse(timeStr, DateTimeFormatter.ofPattern("hh:mm a"));
+
+            MedicationReminder reminder = reminderRepository
+                    .findByMedicationIdAndReminderTime(medicationId, reminderTime)
+                    .orElseGet(MedicationReminder::new);
+            if (reminder.getId() == null) {
+                reminder.setCreatedAt(LocalDateTime.now());
             }
-            
-            // Create a unique ID for this reminder
-            String reminderId = UUID.randomUUID().toString();
-            
-            // Store reminder info
-            Map<String, Object> reminderInfo = new ConcurrentHashMap<>();
-            reminderInfo.put("patientId", patientId);
-            reminderInfo.put("medicationId", medicationId);
-            reminderInfo.put("medicationName", medicationName);
-            reminderInfo.put("dosage", dosage);
-            reminderInfo.put("reminderTime", reminderTime);
-            reminderInfo.put("validUntil", validUntil);
-            reminderInfo.put("isDailyReminder", isDailyReminder);
-            reminderInfo.put("timeOfDay", time);
-            
-            // Store the reminder
-            scheduledReminders.put(reminderId, reminderInfo);
-            
-            // Return the reminder ID
-            System.out.println("Scheduled reminder: " + reminderId + " for " + medicationName);
+            reminder.setPatientId(patientId);
+            reminder.setMedicationId(medicationId);
+            reminder.setMedicationName(medicationName);
+            reminder.setDosage(dosage);
+            reminder.setReminderTime(reminderTime);
+            reminder.setTimeOfDay(time);
+            reminder.setValidUntil(validUntil);
+            LocalDateTime next = ReminderScheduler.nextOccurrence(time, LocalDateTime.now(), validUntil);
+            reminder.setNextFireAt(next);
+            reminder.setActive(next != null);
+            // Drops any lease on the previous occurrence, so a parked copy of it can no longer fire
+            reminder.setLeaseOwner(null);
+            reminder.setLeaseUntil(null);
+            reminderRepository.save(reminder);
+
+            System.out.println("Scheduled reminder: " + reminder.getId() + " for " + medicationName);
         } catch (Exception e) {
             System.err.println("Error scheduling reminder: " + e.getMessage());
             e.printStackTrace();
         }
     }
-    
+
     /**
      * Cancel a reminder for a medication
      */
     public void cancelReminderForMedication(Long medicationId) {
-        // Find and remove all reminders for this medication
-        scheduledReminders.entrySet().removeIf(entry -> 
-            medicationId.equals(entry.getValue().get("medicationId")));
-    }
-    
-    /**
-     * Check for and send daily medication reminders
-     * Runs every hour
-     */
-    @Scheduled(cron = "0 0 * * * *")
-    public void processDailyMedicationReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalTime currentTime = now.toLocalTime();
-        
-        // Margin of error (15 minutes)
-        LocalTime timeMin = currentTime.minusMinutes(15);
-        LocalTime timeMax = currentTime.plusMinutes(45);
-        
-        // Check each reminder
-        scheduledReminders.forEach((reminderId, reminderInfo) -> {
-            try {
-                Boolean isDailyReminder = (Boolean) reminderInfo.get("isDailyReminder");
-                LocalDateTime validUntil = (LocalDateTime) reminderInfo.get("validUntil");
-                
-                // Skip if expired
-                if (validUntil != null && validUntil.isBefore(now)) {
-                    return;
-                }
-                
-                if (isDailyReminder) {
-                    LocalTime scheduledTime = (LocalTime) reminderInfo.get("timeOfDay");
-                    
-                    // If it's time to send the reminder (within the margin)
-                    if (scheduledTime != null && 
-                            !scheduledTime.isBefore(timeMin) && 
-                            !scheduledTime.isAfter(timeMax)) {
-                        
-                        // Send notification
-                        Long patientId = (Long) reminderInfo.get("patientId");
-                        String medicationName = (String) reminderInfo.get("medicationName");
-                        String dosage = (String) reminderInfo.get("dosage");
-                        
-                        notificationService.sendMedicationReminder(
-                                patientId, 
-                                medicationName, 
-                                dosage, 
-                                (String) reminderInfo.get("reminderTime"));
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing reminder " + reminderId + ": " + e.getMessage());
-            }
-        });
+        // Deactivated reminders are no longer claimed, and parked ones fail their conditional advance
+        reminderRepository.deactivateByMedicationId(medicationId);
     }
-}
\ No newline at end of file
+}
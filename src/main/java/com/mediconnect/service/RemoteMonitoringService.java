@@ -1,10 +1,13 @@
 package com.mediconnect.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.time.ZoneOffset;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,11 +20,21 @@ import com.mediconnect.model.DeviceReading;
 import com.mediconnect.model.MedicalRecord;
 import com.mediconnect.model.MonitoringDevice;
 import com.mediconnect.model.Patient;
+import com.mediconnect.model.ReadingRollup.Source;
 import com.mediconnect.repository.AlertRuleRepository;
 import com.mediconnect.repository.DeviceReadingRepository;
 import com.mediconnect.repository.MedicalRecordRepository;
 import com.mediconnect.repository.MonitoringDeviceRepository;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.monitoring.AlertRuleEngine;
+import com.mediconnect.service.monitoring.CompiledAlertRule;
+import com.mediconnect.service.monitoring.IngestedReading;
+import com.mediconnect.service.monitoring.ReadingIngestionPipeline;
+import com.mediconnect.service.monitoring.ReadingRollupService;
+import com.mediconnect.service.monitoring.RollupSummary;
+import com.mediconnect.service.monitoring.VitalsPushService;
+import com.mediconnect.service.monitoring.archive.ArchivedSample;
+import com.mediconnect.service.monitoring.archive.DeviceReadingArchiveService;
 
 @Service
 public class RemoteMonitoringService {
@@ -44,6 +57,18 @@ public class RemoteMonitoringService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+    
+    @Autowired
+    private ReadingRollupService rollupService;
+    
+    @Autowired
+    private DeviceReadingArchiveService archiveService;
+    
+    @Autowired
+    private VitalsPushService vitalsPushService;
+    
     /**
      * Register a new monitoring device for a patient
      */
@@ -94,6 +119,10 @@ public class RemoteMonitoringService {
         reading.setMetadata(readingDTO.getMetadata());
         
         DeviceReading savedReading = readingRepository.save(reading);
+        rollupService.recordDeviceReading(device.getPatient().getId(), savedReading.getReadingType(),
+                savedReading.getValue(), savedReading.getUnit(), savedReading.getTimestamp());
+        vitalsPushService.publishDeviceReading(device.getPatient().getId(), savedReading.getReadingType(),
+                savedReading.getValue(), savedReading.getUnit(), savedReading.getTimestamp());
         
         // Check alert rules
         checkAlertRules(savedReading);
@@ -108,102 +137,109 @@ public class RemoteMonitoringService {
      * Check if reading triggers any alert rules
      */
     private void checkAlertRules(DeviceReading reading) {
-        List<AlertRule> rules = alertRuleRepository.findByPatientIdAndReadingType(
-                reading.getDevice().getPatient().getId(), 
-                reading.getReadingType());
+        Long patientId = reading.getDevice().getPatient().getId();
+        List<CompiledAlertRule> triggered = alertRuleEngine.evaluate(patientId, reading.getDevice().getId(),
+                reading.getReadingType(), reading.getValue(), reading.getTimestamp());
         
-        for (AlertRule rule : rules) {
-            boolean isTriggered = false;
-            
-            switch (rule.getConditionType()) {
-                case "ABOVE":
-                    isTriggered = reading.getValue() > rule.getThresholdValue();
-                    break;
-                case "BELOW":
-                    isTriggered = reading.getValue() < rule.getThresholdValue();
-                    break;
-                case "EQUAL":
-                    isTriggered = Math.abs(reading.getValue() - rule.getThresholdValue()) < 0.0001;
-                    break;
-                case "CHANGE":
-                    // Get previous reading
-                    DeviceReading previousReading = readingRepository
-                            .findTopByDeviceAndReadingTypeOrderByTimestampDesc(
-                                    reading.getDevice(), reading.getReadingType())
-                            .orElse(null);
-                    
-                    if (previousReading != null) {
-                        double change = Math.abs((reading.getValue() - previousReading.getValue()) / 
-                                previousReading.getValue());
-                        isTriggered = change > rule.getThresholdValue();
-                    }
-                    break;
-            }
-            
-            if (isTriggered) {
-                // Send alert
-                Map<String, Object> alertData = new HashMap<>();
-                alertData.put("patientId", reading.getDevice().getPatient().getId());
-                alertData.put("readingType", reading.getReadingType());
-                alertData.put("value", reading.getValue());
-                alertData.put("unit", reading.getUnit());
-                alertData.put("timestamp", reading.getTimestamp());
-                alertData.put("ruleName", rule.getRuleName());
-                alertData.put("alertLevel", rule.getAlertLevel());
-                
-                notificationService.sendMonitoringAlert(alertData);
-                
-                // Log alert
-                rule.setLastTriggeredAt(LocalDateTime.now());
-                rule.setTriggerCount(rule.getTriggerCount() + 1);
-                alertRuleRepository.save(rule);
+        for (CompiledAlertRule rule : triggered) {
+            notificationService.sendMonitoringAlert(buildAlertData(patientId, reading.getReadingType(),
+                    reading.getValue(), reading.getUnit(), reading.getTimestamp(), rule));
+        }
+    }
+    
+    /**
+     * Alerting and vital sign updates for a micro-batch already written by
+     * {@link ReadingIngestionPipeline}. Alert rules are evaluated in memory in timestamp
+     * order, and each patient's medical record is updated once with the newest value per type.
+     */
+    @Transactional
+    public void applyIngestedBatch(List<IngestedReading> readings) {
+        List<IngestedReading> ordered = new ArrayList<>(readings);
+        ordered.sort(Comparator.comparing(IngestedReading::getTimestamp));
+        Map<Long, Map<String, IngestedReading>> latestByPatient = new HashMap<>();
+        
+        for (IngestedReading reading : ordered) {
+            List<CompiledAlertRule> triggered = alertRuleEngine.evaluate(reading.getPatientId(),
+                    reading.getDevicePk(), reading.getReadingType(), reading.getValue(), reading.getTimestamp());
+            for (CompiledAlertRule rule : triggered) {
+                notificationService.sendMonitoringAlert(buildAlertData(reading.getPatientId(),
+                        reading.getReadingType(), reading.getValue(), reading.getUnit(), reading.getTimestamp(), rule));
             }
+            latestByPatient.computeIfAbsent(reading.getPatientId(), key -> new HashMap<>())
+                    .put(reading.getReadingType().toUpperCase(), reading);
+        }
+        
+        for (Map.Entry<Long, Map<String, IngestedReading>> entry : latestByPatient.entrySet()) {
+            medicalRecordRepository.findFirstByPatientIdOrderByRecordDateDesc(entry.getKey()).ifPresent(record -> {
+                boolean updated = false;
+                for (IngestedReading reading : entry.getValue().values()) {
+                    updated |= applyVital(record, reading.getReadingType(), reading.getValue(), reading.getMetadata());
+                }
+                if (updated) {
+                    medicalRecordRepository.save(record);
+                }
+            });
         }
     }
     
+    private Map<String, Object> buildAlertData(Long patientId, String readingType, double value,
+                                               String unit, LocalDateTime timestamp, CompiledAlertRule rule) {
+        Map<String, Object> alertData = new HashMap<>();
+        alertData.put("patientId", patientId);
+        alertData.put("readingType", readingType);
+        alertData.put("value", value);
+        alertData.put("unit", unit);
+        alertData.put("timestamp", timestamp);
+        alertData.put("ruleName", rule.getRuleName());
+        alertData.put("alertLevel", rule.getAlertLevel());
+        return alertData;
+    }
+    
     /**
      * Update patient vital signs based on device readings
      */
     private void updatePatientVitals(Long patientId, DeviceReadingDTO reading) {
         // Get most recent medical record
-        List<MedicalRecord> records = medicalRecordRepository.findLatestRecordsByPatientId(patientId);
+        MedicalRecord record = medicalRecordRepository.findFirstByPatientIdOrderByRecordDateDesc(patientId)
+                .orElse(null);
         
-        if (records.isEmpty()) {
+        if (record == null) {
             return; // No medical record to update
         }
         
-        MedicalRecord record = records.get(0);
-        boolean updated = false;
-        
+        if (applyVital(record, reading.getReadingType(), reading.getValue(), reading.getMetadata())) {
+            medicalRecordRepository.save(record);
+        }
+    }
+    
+    /**
+     * Copies a reading onto the matching vital sign field; returns false for other reading types
+     */
+    private boolean applyVital(MedicalRecord record, String readingType, double value, Map<String, String> metadata) {
         // Update appropriate vital sign based on reading type
-        switch (reading.getReadingType().toUpperCase()) {
+        switch (readingType.toUpperCase()) {
             case "HEART_RATE":
-                record.setHeartRate((int) Math.round(reading.getValue()));
-                updated = true;
-                break;
+                record.setHeartRate((int) Math.round(value));
+                return true;
             case "BLOOD_PRESSURE":
-                if (reading.getMetadata() != null) {
-                    String systolic = reading.getMetadata().get("systolic");
-                    String diastolic = reading.getMetadata().get("diastolic");
+                if (metadata != null) {
+                    String systolic = metadata.get("systolic");
+                    String diastolic = metadata.get("diastolic");
                     if (systolic != null && diastolic != null) {
                         record.setBloodPressure(systolic + "/" + diastolic);
-                        updated = true;
+                        return true;
                     }
                 }
-                break;
+                return false;
             case "TEMPERATURE":
-                record.setTemperature(reading.getValue());
-                updated = true;
-                break;
+                record.setTemperature(value);
+                return true;
             case "SPO2":
             case "OXYGEN_SATURATION":
-                record.setOxygenSaturation(reading.getValue());
-                updated = true;
-                break;
-        }
-        
-        if (updated) {
-            medicalRecordRepository.save(record);
+                record.setOxygenSaturation(value);
+                return true;
+            default:
+                return false;
         }
     }
     
@@ -213,18 +249,39 @@ public class RemoteMonitoringService {
     @Transactional
     public AlertRule createAlertRule(Long patientId, String readingType, String conditionType, 
                                    double thresholdValue, String alertLevel) {
+        return createAlertRule(patientId, readingType, conditionType, thresholdValue, alertLevel, null, null);
+    }
+    
+    /**
+     * Create alert rule for a patient with a look-back window and/or hysteresis.
+     *
+     * RATE_OF_CHANGE compares the absolute change per minute over the last windowMinutes;
+     * SUSTAINED_ABOVE/SUSTAINED_BELOW fire once the condition has held for windowMinutes.
+     * With a clearThreshold, a fired rule stays silent until the value crosses back past it.
+     */
+    @Transactional
+    public AlertRule createAlertRule(Long patientId, String readingType, String conditionType,
+                                   double thresholdValue, String alertLevel,
+                                   Integer windowMinutes, Double clearThreshold) {
         // Check if patient exists
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new MonitoringException("Patient not found"));
         
+        // Validates the condition type and window up front
+        CompiledAlertRule.Condition condition = CompiledAlertRule.Condition.parse(conditionType);
+        new CompiledAlertRule(null, patientId, readingType, condition, thresholdValue,
+                windowMinutes, clearThreshold, null, alertLevel);
+        
         // Create alert rule
         AlertRule rule = new AlertRule();
         rule.setPatient(patient);
         rule.setReadingType(readingType);
-        rule.setRuleName(readingType + " " + conditionType + " " + thresholdValue);
-        rule.setConditionType(conditionType);
+        rule.setRuleName(readingType + " " + condition.name() + " " + thresholdValue);
+        rule.setConditionType(condition.name());
         rule.setThresholdValue(thresholdValue);
         rule.setAlertLevel(alertLevel);
+        rule.setWindowMinutes(windowMinutes);
+        rule.setClearThreshold(clearThreshold);
         rule.setTriggerCount(0);
         rule.setCreatedAt(LocalDateTime.now());
         
@@ -232,68 +289,64 @@ public class RemoteMonitoringService {
     }
     
     /**
-     * Get readings for a patient within a date range
+     * Get readings for a patient within a date range, newest first. Readings already moved
+     * to the archive are decoded and merged in; they carry no id.
      */
     public List<DeviceReading> getPatientReadings(Long patientId, String readingType, 
                                             LocalDateTime startDate, LocalDateTime endDate) {
-        return readingRepository.findByPatientIdAndReadingTypeAndDateRange(
+        List<DeviceReading> readings = readingRepository.findByPatientIdAndReadingTypeAndDateRange(
                 patientId, readingType, startDate, endDate);
+        
+        List<ArchivedSample> archived = archiveService.findReadings(patientId, readingType, startDate, endDate);
+        if (archived.isEmpty()) {
+            return readings;
+        }
+        
+        Set<Long> devicePks = new HashSet<>();
+        for (ArchivedSample sample : archived) {
+            devicePks.add(sample.getDevicePk());
+        }
+        Map<Long, MonitoringDevice> devices = new HashMap<>();
+        for (MonitoringDevice device : deviceRepository.findAllById(devicePks)) {
+            devices.put(device.getId(), device);
+        }
+        
+        List<DeviceReading> merged = new ArrayList<>(readings.size() + archived.size());
+        merged.addAll(readings);
+        for (ArchivedSample sample : archived) {
+            DeviceReading reading = new DeviceReading();
+            reading.setDevice(devices.get(sample.getDevicePk()));
+            reading.setReadingType(sample.getReadingType());
+            reading.setValue(sample.getValue());
+            reading.setUnit(sample.getUnit());
+            reading.setTimestamp(sample.getTimestamp());
+            reading.setMetadata(sample.getMetadata());
+            merged.add(reading);
+        }
+        merged.sort(Comparator.comparing(DeviceReading::getTimestamp).reversed());
+        return merged;
     }
     
     /**
-     * Analyze device readings for trends
+     * Analyze device readings for trends.
+     *
+     * Statistics and the least-squares slope (units per hour) come from the rollup buckets
+     * covering the window rather than from the raw readings.
      */
     public Map<String, Object> analyzeReadingTrends(Long patientId, String readingType, int days) {
-        // Get readings for the specified period
         LocalDateTime endDate = LocalDateTime.now();
         LocalDateTime startDate = endDate.minusDays(days);
         
-        List<DeviceReading> readings = readingRepository.findByPatientIdAndReadingTypeAndDateRange(
-                patientId, readingType, startDate, endDate);
+        RollupSummary summary = rollupService.summarize(Source.DEVICE, patientId, readingType, startDate, endDate);
         
         Map<String, Object> analysis = new HashMap<>();
         
-        if (readings.isEmpty()) {
+        if (summary.isEmpty()) {
             analysis.put("status", "insufficient_data");
             return analysis;
         }
         
-        // Calculate basic statistics
-        double sum = 0;
-        double min = Double.MAX_VALUE;
-        double max = Double.MIN_VALUE;
-        
-        for (DeviceReading reading : readings) {
-            sum += reading.getValue();
-            min = Math.min(min, reading.getValue());
-            max = Math.max(max, reading.getValue());
-        }
-        
-        double average = sum / readings.size();
-        
-        // Calculate trend (simple linear regression)
-        double sumX = 0;
-        double sumY = 0;
-        double sumXY = 0;
-        double sumXX = 0;
-        
-        // Convert timestamps to hours from start
-        long startTimeMillis = readings.get(0).getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
-        
-        for (int i = 0; i < readings.size(); i++) {
-            DeviceReading reading = readings.get(i);
-            double x = (reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli() - startTimeMillis) / 
-                      (1000.0 * 60 * 60); // hours
-            double y = reading.getValue();
-            
-            sumX += x;
-            sumY += y;
-            sumXY += x * y;
-            sumXX += x * x;
-        }
-        
-        double n = readings.size();
-        double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+        double slope = summary.getSlopePerHour();
         
         // Determine trend direction
         String trendDirection = "stable";
@@ -306,13 +359,15 @@ public class RemoteMonitoringService {
         // Prepare analysis result
         analysis.put("status", "completed");
         analysis.put("readingType", readingType);
-        analysis.put("count", readings.size());
-        analysis.put("average", average);
-        analysis.put("min", min);
-        analysis.put("max", max);
+        analysis.put("count", summary.getCount());
+        analysis.put("average", summary.getAverage());
+        analysis.put("min", summary.getMin());
+        analysis.put("max", summary.getMax());
+        analysis.put("standardDeviation", summary.getStandardDeviation());
+        analysis.put("latest", summary.getLastValue());
         analysis.put("trend", trendDirection);
         analysis.put("slope", slope);
-        analysis.put("unit", readings.get(0).getUnit());
+        analysis.put("unit", summary.getUnit());
         
         // Add interpretation based on reading type
         addInterpretation(analysis, readingType);
@@ -11,8 +11,6 @@ import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.HtmlConverter;
@@ -31,12 +29,19 @@ import com.mediconnect.repository.AppointmentRepository;
 import com.mediconnect.repository.MedicalRecordRepository;
 import com.mediconnect.repository.PaymentRepository;
 import com.mediconnect.repository.PrescriptionRepository;
+import com.mediconnect.service.document.CachedDocument;
+import com.mediconnect.service.document.DocumentCache;
+import com.mediconnect.service.render.TemplateRenderer;
+import com.mediconnect.util.TokenHashUtil;
 
 @Service
 public class ReportService {
 
     @Autowired
-    private SpringTemplateEngine templateEngine;
+    private TemplateRenderer templateRenderer;
+
+    @Autowired
+    private DocumentCache documentCache;
     
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
@@ -59,7 +64,7 @@ public class ReportService {
     /**
      * Generate patient medical history report
      */
-    public byte[] generatePatientMedicalHistoryReport(Long patientId) {
+    public CachedDocument generatePatientMedicalHistoryReport(Long patientId) {
         try {
             // Fetch patient's medical records
             List<MedicalRecord> records = medicalRecordRepository.findLatestRecordsByPatientId(patientId);
@@ -82,7 +87,7 @@ public class ReportService {
             variables.put("medicalRecords", records);
             variables.put("generatedDate", LocalDateTime.now().format(DATE_TIME_FORMATTER));
             
-            return generatePdfFromTemplate("patient-medical-history", variables);
+            return generatePdfFromTemplate("patient-medical-history", patientId, patient.getId(), variables);
         } catch (Exception e) {
             throw new ReportGenerationException("Failed to generate patient medical history report: " + e.getMessage(), e);
         }
@@ -91,7 +96,7 @@ public class ReportService {
     /**
      * Generate doctor appointment summary report
      */
-    public byte[] generateDoctorAppointmentReport(Long doctorId, LocalDateTime startDate, LocalDateTime endDate) {
+    public CachedDocument generateDoctorAppointmentReport(Long doctorId, LocalDateTime startDate, LocalDateTime endDate) {
         try {
             // Fetch doctor's appointments
         	List<Appointment> appointments = appointmentRepository.findByDoctorIdAndDateRange(
@@ -132,7 +137,8 @@ public class ReportService {
             variables.put("cancelledCount", cancelledCount);
             variables.put("noShowCount", noShowCount);
             
-            return generatePdfFromTemplate("doctor-appointment-summary", variables);
+            return generatePdfFromTemplate("doctor-appointment-summary",
+                    doctorId + "-" + startDate + "-" + endDate, null, variables);
         } catch (Exception e) {
             throw new ReportGenerationException("Failed to generate doctor appointment report: " + e.getMessage(), e);
         }
@@ -141,7 +147,7 @@ public class ReportService {
     /**
      * Generate prescription report
      */
-    public byte[] generatePrescriptionReport(Long prescriptionId) {
+    public CachedDocument generatePrescriptionReport(Long prescriptionId) {
         try {
             Prescription prescription = prescriptionRepository.findById(prescriptionId)
                     .orElseThrow(() -> new ReportGenerationException("Prescription not found"));
@@ -163,7 +169,8 @@ public class ReportService {
             variables.put("isDigitallySigned", prescription.isDigitallySigned());
             variables.put("generatedDate", LocalDateTime.now().format(DATE_TIME_FORMATTER));
             
-            return generatePdfFromTemplate("prescription-report", variables);
+            return generatePdfFromTemplate("prescription-report", prescriptionId,
+                    prescription.getPatient().getId(), variables);
         } catch (Exception e) {
             throw new ReportGenerationException("Failed to generate prescription report: " + e.getMessage(), e);
         }
@@ -172,7 +179,7 @@ public class ReportService {
     /**
      * Generate AI diagnosis report
      */
-    public byte[] generateAiDiagnosisReport(Long aiDiagnosisId) {
+    public CachedDocument generateAiDiagnosisReport(Long aiDiagnosisId) {
         try {
             AiDiagnosisResult diagnosis = aiDiagnosisResultRepository.findById(aiDiagnosisId)
                     .orElseThrow(() -> new ReportGenerationException("AI diagnosis result not found"));
@@ -197,7 +204,8 @@ public class ReportService {
             variables.put("analyzedAt", diagnosis.getAnalyzedAt().format(DATE_TIME_FORMATTER));
             variables.put("generatedDate", LocalDateTime.now().format(DATE_TIME_FORMATTER));
             
-            return generatePdfFromTemplate("ai-diagnosis-report", variables);
+            return generatePdfFromTemplate("ai-diagnosis-report", aiDiagnosisId,
+                    diagnosis.getMedicalRecord().getPatient().getId(), variables);
         } catch (Exception e) {
             throw new ReportGenerationException("Failed to generate AI diagnosis report: " + e.getMessage(), e);
         }
@@ -206,7 +214,7 @@ public class ReportService {
     /**
      * Generate payment invoice
      */
-    public byte[] generatePaymentInvoice(Long paymentId) {
+    public CachedDocument generatePaymentInvoice(Long paymentId) {
         try {
             Payment payment = paymentRepository.findById(paymentId)
                     .orElseThrow(() -> new ReportGenerationException("Payment not found"));
@@ -232,21 +240,31 @@ public class ReportService {
             variables.put("transactionId", payment.getPaymentIntentId());
             variables.put("generatedDate", LocalDateTime.now().format(DATE_TIME_FORMATTER));
             
-            return generatePdfFromTemplate("payment-invoice", variables);
+            return generatePdfFromTemplate("payment-invoice", paymentId,
+                    appointment.getPatient().getId(), variables);
         } catch (Exception e) {
             throw new ReportGenerationException("Failed to generate payment invoice: " + e.getMessage(), e);
         }
     }
     
     /**
-     * Generate PDF from Thymeleaf template
+     * Generate PDF from Thymeleaf template, or return the cached one if the HTML has not changed.
+     * The patient the report is about (null for reports about several) owns the cached copy.
      */
-    private byte[] generatePdfFromTemplate(String templateName, Map<String, Object> variables) throws IOException {
+    private CachedDocument generatePdfFromTemplate(String templateName, Object entityId, Long patientId,
+                                                   Map<String, Object> variables) {
         // Process the Thymeleaf template to HTML
-        Context context = new Context();
-        context.setVariables(variables);
-        String htmlContent = templateEngine.process(templateName, context);
-        
+        String htmlContent = templateRenderer.render(templateName, variables);
+
+        // The generation timestamp differs on every call while the report does not, so it is left
+        // out of the version; a cached report shows when it was actually generated
+        Object generatedDate = variables.get("generatedDate");
+        String versionSource = generatedDate != null ? htmlContent.replace(generatedDate.toString(), "") : htmlContent;
+        return documentCache.getOrRender(templateName, entityId, TokenHashUtil.sha256Hex(versionSource),
+                patientId != null ? DocumentCache.patientOwner(patientId) : null, () -> convertToPdf(htmlContent));
+    }
+
+    private byte[] convertToPdf(String htmlContent) throws IOException {
         // Convert HTML to PDF
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PdfWriter pdfWriter = new PdfWriter(outputStream);
@@ -0,0 +1,99 @@
+package com.mediconnect.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.model.Session;
+import com.mediconnect.repository.SessionRepository;
+
+/**
+ * Scheduled compaction of the sessions table
+ */
+@Service
+public class SessionCleanupScheduledTasks {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SessionCleanupScheduledTasks.class);
+    
+    private static final int DELETE_BATCH_SIZE = 1000;
+    
+    @Autowired
+    private SessionRepository sessionRepository;
+    
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+    
+    @Value("${mediconnect.sessions.logged-out-retention-days:7}")
+    private int loggedOutRetentionDays;
+    
+    /**
+     * Fill in token digests for sessions created before the hash columns existed,
+     * so their owners stay logged in after the upgrade
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTokenHashes() {
+        int backfilled = 0;
+        long lastId = 0;
+        try {
+            List<Session> batch = sessionRepository.findTop500ByJwtTokenHashIsNullAndIdGreaterThanOrderByIdAsc(lastId);
+            while (!batch.isEmpty()) {
+                for (Session session : batch) {
+                    lastId = session.getId();
+                    try {
+                        session.refreshTokenHashes();
+                        sessionRepository.save(session);
+                        backfilled++;
+                    } catch (Exception e) {
+                        // Legacy duplicate JWTs cannot satisfy the unique index; leave them to compaction
+                        logger.warn("Could not backfill token hash for session {}: {}", session.getId(), e.getMessage());
+                    }
+                }
+                batch = sessionRepository.findTop500ByJwtTokenHashIsNullAndIdGreaterThanOrderByIdAsc(lastId);
+            }
+            if (backfilled > 0) {
+                logger.info("Backfilled token hashes for {} sessions", backfilled);
+            }
+        } catch (Exception e) {
+            logger.error("Error backfilling session token hashes after {} rows: {}", backfilled, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Delete logged-out sessions past the retention window and sessions whose JWT has expired.
+     * Runs every hour in small batches so the table stays bounded without long-held locks.
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour (3600000 ms)
+    public void compactSessions() {
+        logger.info("Starting scheduled compaction of sessions table");
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int loggedOut = deleteInBatches(true, now.minusDays(loggedOutRetentionDays));
+            int expired = deleteInBatches(false, now.minus(Duration.ofMillis(jwtExpirationMs)));
+            logger.info("Completed session compaction: {} logged-out and {} expired sessions removed",
+                loggedOut, expired);
+        } catch (Exception e) {
+            logger.error("Error during scheduled session compaction: {}", e.getMessage(), e);
+        }
+    }
+    
+    private int deleteInBatches(boolean loggedOut, LocalDateTime cutoff) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = loggedOut
+                ? sessionRepository.deleteLoggedOutBefore(cutoff, DELETE_BATCH_SIZE)
+                : sessionRepository.deleteExpiredBefore(cutoff, DELETE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == DELETE_BATCH_SIZE);
+        return total;
+    }
+}
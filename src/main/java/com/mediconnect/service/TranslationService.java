@@ -9,13 +9,13 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.TranslationRequestDTO;
 import com.mediconnect.dto.TranslationResponseDTO;
 import com.mediconnect.exception.TranslationException;
 import com.mediconnect.model.Patient;
 import com.mediconnect.repository.PatientRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class TranslationService {
@@ -27,7 +27,7 @@ public class TranslationService {
     private String translationApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private PatientRepository patientRepository;
@@ -52,7 +52,7 @@ public class TranslationService {
             
             // Call translation API
             @SuppressWarnings("unchecked")
-			Map<String, Object> apiResponse = restTemplate.postForObject(
+			Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     translationApiUrl, 
                     requestEntity, 
                     Map.class);
@@ -141,7 +141,7 @@ public class TranslationService {
             
             // Call cultural recommendations API
             @SuppressWarnings("unchecked")
-			Map<String, String> apiResponse = restTemplate.postForObject(
+			Map<String, String> apiResponse = aiHttpClient.postForObject(
                     translationApiUrl + "/cultural-recommendations", 
                     requestEntity, 
                     Map.class);
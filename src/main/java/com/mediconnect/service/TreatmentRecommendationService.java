@@ -13,7 +13,6 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.TreatmentOptionDTO;
 import com.mediconnect.dto.TreatmentRecommendationDTO;
@@ -23,6 +22,7 @@ import com.mediconnect.model.Patient;
 import com.mediconnect.model.TreatmentRecommendation;
 import com.mediconnect.repository.MedicalRecordRepository;
 import com.mediconnect.repository.TreatmentRecommendationRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class TreatmentRecommendationService {
@@ -34,7 +34,7 @@ public class TreatmentRecommendationService {
     private String treatmentApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
@@ -76,7 +76,7 @@ public class TreatmentRecommendationService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call treatment recommendation API
-            Map<String, Object> apiResponse = restTemplate.postForObject(
+            Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     treatmentApiUrl + "/recommend", 
                     requestEntity, 
                     Map.class);
@@ -11,7 +11,6 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import com.mediconnect.dto.TriageRequestDTO;
 import com.mediconnect.dto.TriageResultDTO;
@@ -20,6 +19,7 @@ import com.mediconnect.model.Patient;
 import com.mediconnect.model.TriageRecord;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.TriageRecordRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 
 @Service
 public class TriageService {
@@ -31,7 +31,7 @@ public class TriageService {
     private String triageApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private PatientRepository patientRepository;
@@ -71,7 +71,7 @@ public class TriageService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call triage API
-            Map<String, Object> apiResponse = restTemplate.postForObject(
+            Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     triageApiUrl + "/assess", 
                     requestEntity, 
                     Map.class);
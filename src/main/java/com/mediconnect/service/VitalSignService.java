@@ -6,12 +6,22 @@ import com.mediconnect.model.VitalSign.Status;
 import com.mediconnect.repository.VitalSignRepository;
 import com.mediconnect.repository.PatientRepository;
 import com.mediconnect.repository.DoctorRepository;
+import com.mediconnect.model.ReadingRollup.Source;
+import com.mediconnect.service.monitoring.ReadingRollupService;
+import com.mediconnect.service.monitoring.RollupSummary;
+import com.mediconnect.service.monitoring.VitalsPushService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class VitalSignService {
@@ -25,6 +35,16 @@ public class VitalSignService {
     @Autowired
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private ReadingRollupService rollupService;
+
+    @Autowired
+    private VitalsPushService vitalsPushService;
+
+    // timeFrame values such as "24h", "7d", "12w", "3m", "1y". At most four digits, so parsing and
+    // the date arithmetic cannot overflow; longer numbers fall back to the default time frame
+    private static final Pattern TIME_FRAME = Pattern.compile("(\\d{1,4})\\s*([hdwmy])");
+
     // Convert DTO to Entity - FIXED VERSION
     private VitalSign toEntity(VitalSignDTO dto) {
         VitalSign entity = new VitalSign();
@@ -53,7 +73,10 @@ public class VitalSignService {
     // Add new - SIMPLIFIED VERSION
     public VitalSign addVitalSign(VitalSignDTO dto) {
         VitalSign entity = toEntity(dto);
-        return vitalSignRepository.save(entity);
+        VitalSign saved = vitalSignRepository.save(entity);
+        rollupService.recordVitalSign(saved);
+        vitalsPushService.publishVitalSign(saved);
+        return saved;
     }
 
     // Update existing - FIXED VERSION
@@ -62,6 +85,11 @@ public class VitalSignService {
         if (opt.isEmpty()) throw new RuntimeException("VitalSign not found");
         VitalSign entity = opt.get();
 
+        // Remember the old position so its rollup day is recomputed too
+        Long previousPatientId = entity.getPatientId();
+        String previousType = entity.getVitalType();
+        Date previousDate = entity.getReadingDate();
+
         // Update patient if provided
         if (dto.getPatientId() != null) {
             entity.setPatient(patientRepository.findById(dto.getPatientId()).orElse(null));
@@ -80,12 +108,24 @@ public class VitalSignService {
         }
         entity.setNotes(dto.getNotes());
 
-        return vitalSignRepository.save(entity);
+        VitalSign saved = vitalSignRepository.save(entity);
+        rollupService.rebuildVitalSignDay(previousPatientId, previousType, previousDate);
+        rollupService.rebuildVitalSignDay(saved.getPatientId(), saved.getVitalType(), saved.getReadingDate());
+        // The edited row may have been the latest of its type, so live snapshots are rebuilt
+        vitalsPushService.invalidate(previousPatientId);
+        vitalsPushService.invalidate(saved.getPatientId());
+        vitalsPushService.publishVitalSign(saved);
+        return saved;
     }
 
     // Delete
     public void deleteVitalSign(Long id) {
+        Optional<VitalSign> existing = vitalSignRepository.findById(id);
         vitalSignRepository.deleteById(id);
+        existing.ifPresent(vitalSign -> {
+            rollupService.rebuildVitalSignDay(vitalSign.getPatientId(), vitalSign.getVitalType(), vitalSign.getReadingDate());
+            vitalsPushService.invalidate(vitalSign.getPatientId());
+        });
     }
 
     // Get all by patientId - NEEDS TO BE UPDATED FOR NEW ENTITY STRUCTURE
@@ -117,8 +157,60 @@ public class VitalSignService {
         return vitalSignRepository.findByPatientIdAndStatusNot(patientId, Status.normal);
     }
 
-    // Analytics/history for type+timeframe - NEEDS TO BE UPDATED
+    // Analytics/history for type+timeframe; without a timeFrame the full history is returned
     public List<VitalSign> getVitalSignHistoryForAnalytics(Long patientId, String vitalType, String timeFrame) {
-        return vitalSignRepository.findByPatientIdAndVitalTypeOrderByReadingDateDesc(patientId, vitalType);
+        if (timeFrame == null || timeFrame.isBlank()) {
+            return vitalSignRepository.findByPatientIdAndVitalTypeOrderByReadingDateDesc(patientId, vitalType);
+        }
+        Date startDate = Timestamp.valueOf(resolveTimeFrameStart(timeFrame, LocalDateTime.now()));
+        return vitalSignRepository.findByPatientIdAndVitalTypeAndReadingDateAfterOrderByReadingDateDesc(
+            patientId, vitalType, startDate);
+    }
+
+    // Trend summary and chart series for type+timeframe, served from rollups instead of raw rows
+    public Map<String, Object> getVitalSignTrend(Long patientId, String vitalType, String timeFrame) {
+        LocalDateTime end = LocalDateTime.now();
+        LocalDateTime start = resolveTimeFrameStart(timeFrame, end);
+        RollupSummary summary = rollupService.summarize(Source.VITAL, patientId, vitalType, start, end);
+
+        Map<String, Object> trend = new LinkedHashMap<>();
+        trend.put("vitalType", vitalType);
+        trend.put("from", start);
+        trend.put("to", end);
+        trend.put("count", summary.getCount());
+        if (!summary.isEmpty()) {
+            trend.put("average", summary.getAverage());
+            trend.put("min", summary.getMin());
+            trend.put("max", summary.getMax());
+            trend.put("standardDeviation", summary.getStandardDeviation());
+            trend.put("latest", summary.getLastValue());
+            trend.put("slopePerHour", summary.getSlopePerHour());
+        }
+        trend.put("series", rollupService.series(Source.VITAL, patientId, vitalType, start, end));
+        return trend;
+    }
+
+    // Defaults to 30 days when timeFrame is missing or not understood
+    private LocalDateTime resolveTimeFrameStart(String timeFrame, LocalDateTime end) {
+        if (timeFrame != null) {
+            Matcher matcher = TIME_FRAME.matcher(timeFrame.trim().toLowerCase());
+            if (matcher.matches()) {
+                long amount = Long.parseLong(matcher.group(1));
+                switch (matcher.group(2)) {
+                    case "h": return end.minusHours(amount);
+                    case "d": return end.minusDays(amount);
+                    case "w": return end.minusWeeks(amount);
+                    case "m": return end.minusMonths(amount);
+                    default: return end.minusYears(amount);
+                }
+            }
+            switch (timeFrame.trim().toLowerCase()) {
+                case "day": return end.minusDays(1);
+                case "week": return end.minusWeeks(1);
+                case "year": return end.minusYears(1);
+                default: break;
+            }
+        }
+        return end.minusDays(30);
     }
 }
\ No newline at end of file
@@ -15,13 +15,13 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.mediconnect.dto.VoiceTranscriptionDTO;
 import com.mediconnect.exception.TranscriptionException;
 import com.mediconnect.model.MedicalRecord;
 import com.mediconnect.repository.MedicalRecordRepository;
+import com.mediconnect.service.ai.AiHttpClient;
 import com.mediconnect.util.AudioUtils;
 
 @Service
@@ -40,7 +40,7 @@ public class VoiceTranscriptionService {
     private String medicalCodingApiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     @Autowired
     private MedicalRecordRepository medicalRecordRepository;
@@ -79,7 +79,7 @@ public class VoiceTranscriptionService {
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
             
             // Call speech-to-text API
-            Map<String, Object> apiResponse = restTemplate.postForObject(
+            Map<String, Object> apiResponse = aiHttpClient.postForObject(
                     speechToTextApiUrl, 
                     requestEntity, 
                     Map.class);
@@ -104,7 +104,7 @@ public class VoiceTranscriptionService {
             HttpEntity<Map<String, Object>> codingRequestEntity = new HttpEntity<>(codingRequestBody, codingHeaders);
             
             // Call medical coding API
-            Map<String, Object> codingResponse = restTemplate.postForObject(
+            Map<String, Object> codingResponse = aiHttpClient.postForObject(
                     medicalCodingApiUrl, 
                     codingRequestEntity, 
                     Map.class);
@@ -0,0 +1,204 @@
+package com.mediconnect.service.ai;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The one HTTP client every AI service calls its model through.
+ *
+ * Calls go over the shared, pooled RestTemplate (see RestTemplateConfig). Each endpoint
+ * (scheme, host and port) may have at most {@code max-concurrent-per-endpoint} calls open; a
+ * call waits up to {@code acquire-timeout-ms} for a slot and otherwise fails at once with a
+ * ResourceAccessException, like any other unreachable model, so that one slow model cannot
+ * hold every thread of the application.
+ *
+ * The async variants run on a bounded pool of their own, with the caller's security context,
+ * so that controllers can return a CompletableFuture and free the servlet thread while the
+ * model answers.
+ */
+@Component
+public class AiHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(AiHttpClient.class);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${mediconnect.ai.http.max-concurrent-per-endpoint:16}")
+    private int maxConcurrentPerEndpoint;
+
+    @Value("${mediconnect.ai.http.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${mediconnect.ai.http.async.threads:64}")
+    private int asyncThreads;
+
+    @Value("${mediconnect.ai.http.async.queue-capacity:200}")
+    private int asyncQueueCapacity;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor pool;
+    private Executor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(asyncQueueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "AiHttp-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        executor = new DelegatingSecurityContextExecutor(pool);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType) {
+        return call(url, () -> restTemplate.postForEntity(url, request, responseType));
+    }
+
+    public <T> T postForObject(String url, Object request, Class<T> responseType) {
+        return call(url, () -> restTemplate.postForObject(url, request, responseType));
+    }
+
+    public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> request, Class<T> responseType) {
+        return call(url, () -> restTemplate.exchange(url, method, request, responseType));
+    }
+
+    public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> request,
+                                          ParameterizedTypeReference<T> responseType) {
+        return call(url, () -> restTemplate.exchange(url, method, request, responseType));
+    }
+
+    public <T> CompletableFuture<ResponseEntity<T>> postForEntityAsync(String url, Object request, Class<T> responseType) {
+        return supplyAsync(() -> postForEntity(url, request, responseType));
+    }
+
+    /**
+     * Runs work that calls AI models on the client's pool with the caller's security context.
+     * The future fails with a RejectedExecutionException when the pool is saturated.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            // supplyAsync throws a rejection instead of failing the future
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T call(String url, Supplier<T> request) {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointOf(url), key -> new Endpoint(maxConcurrentPerEndpoint));
+        boolean acquired;
+        try {
+            acquired = endpoint.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for " + endpointOf(url));
+        }
+        if (!acquired) {
+            endpoint.rejected.incrementAndGet();
+            log.warn("AI endpoint {} has {} calls open, rejecting call", endpointOf(url), maxConcurrentPerEndpoint);
+            throw new ResourceAccessException("Too many concurrent calls to " + endpointOf(url));
+        }
+        long startedAt = System.nanoTime();
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            endpoint.failures.incrementAndGet();
+            throw e;
+        } finally {
+            endpoint.calls.incrementAndGet();
+            endpoint.totalNanos.addAndGet(System.nanoTime() - startedAt);
+            endpoint.permits.release();
+        }
+    }
+
+    private static String endpointOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() != null) {
+                return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() >= 0 ? ":" + uri.getPort() : "");
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a plain URI; fall through and limit it on its own
+        }
+        return url;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentPerEndpoint", maxConcurrentPerEndpoint);
+        stats.put("asyncActive", pool.getActiveCount());
+        stats.put("asyncQueued", pool.getQueue().size());
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        endpoints.forEach((key, endpoint) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            long calls = endpoint.calls.get();
+            entry.put("inFlight", maxConcurrentPerEndpoint - endpoint.permits.availablePermits());
+            entry.put("calls", calls);
+            entry.put("failures", endpoint.failures.get());
+            entry.put("rejected", endpoint.rejected.get());
+            entry.put("averageMillis", calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(endpoint.totalNanos.get() / calls));
+            perEndpoint.put(key, entry);
+        });
+        stats.put("endpoints", perEndpoint);
+        return stats;
+    }
+
+    private static final class Endpoint {
+        private final Semaphore permits;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        Endpoint(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent);
+        }
+    }
+}
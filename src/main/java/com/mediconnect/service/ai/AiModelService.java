@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -37,7 +37,8 @@ public class AiModelService {
     @Value("${huggingface.medical.temperature:0.6}")
     private double medicalTemperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -63,7 +64,7 @@ public class AiModelService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(chatModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(chatModelUrl, entity, String.class);
             
             return processDiagnosticResponse(response, diagnosticPrompt);
             
@@ -94,7 +95,7 @@ public class AiModelService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(ocrModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(ocrModelUrl, entity, String.class);
             
             return processImageAnalysisResponse(response);
             
@@ -125,7 +126,7 @@ public class AiModelService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(chatModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(chatModelUrl, entity, String.class);
             
             return processDiagnosticResponse(response, comprehensivePrompt);
             
@@ -352,7 +353,7 @@ public class AiModelService {
         ));
 
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(modelUrl, entity, String.class);
+        ResponseEntity<String> response = aiHttpClient.postForEntity(modelUrl, entity, String.class);
         
         if (response.getStatusCode() == HttpStatus.OK) {
             JsonNode jsonResponse = objectMapper.readTree(response.getBody());
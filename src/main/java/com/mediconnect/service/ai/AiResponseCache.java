@@ -0,0 +1,297 @@
+package com.mediconnect.service.ai;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.model.AiResponseCacheEntry;
+import com.mediconnect.repository.AiResponseCacheEntryRepository;
+import com.mediconnect.util.TokenHashUtil;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache of model responses for prompts that are asked again and again: the same drug pair, the
+ * same phrase to translate, the same clinical note to code.
+ *
+ * A response is keyed by a SHA-256 of its use case, the model endpoint and the prompt. Callers
+ * build the prompt from normalized inputs (see {@link #normalizeText} and
+ * {@link #normalizeTerms}), so inputs that differ only in spacing, case or order share an
+ * entry; since the prompt template is part of the key, changing a template starts new entries.
+ * Responses live in an LRU in memory and in the ai_response_cache table, which survives
+ * restarts and is shared by all nodes. Each use case has its own TTL; a TTL of 0 turns caching
+ * off for it. Concurrent requests for the same missing response share one model call, and
+ * failed calls are never cached.
+ */
+@Component
+public class AiResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AiResponseCache.class);
+
+    public static final String MEDICAL_CODING = "medical-coding";
+    public static final String MEDICATION_INTERACTION = "medication-interaction";
+    public static final String TRANSLATION = "translation";
+    public static final String HEALTH_PREDICTION = "health-prediction";
+
+    @Autowired
+    private AiResponseCacheEntryRepository cacheEntryRepository;
+
+    @Value("${mediconnect.ai.cache.memory-max-entries:5000}")
+    private int memoryMaxEntries;
+
+    @Value("${mediconnect.ai.cache.ttl-hours.medical-coding:720}")
+    private long medicalCodingTtlHours;
+
+    @Value("${mediconnect.ai.cache.ttl-hours.medication-interaction:720}")
+    private long medicationInteractionTtlHours;
+
+    @Value("${mediconnect.ai.cache.ttl-hours.translation:2160}")
+    private long translationTtlHours;
+
+    // Predictions are built from a patient's own data, so they are kept for a short time only
+    @Value("${mediconnect.ai.cache.ttl-hours.health-prediction:24}")
+    private long healthPredictionTtlHours;
+
+    private final Map<String, Long> ttlHours = new LinkedHashMap<>();
+
+    // Access-ordered; guarded by itself
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, UseCaseStats> stats = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        ttlHours.put(MEDICAL_CODING, medicalCodingTtlHours);
+        ttlHours.put(MEDICATION_INTERACTION, medicationInteractionTtlHours);
+        ttlHours.put(TRANSLATION, translationTtlHours);
+        ttlHours.put(HEALTH_PREDICTION, healthPredictionTtlHours);
+    }
+
+    /**
+     * Returns the cached response to the prompt, or calls the model with {@code call} and caches
+     * what it returns. Exceptions of the call are passed on and nothing is cached, so a call must
+     * throw (e.g. EmptyAiResponseException) rather than return a fallback text when the model
+     * gave no usable answer. Null or blank responses are never cached either.
+     */
+    public String get(String useCase, String model, String prompt, Callable<String> call) throws Exception {
+        long ttl = ttlHours.getOrDefault(useCase, 0L);
+        if (ttl <= 0) {
+            return call.call();
+        }
+        UseCaseStats counters = stats.computeIfAbsent(useCase, name -> new UseCaseStats());
+        String key = TokenHashUtil.sha256Hex(useCase + "\n" + model + "\n" + prompt);
+
+        String cached = fromMemory(key);
+        if (cached != null) {
+            counters.memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            counters.sharedCalls.incrementAndGet();
+            return await(existing);
+        }
+        try {
+            String response = load(useCase, key, ttl, call, counters);
+            created.complete(response);
+            return response;
+        } catch (Exception e) {
+            counters.failures.incrementAndGet();
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private String load(String useCase, String key, long ttl, Callable<String> call, UseCaseStats counters) throws Exception {
+        AiResponseCacheEntry stored = null;
+        try {
+            stored = cacheEntryRepository.findByCacheKey(key).orElse(null);
+        } catch (RuntimeException e) {
+            log.warn("Could not read AI response cache entry: {}", e.getMessage());
+        }
+        if (stored != null && stored.getExpiresAt().isAfter(LocalDateTime.now())) {
+            counters.databaseHits.incrementAndGet();
+            putInMemory(useCase, key, stored.getResponse(), stored.getExpiresAt());
+            return stored.getResponse();
+        }
+
+        counters.misses.incrementAndGet();
+        String response = call.call();
+        if (response == null || response.isBlank()) {
+            return response;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusHours(ttl);
+        putInMemory(useCase, key, response, expiresAt);
+        store(useCase, key, response, now, expiresAt, stored != null);
+        return response;
+    }
+
+    // Best effort: a response that cannot be stored is still returned and kept in memory
+    private void store(String useCase, String key, String response, LocalDateTime now, LocalDateTime expiresAt,
+                       boolean exists) {
+        try {
+            if (exists) {
+                cacheEntryRepository.replace(key, response, now, expiresAt);
+                return;
+            }
+            AiResponseCacheEntry entry = new AiResponseCacheEntry();
+            entry.setCacheKey(key);
+            entry.setUseCase(useCase);
+            entry.setResponse(response);
+            entry.setCreatedAt(now);
+            entry.setExpiresAt(expiresAt);
+            cacheEntryRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // Stored by another node in the meantime
+            store(useCase, key, response, now, expiresAt, true);
+        } catch (RuntimeException e) {
+            log.warn("Could not store AI response cache entry for {}: {}", useCase, e.getMessage());
+        }
+    }
+
+    private String fromMemory(String key) {
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt.isBefore(LocalDateTime.now())) {
+                memory.remove(key);
+                return null;
+            }
+            return cached.response;
+        }
+    }
+
+    private void putInMemory(String useCase, String key, String response, LocalDateTime expiresAt) {
+        synchronized (memory) {
+            memory.put(key, new CachedResponse(useCase, response, expiresAt));
+            if (memory.size() > memoryMaxEntries) {
+                memory.remove(memory.keySet().iterator().next());
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every cached response of a use case, e.g. after its model was replaced.
+     */
+    public int invalidate(String useCase) {
+        synchronized (memory) {
+            memory.values().removeIf(cached -> cached.useCase.equals(useCase));
+        }
+        return cacheEntryRepository.deleteByUseCase(useCase);
+    }
+
+    @Scheduled(cron = "${mediconnect.ai.cache.purge-cron:0 45 3 * * *}")
+    public void purgeExpired() {
+        int deleted = cacheEntryRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired AI response cache entries", deleted);
+        }
+    }
+
+    /**
+     * Trims and collapses whitespace, so free text that differs only in spacing shares a key.
+     */
+    public static String normalizeText(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Normalizes a set of terms such as medication names: lower case, single spaces, no blanks
+     * or duplicates, sorted.
+     */
+    public static List<String> normalizeTerms(Collection<String> terms) {
+        return terms.stream()
+            .filter(Objects::nonNull)
+            .map(term -> normalizeText(term).toLowerCase(Locale.ROOT))
+            .filter(term -> !term.isEmpty())
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (memory) {
+            result.put("memoryEntries", memory.size());
+        }
+        result.put("memoryMaxEntries", memoryMaxEntries);
+        result.put("inFlight", inFlight.size());
+        Map<String, Object> useCases = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> useCase : ttlHours.entrySet()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ttlHours", useCase.getValue());
+            UseCaseStats counters = stats.get(useCase.getKey());
+            if (counters != null) {
+                long hits = counters.memoryHits.get() + counters.databaseHits.get() + counters.sharedCalls.get();
+                long misses = counters.misses.get();
+                entry.put("memoryHits", counters.memoryHits.get());
+                entry.put("databaseHits", counters.databaseHits.get());
+                entry.put("sharedCalls", counters.sharedCalls.get());
+                entry.put("misses", misses);
+                entry.put("failures", counters.failures.get());
+                entry.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+            }
+            useCases.put(useCase.getKey(), entry);
+        }
+        result.put("useCases", useCases);
+        return result;
+    }
+
+    private static final class CachedResponse {
+        private final String useCase;
+        private final String response;
+        private final LocalDateTime expiresAt;
+
+        CachedResponse(String useCase, String response, LocalDateTime expiresAt) {
+            this.useCase = useCase;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class UseCaseStats {
+        private final AtomicLong memoryHits = new AtomicLong();
+        private final AtomicLong databaseHits = new AtomicLong();
+        private final AtomicLong sharedCalls = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
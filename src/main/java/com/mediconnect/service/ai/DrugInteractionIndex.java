@@ -0,0 +1,271 @@
+package com.mediconnect.service.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Known drug-drug interactions, answered locally without calling a model.
+ *
+ * The data comes from a versioned, tab-separated file (see interactions/drug-interactions.tsv)
+ * of interacting pairs and brand-name aliases. It is loaded into a sorted array of drug names
+ * and a sorted array of pair keys (the two drugs' positions packed into a long), so a lookup is
+ * two binary searches over primitive arrays. Drug names are normalized first: lower case, doses
+ * and dosage forms removed, aliases resolved to the generic name.
+ *
+ * A pair that is not in the file is unknown, not safe; callers send unknown pairs to the model.
+ */
+@Component
+public class DrugInteractionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DrugInteractionIndex.class);
+
+    public enum Severity {
+        MAJOR, MODERATE, MINOR, NONE
+    }
+
+    private static final Set<String> SEVERITIES = Arrays.stream(Severity.values())
+        .map(Severity::name)
+        .collect(Collectors.toSet());
+
+    private static final Pattern PARENTHESES = Pattern.compile("\\(.*?\\)");
+    private static final Pattern DOSE = Pattern.compile("\\b\\d+(\\.\\d+)?\\s*(mg|mcg|g|ml|meq|iu|units?|%)?(?=\\s|$|/)");
+    private static final Pattern FORM = Pattern.compile(
+        "\\b(tablets?|tabs?|capsules?|caps?|oral|syrup|suspension|injection|er|xr|sr|cr|hcl|hydrochloride)\\b|/");
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${mediconnect.ai.interactions.data-file:classpath:interactions/drug-interactions.tsv}")
+    private String dataFile;
+
+    private volatile Data data = Data.EMPTY;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong known = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        try {
+            reload();
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Drug interaction data {} could not be loaded, every pair goes to the model: {}", dataFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the data file again, e.g. after a new version was deployed. The data in use is kept
+     * if the file cannot be read.
+     */
+    public synchronized String reload() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(dataFile).getInputStream(), StandardCharsets.UTF_8))) {
+            data = parse(reader);
+        }
+        log.info("Drug interaction data version {} loaded: {} drugs, {} pairs, {} aliases",
+            data.version, data.drugs.length, data.pairs.length, data.aliases.size());
+        return data.version;
+    }
+
+    private Data parse(BufferedReader reader) throws IOException {
+        String version = "unversioned";
+        Map<String, String> aliases = new HashMap<>();
+        // "a\tb" with a < b -> fields; a later line for the same pair replaces an earlier one
+        Map<String, String[]> pairRows = new TreeMap<>();
+        TreeSet<String> names = new TreeSet<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            switch (fields[0]) {
+                case "version":
+                    require(fields, 2, lineNumber);
+                    version = fields[1].trim();
+                    break;
+                case "alias":
+                    require(fields, 3, lineNumber);
+                    aliases.put(strip(fields[1]), strip(fields[2]));
+                    break;
+                case "pair":
+                    require(fields, 5, lineNumber);
+                    String a = strip(fields[1]);
+                    String b = strip(fields[2]);
+                    if (!SEVERITIES.contains(fields[3].trim())) {
+                        throw new IllegalArgumentException("Unknown severity '" + fields[3] + "' on line " + lineNumber);
+                    }
+                    names.add(a);
+                    names.add(b);
+                    String[] row = a.compareTo(b) <= 0
+                        ? new String[] {a, b, fields[3].trim(), fields[4].trim()}
+                        : new String[] {b, a, fields[3].trim(), fields[4].trim()};
+                    pairRows.put(row[0] + "\t" + row[1], row);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown record '" + fields[0] + "' on line " + lineNumber);
+            }
+        }
+
+        String[] drugs = names.toArray(new String[0]);
+        List<long[]> keyed = new ArrayList<>(pairRows.size());
+        List<String[]> rows = new ArrayList<>(pairRows.values());
+        for (int i = 0; i < rows.size(); i++) {
+            keyed.add(new long[] {pairKey(Arrays.binarySearch(drugs, rows.get(i)[0]), Arrays.binarySearch(drugs, rows.get(i)[1])), i});
+        }
+        keyed.sort((x, y) -> Long.compare(x[0], y[0]));
+
+        long[] pairs = new long[keyed.size()];
+        Severity[] severities = new Severity[keyed.size()];
+        String[] notes = new String[keyed.size()];
+        for (int i = 0; i < keyed.size(); i++) {
+            String[] row = rows.get((int) keyed.get(i)[1]);
+            pairs[i] = keyed.get(i)[0];
+            severities[i] = Severity.valueOf(row[2]);
+            notes[i] = row[3];
+        }
+        return new Data(version, aliases, drugs, pairs, severities, notes);
+    }
+
+    private static void require(String[] fields, int count, int lineNumber) {
+        if (fields.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " fields on line " + lineNumber);
+        }
+    }
+
+    private static String clean(String name) {
+        return AiResponseCache.normalizeText(name).toLowerCase(Locale.ROOT);
+    }
+
+    private static long pairKey(int first, int second) {
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+        return ((long) low << 32) | high;
+    }
+
+    /**
+     * The identifier a medication is looked up by: its generic name in lower case, without dose
+     * or dosage form, e.g. "Tylenol 500mg tablet" becomes "acetaminophen".
+     */
+    public String normalize(String medication) {
+        String stripped = strip(medication);
+        Data current = data;
+        return current.aliases.getOrDefault(stripped, stripped);
+    }
+
+    // Names in the data file go through the same stripping as looked-up names, or a name with a
+    // number in it (e.g. "theo-24") could never match
+    private static String strip(String medication) {
+        String name = clean(medication);
+        String stripped = PARENTHESES.matcher(name).replaceAll(" ");
+        stripped = DOSE.matcher(stripped).replaceAll(" ");
+        stripped = FORM.matcher(stripped).replaceAll(" ");
+        stripped = AiResponseCache.normalizeText(stripped);
+        return stripped.isEmpty() ? name : stripped;
+    }
+
+    /**
+     * The recorded interaction between two normalized drug identifiers, or null when the pair is
+     * not in the data (which does not mean the drugs are safe together).
+     */
+    public Interaction find(String drugA, String drugB) {
+        lookups.incrementAndGet();
+        Data current = data;
+        int a = Arrays.binarySearch(current.drugs, drugA);
+        int b = Arrays.binarySearch(current.drugs, drugB);
+        if (a < 0 || b < 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(current.pairs, pairKey(a, b));
+        if (index < 0) {
+            return null;
+        }
+        known.incrementAndGet();
+        return new Interaction(drugA, drugB, current.severities[index], current.notes[index], current.version);
+    }
+
+    public String getVersion() {
+        return data.version;
+    }
+
+    public Map<String, Object> getStats() {
+        Data current = data;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", current.version);
+        stats.put("dataFile", dataFile);
+        stats.put("drugs", current.drugs.length);
+        stats.put("pairs", current.pairs.length);
+        stats.put("aliases", current.aliases.size());
+        stats.put("lookups", lookups.get());
+        stats.put("known", known.get());
+        return stats;
+    }
+
+    public static final class Interaction {
+        private final String drugA;
+        private final String drugB;
+        private final Severity severity;
+        private final String note;
+        private final String version;
+
+        Interaction(String drugA, String drugB, Severity severity, String note, String version) {
+            this.drugA = drugA;
+            this.drugB = drugB;
+            this.severity = severity;
+            this.note = note;
+            this.version = version;
+        }
+
+        public String getDrugA() { return drugA; }
+        public String getDrugB() { return drugB; }
+        public Severity getSeverity() { return severity; }
+        public String getNote() { return note; }
+        public String getVersion() { return version; }
+    }
+
+    private static final class Data {
+        private static final Data EMPTY = new Data("none", Map.of(), new String[0], new long[0], new Severity[0], new String[0]);
+
+        private final String version;
+        private final Map<String, String> aliases;
+        private final String[] drugs;
+        private final long[] pairs;
+        private final Severity[] severities;
+        private final String[] notes;
+
+        Data(String version, Map<String, String> aliases, String[] drugs, long[] pairs, Severity[] severities, String[] notes) {
+            this.version = version;
+            this.aliases = aliases;
+            this.drugs = drugs;
+            this.pairs = pairs;
+            this.severities = severities;
+            this.notes = notes;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mediconnect.exception.EmptyAiResponseException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -33,7 +34,11 @@ public class HealthPredictorAiService {
     @Value("${huggingface.medical.temperature:0.4}")
     private double temperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -46,25 +51,28 @@ public class HealthPredictorAiService {
                 return "No patient data provided for health risk assessment.";
             }
 
-            HttpHeaders headers = createHeaders();
-            String predictionPrompt = buildHealthRiskPrompt(patientData);
+            String predictionPrompt = buildHealthRiskPrompt(AiResponseCache.normalizeText(patientData));
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", predictionPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", maxTokens,
-                "temperature", temperature,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.9,
-                "repetition_penalty", 1.1
-            ));
+            return aiResponseCache.get(AiResponseCache.HEALTH_PREDICTION, healthPredictionUrl, predictionPrompt, () -> {
+                HttpHeaders headers = createHeaders();
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", predictionPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", maxTokens,
+                    "temperature", temperature,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.9,
+                    "repetition_penalty", 1.1
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(healthPredictionUrl, entity, String.class);
+                ResponseEntity<String> response = aiHttpClient.postForEntity(healthPredictionUrl, entity, String.class);
             
-            return processHealthPredictionResponse(response, predictionPrompt);
+                return processHealthPredictionResponse(response, predictionPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error in health prediction service: {}", e.getMessage(), e);
@@ -77,24 +85,27 @@ public class HealthPredictorAiService {
      */
     public String predictDiseaseProgression(String currentCondition, String patientHistory) {
         try {
-            HttpHeaders headers = createHeaders();
             String progressionPrompt = buildProgressionPrompt(currentCondition, patientHistory);
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", progressionPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", 450,
-                "temperature", 0.3,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.85
-            ));
+            return aiResponseCache.get(AiResponseCache.HEALTH_PREDICTION, healthPredictionUrl, progressionPrompt, () -> {
+                HttpHeaders headers = createHeaders();
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", progressionPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", 450,
+                    "temperature", 0.3,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.85
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(healthPredictionUrl, entity, String.class);
+                ResponseEntity<String> response = aiHttpClient.postForEntity(healthPredictionUrl, entity, String.class);
             
-            return processHealthPredictionResponse(response, progressionPrompt);
+                return processHealthPredictionResponse(response, progressionPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error in disease progression prediction: {}", e.getMessage());
@@ -107,24 +118,27 @@ public class HealthPredictorAiService {
      */
     public String generateHealthRecommendations(String patientProfile, String healthGoals) {
         try {
-            HttpHeaders headers = createHeaders();
             String recommendationPrompt = buildRecommendationPrompt(patientProfile, healthGoals);
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", recommendationPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", 500,
-                "temperature", 0.5,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.9
-            ));
+            return aiResponseCache.get(AiResponseCache.HEALTH_PREDICTION, healthPredictionUrl, recommendationPrompt, () -> {
+                HttpHeaders headers = createHeaders();
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", recommendationPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", 500,
+                    "temperature", 0.5,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.9
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(healthPredictionUrl, entity, String.class);
+                ResponseEntity<String> response = aiHttpClient.postForEntity(healthPredictionUrl, entity, String.class);
             
-            return processHealthPredictionResponse(response, recommendationPrompt);
+                return processHealthPredictionResponse(response, recommendationPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error generating health recommendations: {}", e.getMessage());
@@ -378,13 +392,14 @@ public class HealthPredictorAiService {
                 
                 String prediction = generatedText.replace(originalPrompt, "").trim();
                 
+                // Fail instead of returning a fallback text, so that it is not cached as an answer
                 if (prediction.isEmpty()) {
-                    prediction = "Unable to generate health risk prediction based on the provided data. Please consult with a healthcare professional for comprehensive risk assessment.";
+                    throw new EmptyAiResponseException("Health prediction model returned no prediction");
                 }
                 
                 return addHealthPredictionDisclaimer(prediction);
             } else {
-                return "Health risk prediction could not be generated from the provided patient data.";
+                throw new EmptyAiResponseException("Health prediction model returned no results");
             }
         } else {
             throw new RuntimeException("Health prediction API call failed with status: " + response.getStatusCode());
@@ -392,28 +407,35 @@ public class HealthPredictorAiService {
     }
 
     private String callHealthPredictionModel(String prompt) throws Exception {
-        HttpHeaders headers = createHeaders();
+        return aiResponseCache.get(AiResponseCache.HEALTH_PREDICTION, healthPredictionUrl, prompt, () -> {
+            HttpHeaders headers = createHeaders();
         
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("inputs", prompt);
-        requestBody.put("parameters", Map.of(
-            "max_new_tokens", maxTokens,
-            "temperature", temperature,
-            "do_sample", true,
-            "return_full_text", false
-        ));
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(healthPredictionUrl, entity, String.class);
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("inputs", prompt);
+            requestBody.put("parameters", Map.of(
+                "max_new_tokens", maxTokens,
+                "temperature", temperature,
+                "do_sample", true,
+                "return_full_text", false
+            ));
+
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(healthPredictionUrl, entity, String.class);
         
-        if (response.getStatusCode() == HttpStatus.OK) {
-            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-            if (jsonResponse.isArray() && jsonResponse.size() > 0) {
-                return jsonResponse.get(0).get("generated_text").asText().replace(prompt, "").trim();
+            if (response.getStatusCode() == HttpStatus.OK) {
+                JsonNode jsonResponse = objectMapper.readTree(response.getBody());
+                if (jsonResponse.isArray() && jsonResponse.size() > 0) {
+                    String prediction = jsonResponse.get(0).get("generated_text").asText().replace(prompt, "").trim();
+                    if (prediction.isEmpty()) {
+                        throw new EmptyAiResponseException("Health prediction model returned no prediction");
+                    }
+                    return prediction;
+                }
+                throw new EmptyAiResponseException("Health prediction model returned no results");
             }
-        }
         
-        throw new RuntimeException("Health prediction API call failed");
+            throw new RuntimeException("Health prediction API call failed");
+        });
     }
 
     private String formatRiskFactors(Map<String, Object> riskFactors) {
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mediconnect.exception.EmptyAiResponseException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,7 +36,11 @@ public class MedicalCodingService {
     @Value("${huggingface.medical.temperature:0.3}")
     private double temperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // ICD-10 code validation pattern
@@ -52,25 +57,28 @@ public class MedicalCodingService {
                 return "No clinical text provided for medical coding analysis.";
             }
 
-            HttpHeaders headers = createHeaders();
-            String codingPrompt = buildICD10CodingPrompt(clinicalText);
+            String codingPrompt = buildICD10CodingPrompt(AiResponseCache.normalizeText(clinicalText));
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", codingPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", maxTokens,
-                "temperature", temperature,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.9,
-                "repetition_penalty", 1.1
-            ));
+            return aiResponseCache.get(AiResponseCache.MEDICAL_CODING, medicalCodingUrl, codingPrompt, () -> {
+                HttpHeaders headers = createHeaders();
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(medicalCodingUrl, entity, String.class);
-            
-            return processMedicalCodingResponse(response, codingPrompt);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", codingPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", maxTokens,
+                    "temperature", temperature,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.9,
+                    "repetition_penalty", 1.1
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                
+                ResponseEntity<String> response = aiHttpClient.postForEntity(medicalCodingUrl, entity, String.class);
+                
+                return processMedicalCodingResponse(response, codingPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error in medical coding service: {}", e.getMessage(), e);
@@ -102,7 +110,7 @@ public class MedicalCodingService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(medicalCodingUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(medicalCodingUrl, entity, String.class);
             
             return processCPTCodingResponse(response, cptPrompt);
             
@@ -293,13 +301,14 @@ public class MedicalCodingService {
                 
                 String codeResult = generatedText.replace(originalPrompt, "").trim();
                 
+                // Fail instead of returning a fallback text, so that it is not cached as an answer
                 if (codeResult.isEmpty()) {
-                    codeResult = "Unable to generate medical codes for the provided clinical text. Please review the documentation or consult with a medical coding specialist.";
+                    throw new EmptyAiResponseException("Medical coding model returned no codes");
                 }
                 
                 return formatMedicalCodes(codeResult);
             } else {
-                return "No medical codes could be generated from the provided clinical text.";
+                throw new EmptyAiResponseException("Medical coding model returned no results");
             }
         } else {
             throw new RuntimeException("Medical coding API call failed with status: " + response.getStatusCode());
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -10,12 +10,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mediconnect.exception.EmptyAiResponseException;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class MedicationInteractionAiService {
@@ -34,7 +37,14 @@ public class MedicationInteractionAiService {
     @Value("${huggingface.medical.temperature:0.3}")
     private double temperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
+    @Autowired
+    private DrugInteractionIndex interactionIndex;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -47,35 +57,54 @@ public class MedicationInteractionAiService {
                 return "No medications provided for interaction analysis.";
             }
 
-            // Clean and validate medication list
-            List<String> cleanMedications = medications.stream()
-                .filter(med -> med != null && !med.trim().isEmpty())
-                .map(String::trim)
-                .collect(Collectors.toList());
+            // Clean and validate medication list; generic names, sorted and de-duplicated, so the
+            // same set of medications in any order, case or brand is answered from the cache
+            List<String> cleanMedications = normalizeMedications(medications);
 
             if (cleanMedications.isEmpty()) {
                 return "No valid medications provided for interaction analysis.";
             }
 
-            HttpHeaders headers = createHeaders();
+            // Pairs in the local interaction data are answered from it, and only the other pairs
+            // go to the model, in one prompt
+            List<DrugInteractionIndex.Interaction> knownPairs = new ArrayList<>();
+            List<String> unknownPairs = new ArrayList<>();
+            for (int i = 0; i < cleanMedications.size(); i++) {
+                for (int j = i + 1; j < cleanMedications.size(); j++) {
+                    DrugInteractionIndex.Interaction interaction = interactionIndex.find(cleanMedications.get(i), cleanMedications.get(j));
+                    if (interaction != null) {
+                        knownPairs.add(interaction);
+                    } else {
+                        unknownPairs.add(cleanMedications.get(i) + " + " + cleanMedications.get(j));
+                    }
+                }
+            }
+            if (!knownPairs.isEmpty()) {
+                return analyzeUnknownPairs(knownPairs, unknownPairs);
+            }
+
             String interactionPrompt = buildMedicationInteractionPrompt(cleanMedications);
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", interactionPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", maxTokens,
-                "temperature", temperature,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.9,
-                "repetition_penalty", 1.1
-            ));
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(medicationInteractionUrl, entity, String.class);
-            
-            return processMedicationInteractionResponse(response, interactionPrompt);
+            return aiResponseCache.get(AiResponseCache.MEDICATION_INTERACTION, medicationInteractionUrl, interactionPrompt, () -> {
+                HttpHeaders headers = createHeaders();
+
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", interactionPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", maxTokens,
+                    "temperature", temperature,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.9,
+                    "repetition_penalty", 1.1
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                
+                ResponseEntity<String> response = aiHttpClient.postForEntity(medicationInteractionUrl, entity, String.class);
+                
+                return processMedicationInteractionResponse(response, interactionPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error in medication interaction service: {}", e.getMessage(), e);
@@ -93,24 +122,38 @@ public class MedicationInteractionAiService {
                 return "Two valid medication names are required for drug-drug interaction analysis.";
             }
 
-            HttpHeaders headers = createHeaders();
-            String interactionPrompt = buildDrugDrugInteractionPrompt(medication1.trim(), medication2.trim());
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", interactionPrompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", 300,
-                "temperature", 0.2,
-                "do_sample", true,
-                "return_full_text", false,
-                "top_p", 0.85
-            ));
+            String drugA = interactionIndex.normalize(medication1);
+            String drugB = interactionIndex.normalize(medication2);
+            DrugInteractionIndex.Interaction known = interactionIndex.find(drugA, drugB);
+            if (known != null) {
+                return formatInteractions(List.of(known), List.of(), null);
+            }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(medicationInteractionUrl, entity, String.class);
-            
-            return processMedicationInteractionResponse(response, interactionPrompt);
+            // The pair in a fixed order, so A-B and B-A share a cache entry
+            List<String> pair = AiResponseCache.normalizeTerms(List.of(drugA, drugB));
+            String interactionPrompt = pair.size() == 2
+                ? buildDrugDrugInteractionPrompt(pair.get(0), pair.get(1))
+                : buildDrugDrugInteractionPrompt(pair.get(0), pair.get(0));
+
+            return aiResponseCache.get(AiResponseCache.MEDICATION_INTERACTION, medicationInteractionUrl, interactionPrompt, () -> {
+                HttpHeaders headers = createHeaders();
+
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", interactionPrompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", 300,
+                    "temperature", 0.2,
+                    "do_sample", true,
+                    "return_full_text", false,
+                    "top_p", 0.85
+                ));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+                
+                ResponseEntity<String> response = aiHttpClient.postForEntity(medicationInteractionUrl, entity, String.class);
+                
+                return processMedicationInteractionResponse(response, interactionPrompt);
+            });
             
         } catch (Exception e) {
             logger.error("Error in drug-drug interaction analysis: {}", e.getMessage());
@@ -127,7 +170,7 @@ public class MedicationInteractionAiService {
                 return "No medications provided for drug-food interaction analysis.";
             }
 
-            String medicationList = String.join(", ", medications);
+            String medicationList = String.join(", ", normalizeMedications(medications));
             String foodInteractionPrompt = String.format(
                 "Analyze potential drug-food interactions for the following medications:\n\n" +
                 "Medications: %s\n\n" +
@@ -294,12 +337,20 @@ public class MedicationInteractionAiService {
             report.put("medications", medications);
             report.put("timestamp", System.currentTimeMillis());
             
+            // Drug-food interactions, asked for while the drug-drug check runs
+            CompletableFuture<String> foodCheck = aiHttpClient.supplyAsync(() -> checkDrugFoodInteractions(medications));
+            
             // Basic interaction check
             String basicInteractions = checkMedicationInteractions(medications);
             report.put("basicInteractions", basicInteractions);
             
-            // Drug-food interactions
-            String foodInteractions = checkDrugFoodInteractions(medications);
+            String foodInteractions;
+            try {
+                foodInteractions = foodCheck.join();
+            } catch (CompletionException e) {
+                // The AI pool was full; ask here instead
+                foodInteractions = checkDrugFoodInteractions(medications);
+            }
             report.put("foodInteractions", foodInteractions);
             
             // Generate summary
@@ -358,6 +409,80 @@ public class MedicationInteractionAiService {
         );
     }
 
+    private List<String> normalizeMedications(List<String> medications) {
+        List<String> names = new ArrayList<>(medications.size());
+        for (String medication : medications) {
+            names.add(interactionIndex.normalize(medication));
+        }
+        return AiResponseCache.normalizeTerms(names);
+    }
+
+    // Some pairs were found in the local data; the rest, if any, are analyzed by the model together
+    private String analyzeUnknownPairs(List<DrugInteractionIndex.Interaction> knownPairs, List<String> unknownPairs) {
+        if (unknownPairs.isEmpty()) {
+            return formatInteractions(knownPairs, unknownPairs, null);
+        }
+        String modelAnalysis;
+        try {
+            // The prompt holds only normalized drug names, so the answer is shared like any pair check
+            String prompt = buildPairInteractionPrompt(unknownPairs);
+            modelAnalysis = aiResponseCache.get(AiResponseCache.MEDICATION_INTERACTION, medicationInteractionUrl, prompt,
+                () -> callMedicationInteractionModel(prompt));
+        } catch (Exception e) {
+            logger.error("Error analyzing unknown medication pairs: {}", e.getMessage());
+            modelAnalysis = "These pairs could not be analyzed at the moment. Please ask a pharmacist to review them.";
+        }
+        return formatInteractions(knownPairs, unknownPairs, modelAnalysis);
+    }
+
+    private String formatInteractions(List<DrugInteractionIndex.Interaction> knownPairs, List<String> unknownPairs,
+                                      String modelAnalysis) {
+        List<DrugInteractionIndex.Interaction> sorted = new ArrayList<>(knownPairs);
+        sorted.sort(Comparator.comparing(DrugInteractionIndex.Interaction::getSeverity));
+
+        StringBuilder result = new StringBuilder();
+        result.append("DRUG-DRUG INTERACTIONS (MediConnect interaction data, version ")
+            .append(interactionIndex.getVersion()).append(")\n\n");
+        List<String> noInteraction = new ArrayList<>();
+        for (DrugInteractionIndex.Interaction interaction : sorted) {
+            String pair = interaction.getDrugA() + " + " + interaction.getDrugB();
+            if (interaction.getSeverity() == DrugInteractionIndex.Severity.NONE) {
+                noInteraction.add(pair);
+            } else {
+                result.append(interaction.getSeverity()).append(": ").append(pair).append("\n")
+                    .append("   ").append(interaction.getNote()).append("\n\n");
+            }
+        }
+        if (!noInteraction.isEmpty()) {
+            result.append("No clinically significant interaction known: ")
+                .append(String.join(", ", noInteraction)).append("\n\n");
+        }
+        if (!unknownPairs.isEmpty()) {
+            result.append("OTHER PAIRS (AI analysis of ").append(String.join(", ", unknownPairs)).append("):\n")
+                .append(modelAnalysis).append("\n\n");
+        }
+        result.append("Always consult with a licensed pharmacist or healthcare provider for a complete medication review.");
+        return result.toString();
+    }
+
+    private String buildPairInteractionPrompt(List<String> pairs) {
+        StringBuilder pairList = new StringBuilder();
+        for (int i = 0; i < pairs.size(); i++) {
+            pairList.append(i + 1).append(". ").append(pairs.get(i)).append("\n");
+        }
+        
+        return String.format(
+            "You are a pharmacology expert specializing in drug interactions. Analyze only the following medication pairs.\n\n" +
+            "PAIRS TO ANALYZE:\n%s\n" +
+            "For each pair, in order, give:\n" +
+            "- Severity (major, moderate, minor or none)\n" +
+            "- Mechanism of the interaction\n" +
+            "- Management recommendation\n\n" +
+            "Keep each answer brief.",
+            pairList
+        );
+    }
+
     private String buildDrugDrugInteractionPrompt(String med1, String med2) {
         return String.format(
             "Analyze the specific drug-drug interaction between:\n\n" +
@@ -385,19 +510,21 @@ public class MedicationInteractionAiService {
                 
                 String interactions = generatedText.replace(originalPrompt, "").trim();
                 
+                // No text is not a "no interactions" verdict; fail so that it is not cached
                 if (interactions.isEmpty()) {
-                    interactions = "No significant interactions detected between the provided medications. However, always consult with a pharmacist for comprehensive drug interaction screening.";
+                    throw new EmptyAiResponseException("Medication interaction model returned no analysis");
                 }
                 
                 return addMedicationInteractionDisclaimer(interactions);
             } else {
-                return "Medication interaction analysis could not be completed.";
+                throw new EmptyAiResponseException("Medication interaction model returned no results");
             }
         } else {
             throw new RuntimeException("Medication interaction API call failed with status: " + response.getStatusCode());
         }
     }
 
+    // Not cached: the contraindication, allergy and adherence prompts carry patient data
     private String callMedicationInteractionModel(String prompt) throws Exception {
         HttpHeaders headers = createHeaders();
         
@@ -411,14 +538,18 @@ public class MedicationInteractionAiService {
         ));
 
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(medicationInteractionUrl, entity, String.class);
+        ResponseEntity<String> response = aiHttpClient.postForEntity(medicationInteractionUrl, entity, String.class);
         
         if (response.getStatusCode() == HttpStatus.OK) {
             JsonNode jsonResponse = objectMapper.readTree(response.getBody());
             if (jsonResponse.isArray() && jsonResponse.size() > 0) {
                 String result = jsonResponse.get(0).get("generated_text").asText().replace(prompt, "").trim();
+                if (result.isEmpty()) {
+                    throw new EmptyAiResponseException("Medication interaction model returned no analysis");
+                }
                 return addMedicationInteractionDisclaimer(result);
             }
+            throw new EmptyAiResponseException("Medication interaction model returned no results");
         }
         
         throw new RuntimeException("Medication interaction API call failed");
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -33,7 +33,8 @@ public class OpenAIChatbotService {
     @Value("${huggingface.chat.temperature:0.7}")
     private double temperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -65,7 +66,7 @@ public class OpenAIChatbotService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(chatModelUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(chatModelUrl, entity, String.class);
             
             return processHuggingFaceResponse(response, enhancedPrompt);
             
@@ -4,7 +4,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -18,7 +17,7 @@ public class OpenAiService {
     private String apiKey;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private AiHttpClient aiHttpClient;
     
     public String generateResponse(String systemPrompt, String userPrompt) {
         HttpHeaders headers = new HttpHeaders();
@@ -36,12 +35,11 @@ public class OpenAiService {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
         
         try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = aiHttpClient.exchange(
                 "https://api.openai.com/v1/chat/completions",
                 HttpMethod.POST,
                 entity,
-                new ParameterizedTypeReference<Map<String, Object>>() {},
-                Collections.emptyMap()
+                new ParameterizedTypeReference<Map<String, Object>>() {}
             );
             
             Map<String, Object> responseBody = response.getBody();
@@ -103,12 +101,11 @@ public class OpenAiService {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
         
         try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = aiHttpClient.exchange(
                 "https://api.openai.com/v1/chat/completions",
                 HttpMethod.POST,
                 entity,
-                new ParameterizedTypeReference<Map<String, Object>>() {},
-                Collections.emptyMap()
+                new ParameterizedTypeReference<Map<String, Object>>() {}
             );
             
             Map<String, Object> responseBody = response.getBody();
@@ -150,12 +147,11 @@ public class OpenAiService {
         HttpEntity<MultiValueMap<String, Object>> entity = new HttpEntity<>(body, headers);
         
         try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = aiHttpClient.exchange(
                 "https://api.openai.com/v1/audio/transcriptions",
                 HttpMethod.POST,
                 entity,
-                new ParameterizedTypeReference<Map<String, Object>>() {},
-                Collections.emptyMap()
+                new ParameterizedTypeReference<Map<String, Object>>() {}
             );
             
             Map<String, Object> responseBody = response.getBody();
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -33,7 +33,8 @@ public class SpeechToTextService {
     @Value("${huggingface.speech.return-timestamps:false}")
     private boolean returnTimestamps;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     // Supported audio formats
@@ -87,7 +88,7 @@ public class SpeechToTextService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(speechToTextUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(speechToTextUrl, entity, String.class);
             
             return processSpeechToTextResponse(response, includeTimestamps);
             
@@ -1,9 +1,9 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
@@ -26,7 +26,11 @@ public class TranslationAiService {
     @Value("${huggingface.translation.max-tokens:300}")
     private int maxTokens;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
+
+    @Autowired
+    private AiResponseCache aiResponseCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Supported languages map (KEPT YOUR EXISTING STRUCTURE)
@@ -68,6 +72,11 @@ public class TranslationAiService {
     // YOUR MAIN METHOD - UPDATED TO USE HUGGING FACE
     public String translateMedicalContent(String text, String sourceLanguage, String targetLanguage) {
         try {
+            // Only trimmed (line breaks matter in a translation), so repeats hit the response cache
+            if (text != null) {
+                text = text.trim();
+            }
+            
             // Handle Hinglish specially (YOUR EXISTING LOGIC)
             if ("hinglish".equals(targetLanguage.toLowerCase())) {
                 return translateToHinglish(text, sourceLanguage);
@@ -127,43 +136,45 @@ public class TranslationAiService {
     // NEW METHOD - HUGGING FACE API CALL (REPLACES callOpenAIForTranslation)
     private String callHuggingFaceForTranslation(String prompt) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(translationApiKey);
-            headers.set("User-Agent", "MediConnect-Translation/1.0");
+            return aiResponseCache.get(AiResponseCache.TRANSLATION, translationApiUrl, prompt, () -> {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.setBearerAuth(translationApiKey);
+                headers.set("User-Agent", "MediConnect-Translation/1.0");
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", prompt);
-            requestBody.put("parameters", Map.of(
-                "max_new_tokens", maxTokens,
-                "temperature", 0.3,
-                "do_sample", false,
-                "return_full_text", false
-            ));
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.postForEntity(translationApiUrl, entity, String.class);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("inputs", prompt);
+                requestBody.put("parameters", Map.of(
+                    "max_new_tokens", maxTokens,
+                    "temperature", 0.3,
+                    "do_sample", false,
+                    "return_full_text", false
+                ));
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                JsonNode jsonResponse = objectMapper.readTree(response.getBody());
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
                 
-                if (jsonResponse.isArray() && jsonResponse.size() > 0) {
-                    JsonNode firstResult = jsonResponse.get(0);
-                    String generatedText = firstResult.get("generated_text").asText();
-                    
-                    // Clean the response by removing the original prompt
-                    String translation = generatedText.replace(prompt, "").trim();
+                ResponseEntity<String> response = aiHttpClient.postForEntity(translationApiUrl, entity, String.class);
+
+                if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                    JsonNode jsonResponse = objectMapper.readTree(response.getBody());
                     
-                    if (translation.isEmpty()) {
-                        throw new RuntimeException("Empty translation received");
+                    if (jsonResponse.isArray() && jsonResponse.size() > 0) {
+                        JsonNode firstResult = jsonResponse.get(0);
+                        String generatedText = firstResult.get("generated_text").asText();
+                        
+                        // Clean the response by removing the original prompt
+                        String translation = generatedText.replace(prompt, "").trim();
+                        
+                        if (translation.isEmpty()) {
+                            throw new RuntimeException("Empty translation received");
+                        }
+                        
+                        return translation;
                     }
-                    
-                    return translation;
                 }
-            }
 
-            throw new RuntimeException("Failed to get translation from Hugging Face");
+                throw new RuntimeException("Failed to get translation from Hugging Face");
+            });
 
         } catch (Exception e) {
             logger.error("Hugging Face translation error: {}", e.getMessage());
@@ -1,8 +1,8 @@
 package com.mediconnect.service.ai;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.http.*;
@@ -33,7 +33,8 @@ public class TreatmentRecommendationAiService {
     @Value("${huggingface.medical.temperature:0.4}")
     private double temperature;
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private AiHttpClient aiHttpClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -62,7 +63,7 @@ public class TreatmentRecommendationAiService {
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
             
-            ResponseEntity<String> response = restTemplate.postForEntity(treatmentRecommendationUrl, entity, String.class);
+            ResponseEntity<String> response = aiHttpClient.postForEntity(treatmentRecommendationUrl, entity, String.class);
             
             return processTreatmentRecommendationResponse(response, treatmentPrompt);
             
@@ -500,7 +501,7 @@ public class TreatmentRecommendationAiService {
         ));
 
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> response = restTemplate.postForEntity(treatmentRecommendationUrl, entity, String.class);
+        ResponseEntity<String> response = aiHttpClient.postForEntity(treatmentRecommendationUrl, entity, String.class);
         
         if (response.getStatusCode() == HttpStatus.OK) {
             JsonNode jsonResponse = objectMapper.readTree(response.getBody());
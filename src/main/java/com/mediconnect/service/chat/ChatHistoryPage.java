@@ -0,0 +1,31 @@
+package com.mediconnect.service.chat;
+
+import java.util.List;
+
+import com.mediconnect.dto.ChatMessageDTO;
+
+/**
+ * One page of chat history, oldest message first. The next (older) page is requested with
+ * {@code before=} the messageId of the first message on this one.
+ */
+public final class ChatHistoryPage {
+
+    private final List<ChatMessageDTO> messages;
+    private final boolean hasMore;
+    private final boolean fromCache;
+
+    public ChatHistoryPage(List<ChatMessageDTO> messages, boolean hasMore, boolean fromCache) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+        this.fromCache = fromCache;
+    }
+
+    public List<ChatMessageDTO> getMessages() { return messages; }
+    public boolean isHasMore() { return hasMore; }
+    public boolean isFromCache() { return fromCache; }
+
+    /** Cursor for the next older page, or null when there is none. */
+    public String getNextBefore() {
+        return hasMore && !messages.isEmpty() ? messages.get(0).getMessageId() : null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mediconnect.service.chat;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.model.ChatMessage;
+
+/**
+ * Writes batches of chat messages into chat_messages with one JDBC batch.
+ *
+ * INSERT IGNORE makes a message whose message_key is already stored a no-op, so a client
+ * that resends after a reconnect, or a batch retried after a partial failure, does not
+ * duplicate rows. As with device readings, the MySQL URL should carry
+ * rewriteBatchedStatements=true so the batch becomes multi-row INSERTs.
+ */
+@Component
+public class ChatMessageBatchWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT IGNORE INTO chat_messages (message_key, appointment_id, sender_id, sender_type, sender_name, " +
+        "message_text, timestamp, is_read) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insert(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ChatMessage message = messages.get(i);
+                ps.setString(1, message.getMessageKey());
+                ps.setLong(2, message.getAppointmentId());
+                ps.setLong(3, message.getSenderId());
+                ps.setString(4, message.getSenderType());
+                ps.setString(5, message.getSenderName());
+                ps.setString(6, message.getMessageText());
+                ps.setTimestamp(7, Timestamp.valueOf(message.getTimestamp()));
+                ps.setBoolean(8, Boolean.TRUE.equals(message.getIsRead()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return messages.size();
+            }
+        });
+    }
+}
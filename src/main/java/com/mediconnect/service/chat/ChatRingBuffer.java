@@ -0,0 +1,95 @@
+package com.mediconnect.service.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.mediconnect.dto.ChatMessageDTO;
+
+/**
+ * The last N messages of one chat room in (timestamp, messageId) order, backed by a fixed
+ * array. Not thread safe; callers synchronise on the owning room.
+ */
+final class ChatRingBuffer {
+
+    static final Comparator<ChatMessageDTO> ORDER = Comparator
+        .comparing(ChatMessageDTO::getTimestamp)
+        .thenComparing(ChatMessageDTO::getMessageId);
+
+    private final ChatMessageDTO[] messages;
+    private int start;
+    private int size;
+
+    ChatRingBuffer(int capacity) {
+        this.messages = new ChatMessageDTO[Math.max(capacity, 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    ChatMessageDTO get(int i) {
+        return messages[index(i)];
+    }
+
+    /**
+     * Adds a message in order, dropping the oldest when full. Returns whether a message was
+     * dropped, i.e. whether the buffer no longer starts at the beginning of the room's history.
+     */
+    boolean add(ChatMessageDTO message) {
+        // Messages almost always arrive in order; otherwise find the slot from the end
+        int position = size;
+        while (position > 0 && ORDER.compare(get(position - 1), message) > 0) {
+            position--;
+        }
+        boolean dropped = false;
+        if (size == messages.length) {
+            if (position == 0) {
+                return true;
+            }
+            start = index(1);
+            size--;
+            position--;
+            dropped = true;
+        }
+        for (int i = size; i > position; i--) {
+            messages[index(i)] = get(i - 1);
+        }
+        messages[index(position)] = message;
+        size++;
+        return dropped;
+    }
+
+    void clear() {
+        Arrays.fill(messages, null);
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * Position of the message with the given id, or -1. Searches from the newest end, where
+     * cursors of recently loaded pages point.
+     */
+    int indexOf(String messageId) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (messageId.equals(get(i).getMessageId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    List<ChatMessageDTO> slice(int from, int to) {
+        List<ChatMessageDTO> slice = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            slice.add(get(i));
+        }
+        return slice;
+    }
+
+    private int index(int i) {
+        int slot = start + i;
+        return slot >= messages.length ? slot - messages.length : slot;
+    }
+}
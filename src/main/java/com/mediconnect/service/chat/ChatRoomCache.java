@@ -0,0 +1,235 @@
+package com.mediconnect.service.chat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.dto.ChatMessageDTO;
+import com.mediconnect.exception.BadRequestException;
+import com.mediconnect.model.ChatMessage;
+import com.mediconnect.repository.ChatMessageRepository;
+
+/**
+ * Keyset-paginated chat history with a ring buffer of the last {@code room-capacity} messages
+ * for each recently opened room.
+ *
+ * The first request for a room loads its newest messages (plus any still in the write-behind
+ * queue) into a ring; from then on every message accepted on this node is appended, so
+ * opening the chat again and paging through recent history are served from memory. Older
+ * pages are read with a keyset query on (timestamp, message_key). At most {@code max-rooms}
+ * rooms are kept, least recently used first out.
+ *
+ * With the broker relay, messages accepted on other nodes do not reach this node's rings, so
+ * a room is reloaded once it is older than {@code relay-refresh-seconds}.
+ */
+@Component
+public class ChatRoomCache {
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private ChatWriteBehindQueue writeBehindQueue;
+
+    @Value("${mediconnect.chat.history.room-capacity:200}")
+    private int roomCapacity;
+
+    @Value("${mediconnect.chat.history.max-rooms:2000}")
+    private int maxRooms;
+
+    @Value("${mediconnect.chat.history.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${mediconnect.chat.history.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${mediconnect.chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${mediconnect.chat.history.relay-refresh-seconds:5}")
+    private long relayRefreshSeconds;
+
+    // Access-ordered; guarded by itself
+    private final LinkedHashMap<Long, Room> rooms = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong databasePages = new AtomicLong();
+
+    /**
+     * Up to {@code limit} messages older than the message {@code before} (newest when null),
+     * oldest first.
+     */
+    public ChatHistoryPage page(Long appointmentId, String before, Integer limit) {
+        // Never more than a ring holds, so a first page can always be served from the ring
+        int size = Math.min(limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit), roomCapacity);
+        Room room = room(appointmentId);
+        ChatMessageDTO cursor = null;
+        synchronized (room) {
+            if (!room.isFresh()) {
+                load(appointmentId, room);
+            } else {
+                hits.incrementAndGet();
+            }
+            int end = room.buffer.size();
+            if (before != null) {
+                end = room.buffer.indexOf(before);
+                if (end >= 0) {
+                    cursor = room.buffer.get(end);
+                }
+            }
+            if (end >= 0) {
+                int from = end - size;
+                if (from >= 0 || room.complete) {
+                    from = Math.max(from, 0);
+                    return new ChatHistoryPage(room.buffer.slice(from, end), from > 0 || !room.complete, true);
+                }
+            }
+        }
+        return pageFromDatabase(appointmentId, before, cursor, size);
+    }
+
+    private ChatHistoryPage pageFromDatabase(Long appointmentId, String before, ChatMessageDTO cursor, int size) {
+        databasePages.incrementAndGet();
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<ChatMessage> newestFirst;
+        if (before == null) {
+            newestFirst = chatMessageRepository.findLatest(appointmentId, page);
+        } else {
+            if (cursor == null) {
+                ChatMessage stored = chatMessageRepository.findByMessageKey(before)
+                    .filter(message -> appointmentId.equals(message.getAppointmentId()))
+                    .orElseThrow(() -> new BadRequestException("Unknown chat history cursor: " + before));
+                cursor = ChatMessageDTO.from(stored);
+            }
+            newestFirst = chatMessageRepository.findBefore(appointmentId, cursor.getTimestamp(), cursor.getMessageId(), page);
+        }
+        boolean hasMore = newestFirst.size() > size;
+        List<ChatMessageDTO> messages = new ArrayList<>(Math.min(newestFirst.size(), size));
+        for (int i = Math.min(newestFirst.size(), size) - 1; i >= 0; i--) {
+            messages.add(ChatMessageDTO.from(newestFirst.get(i)));
+        }
+        return new ChatHistoryPage(messages, hasMore, false);
+    }
+
+    /**
+     * Appends a newly accepted message to its room's ring, if the room is cached.
+     */
+    public void append(ChatMessageDTO message) {
+        Room room;
+        synchronized (rooms) {
+            room = rooms.get(message.getAppointmentId());
+        }
+        if (room != null) {
+            synchronized (room) {
+                room.add(message);
+            }
+        }
+    }
+
+    /**
+     * Marks cached messages sent to a user up to a point in time as read.
+     */
+    public void markRead(Long appointmentId, Long userId, LocalDateTime upTo) {
+        Room room;
+        synchronized (rooms) {
+            room = rooms.get(appointmentId);
+        }
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            for (int i = 0; i < room.buffer.size(); i++) {
+                ChatMessageDTO message = room.buffer.get(i);
+                if (!userId.equals(message.getSenderId()) && !message.getTimestamp().isAfter(upTo)) {
+                    message.setIsRead(true);
+                }
+            }
+        }
+    }
+
+    private Room room(Long appointmentId) {
+        synchronized (rooms) {
+            Room room = rooms.get(appointmentId);
+            if (room == null) {
+                room = new Room(roomCapacity);
+                rooms.put(appointmentId, room);
+                if (rooms.size() > maxRooms) {
+                    rooms.remove(rooms.keySet().iterator().next());
+                }
+            }
+            return room;
+        }
+    }
+
+    // Called with the room locked, so appends wait and none are lost while it loads
+    private void load(Long appointmentId, Room room) {
+        loads.incrementAndGet();
+        List<ChatMessage> newestFirst = chatMessageRepository.findLatest(appointmentId, PageRequest.of(0, roomCapacity));
+        room.reset(newestFirst.size() < roomCapacity);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            room.add(ChatMessageDTO.from(newestFirst.get(i)));
+        }
+        for (ChatMessage pending : writeBehindQueue.pending(appointmentId)) {
+            room.add(ChatMessageDTO.from(pending));
+        }
+        room.loadedAt = System.nanoTime();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (rooms) {
+            stats.put("rooms", rooms.size());
+        }
+        stats.put("maxRooms", maxRooms);
+        stats.put("roomCapacity", roomCapacity);
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        stats.put("databasePages", databasePages.get());
+        return stats;
+    }
+
+    private final class Room {
+        private final ChatRingBuffer buffer;
+        // Whether the ring holds the room's whole history
+        private boolean complete;
+        private long loadedAt;
+        private boolean loaded;
+
+        Room(int capacity) {
+            this.buffer = new ChatRingBuffer(capacity);
+        }
+
+        boolean isFresh() {
+            if (!loaded) {
+                return false;
+            }
+            return !"relay".equalsIgnoreCase(brokerMode)
+                || System.nanoTime() - loadedAt < TimeUnit.SECONDS.toNanos(relayRefreshSeconds);
+        }
+
+        void reset(boolean complete) {
+            buffer.clear();
+            this.complete = complete;
+            this.loaded = true;
+        }
+
+        void add(ChatMessageDTO message) {
+            if (!loaded || buffer.indexOf(message.getMessageId()) >= 0) {
+                return;
+            }
+            if (buffer.add(message)) {
+                complete = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.mediconnect.service.chat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.model.ChatMessage;
+import com.mediconnect.repository.ChatMessageRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Unread chat message counts per (appointment, user), kept in memory.
+ *
+ * A count is read from the database the first time it is asked for and then maintained as
+ * messages are accepted, so polling it costs nothing. Marking a room read zeroes the count at
+ * once; the UPDATE that flags the rows is queued and written by a periodic flush, merged with
+ * any later mark-read of the same room and user. Counts are reloaded after
+ * {@code ttl-seconds}, which bounds how long a count can miss messages accepted on other nodes
+ * when the broker relay is used, and dropped if not asked for within that time.
+ *
+ * Messages are handed to the write-behind queue while their room is locked here, so a count
+ * being loaded sees each message exactly once: in the database or in the queue.
+ */
+@Component
+public class ChatUnreadCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatUnreadCounters.class);
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private ChatWriteBehindQueue writeBehindQueue;
+
+    @Value("${mediconnect.chat.unread.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    // appointmentId -> counts of the users who asked; each room guarded by itself
+    private final Map<Long, Map<Long, Counter>> rooms = new ConcurrentHashMap<>();
+
+    // (appointmentId, userId) -> newest mark-read not yet written
+    private final Map<ReadKey, LocalDateTime> pendingReads = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong readsWritten = new AtomicLong();
+
+    public long count(Long appointmentId, Long userId) {
+        while (true) {
+            Map<Long, Counter> room = rooms.computeIfAbsent(appointmentId, id -> new HashMap<>());
+            synchronized (room) {
+                if (rooms.get(appointmentId) != room) {
+                    // Removed by flush() in the meantime
+                    continue;
+                }
+                Counter counter = room.get(userId);
+                long now = System.nanoTime();
+                if (counter != null && now - counter.loadedAt < TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+                    counter.lastUsed = now;
+                    hits.incrementAndGet();
+                    return counter.count;
+                }
+                counter = new Counter(load(appointmentId, userId), now);
+                room.put(userId, counter);
+                return counter.count;
+            }
+        }
+    }
+
+    /**
+     * Persists a newly accepted message with {@code persist} and counts it for every user of its
+     * room except the sender.
+     */
+    public void accept(ChatMessage message, Runnable persist) {
+        Long appointmentId = message.getAppointmentId();
+        while (true) {
+            Map<Long, Counter> room = rooms.computeIfAbsent(appointmentId, id -> new HashMap<>());
+            synchronized (room) {
+                if (rooms.get(appointmentId) != room) {
+                    continue;
+                }
+                persist.run();
+                for (Map.Entry<Long, Counter> entry : room.entrySet()) {
+                    if (!entry.getKey().equals(message.getSenderId())) {
+                        entry.getValue().count++;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Zeroes a user's count and queues the database update for messages up to {@code upTo}.
+     */
+    public void markRead(Long appointmentId, Long userId, LocalDateTime upTo) {
+        while (true) {
+            Map<Long, Counter> room = rooms.computeIfAbsent(appointmentId, id -> new HashMap<>());
+            synchronized (room) {
+                if (rooms.get(appointmentId) != room) {
+                    continue;
+                }
+                pendingReads.merge(new ReadKey(appointmentId, userId), upTo, (a, b) -> a.isAfter(b) ? a : b);
+                for (ChatMessage pending : writeBehindQueue.pending(appointmentId)) {
+                    if (!userId.equals(pending.getSenderId()) && !pending.getTimestamp().isAfter(upTo)) {
+                        pending.setIsRead(true);
+                    }
+                }
+                room.put(userId, new Counter(0, System.nanoTime()));
+                return;
+            }
+        }
+    }
+
+    // Called with the room locked. A pending mark-read of this user is written first, so the
+    // count does not include rows it covers; queued messages are excluded from the database
+    // count because the writer may commit them while it runs
+    private long load(Long appointmentId, Long userId) {
+        loads.incrementAndGet();
+        writeRead(new ReadKey(appointmentId, userId));
+        List<ChatMessage> pending = writeBehindQueue.pending(appointmentId);
+        if (pending.isEmpty()) {
+            return chatMessageRepository.countUnreadMessages(appointmentId, userId);
+        }
+        List<String> pendingKeys = new ArrayList<>(pending.size());
+        long count = 0;
+        for (ChatMessage message : pending) {
+            pendingKeys.add(message.getMessageKey());
+            if (!userId.equals(message.getSenderId()) && !Boolean.TRUE.equals(message.getIsRead())) {
+                count++;
+            }
+        }
+        return count + chatMessageRepository.countUnreadMessagesExcluding(appointmentId, userId, pendingKeys);
+    }
+
+    /**
+     * Writes queued mark-reads and drops counts that have not been used recently.
+     */
+    @Scheduled(fixedDelayString = "${mediconnect.chat.unread.flush-interval-ms:2000}")
+    public void flush() {
+        for (ReadKey key : pendingReads.keySet()) {
+            writeRead(key);
+        }
+        long expiry = System.nanoTime() - TimeUnit.SECONDS.toNanos(ttlSeconds);
+        for (Map<Long, Counter> room : rooms.values()) {
+            synchronized (room) {
+                room.values().removeIf(counter -> counter.lastUsed < expiry);
+            }
+        }
+        // An empty room is removed only if nobody added to it since the check
+        Iterator<Map.Entry<Long, Map<Long, Counter>>> entries = rooms.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Map<Long, Counter>> entry = entries.next();
+            synchronized (entry.getValue()) {
+                if (entry.getValue().isEmpty()) {
+                    rooms.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ReadKey key : pendingReads.keySet()) {
+            writeRead(key);
+        }
+    }
+
+    private void writeRead(ReadKey key) {
+        LocalDateTime upTo = pendingReads.remove(key);
+        if (upTo == null) {
+            return;
+        }
+        try {
+            chatMessageRepository.markMessagesAsRead(key.appointmentId, key.userId, upTo);
+            readsWritten.incrementAndGet();
+        } catch (Exception e) {
+            // Kept for the next flush, unless a newer mark-read has replaced it
+            pendingReads.merge(key, upTo, (a, b) -> a.isAfter(b) ? a : b);
+            log.warn("Could not mark chat messages read for user {} in appointment {}: {}",
+                key.userId, key.appointmentId, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        int counters = 0;
+        for (Map<Long, Counter> room : rooms.values()) {
+            synchronized (room) {
+                counters += room.size();
+            }
+        }
+        stats.put("counters", counters);
+        stats.put("pendingReads", pendingReads.size());
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        stats.put("readsWritten", readsWritten.get());
+        return stats;
+    }
+
+    private static final class Counter {
+        private long count;
+        private final long loadedAt;
+        private long lastUsed;
+
+        Counter(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+            this.lastUsed = loadedAt;
+        }
+    }
+
+    private static final class ReadKey {
+        private final Long appointmentId;
+        private final Long userId;
+
+        ReadKey(Long appointmentId, Long userId) {
+            this.appointmentId = appointmentId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ReadKey)) {
+                return false;
+            }
+            ReadKey key = (ReadKey) other;
+            return appointmentId.equals(key.appointmentId) && userId.equals(key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return appointmentId.hashCode() * 31 + userId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.mediconnect.service.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.model.ChatMessage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence for chat messages.
+ *
+ * Messages are broadcast as soon as they are queued here; a single writer thread persists
+ * them afterwards in group commits. It waits up to {@code group-commit-window-ms} after the
+ * first message of a batch so that a burst shares one JDBC batch and one transaction, and takes
+ * at most {@code batch-size} messages at a time. A failed batch is retried with backoff while
+ * new messages keep queueing behind it.
+ *
+ * When the queue is full the caller writes its own message synchronously, so a slow database
+ * slows senders down instead of dropping messages. Messages still in the queue are lost if the
+ * node dies; an orderly shutdown flushes them.
+ */
+@Component
+public class ChatWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatWriteBehindQueue.class);
+
+    private static final long MAX_RETRY_DELAY_MS = 5000;
+
+    @Autowired
+    private ChatMessageBatchWriter batchWriter;
+
+    @Value("${mediconnect.chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${mediconnect.chat.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${mediconnect.chat.write-behind.group-commit-window-ms:5}")
+    private long groupCommitWindowMillis;
+
+    @Value("${mediconnect.chat.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    private BlockingQueue<ChatMessage> queue;
+
+    // The batch the writer is working on, so readers can still see it until it is committed
+    private volatile List<ChatMessage> writing = Collections.emptyList();
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong writtenInlineCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "ChatWriteBehind-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Chat write-behind started (queue capacity {}, batch size {}, group commit window {} ms)",
+            queueCapacity, batchSize, groupCommitWindowMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+        log.info("Chat write-behind stopped after writing {} messages", writtenCount.get() + writtenInlineCount.get());
+    }
+
+    /**
+     * Queues a message for persistence, or writes it on the calling thread if the queue is full.
+     * Throws if that synchronous write fails, in which case the message must not be broadcast.
+     */
+    public void submit(ChatMessage message) {
+        if (queue.offer(message)) {
+            queuedCount.incrementAndGet();
+            return;
+        }
+        batchWriter.insert(List.of(message));
+        writtenInlineCount.incrementAndGet();
+    }
+
+    /**
+     * Messages of an appointment that are queued or being written, oldest first. They may also
+     * already be visible in the table if their batch is committing.
+     */
+    public List<ChatMessage> pending(Long appointmentId) {
+        List<ChatMessage> pending = new ArrayList<>();
+        for (ChatMessage message : writing) {
+            if (appointmentId.equals(message.getAppointmentId())) {
+                pending.add(message);
+            }
+        }
+        for (ChatMessage message : queue) {
+            if (appointmentId.equals(message.getAppointmentId())) {
+                pending.add(message);
+            }
+        }
+        return pending;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batches = batchCount.get();
+        long written = writtenCount.get();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queued", queuedCount.get());
+        stats.put("written", written);
+        stats.put("writtenInline", writtenInlineCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("batches", batches);
+        stats.put("avgBatchSize", batches == 0 ? 0 : Math.round(written * 10.0 / batches) / 10.0);
+        stats.put("retries", retryCount.get());
+        return stats;
+    }
+
+    // ===== Writer =====
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                ChatMessage first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                writing = Collections.singletonList(first);
+                List<ChatMessage> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                if (groupCommitWindowMillis > 0 && queue.size() < batchSize - 1) {
+                    try {
+                        Thread.sleep(groupCommitWindowMillis);
+                    } catch (InterruptedException e) {
+                        // Shutting down; this batch is still written below
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                queue.drainTo(batch, batchSize - 1);
+                writing = batch;
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                writing = Collections.emptyList();
+            }
+        }
+    }
+
+    private void writeBatch(List<ChatMessage> batch) {
+        long delay = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchWriter.insert(batch);
+                writtenCount.addAndGet(batch.size());
+                batchCount.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !running) {
+                    failedCount.addAndGet(batch.size());
+                    log.error("Dropped batch of {} chat messages after {} attempts: {}", batch.size(), attempt, e.getMessage(), e);
+                    return;
+                }
+                retryCount.incrementAndGet();
+                log.warn("Failed to write batch of {} chat messages (attempt {}), retrying in {} ms: {}",
+                    batch.size(), attempt, delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down: retry at once, and give up if that fails too
+                    Thread.currentThread().interrupt();
+                    delay = 0;
+                }
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.mediconnect.service.document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * A rendered document served from DocumentCache, either held in memory or stored on disk.
+ *
+ * The ETag is derived from the document's bytes, so it is a strong validator: two responses
+ * with the same ETag are byte-for-byte identical.
+ */
+public final class CachedDocument {
+
+    private final String key;
+    private final String etag;
+    private final long length;
+    private final byte[] content;
+    private final Path path;
+
+    CachedDocument(String key, String etag, byte[] content) {
+        this.key = key;
+        this.etag = etag;
+        this.length = content.length;
+        this.content = content;
+        this.path = null;
+    }
+
+    CachedDocument(String key, String etag, long length, Path path) {
+        this.key = key;
+        this.etag = etag;
+        this.length = length;
+        this.content = null;
+        this.path = path;
+    }
+
+    public String getKey() { return key; }
+
+    public String getEtag() { return etag; }
+
+    public long getLength() { return length; }
+
+    /**
+     * The document as a response body. A disk-tier document is streamed from its file, which lets
+     * Spring MVC answer Range requests without loading it.
+     */
+    public Resource toResource() {
+        return content != null ? new ByteArrayResource(content) : new FileSystemResource(path);
+    }
+
+    /**
+     * The document's bytes, read from disk for a disk-tier document.
+     */
+    public byte[] readBytes() throws IOException {
+        return content != null ? content : Files.readAllBytes(path);
+    }
+}
@@ -0,0 +1,474 @@
+package com.mediconnect.service.document;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.mediconnect.exception.ReportGenerationException;
+import com.mediconnect.util.TokenHashUtil;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Content-addressed cache of rendered PDFs (receipts and reports).
+ *
+ * A document is keyed by its kind, the id of the entity it describes and a hash of the content
+ * it was rendered from, so a changed entity gets a new key and an unchanged one is never laid
+ * out twice. Documents live in a byte-bounded LRU in memory and, only when enabled with an
+ * explicitly configured private directory, in a disk tier that survives restarts. Only the
+ * newest version of a (kind, id) pair is kept; older ones are dropped when it is stored.
+ * Concurrent requests for the same missing document share one render.
+ *
+ * Reports contain patient data, so every document expires after {@code ttl-minutes} in both
+ * tiers, and documents can be tagged with an owner (see {@link #patientOwner}) so that all of a
+ * patient's documents are dropped with {@link #evictOwner} when the patient is deleted.
+ */
+@Component
+public class DocumentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentCache.class);
+
+    private static final String FILE_SUFFIX = ".pdf";
+    private static final int HASH_CHARS = 32;
+
+    // Off by default; when on, dir must be set to a directory only this application can read
+    @Value("${mediconnect.documents.cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${mediconnect.documents.cache.dir:}")
+    private String cacheDir;
+
+    @Value("${mediconnect.documents.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${mediconnect.documents.cache.memory-max-bytes:67108864}")
+    private long memoryMaxBytes;
+
+    // Larger documents are served from disk only, so one big report cannot flush the memory tier
+    @Value("${mediconnect.documents.cache.memory-max-entry-bytes:4194304}")
+    private long memoryMaxEntryBytes;
+
+    @Value("${mediconnect.documents.cache.disk-max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    private Path directory;
+
+    // Access-ordered; guarded by itself
+    private final LinkedHashMap<String, CachedDocument> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    private final Map<String, DiskEntry> disk = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    // (kind, id) -> key of the newest version stored
+    private final Map<String, String> latestVersion = new ConcurrentHashMap<>();
+
+    // key -> owner and time stored, for expiry and evictOwner
+    private final Map<String, KeyInfo> keyInfo = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<CachedDocument>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!diskEnabled) {
+            log.info("Document cache keeps documents in memory only");
+            return;
+        }
+        if (!StringUtils.hasText(cacheDir)) {
+            log.warn("Document cache disk tier is enabled but mediconnect.documents.cache.dir is not set, caching in memory only");
+            return;
+        }
+        directory = Paths.get(cacheDir);
+        try {
+            Files.createDirectories(directory);
+            makePrivate(directory);
+            loadDiskIndex();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Document cache directory {} is not usable, caching in memory only: {}", directory, e.getMessage());
+            directory = null;
+        }
+    }
+
+    // Owner-only access where the file system supports POSIX permissions
+    private static void makePrivate(Path dir) throws IOException {
+        if (Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+
+    // File names are kind_id_version_etag[_owner].pdf, so the index is rebuilt from a directory
+    // listing; expired files are deleted instead
+    private void loadDiskIndex() throws IOException {
+        // Left behind by writes interrupted by a shutdown
+        try (DirectoryStream<Path> partial = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : partial) {
+                deleteQuietly(file);
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String[] parts = name.substring(0, name.length() - FILE_SUFFIX.length()).split("_");
+                if (parts.length != 4 && parts.length != 5) {
+                    continue;
+                }
+                String kindAndId = parts[0] + "_" + parts[1];
+                String key = kindAndId + "_" + parts[2];
+                String previous = latestVersion.get(kindAndId);
+                DiskEntry entry = new DiskEntry(file, parts[3], Files.size(file), Files.getLastModifiedTime(file).toMillis());
+                if (isExpired(entry.lastAccess) || previous != null && disk.get(previous).lastAccess >= entry.lastAccess) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                if (previous != null) {
+                    removeDiskEntry(previous);
+                }
+                disk.put(key, entry);
+                diskBytes.addAndGet(entry.size);
+                latestVersion.put(kindAndId, key);
+                keyInfo.put(key, new KeyInfo(kindAndId, parts.length == 5 ? parts[4] : null, entry.lastAccess));
+            }
+        }
+        log.info("Document cache loaded {} documents ({} bytes) from {}", disk.size(), diskBytes.get(), directory);
+    }
+
+    /**
+     * Returns the cached document for (kind, id, version), rendering it with the renderer if it
+     * is in neither tier. The version must change whenever the document's content would, e.g. a
+     * hash of the HTML it is rendered from. The owner (e.g. {@link #patientOwner}) may be null.
+     */
+    public CompletableFuture<CachedDocument> getOrRenderAsync(String kind, Object entityId, String version, String owner,
+                                                              Supplier<CompletableFuture<byte[]>> renderer) {
+        String kindAndId = kindAndId(kind, entityId);
+        String key = kindAndId + "_" + shorten(version);
+        String ownerPart = owner != null ? sanitize(owner) : null;
+
+        CachedDocument cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<CachedDocument> created = new CompletableFuture<>();
+        CompletableFuture<CachedDocument> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        misses.incrementAndGet();
+        CompletableFuture<byte[]> rendering;
+        try {
+            rendering = renderer.get();
+        } catch (RuntimeException e) {
+            rendering = CompletableFuture.failedFuture(e);
+        }
+        rendering.whenComplete((content, error) -> {
+            try {
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    // Stored before leaving inFlight, so later callers find it in a tier
+                    created.complete(store(kindAndId, key, ownerPart, content));
+                }
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Synchronous form of {@link #getOrRenderAsync}; the renderer runs on the calling thread.
+     */
+    public CachedDocument getOrRender(String kind, Object entityId, String version, String owner,
+                                      Callable<byte[]> renderer) {
+        try {
+            return getOrRenderAsync(kind, entityId, version, owner, () -> {
+                try {
+                    return CompletableFuture.completedFuture(renderer.call());
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ReportGenerationException) {
+                throw (ReportGenerationException) e.getCause();
+            }
+            throw new ReportGenerationException("Failed to generate " + kind + " " + entityId, e.getCause());
+        }
+    }
+
+    private CachedDocument lookup(String key) {
+        KeyInfo info = keyInfo.get(key);
+        if (info != null && isExpired(info.storedAt)) {
+            expired.incrementAndGet();
+            remove(key);
+            return null;
+        }
+        synchronized (memory) {
+            CachedDocument document = memory.get(key);
+            if (document != null) {
+                memoryHits.incrementAndGet();
+                return document;
+            }
+        }
+        DiskEntry entry = disk.get(key);
+        if (entry != null) {
+            if (Files.exists(entry.path)) {
+                entry.lastAccess = System.currentTimeMillis();
+                diskHits.incrementAndGet();
+                return new CachedDocument(key, entry.etag, entry.size, entry.path);
+            }
+            removeDiskEntry(key);
+        }
+        return null;
+    }
+
+    private CachedDocument store(String kindAndId, String key, String owner, byte[] content) {
+        String etag = TokenHashUtil.sha256Hex(content).substring(0, HASH_CHARS);
+        CachedDocument inMemory = new CachedDocument(key, etag, content);
+
+        String previous = latestVersion.put(kindAndId, key);
+        if (previous != null && !previous.equals(key)) {
+            removeFromMemory(previous);
+            removeDiskEntry(previous);
+            keyInfo.remove(previous);
+        }
+        keyInfo.put(key, new KeyInfo(kindAndId, owner, System.currentTimeMillis()));
+
+        if (content.length <= memoryMaxEntryBytes) {
+            putInMemory(key, inMemory);
+        }
+        if (directory != null) {
+            writeToDisk(key, owner, etag, content);
+        }
+        return inMemory;
+    }
+
+    /**
+     * Drops the cached document of (kind, id), e.g. after the record it shows was deleted.
+     */
+    public void evict(String kind, Object entityId) {
+        String key = latestVersion.get(kindAndId(kind, entityId));
+        if (key != null) {
+            remove(key);
+            evicted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops every cached document of an owner, e.g. all reports and receipts of a deleted patient.
+     */
+    public int evictOwner(String owner) {
+        String ownerPart = sanitize(owner);
+        int count = 0;
+        for (Map.Entry<String, KeyInfo> entry : keyInfo.entrySet()) {
+            if (ownerPart.equals(entry.getValue().owner)) {
+                remove(entry.getKey());
+                count++;
+            }
+        }
+        evicted.addAndGet(count);
+        return count;
+    }
+
+    public static String patientOwner(Long patientId) {
+        return "patient-" + patientId;
+    }
+
+    @Scheduled(fixedDelayString = "${mediconnect.documents.cache.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        int count = 0;
+        for (Map.Entry<String, KeyInfo> entry : keyInfo.entrySet()) {
+            if (isExpired(entry.getValue().storedAt)) {
+                remove(entry.getKey());
+                count++;
+            }
+        }
+        if (count > 0) {
+            expired.addAndGet(count);
+            log.debug("Purged {} expired documents from the document cache", count);
+        }
+    }
+
+    private void remove(String key) {
+        KeyInfo info = keyInfo.remove(key);
+        if (info != null) {
+            latestVersion.remove(info.kindAndId, key);
+        }
+        removeFromMemory(key);
+        removeDiskEntry(key);
+    }
+
+    private boolean isExpired(long storedAt) {
+        return System.currentTimeMillis() - storedAt > TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+
+    private void putInMemory(String key, CachedDocument document) {
+        synchronized (memory) {
+            CachedDocument replaced = memory.put(key, document);
+            if (replaced != null) {
+                memoryBytes -= replaced.getLength();
+            }
+            memoryBytes += document.getLength();
+            Iterator<CachedDocument> eldest = memory.values().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getLength();
+                eldest.remove();
+            }
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        synchronized (memory) {
+            CachedDocument removed = memory.remove(key);
+            if (removed != null) {
+                memoryBytes -= removed.getLength();
+            }
+        }
+    }
+
+    private void writeToDisk(String key, String owner, String etag, byte[] content) {
+        Path target = directory.resolve(key + "_" + etag + (owner != null ? "_" + owner : "") + FILE_SUFFIX);
+        try {
+            // Written under a temporary name (owner-only on POSIX) and moved, so readers never see a partial file
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            DiskEntry replaced = disk.put(key, new DiskEntry(target, etag, content.length, System.currentTimeMillis()));
+            if (replaced != null) {
+                diskBytes.addAndGet(-replaced.size);
+                if (!replaced.path.equals(target)) {
+                    deleteQuietly(replaced.path);
+                }
+            }
+            if (diskBytes.addAndGet(content.length) > diskMaxBytes) {
+                trimDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write document {} to the disk cache: {}", key, e.getMessage());
+        }
+    }
+
+    // Drops least recently used files until the tier is 10% under its limit
+    private synchronized void trimDisk() {
+        long target = diskMaxBytes - diskMaxBytes / 10;
+        if (diskBytes.get() <= target) {
+            return;
+        }
+        List<Map.Entry<String, DiskEntry>> entries = new ArrayList<>(disk.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        for (Map.Entry<String, DiskEntry> entry : entries) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            removeDiskEntry(entry.getKey());
+        }
+    }
+
+    private void removeDiskEntry(String key) {
+        DiskEntry removed = disk.remove(key);
+        if (removed != null) {
+            diskBytes.addAndGet(-removed.size);
+            deleteQuietly(removed.path);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete cached document {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Key parts become file name parts, so they are limited to characters safe there and free of '_'
+    private static String sanitize(String part) {
+        return part.replaceAll("[^A-Za-z0-9.-]", "-");
+    }
+
+    private static String kindAndId(String kind, Object entityId) {
+        return sanitize(kind) + "_" + sanitize(String.valueOf(entityId));
+    }
+
+    private static String shorten(String version) {
+        String hex = sanitize(version);
+        return hex.length() > HASH_CHARS ? hex.substring(0, HASH_CHARS) : hex;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (memory) {
+            stats.put("memoryDocuments", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("diskEnabled", directory != null);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("diskDocuments", disk.size());
+        stats.put("diskBytes", diskBytes.get());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("expired", expired.get());
+        stats.put("evicted", evicted.get());
+        stats.put("rendering", inFlight.size());
+        return stats;
+    }
+
+    private static final class KeyInfo {
+        private final String kindAndId;
+        private final String owner;
+        private final long storedAt;
+
+        KeyInfo(String kindAndId, String owner, long storedAt) {
+            this.kindAndId = kindAndId;
+            this.owner = owner;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static final class DiskEntry {
+        private final Path path;
+        private final String etag;
+        private final long size;
+        private volatile long lastAccess;
+
+        DiskEntry(Path path, String etag, long size, long lastAccess) {
+            this.path = path;
+            this.etag = etag;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.mediconnect.service.monitoring;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.exception.MonitoringException;
+import com.mediconnect.repository.AlertRuleRepository;
+import com.mediconnect.service.monitoring.CompiledAlertRule.Condition;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory alert rule evaluation for device readings.
+ *
+ * Rules are compiled once (at startup and after each committed AlertRule write, see
+ * {@link AlertRuleIndexListener}) into arrays keyed by patient and reading type. Each device
+ * keeps its recent samples for a reading type in a primitive ring buffer plus a small state
+ * per rule (sustained-since time, hysteresis latch), so evaluating a reading needs no SQL.
+ *
+ * Trigger counts are accumulated in memory and written back in one JDBC batch per flush
+ * interval.
+ */
+@Service
+public class AlertRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    private static final CompiledAlertRule[] NO_RULES = new CompiledAlertRule[0];
+
+    private static final String FLUSH_SQL =
+        "UPDATE alert_rules SET trigger_count = trigger_count + ?, last_triggered_at = ? WHERE id = ?";
+
+    @Autowired
+    private AlertRuleRepository alertRuleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${mediconnect.monitoring.alerts.max-samples-per-series:4096}")
+    private int maxSamplesPerSeries;
+
+    // patientId -> normalised reading type -> rules; arrays are replaced, never mutated
+    private final Map<Long, Map<String, CompiledAlertRule[]>> rulesByPatient = new ConcurrentHashMap<>();
+    private final Map<Long, CompiledAlertRule> rulesById = new ConcurrentHashMap<>();
+
+    // device pk -> normalised reading type -> rolling state
+    private final Map<Long, Map<String, DeviceSeries>> seriesByDevice = new ConcurrentHashMap<>();
+
+    // rule id -> triggers not yet written back / latest trigger time (epoch millis)
+    private final Map<Long, Long> pendingTriggerCounts = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pendingTriggerTimes = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRules() {
+        long start = System.currentTimeMillis();
+        List<CompiledAlertRule> compiled = new ArrayList<>();
+        for (Object[] row : alertRuleRepository.findAllForCompilation()) {
+            try {
+                compiled.add(new CompiledAlertRule((Long) row[0], (Long) row[1], (String) row[2],
+                    Condition.parse((String) row[3]), (Double) row[4], (Integer) row[5], (Double) row[6],
+                    (String) row[7], (String) row[8]));
+            } catch (MonitoringException e) {
+                log.warn("Skipping alert rule {}: {}", row[0], e.getMessage());
+            }
+        }
+        rebuild(compiled);
+        log.info("Compiled {} alert rules in {} ms", compiled.size(), System.currentTimeMillis() - start);
+    }
+
+    public synchronized void rebuild(List<CompiledAlertRule> rules) {
+        Map<Long, Map<String, List<CompiledAlertRule>>> grouped = new HashMap<>();
+        for (CompiledAlertRule rule : rules) {
+            grouped.computeIfAbsent(rule.getPatientId(), key -> new HashMap<>())
+                .computeIfAbsent(rule.getReadingType(), key -> new ArrayList<>())
+                .add(rule);
+        }
+
+        rulesByPatient.clear();
+        rulesById.clear();
+        for (Map.Entry<Long, Map<String, List<CompiledAlertRule>>> patient : grouped.entrySet()) {
+            Map<String, CompiledAlertRule[]> byType = new ConcurrentHashMap<>();
+            for (Map.Entry<String, List<CompiledAlertRule>> type : patient.getValue().entrySet()) {
+                byType.put(type.getKey(), type.getValue().toArray(NO_RULES));
+            }
+            rulesByPatient.put(patient.getKey(), byType);
+        }
+        for (CompiledAlertRule rule : rules) {
+            rulesById.put(rule.getId(), rule);
+        }
+    }
+
+    /**
+     * Adds or replaces a single compiled rule.
+     */
+    public synchronized void upsert(CompiledAlertRule rule) {
+        remove(rule.getId());
+        Map<String, CompiledAlertRule[]> byType =
+            rulesByPatient.computeIfAbsent(rule.getPatientId(), key -> new ConcurrentHashMap<>());
+        CompiledAlertRule[] existing = byType.getOrDefault(rule.getReadingType(), NO_RULES);
+        CompiledAlertRule[] updated = new CompiledAlertRule[existing.length + 1];
+        System.arraycopy(existing, 0, updated, 0, existing.length);
+        updated[existing.length] = rule;
+        byType.put(rule.getReadingType(), updated);
+        rulesById.put(rule.getId(), rule);
+    }
+
+    public synchronized void remove(Long ruleId) {
+        CompiledAlertRule existing = rulesById.remove(ruleId);
+        if (existing == null) {
+            return;
+        }
+        Map<String, CompiledAlertRule[]> byType = rulesByPatient.get(existing.getPatientId());
+        if (byType == null) {
+            return;
+        }
+        CompiledAlertRule[] rules = byType.getOrDefault(existing.getReadingType(), NO_RULES);
+        List<CompiledAlertRule> remaining = new ArrayList<>(rules.length);
+        for (CompiledAlertRule rule : rules) {
+            if (!rule.getId().equals(ruleId)) {
+                remaining.add(rule);
+            }
+        }
+        if (remaining.isEmpty()) {
+            byType.remove(existing.getReadingType());
+        } else {
+            byType.put(existing.getReadingType(), remaining.toArray(NO_RULES));
+        }
+    }
+
+    /**
+     * Feeds one reading through the patient's rules for its type and returns the rules that
+     * fired. Readings older than the newest sample already seen for the device are checked
+     * against plain thresholds only and do not move the rolling state.
+     */
+    public List<CompiledAlertRule> evaluate(Long patientId, Long devicePk, String readingType,
+                                            double value, LocalDateTime timestamp) {
+        Map<String, CompiledAlertRule[]> byType = rulesByPatient.get(patientId);
+        if (byType == null) {
+            return Collections.emptyList();
+        }
+        String type = CompiledAlertRule.normalizeType(readingType);
+        CompiledAlertRule[] rules = byType.get(type);
+        if (rules == null || rules.length == 0) {
+            return Collections.emptyList();
+        }
+
+        long time = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        DeviceSeries series = seriesByDevice
+            .computeIfAbsent(devicePk, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(type, key -> new DeviceSeries(maxSamplesPerSeries));
+
+        List<CompiledAlertRule> triggered = null;
+        synchronized (series) {
+            ReadingRingBuffer samples = series.samples;
+            boolean inOrder = samples.isEmpty() || time >= samples.lastTime();
+            long retentionMs = 0;
+
+            for (CompiledAlertRule rule : rules) {
+                retentionMs = Math.max(retentionMs, rule.getWindowMs());
+                boolean fire = inOrder
+                    ? evaluateInOrder(rule, series, value, time)
+                    : isStateless(rule) && rule.holds(value);
+                if (fire) {
+                    if (triggered == null) {
+                        triggered = new ArrayList<>(2);
+                    }
+                    triggered.add(rule);
+                }
+            }
+
+            if (inOrder) {
+                samples.add(time, value, retentionMs);
+            }
+        }
+
+        if (triggered == null) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        for (CompiledAlertRule rule : triggered) {
+            pendingTriggerCounts.merge(rule.getId(), 1L, Long::sum);
+            pendingTriggerTimes.merge(rule.getId(), now, Math::max);
+        }
+        return triggered;
+    }
+
+    /**
+     * Writes accumulated trigger counts back to alert_rules in a single JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${mediconnect.monitoring.alerts.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flushTriggerCounts() {
+        if (pendingTriggerCounts.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>();
+        for (Long ruleId : new ArrayList<>(pendingTriggerCounts.keySet())) {
+            Long count = pendingTriggerCounts.remove(ruleId);
+            Long triggeredAt = pendingTriggerTimes.remove(ruleId);
+            if (count == null) {
+                continue;
+            }
+            long at = triggeredAt != null ? triggeredAt : System.currentTimeMillis();
+            // Bound as an instant in the JVM's zone, like the LocalDateTime.now() values that
+            // Hibernate writes to the other timestamp columns
+            updates.add(new Object[] {count, new Timestamp(at), ruleId});
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, updates);
+            log.debug("Flushed trigger counts for {} alert rules", updates.size());
+        } catch (Exception e) {
+            // Put the counts back so the next flush retries them
+            for (Object[] update : updates) {
+                Long ruleId = (Long) update[2];
+                pendingTriggerCounts.merge(ruleId, (Long) update[0], Long::sum);
+                pendingTriggerTimes.merge(ruleId, ((Timestamp) update[1]).getTime(), Math::max);
+            }
+            log.error("Failed to flush alert trigger counts: {}", e.getMessage());
+        }
+    }
+
+    public int ruleCount() {
+        return rulesById.size();
+    }
+
+    // ===== Evaluation (caller holds the series lock) =====
+
+    private boolean evaluateInOrder(CompiledAlertRule rule, DeviceSeries series, double value, long time) {
+        double measure = measure(rule, series.samples, value, time);
+        boolean holds = rule.holds(measure);
+        RuleState state = series.states.computeIfAbsent(rule.getId(), key -> new RuleState());
+
+        if (rule.isSustained()) {
+            if (!holds) {
+                state.conditionSince = -1;
+            } else if (state.conditionSince < 0) {
+                state.conditionSince = time;
+            }
+            if (state.active) {
+                if (rule.cleared(measure)) {
+                    state.active = false;
+                }
+                return false;
+            }
+            if (holds && time - state.conditionSince >= rule.getWindowMs()) {
+                state.active = true;
+                return true;
+            }
+            return false;
+        }
+
+        if (!rule.hasHysteresis()) {
+            return holds;
+        }
+        if (state.active) {
+            if (rule.cleared(measure)) {
+                state.active = false;
+            }
+            return false;
+        }
+        if (holds) {
+            state.active = true;
+            return true;
+        }
+        return false;
+    }
+
+    // The quantity a rule compares against its threshold; NaN when there is not enough history
+    private double measure(CompiledAlertRule rule, ReadingRingBuffer samples, double value, long time) {
+        switch (rule.getCondition()) {
+            case CHANGE: {
+                if (samples.isEmpty()) {
+                    return Double.NaN;
+                }
+                double previous = samples.lastValue();
+                return previous == 0 ? Double.NaN : Math.abs((value - previous) / previous);
+            }
+            case RATE_OF_CHANGE: {
+                int anchor = samples.indexAtOrBefore(time - rule.getWindowMs());
+                if (anchor < 0) {
+                    return Double.NaN;
+                }
+                double minutes = (time - samples.timeAt(anchor)) / 60_000.0;
+                return minutes <= 0 ? Double.NaN : Math.abs(value - samples.valueAt(anchor)) / minutes;
+            }
+            default:
+                return value;
+        }
+    }
+
+    private boolean isStateless(CompiledAlertRule rule) {
+        Condition condition = rule.getCondition();
+        return !rule.hasHysteresis()
+            && (condition == Condition.ABOVE || condition == Condition.BELOW || condition == Condition.EQUAL);
+    }
+
+    private static final class DeviceSeries {
+        private final ReadingRingBuffer samples;
+        private final Map<Long, RuleState> states = new HashMap<>(4);
+
+        private DeviceSeries(int maxSamples) {
+            this.samples = new ReadingRingBuffer(maxSamples);
+        }
+    }
+
+    private static final class RuleState {
+        private long conditionSince = -1;
+        private boolean active;
+    }
+}
@@ -0,0 +1,72 @@
+package com.mediconnect.service.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mediconnect.config.ApplicationContextProvider;
+import com.mediconnect.exception.MonitoringException;
+import com.mediconnect.model.AlertRule;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that recompiles an {@link AlertRule} into the {@link AlertRuleEngine}
+ * once the transaction that wrote it commits.
+ *
+ * Trigger counters are flushed by the engine with plain JDBC, so they do not come back
+ * through here.
+ */
+public class AlertRuleIndexListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleIndexListener.class);
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(AlertRule rule) {
+        CompiledAlertRule compiled;
+        try {
+            compiled = CompiledAlertRule.from(rule);
+        } catch (MonitoringException e) {
+            log.warn("Alert rule {} cannot be compiled and is disabled: {}", rule.getId(), e.getMessage());
+            Long ruleId = rule.getId();
+            afterCommit(engine -> engine.remove(ruleId));
+            return;
+        }
+        afterCommit(engine -> engine.upsert(compiled));
+    }
+
+    @PostRemove
+    public void onRemove(AlertRule rule) {
+        Long ruleId = rule.getId();
+        afterCommit(engine -> engine.remove(ruleId));
+    }
+
+    private void afterCommit(EngineUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(EngineUpdate update) {
+        AlertRuleEngine engine = ApplicationContextProvider.getBean(AlertRuleEngine.class);
+        if (engine != null) {
+            update.apply(engine);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EngineUpdate {
+        void apply(AlertRuleEngine engine);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mediconnect.service.monitoring;
+
+import java.util.Locale;
+
+import com.mediconnect.exception.MonitoringException;
+import com.mediconnect.model.AlertRule;
+
+/**
+ * Immutable, pre-parsed form of an {@link AlertRule} used by {@link AlertRuleEngine}, so that
+ * evaluating a reading never touches the entity or compares condition strings.
+ */
+public final class CompiledAlertRule {
+
+    public enum Condition {
+        ABOVE, BELOW, EQUAL, CHANGE, RATE_OF_CHANGE, SUSTAINED_ABOVE, SUSTAINED_BELOW;
+
+        public static Condition parse(String conditionType) {
+            if (conditionType == null) {
+                throw new MonitoringException("Condition type is required");
+            }
+            try {
+                return valueOf(conditionType.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new MonitoringException("Unsupported condition type: " + conditionType);
+            }
+        }
+    }
+
+    private final Long id;
+    private final Long patientId;
+    private final String readingType;
+    private final Condition condition;
+    private final double threshold;
+    private final long windowMs;
+    private final boolean hysteresis;
+    private final double clearThreshold;
+    private final String ruleName;
+    private final String alertLevel;
+
+    public CompiledAlertRule(Long id, Long patientId, String readingType, Condition condition, double threshold,
+                             Integer windowMinutes, Double clearThreshold, String ruleName, String alertLevel) {
+        this.id = id;
+        this.patientId = patientId;
+        this.readingType = normalizeType(readingType);
+        this.condition = condition;
+        this.threshold = threshold;
+        this.windowMs = windowMinutes != null && windowMinutes > 0 ? windowMinutes * 60_000L : 0;
+        this.hysteresis = clearThreshold != null;
+        this.clearThreshold = clearThreshold != null ? clearThreshold : Double.NaN;
+        this.ruleName = ruleName;
+        this.alertLevel = alertLevel;
+
+        if ((condition == Condition.RATE_OF_CHANGE || isSustained()) && windowMs == 0) {
+            throw new MonitoringException(condition + " rules require a window in minutes");
+        }
+    }
+
+    public static CompiledAlertRule from(AlertRule rule) {
+        return new CompiledAlertRule(rule.getId(), rule.getPatient().getId(), rule.getReadingType(),
+            Condition.parse(rule.getConditionType()), rule.getThresholdValue(), rule.getWindowMinutes(),
+            rule.getClearThreshold(), rule.getRuleName(), rule.getAlertLevel());
+    }
+
+    /**
+     * Reading types are matched case-insensitively, as the previous SQL lookup did under
+     * MySQL's default collation.
+     */
+    public static String normalizeType(String readingType) {
+        return readingType == null ? "" : readingType.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public boolean isSustained() {
+        return condition == Condition.SUSTAINED_ABOVE || condition == Condition.SUSTAINED_BELOW;
+    }
+
+    /** Whether a measured value satisfies the trigger side of the rule. */
+    boolean holds(double measure) {
+        switch (condition) {
+            case ABOVE:
+            case SUSTAINED_ABOVE:
+            case CHANGE:
+            case RATE_OF_CHANGE:
+                return measure > threshold;
+            case BELOW:
+            case SUSTAINED_BELOW:
+                return measure < threshold;
+            case EQUAL:
+                return Math.abs(measure - threshold) < 0.0001;
+            default:
+                return false;
+        }
+    }
+
+    /** Whether a measured value has crossed back far enough to re-arm a triggered rule. */
+    boolean cleared(double measure) {
+        if (!hysteresis) {
+            return !holds(measure);
+        }
+        switch (condition) {
+            case BELOW:
+            case SUSTAINED_BELOW:
+                return measure > clearThreshold;
+            case EQUAL:
+                return !holds(measure);
+            default:
+                return measure < clearThreshold;
+        }
+    }
+
+    public Long getId() { return id; }
+    public Long getPatientId() { return patientId; }
+    public String getReadingType() { return readingType; }
+    public Condition getCondition() { return condition; }
+    public double getThreshold() { return threshold; }
+    public long getWindowMs() { return windowMs; }
+    public boolean hasHysteresis() { return hysteresis; }
+    public String getRuleName() { return ruleName; }
+    public String getAlertLevel() { return alertLevel; }
+}
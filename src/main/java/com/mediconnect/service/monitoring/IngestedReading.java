@@ -0,0 +1,44 @@
+package com.mediconnect.service.monitoring;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A device reading that has been validated against its device and is waiting in (or has
+ * just left) the ingestion queue. Device and patient are carried as ids so nothing on the
+ * write path needs a managed entity.
+ */
+public final class IngestedReading {
+
+    private final Long devicePk;
+    private final String deviceId;
+    private final Long patientId;
+    private final String readingType;
+    private final double value;
+    private final String unit;
+    private final LocalDateTime timestamp;
+    private final Map<String, String> metadata;
+
+    public IngestedReading(Long devicePk, String deviceId, Long patientId, String readingType,
+                           double value, String unit, LocalDateTime timestamp, Map<String, String> metadata) {
+        this.devicePk = devicePk;
+        this.deviceId = deviceId;
+        this.patientId = patientId;
+        this.readingType = readingType;
+        this.value = value;
+        this.unit = unit;
+        this.timestamp = timestamp;
+        this.metadata = metadata;
+    }
+
+    /** Primary key of the monitoring_devices row (the device_id foreign key). */
+    public Long getDevicePk() { return devicePk; }
+    /** External identifier reported by the device itself. */
+    public String getDeviceId() { return deviceId; }
+    public Long getPatientId() { return patientId; }
+    public String getReadingType() { return readingType; }
+    public double getValue() { return value; }
+    public String getUnit() { return unit; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public Map<String, String> getMetadata() { return metadata; }
+}
@@ -0,0 +1,463 @@
+package com.mediconnect.service.monitoring;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediconnect.dto.DeviceReadingDTO;
+import com.mediconnect.exception.MonitoringException;
+import com.mediconnect.model.DeviceReadingDeadLetter;
+import com.mediconnect.repository.DeviceReadingDeadLetterRepository;
+import com.mediconnect.repository.MonitoringDeviceRepository;
+import com.mediconnect.security.SecurityService;
+import com.mediconnect.service.RemoteMonitoringService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk ingestion path for wearable readings.
+ *
+ * Submitted readings are validated against a cached view of their devices and put on a
+ * bounded queue. A single drainer thread takes whatever is queued (up to batchSize rows),
+ * writes it with one JDBC batch and then hands the batch to
+ * {@link RemoteMonitoringService#applyIngestedBatch} for alerting and vitals updates.
+ *
+ * The caller has already been answered when a batch is written, so a failed write is retried
+ * with backoff (new readings queue up behind it) and, once its attempts are used up, the batch
+ * is stored in device_reading_dead_letters to be replayed with {@link #replayDeadLetters()}.
+ *
+ * When the queue is full, submission stops and the caller is told which index to resend
+ * from, so producers slow down instead of the node running out of memory.
+ */
+@Service
+public class ReadingIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingIngestionPipeline.class);
+
+    private static final long MAX_RETRY_DELAY_MS = 5000;
+
+    @Autowired
+    private MonitoringDeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceReadingBatchWriter batchWriter;
+
+    @Autowired
+    private RemoteMonitoringService remoteMonitoringService;
+
+    @Autowired
+    private ReadingRollupService rollupService;
+
+    @Autowired
+    private VitalsPushService vitalsPushService;
+
+    @Autowired
+    private SecurityService securityService;
+
+    @Autowired
+    private DeviceReadingDeadLetterRepository deadLetterRepository;
+
+    @Value("${mediconnect.monitoring.ingest.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${mediconnect.monitoring.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${mediconnect.monitoring.ingest.max-request-size:5000}")
+    private int maxRequestSize;
+
+    @Value("${mediconnect.monitoring.ingest.device-cache-ttl-seconds:60}")
+    private long deviceCacheTtlSeconds;
+
+    @Value("${mediconnect.monitoring.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BlockingQueue<IngestedReading> queue;
+    private final Map<String, DeviceRef> deviceCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        drainer = new Thread(this::drainLoop, "ReadingIngest-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Reading ingestion pipeline started (queue capacity {}, batch size {})", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        drainer.interrupt();
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Flush whatever is still queued so an orderly shutdown loses nothing
+        List<IngestedReading> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+        log.info("Reading ingestion pipeline stopped after writing {} readings", writtenCount.get());
+    }
+
+    /**
+     * Validates and enqueues a batch of readings without blocking.
+     *
+     * Invalid readings (unknown or inactive device, missing type) are rejected individually, as
+     * are readings for devices of patients the submitter may not write for: only the patient,
+     * their doctors and admins may (see {@link SecurityService#canAccessPatient}).
+     * If the queue fills up part-way, the remaining readings are not enqueued and
+     * {@link IngestResult#getRetryFrom()} gives the first index the caller should resend.
+     */
+    public IngestResult submit(List<DeviceReadingDTO> readings, Authentication submitter) {
+        if (readings == null || readings.isEmpty()) {
+            return new IngestResult(0, new ArrayList<>(), -1, queue.size());
+        }
+        if (readings.size() > maxRequestSize) {
+            throw new MonitoringException("Batch too large: at most " + maxRequestSize + " readings per request");
+        }
+
+        Map<String, DeviceRef> devices = resolveDevices(readings);
+        // patientId -> whether the submitter may write for that patient, checked once per request
+        Map<Long, Boolean> allowedPatients = new HashMap<>();
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<Map<String, Object>> rejected = new ArrayList<>();
+        int accepted = 0;
+        int retryFrom = -1;
+
+        for (int i = 0; i < readings.size(); i++) {
+            DeviceReadingDTO dto = readings.get(i);
+            String error = validate(dto, dto == null ? null : devices.get(dto.getDeviceId()));
+            if (error != null) {
+                rejected.add(rejection(i, error));
+                continue;
+            }
+            DeviceRef device = devices.get(dto.getDeviceId());
+            if (!allowedPatients.computeIfAbsent(device.patientId,
+                    patientId -> securityService.canAccessPatient(submitter, patientId))) {
+                rejected.add(rejection(i, "Not allowed to submit readings for this device"));
+                continue;
+            }
+            IngestedReading reading = new IngestedReading(
+                device.id, dto.getDeviceId(), device.patientId, dto.getReadingType(), dto.getValue(),
+                dto.getUnit(), dto.getTimestamp() != null ? dto.getTimestamp() : receivedAt, dto.getMetadata());
+            if (!queue.offer(reading)) {
+                retryFrom = i;
+                throttledCount.addAndGet(readings.size() - i);
+                break;
+            }
+            accepted++;
+        }
+
+        acceptedCount.addAndGet(accepted);
+        rejectedCount.addAndGet(rejected.size());
+        return new IngestResult(accepted, rejected, retryFrom, queue.size());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", acceptedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("throttled", throttledCount.get());
+        stats.put("written", writtenCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("batches", batchCount.get());
+        stats.put("retries", retryCount.get());
+        stats.put("deadLettered", deadLetteredCount.get());
+        stats.put("replayed", replayedCount.get());
+        try {
+            stats.put("pendingDeadLetters", deadLetterRepository.countByReplayedAtIsNull());
+        } catch (RuntimeException e) {
+            stats.put("pendingDeadLetters", "unavailable");
+        }
+        stats.put("cachedDevices", deviceCache.size());
+        return stats;
+    }
+
+    // ===== Drainer =====
+
+    private void drainLoop() {
+        List<IngestedReading> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                IngestedReading first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<IngestedReading> batch) {
+        List<IngestedReading> written = new ArrayList<>(batch);
+        long delay = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchWriter.insert(written);
+                writtenCount.addAndGet(written.size());
+                batchCount.incrementAndGet();
+                break;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !running) {
+                    failedCount.addAndGet(written.size());
+                    log.error("Failed to write batch of {} device readings after {} attempts: {}",
+                        written.size(), attempt, e.getMessage(), e);
+                    deadLetter(written, e);
+                    return;
+                }
+                retryCount.incrementAndGet();
+                log.warn("Failed to write batch of {} device readings (attempt {}), retrying in {} ms: {}",
+                    written.size(), attempt, delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down: retry at once, and give up if that fails too
+                    Thread.currentThread().interrupt();
+                    delay = 0;
+                }
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+        afterWrite(written);
+    }
+
+    // Rollups, live vitals and alerting for readings that are in device_readings
+    private void afterWrite(List<IngestedReading> written) {
+        rollupService.recordDeviceReadings(written);
+        vitalsPushService.publishDeviceReadings(written);
+
+        try {
+            remoteMonitoringService.applyIngestedBatch(written);
+        } catch (Exception e) {
+            log.error("Post-processing failed for batch of {} device readings: {}", written.size(), e.getMessage(), e);
+        }
+    }
+
+    // ===== Dead letters =====
+
+    private void deadLetter(List<IngestedReading> readings, Exception cause) {
+        String payload = null;
+        try {
+            payload = objectMapper.writeValueAsString(toRows(readings));
+            DeviceReadingDeadLetter deadLetter = new DeviceReadingDeadLetter();
+            deadLetter.setPayload(payload);
+            deadLetter.setReadingCount(readings.size());
+            deadLetter.setLastError(truncate(cause.getMessage()));
+            deadLetter.setCreatedAt(LocalDateTime.now());
+            deadLetterRepository.save(deadLetter);
+            deadLetteredCount.addAndGet(readings.size());
+        } catch (Exception e) {
+            // Last resort: the readings are in the log and can be re-submitted from there
+            log.error("Could not dead-letter batch of {} device readings ({}), readings: {}",
+                readings.size(), e.getMessage(), payload != null ? payload : readings.size() + " readings");
+        }
+    }
+
+    /**
+     * Writes the pending dead-lettered batches again, oldest first, and runs alerting and
+     * vitals updates for them. Each batch is claimed first so that two nodes never replay the
+     * same one; a batch that fails again stays pending. Returns the number of readings written.
+     */
+    public int replayDeadLetters() {
+        int replayed = 0;
+        for (DeviceReadingDeadLetter deadLetter : deadLetterRepository.findTop50ByReplayedAtIsNullOrderByIdAsc()) {
+            if (deadLetterRepository.claim(deadLetter.getId(), LocalDateTime.now()) == 0) {
+                continue;
+            }
+            try {
+                List<IngestedReading> readings = fromRows(objectMapper.readValue(deadLetter.getPayload(),
+                    new TypeReference<List<Map<String, Object>>>() {}));
+                batchWriter.insert(readings);
+                writtenCount.addAndGet(readings.size());
+                replayedCount.addAndGet(readings.size());
+                replayed += readings.size();
+                afterWrite(readings);
+            } catch (Exception e) {
+                log.warn("Replay of dead-lettered batch {} failed: {}", deadLetter.getId(), e.getMessage());
+                deadLetterRepository.release(deadLetter.getId(), truncate(e.getMessage()));
+            }
+        }
+        return replayed;
+    }
+
+    private List<Map<String, Object>> toRows(List<IngestedReading> readings) {
+        List<Map<String, Object>> rows = new ArrayList<>(readings.size());
+        for (IngestedReading reading : readings) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("devicePk", reading.getDevicePk());
+            row.put("deviceId", reading.getDeviceId());
+            row.put("patientId", reading.getPatientId());
+            row.put("readingType", reading.getReadingType());
+            row.put("value", reading.getValue());
+            row.put("unit", reading.getUnit());
+            row.put("timestamp", reading.getTimestamp().toString());
+            row.put("metadata", reading.getMetadata());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<IngestedReading> fromRows(List<Map<String, Object>> rows) {
+        List<IngestedReading> readings = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            readings.add(new IngestedReading(
+                ((Number) row.get("devicePk")).longValue(),
+                (String) row.get("deviceId"),
+                ((Number) row.get("patientId")).longValue(),
+                (String) row.get("readingType"),
+                ((Number) row.get("value")).doubleValue(),
+                (String) row.get("unit"),
+                LocalDateTime.parse((String) row.get("timestamp")),
+                (Map<String, String>) row.get("metadata")));
+        }
+        return readings;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    // ===== Device resolution =====
+
+    // Looks up all devices referenced by the request, hitting the database once for the misses
+    private Map<String, DeviceRef> resolveDevices(List<DeviceReadingDTO> readings) {
+        long now = System.currentTimeMillis();
+        long ttlMs = TimeUnit.SECONDS.toMillis(deviceCacheTtlSeconds);
+        Map<String, DeviceRef> resolved = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+
+        for (DeviceReadingDTO dto : readings) {
+            if (dto == null || dto.getDeviceId() == null || resolved.containsKey(dto.getDeviceId())) {
+                continue;
+            }
+            DeviceRef cached = deviceCache.get(dto.getDeviceId());
+            if (cached != null && now - cached.loadedAt < ttlMs) {
+                resolved.put(dto.getDeviceId(), cached);
+            } else {
+                missing.add(dto.getDeviceId());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Object[] row : deviceRepository.findIngestRefsByDeviceIds(missing)) {
+                DeviceRef device = new DeviceRef((Long) row[1], (Long) row[2], Boolean.TRUE.equals(row[3]), now);
+                deviceCache.put((String) row[0], device);
+                resolved.put((String) row[0], device);
+            }
+        }
+        return resolved;
+    }
+
+    private String validate(DeviceReadingDTO dto, DeviceRef device) {
+        if (dto == null || dto.getDeviceId() == null) {
+            return "Device id is required";
+        }
+        if (dto.getReadingType() == null || dto.getReadingType().isBlank()) {
+            return "Reading type is required";
+        }
+        if (Double.isNaN(dto.getValue()) || Double.isInfinite(dto.getValue())) {
+            return "Reading value must be a finite number";
+        }
+        if (device == null) {
+            return "Device not registered";
+        }
+        if (!device.active) {
+            return "Device is inactive";
+        }
+        return null;
+    }
+
+    private Map<String, Object> rejection(int index, String reason) {
+        Map<String, Object> rejection = new HashMap<>();
+        rejection.put("index", index);
+        rejection.put("reason", reason);
+        return rejection;
+    }
+
+    private static final class DeviceRef {
+        private final Long id;
+        private final Long patientId;
+        private final boolean active;
+        private final long loadedAt;
+
+        private DeviceRef(Long id, Long patientId, boolean active, long loadedAt) {
+            this.id = id;
+            this.patientId = patientId;
+            this.active = active;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static final class IngestResult {
+        private final int accepted;
+        private final List<Map<String, Object>> rejected;
+        private final int retryFrom;
+        private final int queueDepth;
+
+        public IngestResult(int accepted, List<Map<String, Object>> rejected, int retryFrom, int queueDepth) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.retryFrom = retryFrom;
+            this.queueDepth = queueDepth;
+        }
+
+        public int getAccepted() { return accepted; }
+        public List<Map<String, Object>> getRejected() { return rejected; }
+        /** First index that was not enqueued because the queue was full, or -1. */
+        public int getRetryFrom() { return retryFrom; }
+        public boolean isThrottled() { return retryFrom >= 0; }
+        public int getQueueDepth() { return queueDepth; }
+    }
+}
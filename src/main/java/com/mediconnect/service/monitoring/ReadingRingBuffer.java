@@ -0,0 +1,107 @@
+package com.mediconnect.service.monitoring;
+
+/**
+ * Time-ordered ring of (epoch millis, value) samples backed by primitive arrays. Not thread
+ * safe; callers synchronise on the owning series.
+ */
+final class ReadingRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxCapacity;
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int start;
+    private int size;
+
+    ReadingRingBuffer(int maxCapacity) {
+        this.maxCapacity = Math.max(maxCapacity, 2);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long lastTime() {
+        return times[index(size - 1)];
+    }
+
+    double lastValue() {
+        return values[index(size - 1)];
+    }
+
+    long timeAt(int i) {
+        return times[index(i)];
+    }
+
+    double valueAt(int i) {
+        return values[index(i)];
+    }
+
+    /**
+     * Appends a sample, then drops samples older than the retention window while keeping the
+     * newest sample at or before the window start so look-backs across the window still
+     * have an anchor.
+     */
+    void add(long time, double value, long retentionMs) {
+        if (size == times.length) {
+            if (times.length < maxCapacity) {
+                grow();
+            } else {
+                start = index(1);
+                size--;
+            }
+        }
+        int slot = index(size);
+        times[slot] = time;
+        values[slot] = value;
+        size++;
+
+        long horizon = time - retentionMs;
+        while (size >= 2 && times[index(1)] <= horizon) {
+            start = index(1);
+            size--;
+        }
+    }
+
+    /**
+     * Index of the newest sample taken at or before the given time, or -1 if none.
+     */
+    int indexAtOrBefore(long time) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (times[index(mid)] <= time) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int index(int i) {
+        int slot = start + i;
+        return slot >= times.length ? slot - times.length : slot;
+    }
+
+    private void grow() {
+        int capacity = Math.min(times.length * 2, maxCapacity);
+        long[] newTimes = new long[capacity];
+        double[] newValues = new double[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimes[i] = times[index(i)];
+            newValues[i] = values[index(i)];
+        }
+        times = newTimes;
+        values = newValues;
+        start = 0;
+    }
+}
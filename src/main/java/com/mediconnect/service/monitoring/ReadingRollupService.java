@@ -0,0 +1,646 @@
+package com.mediconnect.service.monitoring;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mediconnect.model.ReadingRollup;
+import com.mediconnect.model.ReadingRollup.Resolution;
+import com.mediconnect.model.ReadingRollup.Source;
+import com.mediconnect.model.VitalSign;
+import com.mediconnect.repository.ReadingRollupBackfillRepository;
+import com.mediconnect.repository.ReadingRollupRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Continuous 1-minute / 1-hour / 1-day rollups of device readings and vital signs.
+ *
+ * Every recorded sample is folded into three in-memory bucket accumulators; a scheduled
+ * flush merges them into reading_rollups with one batched upsert. Range queries combine
+ * day buckets for whole days with hour and minute buckets at the edges, so a 90-day
+ * summary reads a few hundred rows however many raw samples it covers.
+ */
+@Service
+public class ReadingRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingRollupService.class);
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private static final int BACKFILL_PAGE_SIZE = 5000;
+
+    // Assignment order matters: MySQL evaluates left to right, so first/last values are
+    // chosen before their timestamps are overwritten
+    private static final String UPSERT_SQL =
+        "INSERT INTO reading_rollups (source, patient_id, reading_type, resolution, bucket_start, sample_count, " +
+        "sum_value, sum_squares, min_value, max_value, sum_t, sum_tt, sum_tv, first_time, first_value, " +
+        "last_time, last_value, unit) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE " +
+        "sample_count = sample_count + VALUES(sample_count), " +
+        "sum_value = sum_value + VALUES(sum_value), " +
+        "sum_squares = sum_squares + VALUES(sum_squares), " +
+        "min_value = LEAST(min_value, VALUES(min_value)), " +
+        "max_value = GREATEST(max_value, VALUES(max_value)), " +
+        "sum_t = sum_t + VALUES(sum_t), " +
+        "sum_tt = sum_tt + VALUES(sum_tt), " +
+        "sum_tv = sum_tv + VALUES(sum_tv), " +
+        "first_value = IF(VALUES(first_time) < first_time, VALUES(first_value), first_value), " +
+        "first_time = LEAST(first_time, VALUES(first_time)), " +
+        "last_value = IF(VALUES(last_time) >= last_time, VALUES(last_value), last_value), " +
+        "unit = IF(VALUES(last_time) >= last_time, COALESCE(VALUES(unit), unit), unit), " +
+        "last_time = GREATEST(last_time, VALUES(last_time))";
+
+    private static final String DEVICE_BACKFILL_SQL =
+        "SELECT r.id, d.patient_id, r.reading_type, r.value, r.unit, r.timestamp FROM device_readings r " +
+        "JOIN monitoring_devices d ON d.id = r.device_id WHERE r.id > ? AND r.id <= ? ORDER BY r.id LIMIT ?";
+
+    private static final String VITAL_BACKFILL_SQL =
+        "SELECT id, patient_id, vital_type, value, reading_date FROM vital_signs " +
+        "WHERE id > ? AND id <= ? AND patient_id IS NOT NULL AND reading_date IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String VITAL_DAY_SQL =
+        "SELECT vital_type, value, reading_date FROM vital_signs " +
+        "WHERE patient_id = ? AND vital_type = ? AND reading_date >= ? AND reading_date < ?";
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+
+    @Autowired
+    private ReadingRollupRepository rollupRepository;
+
+    @Autowired
+    private ReadingRollupBackfillRepository backfillRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mediconnect.monitoring.rollups.minute-retention-days:14}")
+    private int minuteRetentionDays;
+
+    // record() holds the read lock while updating the map; flush() swaps it under the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<BucketKey, Accumulator> pending = new ConcurrentHashMap<>();
+    private final Set<RebuildKey> pendingRebuilds = ConcurrentHashMap.newKeySet();
+
+    // Highest raw ids that existed before rollups did; anything newer is recorded live
+    private long deviceBackfillUpTo;
+    private long vitalBackfillUpTo;
+
+    @PostConstruct
+    public void detectBackfill() {
+        // Checked before the web server and ingestion pipeline accept data, so live rows
+        // cannot make an un-backfilled table look populated
+        try {
+            if (!rollupRepository.existsBySource(Source.DEVICE)) {
+                deviceBackfillUpTo = maxId("device_readings");
+            }
+            if (!rollupRepository.existsBySource(Source.VITAL)) {
+                vitalBackfillUpTo = maxId("vital_signs");
+            }
+        } catch (Exception e) {
+            log.warn("Could not determine rollup backfill state: {}", e.getMessage());
+        }
+    }
+
+    // ===== Recording =====
+
+    public void recordDeviceReadings(List<IngestedReading> readings) {
+        lock.readLock().lock();
+        try {
+            for (IngestedReading reading : readings) {
+                add(Source.DEVICE, reading.getPatientId(), reading.getReadingType(),
+                    reading.getTimestamp(), reading.getValue(), reading.getUnit());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void recordDeviceReading(Long patientId, String readingType, double value, String unit, LocalDateTime timestamp) {
+        lock.readLock().lock();
+        try {
+            add(Source.DEVICE, patientId, readingType, timestamp, value, unit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a newly created vital sign. Values such as "120/80" roll up the second number
+     * under "{type}_DIASTOLIC".
+     */
+    public void recordVitalSign(VitalSign vitalSign) {
+        if (vitalSign.getPatientId() == null || vitalSign.getReadingDate() == null || vitalSign.getVitalType() == null) {
+            return;
+        }
+        LocalDateTime timestamp = toLocalDateTime(vitalSign.getReadingDate());
+        lock.readLock().lock();
+        try {
+            addVital(vitalSign.getPatientId(), vitalSign.getVitalType(), vitalSign.getValue(), timestamp);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Schedules the day containing a changed or deleted vital sign to be recomputed from
+     * vital_signs on the next flush; min/max cannot be maintained by subtraction.
+     */
+    public void rebuildVitalSignDay(Long patientId, String vitalType, Date readingDate) {
+        if (patientId == null || vitalType == null || readingDate == null) {
+            return;
+        }
+        LocalDateTime day = toLocalDateTime(readingDate).truncatedTo(ChronoUnit.DAYS);
+        pendingRebuilds.add(new RebuildKey(patientId, vitalType, day));
+    }
+
+    // ===== Flushing =====
+
+    @Scheduled(fixedDelayString = "${mediconnect.monitoring.rollups.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<BucketKey, Accumulator> drained;
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty() && pendingRebuilds.isEmpty()) {
+                return;
+            }
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            // One transaction: the upsert adds to stored buckets, so a batch that failed part
+            // way must leave none of them changed before it is merged back and retried
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> upsert(drained));
+        } catch (Exception e) {
+            // Merge back so nothing is lost; the next flush retries
+            lock.readLock().lock();
+            try {
+                drained.forEach((key, accumulator) -> pending.merge(key, accumulator, Accumulator::merge));
+            } finally {
+                lock.readLock().unlock();
+            }
+            log.error("Failed to flush {} rollup buckets: {}", drained.size(), e.getMessage());
+            return;
+        }
+
+        for (RebuildKey rebuild : new ArrayList<>(pendingRebuilds)) {
+            pendingRebuilds.remove(rebuild);
+            try {
+                rebuildVitalDay(rebuild);
+            } catch (Exception e) {
+                // The day's buckets may already be deleted, so the next flush rebuilds it again
+                pendingRebuilds.add(rebuild);
+                log.error("Failed to rebuild vital sign rollups for patient {} {} on {}: {}",
+                    rebuild.patientId, rebuild.vitalType, rebuild.day, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Minute buckets are only needed for recent, fine-grained windows; older ranges are served
+     * from hour and day buckets.
+     */
+    @Scheduled(fixedRate = 3600000) // Every hour (3600000 ms)
+    public void pruneMinuteBuckets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minuteRetentionDays).truncatedTo(ChronoUnit.HOURS);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                "DELETE FROM reading_rollups WHERE resolution = 'MINUTE' AND bucket_start < ? LIMIT 5000",
+                Timestamp.valueOf(cutoff));
+            total += deleted;
+        } while (deleted == 5000);
+        if (total > 0) {
+            log.info("Pruned {} minute rollup buckets older than {}", total, cutoff);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (deviceBackfillUpTo > 0) {
+            backfill(Source.DEVICE, DEVICE_BACKFILL_SQL, deviceBackfillUpTo, rs -> add(Source.DEVICE,
+                rs.getLong(2), rs.getString(3), rs.getTimestamp(6).toLocalDateTime(), rs.getDouble(4), rs.getString(5)));
+        }
+        if (vitalBackfillUpTo > 0) {
+            backfill(Source.VITAL, VITAL_BACKFILL_SQL, vitalBackfillUpTo, rs -> addVital(
+                rs.getLong(2), rs.getString(3), rs.getString(4), rs.getTimestamp(5).toLocalDateTime()));
+        }
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Summary over [start, end) built from the coarsest buckets that fit the range.
+     */
+    public RollupSummary summarize(Source source, Long patientId, String readingType,
+                                   LocalDateTime start, LocalDateTime end) {
+        String type = CompiledAlertRule.normalizeType(readingType);
+        List<ReadingRollup> buckets = new ArrayList<>();
+        for (Segment segment : coveringSegments(start, end)) {
+            buckets.addAll(rollupRepository.findBuckets(source, patientId, type,
+                segment.resolution, segment.start, segment.end));
+        }
+        return RollupSummary.of(buckets, start);
+    }
+
+    /**
+     * Chart series over [start, end) at a single resolution picked to give at most a few
+     * hundred points.
+     */
+    public List<Map<String, Object>> series(Source source, Long patientId, String readingType,
+                                            LocalDateTime start, LocalDateTime end) {
+        long hours = Duration.between(start, end).toHours();
+        Resolution resolution = hours <= 8 ? Resolution.MINUTE : hours <= 24 * 20 ? Resolution.HOUR : Resolution.DAY;
+        if (resolution == Resolution.MINUTE && start.isBefore(minuteHorizon())) {
+            resolution = Resolution.HOUR;
+        }
+        LocalDateTime from = truncate(start, resolution);
+
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (ReadingRollup bucket : rollupRepository.findBuckets(source, patientId,
+                CompiledAlertRule.normalizeType(readingType), resolution, from, end)) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("time", bucket.getBucketStart());
+            point.put("resolution", bucket.getResolution().name());
+            point.put("count", bucket.getSampleCount());
+            point.put("average", bucket.getSumValue() / bucket.getSampleCount());
+            point.put("min", bucket.getMinValue());
+            point.put("max", bucket.getMaxValue());
+            point.put("last", bucket.getLastValue());
+            points.add(point);
+        }
+        return points;
+    }
+
+    // Day buckets for whole days, hour buckets for whole hours at either edge, minute buckets
+    // for the remaining partial hours
+    private List<Segment> coveringSegments(LocalDateTime start, LocalDateTime end) {
+        List<Segment> segments = new ArrayList<>();
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+        if (from.isBefore(minuteHorizon())) {
+            from = from.truncatedTo(ChronoUnit.HOURS);
+        }
+        if (!from.isBefore(end)) {
+            return segments;
+        }
+
+        LocalDateTime firstHour = ceil(from, ChronoUnit.HOURS);
+        LocalDateTime lastHour = end.truncatedTo(ChronoUnit.HOURS);
+        if (!firstHour.isBefore(lastHour)) {
+            segments.add(new Segment(Resolution.MINUTE, from, end));
+            return segments;
+        }
+        segments.add(new Segment(Resolution.MINUTE, from, firstHour));
+        segments.add(new Segment(Resolution.MINUTE, lastHour, end));
+
+        LocalDateTime firstDay = ceil(firstHour, ChronoUnit.DAYS);
+        LocalDateTime lastDay = lastHour.truncatedTo(ChronoUnit.DAYS);
+        if (firstDay.isBefore(lastDay)) {
+            segments.add(new Segment(Resolution.HOUR, firstHour, firstDay));
+            segments.add(new Segment(Resolution.DAY, firstDay, lastDay));
+            segments.add(new Segment(Resolution.HOUR, lastDay, lastHour));
+        } else {
+            segments.add(new Segment(Resolution.HOUR, firstHour, lastHour));
+        }
+        segments.removeIf(segment -> !segment.start.isBefore(segment.end));
+        return segments;
+    }
+
+    // ===== Internals =====
+
+    // Caller holds the read lock, or the write lock while rebuilding into a private map
+    private void add(Source source, Long patientId, String readingType, LocalDateTime timestamp,
+                     double value, String unit) {
+        if (patientId == null || readingType == null || timestamp == null || Double.isNaN(value)) {
+            return;
+        }
+        String type = CompiledAlertRule.normalizeType(readingType);
+        for (Resolution resolution : RESOLUTIONS) {
+            LocalDateTime bucketStart = truncate(timestamp, resolution);
+            double offset = Duration.between(bucketStart, timestamp).toMillis() / 1000.0;
+            pending.compute(new BucketKey(source, patientId, type, resolution, bucketStart), (key, accumulator) -> {
+                Accumulator target = accumulator != null ? accumulator : new Accumulator();
+                target.add(offset, timestamp, value, unit);
+                return target;
+            });
+        }
+    }
+
+    private void addVital(Long patientId, String vitalType, String rawValue, LocalDateTime timestamp) {
+        if (rawValue == null) {
+            return;
+        }
+        Matcher matcher = NUMBER.matcher(rawValue);
+        if (matcher.find()) {
+            add(Source.VITAL, patientId, vitalType, timestamp, Double.parseDouble(matcher.group()), null);
+            if (rawValue.contains("/") && matcher.find()) {
+                add(Source.VITAL, patientId, vitalType + "_DIASTOLIC", timestamp, Double.parseDouble(matcher.group()), null);
+            }
+        }
+    }
+
+    private void upsert(Map<BucketKey, Accumulator> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        for (Map.Entry<BucketKey, Accumulator> entry : buckets.entrySet()) {
+            BucketKey key = entry.getKey();
+            Accumulator a = entry.getValue();
+            rows.add(new Object[] {
+                key.source.name(), key.patientId, key.readingType, key.resolution.name(),
+                Timestamp.valueOf(key.bucketStart), a.count, a.sum, a.sumSquares, a.min, a.max,
+                a.sumT, a.sumTT, a.sumTV, Timestamp.valueOf(a.firstTime), a.firstValue,
+                Timestamp.valueOf(a.lastTime), a.lastValue, a.unit
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    // Holds the write lock until the recomputed buckets are written: a sample of the day recorded
+    // in between would be counted by the recompute and again by the next flush
+    private void rebuildVitalDay(RebuildKey rebuild) {
+        LocalDateTime nextDay = rebuild.day.plusDays(1);
+        String type = CompiledAlertRule.normalizeType(rebuild.vitalType);
+        String diastolicType = type + "_DIASTOLIC";
+
+        lock.writeLock().lock();
+        try {
+            Map<BucketKey, Accumulator> live = pending;
+            // Unflushed samples of the day are already in vital_signs, so the recompute covers them
+            live.keySet().removeIf(key -> key.source == Source.VITAL && key.patientId.equals(rebuild.patientId)
+                && (key.readingType.equals(type) || key.readingType.equals(diastolicType))
+                && !key.bucketStart.isBefore(rebuild.day) && key.bucketStart.isBefore(nextDay));
+
+            // Reuse add() against a private map so the live map is untouched
+            Map<BucketKey, Accumulator> recomputed;
+            pending = new HashMap<>();
+            try {
+                jdbcTemplate.query(VITAL_DAY_SQL, rs -> {
+                    addVital(rebuild.patientId, rs.getString(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime());
+                }, rebuild.patientId, rebuild.vitalType, Timestamp.valueOf(rebuild.day), Timestamp.valueOf(nextDay));
+                recomputed = pending;
+            } finally {
+                pending = live;
+            }
+
+            // The day's buckets are replaced in one transaction, so a failed rebuild keeps the old ones
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                rollupRepository.deleteBuckets(Source.VITAL, rebuild.patientId, type, rebuild.day, nextDay);
+                rollupRepository.deleteBuckets(Source.VITAL, rebuild.patientId, diastolicType, rebuild.day, nextDay);
+                upsert(recomputed);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Upserts add to existing buckets, so only the node that claims a source backfills it; a
+    // backfill that fails part way keeps its claim rather than being counted twice on retry
+    private void backfill(Source source, String sql, long upTo, RowHandler handler) {
+        try {
+            if (backfillRepository.claim(source.name(), upTo, LocalDateTime.now()) == 0) {
+                log.info("Rollup backfill of {} readings is claimed by another node", source);
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Could not claim rollup backfill of {} readings, skipping it: {}", source, e.getMessage());
+            return;
+        }
+
+        long[] lastId = {0};
+        long count = 0;
+        try {
+            while (true) {
+                int[] rows = {0};
+                lock.readLock().lock();
+                try {
+                    jdbcTemplate.query(sql, rs -> {
+                        lastId[0] = rs.getLong(1);
+                        handler.handle(rs);
+                        rows[0]++;
+                    }, lastId[0], upTo, BACKFILL_PAGE_SIZE);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (rows[0] == 0) {
+                    break;
+                }
+                count += rows[0];
+                flush();
+            }
+            backfillRepository.complete(source.name(), LocalDateTime.now());
+            log.info("Backfilled rollups from {} {} readings", count, source);
+        } catch (Exception e) {
+            log.error("Rollup backfill of {} readings stopped after {} rows (last id {}): {}",
+                source, count, lastId[0], e.getMessage(), e);
+        }
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+
+    private LocalDateTime minuteHorizon() {
+        return LocalDateTime.now().minusDays(minuteRetentionDays);
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, Resolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS);
+        }
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime truncated = time.truncatedTo(unit);
+        return truncated.equals(time) ? truncated : truncated.plus(1, unit);
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return new Timestamp(date.getTime()).toLocalDateTime();
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    private static final class Segment {
+        private final Resolution resolution;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private Segment(Resolution resolution, LocalDateTime start, LocalDateTime end) {
+            this.resolution = resolution;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class BucketKey {
+        private final Source source;
+        private final Long patientId;
+        private final String readingType;
+        private final Resolution resolution;
+        private final LocalDateTime bucketStart;
+        private final int hash;
+
+        private BucketKey(Source source, Long patientId, String readingType, Resolution resolution,
+                          LocalDateTime bucketStart) {
+            this.source = source;
+            this.patientId = patientId;
+            this.readingType = readingType;
+            this.resolution = resolution;
+            this.bucketStart = bucketStart;
+            this.hash = Objects.hash(source, patientId, readingType, resolution, bucketStart);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey that = (BucketKey) other;
+            return source == that.source && resolution == that.resolution
+                && patientId.equals(that.patientId) && readingType.equals(that.readingType)
+                && bucketStart.equals(that.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class RebuildKey {
+        private final Long patientId;
+        private final String vitalType;
+        private final LocalDateTime day;
+
+        private RebuildKey(Long patientId, String vitalType, LocalDateTime day) {
+            this.patientId = patientId;
+            this.vitalType = vitalType;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RebuildKey)) {
+                return false;
+            }
+            RebuildKey that = (RebuildKey) other;
+            return patientId.equals(that.patientId) && vitalType.equalsIgnoreCase(that.vitalType) && day.equals(that.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(patientId, CompiledAlertRule.normalizeType(vitalType), day);
+        }
+    }
+
+    private static final class Accumulator {
+        private long count;
+        private double sum;
+        private double sumSquares;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sumT;
+        private double sumTT;
+        private double sumTV;
+        private LocalDateTime firstTime;
+        private double firstValue;
+        private LocalDateTime lastTime;
+        private double lastValue;
+        private String unit;
+
+        private void add(double offset, LocalDateTime time, double value, String sampleUnit) {
+            count++;
+            sum += value;
+            sumSquares += value * value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sumT += offset;
+            sumTT += offset * offset;
+            sumTV += offset * value;
+            if (firstTime == null || time.isBefore(firstTime)) {
+                firstTime = time;
+                firstValue = value;
+            }
+            if (lastTime == null || !time.isBefore(lastTime)) {
+                lastTime = time;
+                lastValue = value;
+                if (sampleUnit != null) {
+                    unit = sampleUnit;
+                }
+            }
+        }
+
+        private Accumulator merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            sumSquares += other.sumSquares;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sumT += other.sumT;
+            sumTT += other.sumTT;
+            sumTV += other.sumTV;
+            if (other.firstTime.isBefore(firstTime)) {
+                firstTime = other.firstTime;
+                firstValue = other.firstValue;
+            }
+            if (!other.lastTime.isBefore(lastTime)) {
+                lastTime = other.lastTime;
+                lastValue = other.lastValue;
+                if (other.unit != null) {
+                    unit = other.unit;
+                }
+            }
+            return this;
+        }
+    }
+}
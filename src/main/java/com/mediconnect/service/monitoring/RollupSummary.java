@@ -0,0 +1,105 @@
+package com.mediconnect.service.monitoring;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.mediconnect.model.ReadingRollup;
+
+/**
+ * Statistics merged from any mix of rollup buckets: count, mean, min/max, standard deviation,
+ * first/last sample and the least-squares slope in units per hour.
+ */
+public final class RollupSummary {
+
+    private long count;
+    private double sum;
+    private double sumSquares;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private LocalDateTime firstTime;
+    private double firstValue;
+    private LocalDateTime lastTime;
+    private double lastValue;
+    private String unit;
+
+    // Regression sums with x = seconds since the reference time
+    private double sumX;
+    private double sumXX;
+    private double sumXY;
+
+    private RollupSummary() {
+    }
+
+    public static RollupSummary of(List<ReadingRollup> buckets, LocalDateTime reference) {
+        RollupSummary summary = new RollupSummary();
+        for (ReadingRollup bucket : buckets) {
+            summary.add(bucket, reference);
+        }
+        return summary;
+    }
+
+    private void add(ReadingRollup bucket, LocalDateTime reference) {
+        long n = bucket.getSampleCount();
+        if (n == 0) {
+            return;
+        }
+        double offset = Duration.between(reference, bucket.getBucketStart()).getSeconds();
+
+        count += n;
+        sum += bucket.getSumValue();
+        sumSquares += bucket.getSumSquares();
+        min = Math.min(min, bucket.getMinValue());
+        max = Math.max(max, bucket.getMaxValue());
+
+        // Shift the bucket's own time sums from its start to the shared reference
+        sumX += n * offset + bucket.getSumT();
+        sumXX += n * offset * offset + 2 * offset * bucket.getSumT() + bucket.getSumTT();
+        sumXY += offset * bucket.getSumValue() + bucket.getSumTV();
+
+        if (firstTime == null || bucket.getFirstTime().isBefore(firstTime)) {
+            firstTime = bucket.getFirstTime();
+            firstValue = bucket.getFirstValue();
+        }
+        if (lastTime == null || !bucket.getLastTime().isBefore(lastTime)) {
+            lastTime = bucket.getLastTime();
+            lastValue = bucket.getLastValue();
+            if (bucket.getUnit() != null) {
+                unit = bucket.getUnit();
+            }
+        }
+    }
+
+    public boolean isEmpty() { return count == 0; }
+    public long getCount() { return count; }
+    public double getMin() { return count == 0 ? Double.NaN : min; }
+    public double getMax() { return count == 0 ? Double.NaN : max; }
+    public LocalDateTime getFirstTime() { return firstTime; }
+    public double getFirstValue() { return firstValue; }
+    public LocalDateTime getLastTime() { return lastTime; }
+    public double getLastValue() { return lastValue; }
+    public String getUnit() { return unit; }
+
+    public double getAverage() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public double getStandardDeviation() {
+        if (count < 2) {
+            return 0;
+        }
+        double mean = sum / count;
+        return Math.sqrt(Math.max(sumSquares / count - mean * mean, 0));
+    }
+
+    /**
+     * Least-squares slope in units per hour; 0 when all samples share one timestamp.
+     */
+    public double getSlopePerHour() {
+        double denominator = count * sumXX - sumX * sumX;
+        if (count < 2 || denominator <= 0) {
+            return 0;
+        }
+        return (count * sumXY - sumX * sum) / denominator * 3600.0;
+    }
+}
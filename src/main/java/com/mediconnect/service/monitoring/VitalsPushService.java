@@ -0,0 +1,362 @@
+package com.mediconnect.service.monitoring;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.mediconnect.model.VitalSign;
+import com.mediconnect.repository.DeviceReadingRepository;
+import com.mediconnect.repository.VitalSignRepository;
+
+/**
+ * Pushes new vital sign and device reading values to dashboards over STOMP.
+ *
+ * Every patient has an in-memory "latest value per type" snapshot that is updated on write,
+ * so a subscriber can be given the current state without touching the database. Updates are
+ * not sent one by one: they are collected per patient and flushed to
+ * /topic/vitals/{patientId} on a fixed tick, which caps every subscriber at
+ * 1000 / push-interval-ms messages per second no matter how fast readings arrive. Patients
+ * without subscribers are never flushed.
+ */
+@Service
+public class VitalsPushService {
+
+    private static final Logger log = LoggerFactory.getLogger(VitalsPushService.class);
+
+    public static final String TOPIC_PREFIX = "/topic/vitals/";
+
+    public static final String SOURCE_VITAL = "VITAL";
+    public static final String SOURCE_DEVICE = "DEVICE";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private VitalSignRepository vitalSignRepository;
+
+    @Autowired
+    private DeviceReadingRepository deviceReadingRepository;
+
+    @Value("${mediconnect.monitoring.vitals.snapshot-lookback-hours:24}")
+    private long snapshotLookbackHours;
+
+    // patientId -> latest value per normalized type
+    private final Map<Long, PatientSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // patientId -> values changed since the last flush, newest per type
+    private final Map<Long, Map<String, LiveValue>> pending = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> patientId), used to keep subscriberCounts exact on disconnect
+    private final Map<String, Map<String, Long>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> subscriberCounts = new ConcurrentHashMap<>();
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong flushedMessages = new AtomicLong();
+
+    // ===== Write side =====
+
+    public void publishVitalSign(VitalSign vitalSign) {
+        if (vitalSign == null || vitalSign.getPatientId() == null || vitalSign.getVitalType() == null) {
+            return;
+        }
+        publish(vitalSign.getPatientId(), new LiveValue(vitalSign.getVitalType(), vitalSign.getValue(), null,
+            toLocalDateTime(vitalSign.getReadingDate()), SOURCE_VITAL,
+            vitalSign.getStatus() != null ? vitalSign.getStatus().toString() : null));
+    }
+
+    public void publishDeviceReading(Long patientId, String readingType, double value, String unit,
+                                     LocalDateTime timestamp) {
+        if (patientId == null || readingType == null) {
+            return;
+        }
+        publish(patientId, new LiveValue(readingType, value, unit, timestamp, SOURCE_DEVICE, null));
+    }
+
+    /**
+     * Publishes a micro-batch from the ingestion pipeline; only the newest value per patient
+     * and type survives coalescing anyway, so older ones are dropped up front.
+     */
+    public void publishDeviceReadings(List<IngestedReading> readings) {
+        Map<String, IngestedReading> newest = new HashMap<>();
+        for (IngestedReading reading : readings) {
+            String key = reading.getPatientId() + "|" + CompiledAlertRule.normalizeType(reading.getReadingType());
+            IngestedReading current = newest.get(key);
+            if (current == null || !reading.getTimestamp().isBefore(current.getTimestamp())) {
+                newest.put(key, reading);
+            }
+        }
+        for (IngestedReading reading : newest.values()) {
+            publishDeviceReading(reading.getPatientId(), reading.getReadingType(), reading.getValue(),
+                reading.getUnit(), reading.getTimestamp());
+        }
+    }
+
+    /**
+     * Drops a patient's snapshot (e.g. after a vital sign was deleted); it is rebuilt from the
+     * database on the next snapshot request.
+     */
+    public void invalidate(Long patientId) {
+        if (patientId != null) {
+            afterCommit(() -> snapshots.remove(patientId));
+        }
+    }
+
+    private void publish(Long patientId, LiveValue value) {
+        // Subscribers must never see a value whose transaction later rolls back
+        afterCommit(() -> {
+            PatientSnapshot snapshot = snapshots.get(patientId);
+            if (snapshot != null && !snapshot.offer(value)) {
+                return;
+            }
+            publishedCount.incrementAndGet();
+            if (hasSubscribers(patientId)) {
+                pending.compute(patientId, (id, changes) -> {
+                    Map<String, LiveValue> merged = changes != null ? changes : new HashMap<>();
+                    merged.merge(value.key(), value, LiveValue::newer);
+                    return merged;
+                });
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Sends the coalesced changes of every subscribed patient, one message per patient
+     */
+    @Scheduled(fixedDelayString = "${mediconnect.monitoring.vitals.push-interval-ms:250}")
+    public void flush() {
+        for (Long patientId : new ArrayList<>(pending.keySet())) {
+            Map<String, LiveValue> changes = pending.remove(patientId);
+            if (changes == null || changes.isEmpty() || !hasSubscribers(patientId)) {
+                continue;
+            }
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("patientId", patientId);
+            message.put("type", "update");
+            message.put("values", toPayload(changes.values()));
+            message.put("sentAt", LocalDateTime.now());
+            try {
+                messagingTemplate.convertAndSend(TOPIC_PREFIX + patientId, message);
+                flushedMessages.incrementAndGet();
+            } catch (Exception e) {
+                log.error("Failed to push vitals for patient {}: {}", patientId, e.getMessage());
+            }
+        }
+    }
+
+    // ===== Read side =====
+
+    /**
+     * Latest value per type for a patient. Served from memory; only the first request after
+     * startup (or after {@link #invalidate}) loads it from the database.
+     */
+    public Map<String, Object> getSnapshot(Long patientId) {
+        PatientSnapshot snapshot = snapshots.get(patientId);
+        if (snapshot == null) {
+            // Loaded outside the map so a slow query never blocks writers of other patients
+            PatientSnapshot loaded = loadSnapshot(patientId);
+            PatientSnapshot raced = snapshots.putIfAbsent(patientId, loaded);
+            snapshot = raced != null ? raced : loaded;
+        }
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("patientId", patientId);
+        message.put("type", "snapshot");
+        message.put("values", toPayload(snapshot.values()));
+        message.put("sentAt", LocalDateTime.now());
+        return message;
+    }
+
+    private PatientSnapshot loadSnapshot(Long patientId) {
+        PatientSnapshot snapshot = new PatientSnapshot();
+        for (VitalSign vitalSign : vitalSignRepository.findLatestByPatientId(patientId)) {
+            snapshot.offer(new LiveValue(vitalSign.getVitalType(), vitalSign.getValue(), null,
+                toLocalDateTime(vitalSign.getReadingDate()), SOURCE_VITAL,
+                vitalSign.getStatus() != null ? vitalSign.getStatus().toString() : null));
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(snapshotLookbackHours);
+        for (Object[] row : deviceReadingRepository.findLatestPerTypeByPatientId(patientId, since)) {
+            snapshot.offer(new LiveValue((String) row[0], row[1], (String) row[2],
+                (LocalDateTime) row[3], SOURCE_DEVICE, null));
+        }
+        return snapshot;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("patientsInMemory", snapshots.size());
+        stats.put("subscribedPatients", subscriberCounts.size());
+        stats.put("pendingPatients", pending.size());
+        stats.put("valuesPublished", publishedCount.get());
+        stats.put("messagesSent", flushedMessages.get());
+        return stats;
+    }
+
+    private List<Map<String, Object>> toPayload(Iterable<LiveValue> values) {
+        List<Map<String, Object>> payload = new ArrayList<>();
+        for (LiveValue value : values) {
+            payload.add(value.toMap());
+        }
+        payload.sort(Comparator.comparing(entry -> (String) entry.get("readingType")));
+        return payload;
+    }
+
+    // ===== Subscription tracking =====
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long patientId = parsePatientId(accessor.getDestination());
+        // Anonymous subscriptions are rejected by WebSocketAuthenticationInterceptor right after
+        // this event; don't count them
+        if (patientId == null || accessor.getSessionId() == null || event.getUser() == null) {
+            return;
+        }
+        Map<String, Long> sessionSubscriptions =
+            subscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>());
+        if (sessionSubscriptions.put(String.valueOf(accessor.getSubscriptionId()), patientId) == null) {
+            subscriberCounts.computeIfAbsent(patientId, id -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> sessionSubscriptions = accessor.getSessionId() != null
+            ? subscriptions.get(accessor.getSessionId()) : null;
+        if (sessionSubscriptions != null) {
+            release(sessionSubscriptions.remove(String.valueOf(accessor.getSubscriptionId())));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> sessionSubscriptions = subscriptions.remove(event.getSessionId());
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void release(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        subscriberCounts.computeIfPresent(patientId, (id, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    private boolean hasSubscribers(Long patientId) {
+        return subscriberCounts.containsKey(patientId);
+    }
+
+    private Long parsePatientId(String destination) {
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    // ===== State =====
+
+    private static final class PatientSnapshot {
+        private final Map<String, LiveValue> latest = new ConcurrentHashMap<>();
+
+        /**
+         * @return false when the value is older than what the snapshot already holds
+         */
+        boolean offer(LiveValue value) {
+            boolean[] accepted = {false};
+            latest.compute(value.key(), (key, current) -> {
+                LiveValue winner = current == null ? value : LiveValue.newer(current, value);
+                accepted[0] = winner == value;
+                return winner;
+            });
+            return accepted[0];
+        }
+
+        Iterable<LiveValue> values() {
+            return latest.values();
+        }
+    }
+
+    private static final class LiveValue {
+        private final String readingType;
+        private final Object value;
+        private final String unit;
+        private final LocalDateTime timestamp;
+        private final String source;
+        private final String status;
+
+        LiveValue(String readingType, Object value, String unit, LocalDateTime timestamp,
+                  String source, String status) {
+            this.readingType = readingType;
+            this.value = value;
+            this.unit = unit;
+            this.timestamp = timestamp != null ? timestamp : LocalDateTime.now();
+            this.source = source;
+            this.status = status;
+        }
+
+        String key() {
+            return CompiledAlertRule.normalizeType(readingType);
+        }
+
+        // Ties go to the later write
+        static LiveValue newer(LiveValue current, LiveValue candidate) {
+            return candidate.timestamp.isBefore(current.timestamp) ? current : candidate;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("readingType", readingType);
+            entry.put("value", value);
+            entry.put("unit", unit);
+            entry.put("timestamp", timestamp);
+            entry.put("source", source);
+            entry.put("status", status);
+            return entry;
+        }
+    }
+}
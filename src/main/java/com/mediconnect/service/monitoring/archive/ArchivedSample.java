@@ -0,0 +1,34 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A single reading as stored in, or decoded from, an archive block.
+ */
+public final class ArchivedSample {
+
+    private final Long devicePk;
+    private final String readingType;
+    private final LocalDateTime timestamp;
+    private final double value;
+    private final String unit;
+    private final Map<String, String> metadata;
+
+    public ArchivedSample(Long devicePk, String readingType, LocalDateTime timestamp, double value,
+                          String unit, Map<String, String> metadata) {
+        this.devicePk = devicePk;
+        this.readingType = readingType;
+        this.timestamp = timestamp;
+        this.value = value;
+        this.unit = unit;
+        this.metadata = metadata;
+    }
+
+    public Long getDevicePk() { return devicePk; }
+    public String getReadingType() { return readingType; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public double getValue() { return value; }
+    public String getUnit() { return unit; }
+    public Map<String, String> getMetadata() { return metadata; }
+}
@@ -0,0 +1,70 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.nio.charset.StandardCharsets;
+
+import com.mediconnect.exception.MonitoringException;
+
+/**
+ * Reads the bit streams produced by {@link BitWriter}.
+ */
+final class BitReader {
+
+    private final byte[] buffer;
+    private final long bitLength;
+    private long position;
+
+    BitReader(byte[] buffer) {
+        this.buffer = buffer;
+        this.bitLength = (long) buffer.length * 8;
+    }
+
+    boolean readBit() {
+        if (position >= bitLength) {
+            throw new MonitoringException("Corrupt archive block: unexpected end of data");
+        }
+        boolean bit = (buffer[(int) (position >>> 3)] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1L : 0L);
+        }
+        return value;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            long group = readBits(8);
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw new MonitoringException("Corrupt archive block: varint too long");
+            }
+        }
+    }
+
+    String readString() {
+        int length = (int) readVarLong();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) readBits(8);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void skip(long bits) {
+        position += bits;
+    }
+
+    long position() {
+        return position;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only, MSB-first bit stream used by {@link ReadingBlockCodec}.
+ */
+final class BitWriter {
+
+    private byte[] buffer = new byte[256];
+    private long bitLength;
+
+    void writeBit(boolean bit) {
+        int byteIndex = (int) (bitLength >>> 3);
+        if (byteIndex == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        if (bit) {
+            buffer[byteIndex] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * Writes the low {@code count} bits of value, most significant first.
+     */
+    void writeBits(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            writeBit(((value >>> i) & 1L) != 0);
+        }
+    }
+
+    // Unsigned LEB128-style varint, 8 bits per group
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeBits((value & 0x7F) | 0x80, 8);
+            value >>>= 7;
+        }
+        writeBits(value, 8);
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        for (byte b : bytes) {
+            writeBits(b & 0xFF, 8);
+        }
+    }
+
+    void append(BitWriter other) {
+        long fullBytes = other.bitLength >>> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            writeBits(other.buffer[i] & 0xFF, 8);
+        }
+        int remaining = (int) (other.bitLength & 7);
+        if (remaining > 0) {
+            writeBits((other.buffer[(int) fullBytes] & 0xFF) >>> (8 - remaining), remaining);
+        }
+    }
+
+    long bitLength() {
+        return bitLength;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (int) ((bitLength + 7) >>> 3));
+    }
+}
@@ -0,0 +1,73 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Nightly sealing of device readings older than the hot retention window into archive blocks
+ */
+@Service
+public class DeviceReadingArchiveScheduledTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceReadingArchiveScheduledTasks.class);
+
+    private static final int CANDIDATE_BATCH_SIZE = 200;
+
+    @Autowired
+    private DeviceReadingArchiveService archiveService;
+
+    @Value("${mediconnect.monitoring.archive.after-days:30}")
+    private int archiveAfterDays;
+
+    /**
+     * Seal every device-day older than the retention window, one day per transaction
+     */
+    @Scheduled(cron = "${mediconnect.monitoring.archive.cron:0 30 3 * * *}")
+    public void sealColdReadings() {
+        if (archiveAfterDays <= 0) {
+            return;
+        }
+        // Only whole days are sealed so a block never has to be split
+        LocalDateTime cutoff = LocalDate.now().minusDays(archiveAfterDays).atStartOfDay();
+        logger.info("Starting archive of device readings before {}", cutoff);
+
+        int blocks = 0;
+        long readings = 0;
+        try {
+            List<Object[]> candidates = archiveService.findSealCandidates(cutoff, CANDIDATE_BATCH_SIZE);
+            while (!candidates.isEmpty()) {
+                int sealedThisRound = 0;
+                for (Object[] candidate : candidates) {
+                    try {
+                        int sealed = archiveService.sealDeviceDay((Long) candidate[0], (LocalDate) candidate[1]);
+                        if (sealed > 0) {
+                            blocks++;
+                            sealedThisRound++;
+                            readings += sealed;
+                        }
+                    } catch (Exception e) {
+                        logger.error("Failed to archive readings of device {} on {}: {}",
+                            candidate[0], candidate[1], e.getMessage(), e);
+                    }
+                }
+                if (sealedThisRound == 0) {
+                    // Every remaining candidate failed; retry on the next run instead of spinning
+                    break;
+                }
+                candidates = archiveService.findSealCandidates(cutoff, CANDIDATE_BATCH_SIZE);
+            }
+            logger.info("Completed device reading archive: {} readings sealed into {} blocks ({})",
+                readings, blocks, archiveService.getStats());
+        } catch (Exception e) {
+            logger.error("Error during device reading archive after {} blocks: {}", blocks, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediconnect.model.DeviceReadingArchive;
+import com.mediconnect.repository.DeviceReadingArchiveRepository;
+
+/**
+ * Moves cold device readings into compressed per-device, per-day archive blocks and reads
+ * them back for range queries.
+ */
+@Service
+public class DeviceReadingArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceReadingArchiveService.class);
+
+    private static final String SEAL_CANDIDATES_SQL =
+        "SELECT DISTINCT device_id, DATE(timestamp) FROM device_readings WHERE timestamp < ? LIMIT ?";
+
+    private static final String DAY_READINGS_SQL =
+        "SELECT id, reading_type, value, unit, timestamp, metadata FROM device_readings " +
+        "WHERE device_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp, id";
+
+    private static final String DELETE_SEALED_SQL = "DELETE FROM device_readings WHERE device_id = ? AND id IN (";
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private static final TypeReference<Map<String, String>> METADATA_TYPE = new TypeReference<Map<String, String>>() {};
+
+    @Autowired
+    private DeviceReadingArchiveRepository archiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Device/day pairs that still have hot rows older than the cutoff.
+     */
+    public List<Object[]> findSealCandidates(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query(SEAL_CANDIDATES_SQL,
+            (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getDate(2).toLocalDate() },
+            Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Seals one device-day: merges its hot rows into the (possibly existing) archive block and
+     * deletes them from device_readings in the same transaction. Only the ids that were read
+     * into the block are deleted, so rows that arrive or commit while this runs stay hot and are
+     * picked up by the next run. If any of those ids is already gone, another run sealed the
+     * same rows and the transaction is rolled back.
+     *
+     * @return the number of hot rows archived
+     */
+    @Transactional
+    public int sealDeviceDay(Long devicePk, LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        List<Long> ids = new ArrayList<>();
+        List<ArchivedSample> hot = jdbcTemplate.query(DAY_READINGS_SQL, (rs, rowNum) -> {
+            ids.add(rs.getLong(1));
+            return new ArchivedSample(devicePk, rs.getString(2), rs.getTimestamp(5).toLocalDateTime(),
+                rs.getDouble(3), rs.getString(4), parseMetadata(rs.getString(6)));
+        }, devicePk, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (hot.isEmpty()) {
+            return 0;
+        }
+
+        DeviceReadingArchive block = archiveRepository.findByDevicePkAndBlockDay(devicePk, day).orElse(null);
+        List<ArchivedSample> samples = new ArrayList<>(hot);
+        if (block == null) {
+            block = new DeviceReadingArchive();
+            block.setDevicePk(devicePk);
+            block.setBlockDay(day);
+            block.setPatientId(jdbcTemplate.queryForObject(
+                "SELECT patient_id FROM monitoring_devices WHERE id = ?", Long.class, devicePk));
+        } else {
+            // Late arrivals for an already sealed day are merged into the existing block
+            samples.addAll(ReadingBlockCodec.decode(block.getPayload(), devicePk, null));
+        }
+
+        byte[] payload = ReadingBlockCodec.encode(samples);
+        block.setReadingCount(samples.size());
+        block.setFirstTime(samples.stream().map(ArchivedSample::getTimestamp).min(LocalDateTime::compareTo).get());
+        block.setLastTime(samples.stream().map(ArchivedSample::getTimestamp).max(LocalDateTime::compareTo).get());
+        block.setCodecVersion(ReadingBlockCodec.VERSION);
+        block.setPayload(payload);
+        block.setPayloadBytes(payload.length);
+        block.setSealedAt(LocalDateTime.now());
+        archiveRepository.save(block);
+
+        int deleted = deleteSealed(devicePk, ids);
+        if (deleted != ids.size()) {
+            throw new IllegalStateException("Device " + devicePk + " on " + day + " was sealed concurrently: deleted "
+                + deleted + " of " + ids.size() + " archived rows");
+        }
+        return hot.size();
+    }
+
+    private int deleteSealed(Long devicePk, List<Long> ids) {
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + DELETE_CHUNK_SIZE, ids.size()));
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = devicePk;
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i + 1] = chunk.get(i);
+            }
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            deleted += jdbcTemplate.update(DELETE_SEALED_SQL + placeholders + ")", args);
+        }
+        return deleted;
+    }
+
+    /**
+     * Archived readings of one type for a patient within [startDate, endDate], in no
+     * particular order.
+     */
+    @Transactional(readOnly = true)
+    public List<ArchivedSample> findReadings(Long patientId, String readingType,
+                                             LocalDateTime startDate, LocalDateTime endDate) {
+        List<ArchivedSample> matches = new ArrayList<>();
+        for (DeviceReadingArchive block : archiveRepository.findByPatientIdAndBlockDayBetweenOrderByBlockDayAsc(
+                patientId, startDate.toLocalDate(), endDate.toLocalDate())) {
+            if (block.getLastTime().isBefore(startDate) || block.getFirstTime().isAfter(endDate)) {
+                continue;
+            }
+            for (ArchivedSample sample : ReadingBlockCodec.decode(block.getPayload(), block.getDevicePk(), readingType)) {
+                if (!sample.getTimestamp().isBefore(startDate) && !sample.getTimestamp().isAfter(endDate)) {
+                    matches.add(sample);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public Map<String, Object> getStats() {
+        Object[] totals = archiveRepository.summarizeArchive().get(0);
+        long readings = ((Number) totals[1]).longValue();
+        long bytes = ((Number) totals[2]).longValue();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blocks", ((Number) totals[0]).longValue());
+        stats.put("readings", readings);
+        stats.put("payloadBytes", bytes);
+        stats.put("bytesPerReading", readings == 0 ? 0 : (double) bytes / readings);
+        return stats;
+    }
+
+    private Map<String, String> parseMetadata(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (Exception e) {
+            log.warn("Dropping unreadable reading metadata while archiving: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.mediconnect.service.monitoring.archive;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mediconnect.exception.MonitoringException;
+
+/**
+ * Columnar encoding of one device-day of readings.
+ *
+ * The block is split into one section per reading type (each prefixed with its length in
+ * bits so it can be skipped). Within a section the columns are stored separately:
+ * <ul>
+ *   <li>timestamps (millisecond precision) as delta-of-delta with variable-width buckets,</li>
+ *   <li>values with Gorilla XOR compression against the previous value,</li>
+ *   <li>units and metadata keys/values as per-section dictionaries plus fixed-width indexes.</li>
+ * </ul>
+ * Regular sampling with slowly changing values costs a handful of bits per reading.
+ */
+public final class ReadingBlockCodec {
+
+    public static final int VERSION = 1;
+
+    private ReadingBlockCodec() {
+    }
+
+    public static byte[] encode(List<ArchivedSample> samples) {
+        Map<String, List<ArchivedSample>> byType = new LinkedHashMap<>();
+        for (ArchivedSample sample : samples) {
+            byType.computeIfAbsent(sample.getReadingType(), key -> new ArrayList<>()).add(sample);
+        }
+
+        BitWriter out = new BitWriter();
+        out.writeBits(VERSION, 8);
+        out.writeVarLong(byType.size());
+        for (Map.Entry<String, List<ArchivedSample>> entry : byType.entrySet()) {
+            List<ArchivedSample> section = new ArrayList<>(entry.getValue());
+            section.sort(Comparator.comparing(ArchivedSample::getTimestamp));
+            BitWriter sectionBits = encodeSection(section);
+            out.writeString(entry.getKey());
+            out.writeVarLong(sectionBits.bitLength());
+            out.append(sectionBits);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a block, optionally only the section for one reading type (matched
+     * case-insensitively).
+     */
+    public static List<ArchivedSample> decode(byte[] payload, Long devicePk, String readingType) {
+        BitReader in = new BitReader(payload);
+        int version = (int) in.readBits(8);
+        if (version != VERSION) {
+            throw new MonitoringException("Unsupported archive block version " + version);
+        }
+        int sections = (int) in.readVarLong();
+        List<ArchivedSample> samples = new ArrayList<>();
+        for (int s = 0; s < sections; s++) {
+            String type = in.readString();
+            long sectionLength = in.readVarLong();
+            if (readingType != null && !readingType.equalsIgnoreCase(type)) {
+                in.skip(sectionLength);
+                continue;
+            }
+            decodeSection(in, devicePk, type, samples);
+        }
+        return samples;
+    }
+
+    // ===== Section layout =====
+
+    private static BitWriter encodeSection(List<ArchivedSample> samples) {
+        BitWriter out = new BitWriter();
+        int count = samples.size();
+        out.writeVarLong(count);
+
+        // Units
+        Dictionary units = new Dictionary();
+        int[] unitIndexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            unitIndexes[i] = units.indexOf(samples.get(i).getUnit());
+        }
+        units.write(out);
+        int unitWidth = bitsFor(units.size());
+        for (int index : unitIndexes) {
+            out.writeBits(index, unitWidth);
+        }
+
+        // Timestamps: first value raw, second as a delta, the rest as delta-of-delta
+        long previousTime = toMillis(samples.get(0).getTimestamp());
+        out.writeBits(previousTime, 64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long time = toMillis(samples.get(i).getTimestamp());
+            long delta = time - previousTime;
+            if (i == 1) {
+                out.writeVarLong(zigZag(delta));
+            } else {
+                writeDeltaOfDelta(out, delta - previousDelta);
+            }
+            previousDelta = delta;
+            previousTime = time;
+        }
+
+        // Values: Gorilla XOR
+        long previousBits = Double.doubleToRawLongBits(samples.get(0).getValue());
+        out.writeBits(previousBits, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(samples.get(i).getValue());
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    // Fits inside the previous meaningful window
+                    out.writeBit(false);
+                    out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    out.writeBit(true);
+                    out.writeBits(leading, 5);
+                    out.writeBits(meaningful - 1, 6);
+                    out.writeBits(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previousBits = bits;
+        }
+
+        // Metadata: key and value dictionaries, then per-row (key, value) index pairs
+        Dictionary keys = new Dictionary();
+        Dictionary values = new Dictionary();
+        List<int[]> rows = new ArrayList<>(count);
+        for (ArchivedSample sample : samples) {
+            Map<String, String> metadata = sample.getMetadata();
+            int pairs = metadata == null ? 0 : metadata.size();
+            int[] row = new int[pairs * 2];
+            int p = 0;
+            if (metadata != null) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    row[p++] = keys.indexOf(entry.getKey());
+                    row[p++] = values.indexOf(entry.getValue());
+                }
+            }
+            rows.add(row);
+        }
+        keys.write(out);
+        values.write(out);
+        int keyWidth = bitsFor(keys.size());
+        int valueWidth = bitsFor(values.size());
+        for (int[] row : rows) {
+            out.writeVarLong(row.length / 2);
+            for (int p = 0; p < row.length; p += 2) {
+                out.writeBits(row[p], keyWidth);
+                out.writeBits(row[p + 1], valueWidth);
+            }
+        }
+        return out;
+    }
+
+    private static void decodeSection(BitReader in, Long devicePk, String type, List<ArchivedSample> samples) {
+        int count = (int) in.readVarLong();
+
+        List<String> units = Dictionary.read(in);
+        int unitWidth = bitsFor(units.size());
+        String[] rowUnits = new String[count];
+        for (int i = 0; i < count; i++) {
+            rowUnits[i] = units.isEmpty() ? null : units.get((int) in.readBits(unitWidth));
+        }
+
+        long[] times = new long[count];
+        times[0] = in.readBits(64);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta = i == 1 ? unZigZag(in.readVarLong()) : delta + readDeltaOfDelta(in);
+            times[i] = times[i - 1] + delta;
+        }
+
+        double[] values = new double[count];
+        long previousBits = in.readBits(64);
+        values[0] = Double.longBitsToDouble(previousBits);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                previousBits ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previousBits);
+        }
+
+        List<String> keys = Dictionary.read(in);
+        List<String> metadataValues = Dictionary.read(in);
+        int keyWidth = bitsFor(keys.size());
+        int valueWidth = bitsFor(metadataValues.size());
+        for (int i = 0; i < count; i++) {
+            int pairs = (int) in.readVarLong();
+            Map<String, String> metadata = null;
+            if (pairs > 0) {
+                metadata = new HashMap<>(pairs * 2);
+                for (int p = 0; p < pairs; p++) {
+                    String key = keys.get((int) in.readBits(keyWidth));
+                    metadata.put(key, metadataValues.get((int) in.readBits(valueWidth)));
+                }
+            }
+            samples.add(new ArchivedSample(devicePk, type, fromMillis(times[i]), values[i], rowUnits[i], metadata));
+        }
+    }
+
+    // ===== Primitives =====
+
+    private static void writeDeltaOfDelta(BitWriter out, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.writeBit(false);
+            return;
+        }
+        long encoded = zigZag(deltaOfDelta);
+        if (encoded < (1L << 7)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(encoded, 7);
+        } else if (encoded < (1L << 12)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(encoded, 12);
+        } else if (encoded < (1L << 20)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(encoded, 20);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(encoded, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        int width;
+        if (!in.readBit()) {
+            width = 7;
+        } else if (!in.readBit()) {
+            width = 12;
+        } else if (!in.readBit()) {
+            width = 20;
+        } else {
+            width = 64;
+        }
+        return unZigZag(in.readBits(width));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int bitsFor(int size) {
+        return size <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(size - 1);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Insertion-ordered string dictionary; null is stored as a distinct entry.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = entries.size();
+                indexes.put(value, index);
+                entries.add(value);
+            }
+            return index;
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        void write(BitWriter out) {
+            out.writeVarLong(entries.size());
+            for (String entry : entries) {
+                out.writeBit(entry != null);
+                if (entry != null) {
+                    out.writeString(entry);
+                }
+            }
+        }
+
+        static List<String> read(BitReader in) {
+            int size = (int) in.readVarLong();
+            List<String> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(in.readBit() ? in.readString() : null);
+            }
+            return entries;
+        }
+    }
+}
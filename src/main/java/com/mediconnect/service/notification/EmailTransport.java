@@ -0,0 +1,318 @@
+package com.mediconnect.service.notification;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.mediconnect.model.NotificationOutbox;
+
+/**
+ * Hands outbox messages to the SMTP server. Only the outbox dispatcher calls this; everything
+ * else goes through EmailService, which queues.
+ *
+ * Connections are opened and authenticated once and kept in a pool shared by all dispatcher
+ * workers, so a message costs one MAIL/RCPT/DATA exchange instead of a TCP and TLS handshake,
+ * EHLO and AUTH. A connection is retired after {@code max-messages-per-connection} messages or
+ * when it has been idle for {@code idle-timeout-seconds}, before the server would drop it. A
+ * message that fails on a reused connection for any reason other than a rejected recipient is
+ * retried once on a fresh connection, since the server may have closed the old one.
+ *
+ * The pool is built from the Spring Boot mail settings (spring.mail.*), so pointing those at a
+ * local SMTP server such as GreenMail exercises the same code path as production. If the
+ * JavaMailSender is not a JavaMailSenderImpl, messages fall back to one transaction each.
+ */
+@Component
+public class EmailTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailTransport.class);
+
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    @Autowired
+    private JavaMailSender emailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${spring.mail.from-name:MediConnect Health}")
+    private String fromName;
+
+    @Value("${mediconnect.mail.pool.size:12}")
+    private int poolSize;
+
+    @Value("${mediconnect.mail.pool.max-messages-per-connection:500}")
+    private int maxMessagesPerConnection;
+
+    @Value("${mediconnect.mail.pool.idle-timeout-seconds:60}")
+    private long idleTimeoutSeconds;
+
+    @Value("${mediconnect.mail.pool.borrow-timeout-seconds:30}")
+    private long borrowTimeoutSeconds;
+
+    // Most recently returned first, so a light load keeps reusing a few hot connections and the rest age out
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong sentOnReusedConnection = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Messages sent per second over the last minute, indexed by epoch second modulo the window
+    private final long[] rateBuckets = new long[RATE_WINDOW_SECONDS];
+    private final long[] rateBucketSeconds = new long[RATE_WINDOW_SECONDS];
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, poolSize), true);
+    }
+
+    public void send(NotificationOutbox message) throws MessagingException {
+        MimeMessage mimeMessage = buildMessage(message);
+        if (!(emailSender instanceof JavaMailSenderImpl)) {
+            emailSender.send(mimeMessage);
+            recordSent();
+            return;
+        }
+        mimeMessage.saveChanges();
+
+        PooledConnection connection = borrow();
+        boolean healthy = false;
+        try {
+            try {
+                sendOn(connection, mimeMessage);
+                healthy = true;
+            } catch (SendFailedException e) {
+                // The server refused the recipients; the connection itself is fine
+                healthy = true;
+                throw e;
+            } catch (MessagingException e) {
+                if (connection.borrowCount == 1) {
+                    throw e;
+                }
+                log.debug("Pooled SMTP connection failed after {} messages, retrying on a new one: {}",
+                    connection.messagesSent, e.getMessage());
+                close(connection);
+                connection = null;
+                connection = open();
+                sendOn(connection, mimeMessage);
+                healthy = true;
+            }
+        } catch (MessagingException e) {
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    private MimeMessage buildMessage(NotificationOutbox message) throws MessagingException {
+        MimeMessage mimeMessage = emailSender.createMimeMessage();
+        boolean hasAttachmentData = message.getAttachmentData() != null;
+        boolean hasAttachment = hasAttachmentData || StringUtils.hasText(message.getAttachmentPath());
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage,
+                hasAttachment || message.isHtml() ? MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED : MimeMessageHelper.MULTIPART_MODE_NO,
+                StandardCharsets.UTF_8.name());
+
+        try {
+            helper.setFrom(fromEmail, fromName);
+        } catch (UnsupportedEncodingException e) {
+            log.warn("Failed to set from name, using email only: {}", e.getMessage());
+            helper.setFrom(fromEmail);
+        }
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody() != null ? message.getBody() : "", message.isHtml());
+
+        if (hasAttachmentData) {
+            String fileName = StringUtils.hasText(message.getAttachmentName()) ? message.getAttachmentName() : "attachment";
+            helper.addAttachment(fileName, new ByteArrayResource(message.getAttachmentData()));
+        } else if (hasAttachment) {
+            FileSystemResource file = new FileSystemResource(new File(message.getAttachmentPath()));
+            if (file.exists()) {
+                String fileName = StringUtils.hasText(message.getAttachmentName()) ? message.getAttachmentName() : file.getFilename();
+                helper.addAttachment(fileName, file);
+            } else {
+                log.warn("Attachment file not found: {}", message.getAttachmentPath());
+            }
+        }
+        return mimeMessage;
+    }
+
+    private void sendOn(PooledConnection connection, MimeMessage mimeMessage) throws MessagingException {
+        connection.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+        if (connection.messagesSent > 0) {
+            sentOnReusedConnection.incrementAndGet();
+        }
+        connection.messagesSent++;
+        recordSent();
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new MessagingException("No SMTP connection became available within " + borrowTimeoutSeconds + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                // No NOOP probe here: it would cost a round trip per message, and send() retries a dead connection
+                if (!isExpired(connection, System.nanoTime())) {
+                    connection.borrowCount++;
+                    return connection;
+                }
+                close(connection);
+            }
+            return open();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection connection, boolean healthy) {
+        if (connection != null) {
+            if (healthy && connection.messagesSent < maxMessagesPerConnection) {
+                connection.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(connection);
+            } else {
+                close(connection);
+            }
+        }
+        permits.release();
+    }
+
+    private PooledConnection open() throws MessagingException {
+        JavaMailSenderImpl sender = (JavaMailSenderImpl) emailSender;
+        String protocol = sender.getProtocol() != null ? sender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+        Transport transport = sender.getSession().getTransport(protocol);
+        String username = StringUtils.hasLength(sender.getUsername()) ? sender.getUsername() : null;
+        String password = StringUtils.hasLength(sender.getPassword()) ? sender.getPassword() : null;
+        transport.connect(sender.getHost(), sender.getPort(), username, password);
+        openConnections.incrementAndGet();
+        connectionsOpened.incrementAndGet();
+        return new PooledConnection(transport);
+    }
+
+    private void close(PooledConnection connection) {
+        openConnections.decrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpired(PooledConnection connection, long now) {
+        return now - connection.lastUsedNanos > TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+    }
+
+    /**
+     * Closes connections that have sat idle too long, so the pool shrinks after a burst.
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void closeIdleConnections() {
+        long now = System.nanoTime();
+        for (PooledConnection connection : idle) {
+            // remove() succeeds only if no worker borrowed the connection in the meantime
+            if (isExpired(connection, now) && idle.remove(connection)) {
+                close(connection);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private synchronized void recordSent() {
+        sent.incrementAndGet();
+        long second = System.currentTimeMillis() / 1000;
+        int index = (int) (second % RATE_WINDOW_SECONDS);
+        if (rateBucketSeconds[index] != second) {
+            rateBucketSeconds[index] = second;
+            rateBuckets[index] = 0;
+        }
+        rateBuckets[index]++;
+    }
+
+    private synchronized double messagesPerSecond() {
+        long second = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            // Only completed seconds within the window
+            if (rateBucketSeconds[i] < second && rateBucketSeconds[i] >= second - RATE_WINDOW_SECONDS) {
+                total += rateBuckets[i];
+            }
+        }
+        return Math.round(total * 10.0 / (RATE_WINDOW_SECONDS - 1)) / 10.0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long sentCount = sent.get();
+        long opened = connectionsOpened.get();
+        stats.put("poolSize", poolSize);
+        stats.put("openConnections", openConnections.get());
+        stats.put("idleConnections", idle.size());
+        stats.put("waitingForConnection", waiting.get());
+        stats.put("connectionsOpened", opened);
+        stats.put("sent", sentCount);
+        stats.put("sentOnReusedConnection", sentOnReusedConnection.get());
+        stats.put("failed", failed.get());
+        stats.put("messagesPerConnection", opened == 0 ? 0 : Math.round(sentCount * 10.0 / opened) / 10.0);
+        stats.put("messagesPerSecond", messagesPerSecond());
+        return stats;
+    }
+
+    private static final class PooledConnection {
+        private final Transport transport;
+        private int messagesSent;
+        private int borrowCount = 1;
+        private long lastUsedNanos = System.nanoTime();
+
+        PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
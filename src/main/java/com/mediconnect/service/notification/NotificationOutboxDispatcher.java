@@ -0,0 +1,276 @@
+package com.mediconnect.service.notification;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.mediconnect.model.NotificationOutbox;
+import com.mediconnect.model.NotificationOutbox.Status;
+import com.mediconnect.repository.NotificationOutboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains notification_outbox.
+ *
+ * A single dispatcher thread claims due messages with a lease and hands them to a fixed worker
+ * pool per channel, whose size is that channel's concurrency limit; it never claims more than
+ * twice a channel's limit at once, so unclaimed work stays in the table where other nodes can
+ * take it. A failed attempt is rescheduled with exponential backoff and jitter until
+ * {@code max-attempts} is reached, after which the message is dead-lettered (status DEAD).
+ * Messages leased by a node that dies are retried once the lease expires, so delivery is
+ * at-least-once.
+ */
+@Component
+public class NotificationOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailTransport emailTransport;
+
+    @Value("${mediconnect.notifications.outbox.poll-interval-ms:2000}")
+    private long pollIntervalMillis;
+
+    @Value("${mediconnect.notifications.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${mediconnect.notifications.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mediconnect.notifications.outbox.backoff-initial-seconds:30}")
+    private long backoffInitialSeconds;
+
+    @Value("${mediconnect.notifications.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${mediconnect.notifications.outbox.concurrency.email:4}")
+    private int emailConcurrency;
+
+    @Value("${mediconnect.notifications.outbox.concurrency.email-bulk:8}")
+    private int bulkEmailConcurrency;
+
+    // Unique per process; claim tokens are this id plus a round number
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong claimRound = new AtomicLong();
+
+    private final Map<String, Channel> channels = new LinkedHashMap<>();
+
+    private final Object signal = new Object();
+    private boolean wakeRequested;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        channels.put(NotificationOutboxService.EMAIL, new Channel(NotificationOutboxService.EMAIL, emailConcurrency));
+        channels.put(NotificationOutboxService.EMAIL_BULK, new Channel(NotificationOutboxService.EMAIL_BULK, bulkEmailConcurrency));
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "NotificationOutbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Notification outbox dispatcher started as node {} (email {}, email-bulk {} concurrent sends)",
+            nodeId, emailConcurrency, bulkEmailConcurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+            for (Channel channel : channels.values()) {
+                channel.workers.shutdown();
+            }
+            for (Channel channel : channels.values()) {
+                if (!channel.workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Notification outbox channel {} did not finish within 30 seconds", channel.name);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Messages this node claimed but did not send become available to other nodes at once
+        try {
+            outboxRepository.releaseLeases(nodeId);
+        } catch (Exception e) {
+            log.warn("Could not release notification outbox leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Makes the dispatcher look for work now instead of at the next poll.
+     */
+    public void wake() {
+        synchronized (signal) {
+            wakeRequested = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                if (!claimAndSubmit()) {
+                    synchronized (signal) {
+                        if (!wakeRequested) {
+                            signal.wait(pollIntervalMillis);
+                        }
+                        wakeRequested = false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error dispatching notification outbox: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns whether anything was claimed, i.e. whether another round may find more
+    private boolean claimAndSubmit() {
+        boolean claimedAny = false;
+        for (Channel channel : channels.values()) {
+            int capacity = channel.limit * 2 - channel.inFlight.get();
+            if (capacity <= 0) {
+                continue;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxRepository.findClaimableIds(Status.PENDING, channel.name, now, PageRequest.of(0, capacity));
+            if (ids.isEmpty()) {
+                continue;
+            }
+            String token = nodeId + ":" + claimRound.incrementAndGet();
+            if (outboxRepository.claim(ids, Status.PENDING, token, now.plusSeconds(leaseSeconds), now) == 0) {
+                continue;
+            }
+            for (NotificationOutbox message : outboxRepository.findByLeaseOwner(token)) {
+                channel.inFlight.incrementAndGet();
+                channel.workers.execute(() -> deliver(channel, message, token));
+                claimedAny = true;
+            }
+        }
+        return claimedAny;
+    }
+
+    private void deliver(Channel channel, NotificationOutbox message, String token) {
+        long started = System.nanoTime();
+        int attempts = message.getAttempts() + 1;
+        try {
+            emailTransport.send(message);
+            outboxRepository.complete(message.getId(), token, Status.SENT, attempts, message.getNextAttemptAt(),
+                null, LocalDateTime.now());
+            channel.sent.incrementAndGet();
+            channel.sendNanos.addAndGet(System.nanoTime() - started);
+            log.info("Notification {} sent to: {} on attempt {}", message.getId(), message.getRecipient(), attempts);
+        } catch (Exception e) {
+            fail(channel, message, token, attempts, e);
+        } finally {
+            channel.inFlight.decrementAndGet();
+            wake();
+        }
+    }
+
+    private void fail(Channel channel, NotificationOutbox message, String token, int attempts, Exception error) {
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        if (reason.length() > MAX_ERROR_LENGTH) {
+            reason = reason.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            if (attempts >= maxAttempts) {
+                outboxRepository.complete(message.getId(), token, Status.DEAD, attempts, message.getNextAttemptAt(), reason, null);
+                channel.deadLettered.incrementAndGet();
+                log.error("Notification {} to {} dead-lettered after {} attempts: {}",
+                    message.getId(), message.getRecipient(), attempts, reason);
+            } else {
+                LocalDateTime retryAt = LocalDateTime.now().plusSeconds(backoffSeconds(attempts));
+                outboxRepository.complete(message.getId(), token, Status.PENDING, attempts, retryAt, reason, null);
+                channel.retried.incrementAndGet();
+                log.warn("Notification {} to {} failed on attempt {}, retrying at {}: {}",
+                    message.getId(), message.getRecipient(), attempts, retryAt, reason);
+            }
+        } catch (Exception e) {
+            // The lease expires and the message is retried then
+            log.error("Could not record failed attempt of notification {}: {}", message.getId(), e.getMessage(), e);
+        }
+    }
+
+    // initial * 2^(attempts-1), capped, with +-20% jitter so failures do not retry in lockstep
+    private long backoffSeconds(int attempts) {
+        long delay = backoffInitialSeconds << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, backoffMaxSeconds);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Math.max(1L, Math.round(delay * jitter));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        for (Channel channel : channels.values()) {
+            Map<String, Object> channelStats = new LinkedHashMap<>();
+            long sent = channel.sent.get();
+            channelStats.put("concurrency", channel.limit);
+            channelStats.put("inFlight", channel.inFlight.get());
+            channelStats.put("queued", channel.workers.getQueue().size());
+            channelStats.put("sent", sent);
+            channelStats.put("retried", channel.retried.get());
+            channelStats.put("deadLettered", channel.deadLettered.get());
+            channelStats.put("avgSendMillis", sent == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(channel.sendNanos.get() / sent));
+            stats.put(channel.name, channelStats);
+        }
+        return stats;
+    }
+
+    private static final class Channel {
+        private final String name;
+        private final int limit;
+        private final ThreadPoolExecutor workers;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicLong deadLettered = new AtomicLong();
+        private final AtomicLong sendNanos = new AtomicLong();
+
+        Channel(String name, int limit) {
+            this.name = name;
+            this.limit = Math.max(1, limit);
+            AtomicInteger threadNumber = new AtomicInteger();
+            // Unbounded queue, but never holds more than limit entries: claims are capped at twice the limit
+            this.workers = new ThreadPoolExecutor(this.limit, this.limit, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "NotificationOutbox-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+    }
+}
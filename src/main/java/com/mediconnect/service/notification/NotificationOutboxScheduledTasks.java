@@ -0,0 +1,41 @@
+package com.mediconnect.service.notification;
+
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.model.NotificationOutbox.Status;
+import com.mediconnect.repository.NotificationOutboxRepository;
+
+/**
+ * Housekeeping for the notification outbox
+ */
+@Service
+public class NotificationOutboxScheduledTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxScheduledTasks.class);
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Value("${mediconnect.notifications.outbox.sent-retention-days:7}")
+    private int sentRetentionDays;
+
+    /**
+     * Delete delivered messages past the retention window; dead-lettered ones are kept for inspection
+     */
+    @Scheduled(cron = "${mediconnect.notifications.outbox.purge-cron:0 40 3 * * *}")
+    public void purgeSentMessages() {
+        try {
+            int deleted = outboxRepository.deleteSentBefore(Status.SENT, LocalDateTime.now().minusDays(sentRetentionDays));
+            logger.info("Purged {} delivered notifications older than {} days", deleted, sentRetentionDays);
+        } catch (Exception e) {
+            logger.error("Error purging delivered notifications: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mediconnect.service.notification;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mediconnect.exception.ResourceNotFoundException;
+import com.mediconnect.model.NotificationOutbox;
+import com.mediconnect.model.NotificationOutbox.Status;
+import com.mediconnect.repository.NotificationOutboxRepository;
+
+/**
+ * Entry point of the notification outbox: queues rendered messages for delivery.
+ *
+ * The insert joins the caller's transaction when there is one, so a message exists exactly
+ * when the business change that caused it commits; the dispatcher is woken after commit.
+ */
+@Service
+public class NotificationOutboxService {
+
+    // Transactional email: confirmations, password resets, receipts
+    public static final String EMAIL = "email";
+
+    // High-volume scheduled email such as reminders; limited separately so it cannot starve EMAIL
+    public static final String EMAIL_BULK = "email-bulk";
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailTransport emailTransport;
+
+    @Transactional
+    public NotificationOutbox enqueueEmail(String channel, String to, String subject, String body, boolean html,
+                                           String attachmentPath, String attachmentName) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox message = new NotificationOutbox();
+        message.setChannel(channel);
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setBody(body);
+        message.setHtml(html);
+        message.setAttachmentPath(attachmentPath);
+        message.setAttachmentName(attachmentName);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        NotificationOutbox saved = outboxRepository.save(message);
+        wakeAfterCommit();
+        return saved;
+    }
+
+    /**
+     * Queues an email whose attachment was produced in memory, so it is stored with the message
+     * and never written to or read back from local disk.
+     */
+    @Transactional
+    public NotificationOutbox enqueueEmailWithAttachmentData(String channel, String to, String subject, String body,
+                                                             boolean html, byte[] attachmentData, String attachmentName) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox message = new NotificationOutbox();
+        message.setChannel(channel);
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setBody(body);
+        message.setHtml(html);
+        message.setAttachmentData(attachmentData);
+        message.setAttachmentName(attachmentName);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        NotificationOutbox saved = outboxRepository.save(message);
+        wakeAfterCommit();
+        return saved;
+    }
+
+    private void wakeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wake();
+                }
+            });
+        } else {
+            dispatcher.wake();
+        }
+    }
+
+    /**
+     * Gives a dead-lettered message a fresh set of delivery attempts.
+     */
+    public void requeue(Long id) {
+        if (outboxRepository.requeue(id, Status.PENDING, Status.DEAD, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("No dead-lettered notification with id " + id);
+        }
+        dispatcher.wake();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> backlog = new LinkedHashMap<>();
+        for (Object[] row : outboxRepository.countByChannelAndStatus()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> channel = (Map<String, Object>) backlog.computeIfAbsent((String) row[0], key -> new LinkedHashMap<>());
+            channel.put(((Status) row[1]).name().toLowerCase(), row[2]);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backlog", backlog);
+        stats.put("dispatcher", dispatcher.getStats());
+        stats.put("smtp", emailTransport.getStats());
+        return stats;
+    }
+}
@@ -0,0 +1,34 @@
+package com.mediconnect.service.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the reminder timing wheel loaded with the reminders falling due in the next horizon
+ */
+@Service
+public class ReminderScheduledTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduledTasks.class);
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    /**
+     * Claim due reminders; must run well within the horizon so nothing is claimed late
+     */
+    @Scheduled(fixedDelayString = "${mediconnect.reminders.claim-interval-ms:30000}")
+    public void claimDueReminders() {
+        try {
+            int claimed = reminderScheduler.claimDueReminders();
+            if (claimed > 0) {
+                logger.debug("Claimed {} medication reminders ({})", claimed, reminderScheduler.getStats());
+            }
+        } catch (Exception e) {
+            logger.error("Error claiming due medication reminders: {}", e.getMessage(), e);
+        }
+    }
+}
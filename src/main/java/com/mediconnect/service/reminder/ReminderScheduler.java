@@ -0,0 +1,257 @@
+package com.mediconnect.service.reminder;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.model.MedicationReminder;
+import com.mediconnect.repository.MedicationReminderRepository;
+import com.mediconnect.service.NotificationService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fires medication reminders stored in medication_reminders.
+ *
+ * Every node periodically claims, with a lease, the reminders falling due within the next
+ * {@code horizon-minutes} and parks them in an in-memory {@link TimingWheel}; a ticker thread
+ * fires them as they expire. Before a reminder is sent its next occurrence is written back
+ * conditionally on the lease token and the occurrence being fired, so if two nodes ever hold
+ * the same occurrence only one of them sends it. Leases outlive the horizon by
+ * {@code lease-grace-minutes}: reminders claimed by a node that dies are picked up by another
+ * node once the lease expires, and a node that shuts down cleanly releases its leases at once.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    private static final int MAX_CLAIM_ROUNDS = 50;
+
+    @Autowired
+    private MedicationReminderRepository reminderRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${mediconnect.reminders.horizon-minutes:5}")
+    private int horizonMinutes;
+
+    @Value("${mediconnect.reminders.lease-grace-minutes:2}")
+    private int leaseGraceMinutes;
+
+    @Value("${mediconnect.reminders.claim-batch-size:500}")
+    private int claimBatchSize;
+
+    @Value("${mediconnect.reminders.tick-ms:1000}")
+    private long tickMillis;
+
+    // Occurrences more overdue than this (e.g. after all nodes were down) are skipped, not sent
+    @Value("${mediconnect.reminders.missed-grace-minutes:60}")
+    private int missedGraceMinutes;
+
+    // Unique per process; claim tokens are this id plus a round number
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong claimRound = new AtomicLong();
+
+    private TimingWheel<ClaimedReminder> wheel;
+
+    private final AtomicLong claimedCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong lostLeaseCount = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread ticker;
+
+    @PostConstruct
+    public void start() {
+        wheel = new TimingWheel<>(tickMillis, 60, 3, System.currentTimeMillis());
+        long horizonMillis = TimeUnit.MINUTES.toMillis(horizonMinutes);
+        if (horizonMillis >= wheel.capacityMillis()) {
+            throw new IllegalStateException("Reminder horizon of " + horizonMinutes
+                + " minutes exceeds the timing wheel capacity of " + wheel.capacityMillis() + " ms");
+        }
+        running = true;
+        ticker = new Thread(this::tickLoop, "ReminderWheel-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+        log.info("Reminder scheduler started as node {} (horizon {} min, tick {} ms)", nodeId, horizonMinutes, tickMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Hand unfired reminders back so another node does not have to wait for the leases to expire
+        try {
+            int released = reminderRepository.releaseLeases(nodeId);
+            log.info("Reminder scheduler stopped, released {} leased reminders", released);
+        } catch (Exception e) {
+            log.warn("Could not release reminder leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims every unleased reminder due within the horizon and schedules it on the wheel.
+     *
+     * @return number of reminders claimed
+     */
+    public int claimDueReminders() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusMinutes(horizonMinutes);
+        LocalDateTime leaseUntil = horizon.plusMinutes(leaseGraceMinutes);
+        int claimed = 0;
+        for (int round = 0; round < MAX_CLAIM_ROUNDS; round++) {
+            List<Long> ids = reminderRepository.findClaimableIds(horizon, now, PageRequest.of(0, claimBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            String token = nodeId + ":" + claimRound.incrementAndGet();
+            if (reminderRepository.claim(ids, token, leaseUntil, now) > 0) {
+                for (MedicationReminder reminder : reminderRepository.findByLeaseOwner(token)) {
+                    park(new ClaimedReminder(reminder, token));
+                    claimed++;
+                }
+            }
+            if (ids.size() < claimBatchSize) {
+                break;
+            }
+        }
+        claimedCount.addAndGet(claimed);
+        return claimed;
+    }
+
+    private void park(ClaimedReminder reminder) {
+        boolean scheduled;
+        synchronized (this) {
+            scheduled = wheel.schedule(toEpochMillis(reminder.due), reminder);
+        }
+        if (!scheduled) {
+            fire(reminder);
+        }
+    }
+
+    private void tickLoop() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+                List<ClaimedReminder> due;
+                synchronized (this) {
+                    due = wheel.advance(System.currentTimeMillis());
+                }
+                for (ClaimedReminder reminder : due) {
+                    fire(reminder);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void fire(ClaimedReminder reminder) {
+        try {
+            send(reminder);
+        } catch (Exception e) {
+            // If the advance itself failed, the lease expires and the occurrence is claimed again
+            log.error("Error firing medication reminder {}: {}", reminder.id, e.getMessage(), e);
+        }
+    }
+
+    private void send(ClaimedReminder reminder) {
+        LocalDateTime now = LocalDateTime.now();
+        // An overdue occurrence moves straight to the first one after now instead of replaying missed days
+        LocalDateTime next = nextOccurrence(reminder.timeOfDay, reminder.due.isAfter(now) ? reminder.due : now,
+            reminder.validUntil);
+        // Advance first: if the send then fails the occurrence is lost, but it is never sent twice
+        int won = reminderRepository.advance(reminder.id, reminder.leaseToken, reminder.due, next, next != null, now);
+        if (won != 1) {
+            // Cancelled, rescheduled, or the lease expired and another node took it
+            lostLeaseCount.incrementAndGet();
+            return;
+        }
+        if (reminder.due.isBefore(now.minusMinutes(missedGraceMinutes))) {
+            skippedCount.incrementAndGet();
+            log.info("Skipped medication reminder {} that was due at {}", reminder.id, reminder.due);
+            return;
+        }
+        notificationService.sendMedicationReminder(reminder.patientId, reminder.medicationName,
+            reminder.dosage, reminder.reminderTime);
+        firedCount.incrementAndGet();
+    }
+
+    /**
+     * First occurrence of timeOfDay strictly after the given time, or null once past validUntil.
+     */
+    public static LocalDateTime nextOccurrence(LocalTime timeOfDay, LocalDateTime after, LocalDateTime validUntil) {
+        LocalDateTime next = after.toLocalDate().atTime(timeOfDay);
+        if (!next.isAfter(after)) {
+            next = next.plusDays(1);
+        }
+        return validUntil != null && next.isAfter(validUntil) ? null : next;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        synchronized (this) {
+            stats.put("parked", wheel.size());
+        }
+        stats.put("claimed", claimedCount.get());
+        stats.put("fired", firedCount.get());
+        stats.put("skippedOverdue", skippedCount.get());
+        stats.put("lostLease", lostLeaseCount.get());
+        return stats;
+    }
+
+    /**
+     * Immutable copy of the fields needed to fire one occurrence.
+     */
+    private static final class ClaimedReminder {
+        private final Long id;
+        private final String leaseToken;
+        private final LocalDateTime due;
+        private final LocalTime timeOfDay;
+        private final LocalDateTime validUntil;
+        private final Long patientId;
+        private final String medicationName;
+        private final String dosage;
+        private final String reminderTime;
+
+        ClaimedReminder(MedicationReminder reminder, String leaseToken) {
+            this.id = reminder.getId();
+            this.leaseToken = leaseToken;
+            this.due = reminder.getNextFireAt();
+            this.timeOfDay = reminder.getTimeOfDay();
+            this.validUntil = reminder.getValidUntil();
+            this.patientId = reminder.getPatientId();
+            this.medicationName = reminder.getMedicationName();
+            this.dosage = reminder.getDosage();
+            this.reminderTime = reminder.getReminderTime();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mediconnect.service.reminder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: level 0 has {@code wheelSize} buckets of {@code tickMillis}, and
+ * every further level has buckets as wide as the whole level below it. Scheduling and expiry
+ * are O(1) per entry; entries in a coarse bucket are cascaded into finer levels when the
+ * wheel reaches that bucket.
+ *
+ * Entries fire on the tick containing their deadline, so at most one tick early. Not thread
+ * safe; callers synchronize.
+ */
+final class TimingWheel<T> {
+
+    private final Level<T>[] levels;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        levels = new Level[levelCount];
+        long tick = tickMillis;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new Level<>(tick, wheelSize, startMillis - Math.floorMod(startMillis, tick));
+            tick = Math.multiplyExact(tick, (long) wheelSize);
+        }
+    }
+
+    /**
+     * Longest delay, from the current tick, that the wheel can hold.
+     */
+    long capacityMillis() {
+        Level<T> top = levels[levels.length - 1];
+        return top.tickMillis * top.buckets.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules an entry.
+     *
+     * @return false if the deadline falls within the current tick, in which case the entry is
+     *         already due and was not added
+     * @throws IllegalArgumentException if the deadline is beyond the wheel's capacity
+     */
+    boolean schedule(long deadlineMillis, T item) {
+        if (deadlineMillis < levels[0].currentMillis + levels[0].tickMillis) {
+            return false;
+        }
+        for (Level<T> level : levels) {
+            if (deadlineMillis < level.currentMillis + level.tickMillis * level.buckets.length) {
+                level.bucketFor(deadlineMillis).add(new Entry<>(deadlineMillis, item));
+                size++;
+                return true;
+            }
+        }
+        throw new IllegalArgumentException("Deadline " + deadlineMillis + " is beyond the timing wheel capacity");
+    }
+
+    /**
+     * Advances the wheel to the given time and returns every entry that became due, in
+     * deadline-tick order.
+     */
+    List<T> advance(long nowMillis) {
+        List<T> due = new ArrayList<>();
+        Level<T> finest = levels[0];
+        while (finest.currentMillis + finest.tickMillis <= nowMillis) {
+            finest.currentMillis += finest.tickMillis;
+            // A coarser level moves only when the finer clock crosses one of its bucket boundaries
+            for (int i = 1; i < levels.length; i++) {
+                Level<T> level = levels[i];
+                if (finest.currentMillis < level.currentMillis + level.tickMillis) {
+                    break;
+                }
+                level.currentMillis += level.tickMillis;
+                List<Entry<T>> cascaded = level.drain(level.currentMillis);
+                size -= cascaded.size();
+                for (Entry<T> entry : cascaded) {
+                    if (!schedule(entry.deadlineMillis, entry.item)) {
+                        due.add(entry.item);
+                    }
+                }
+            }
+            List<Entry<T>> expired = finest.drain(finest.currentMillis);
+            size -= expired.size();
+            for (Entry<T> entry : expired) {
+                due.add(entry.item);
+            }
+        }
+        return due;
+    }
+
+    private static final class Level<T> {
+        private final long tickMillis;
+        private final List<Entry<T>>[] buckets;
+        private long currentMillis;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize, long currentMillis) {
+            this.tickMillis = tickMillis;
+            this.buckets = new List[wheelSize];
+            this.currentMillis = currentMillis;
+        }
+
+        List<Entry<T>> bucketFor(long deadlineMillis) {
+            int index = (int) Math.floorMod(Math.floorDiv(deadlineMillis, tickMillis), (long) buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>();
+            }
+            return buckets[index];
+        }
+
+        // Empties the bucket whose tick starts at the given time
+        List<Entry<T>> drain(long tickStartMillis) {
+            int index = (int) Math.floorMod(Math.floorDiv(tickStartMillis, tickMillis), (long) buckets.length);
+            List<Entry<T>> bucket = buckets[index];
+            if (bucket == null) {
+                return List.of();
+            }
+            buckets[index] = null;
+            return bucket;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final long deadlineMillis;
+        private final T item;
+
+        Entry(long deadlineMillis, T item) {
+            this.deadlineMillis = deadlineMillis;
+            this.item = item;
+        }
+    }
+}
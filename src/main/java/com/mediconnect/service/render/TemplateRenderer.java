@@ -0,0 +1,75 @@
+package com.mediconnect.service.render;
+
+import java.io.Writer;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+/**
+ * Renders Thymeleaf templates for emails and PDF reports.
+ *
+ * Parsed templates are cached by the engine (see ThymeleafConfig), so a render only evaluates
+ * the template's expressions. Output is written into a per-thread buffer that is kept between
+ * renders instead of a fresh writer that grows from a few hundred characters each time; only
+ * the returned String is allocated per render.
+ */
+@Component
+public class TemplateRenderer {
+
+    private static final int INITIAL_BUFFER_CHARS = 16 * 1024;
+
+    // Larger buffers, from an unusually big report, are dropped rather than pinned to the thread
+    private static final int MAX_RETAINED_BUFFER_CHARS = 512 * 1024;
+
+    private static final ThreadLocal<BufferWriter> BUFFER = ThreadLocal.withInitial(BufferWriter::new);
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    public String render(String templateName, Map<String, Object> variables) {
+        BufferWriter writer = BUFFER.get();
+        if (writer.buffer.capacity() > MAX_RETAINED_BUFFER_CHARS) {
+            writer = new BufferWriter();
+            BUFFER.set(writer);
+        }
+        writer.buffer.setLength(0);
+
+        Context context = new Context();
+        if (variables != null) {
+            context.setVariables(variables);
+        }
+        templateEngine.process(templateName, context, writer);
+        return writer.buffer.toString();
+    }
+
+    // Unsynchronized, reusable alternative to StringWriter; confined to one thread
+    private static final class BufferWriter extends Writer {
+        private final StringBuilder buffer = new StringBuilder(INITIAL_BUFFER_CHARS);
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            buffer.append(text, offset, offset + length);
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
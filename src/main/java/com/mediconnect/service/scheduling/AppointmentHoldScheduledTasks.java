@@ -0,0 +1,66 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.model.Appointment;
+import com.mediconnect.model.Appointment.AppointmentStatus;
+import com.mediconnect.repository.AppointmentRepository;
+
+/**
+ * Releases slots held by bookings whose payment was not completed in time
+ */
+@Service
+public class AppointmentHoldScheduledTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentHoldScheduledTasks.class);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorCalendarService calendarService;
+
+    /**
+     * Cancel unpaid bookings past their hold and free their slots
+     */
+    @Scheduled(fixedDelayString = "${mediconnect.appointments.hold-check-interval-ms:60000}")
+    public void releaseExpiredHolds() {
+        int released = 0;
+        try {
+            List<Appointment> expired = appointmentRepository
+                .findTop200ByHoldExpiresAtBeforeAndIsPaidFalseAndStatusOrderByHoldExpiresAtAsc(
+                    OffsetDateTime.now(), AppointmentStatus.upcoming);
+            while (!expired.isEmpty()) {
+                int releasedThisRound = 0;
+                for (Appointment appointment : expired) {
+                    // Conditional update rather than save(): a concurrent payment must not be overwritten
+                    if (appointmentRepository.releaseExpiredHold(appointment.getId(), OffsetDateTime.now(),
+                            AppointmentStatus.cancelled, AppointmentStatus.upcoming) == 1) {
+                        // Bulk updates bypass the entity listener
+                        calendarService.removeBooking(appointment.getId());
+                        releasedThisRound++;
+                    }
+                }
+                released += releasedThisRound;
+                if (releasedThisRound == 0) {
+                    break;
+                }
+                expired = appointmentRepository
+                    .findTop200ByHoldExpiresAtBeforeAndIsPaidFalseAndStatusOrderByHoldExpiresAtAsc(
+                        OffsetDateTime.now(), AppointmentStatus.upcoming);
+            }
+            if (released > 0) {
+                logger.info("Released {} appointment slots whose payment hold expired", released);
+            }
+        } catch (Exception e) {
+            logger.error("Error releasing expired appointment holds after {} releases: {}", released, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import com.mediconnect.model.DoctorAvailability;
+
+/**
+ * Immutable copy of one weekly {@link DoctorAvailability} window, in minutes of the day.
+ */
+public final class AvailabilityWindow {
+
+    private final Long id;
+    private final Long doctorId;
+    private final DayOfWeek dayOfWeek;
+    private final int startMinute;
+    private final int endMinute;
+    private final int slotMinutes;
+    private final String typeCode;
+    private final boolean available;
+
+    public AvailabilityWindow(Long id, Long doctorId, DayOfWeek dayOfWeek, LocalTime startTime, LocalTime endTime,
+                              Integer slotDurationMinutes, String typeCode, boolean available) {
+        this.id = id;
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.startMinute = startTime.getHour() * 60 + startTime.getMinute();
+        // 00:00 as an end time means midnight at the end of the day
+        int end = endTime.getHour() * 60 + endTime.getMinute();
+        this.endMinute = end == 0 ? 24 * 60 : end;
+        this.slotMinutes = slotDurationMinutes != null && slotDurationMinutes > 0 ? slotDurationMinutes : 0;
+        this.typeCode = typeCode;
+        this.available = available;
+    }
+
+    public static AvailabilityWindow from(DoctorAvailability availability) {
+        return new AvailabilityWindow(availability.getId(),
+            availability.getDoctor() != null ? availability.getDoctor().getId() : null,
+            parseDay(availability.getDayOfWeek()), availability.getStartTime(), availability.getEndTime(),
+            availability.getSlotDurationMinutes(),
+            availability.getAppointmentType() != null ? availability.getAppointmentType().getTypeCode() : null,
+            availability.isAvailable());
+    }
+
+    /**
+     * Window for a clinic timing such as "09:00-17:00"; null for "Closed", blanks and anything
+     * that does not parse.
+     */
+    public static AvailabilityWindow fromTiming(Long doctorId, DayOfWeek day, String timing, int slotMinutes) {
+        if (timing == null) {
+            return null;
+        }
+        String[] parts = timing.trim().split("\\s*-\\s*");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new AvailabilityWindow(null, doctorId, day, LocalTime.parse(pad(parts[0])),
+                LocalTime.parse(pad(parts[1])), slotMinutes, null, true);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // "9:00" -> "09:00"
+    private static String pad(String time) {
+        return time.indexOf(':') == 1 ? "0" + time : time;
+    }
+
+    /**
+     * Accepts "MONDAY", "monday", "Mon" and similar; returns null when the value is not a day.
+     */
+    public static DayOfWeek parseDay(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().equals(normalized) || (normalized.length() >= 3 && day.name().startsWith(normalized))) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether this window serves the requested appointment type. A null filter matches every
+     * window, and a window without a type (derived from clinic timings) serves every type.
+     */
+    boolean serves(String requestedType) {
+        return requestedType == null || requestedType.isBlank() || typeCode == null
+            || typeCode.equalsIgnoreCase(requestedType.trim());
+    }
+
+    boolean isBookable() {
+        return available && dayOfWeek != null && slotMinutes > 0 && endMinute > startMinute;
+    }
+
+    public Long getId() { return id; }
+    public Long getDoctorId() { return doctorId; }
+    public DayOfWeek getDayOfWeek() { return dayOfWeek; }
+    public int getStartMinute() { return startMinute; }
+    public int getEndMinute() { return endMinute; }
+    public int getSlotMinutes() { return slotMinutes; }
+    public String getTypeCode() { return typeCode; }
+    public boolean isAvailable() { return available; }
+}
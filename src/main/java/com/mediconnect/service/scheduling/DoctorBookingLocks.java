@@ -0,0 +1,41 @@
+package com.mediconnect.service.scheduling;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Striped in-process locks that serialize bookings per doctor.
+ *
+ * Bookings for different doctors almost never share a stripe, so they run in parallel; two
+ * bookings for the same doctor run one after the other, which is what makes the
+ * check-then-insert in the booking path atomic on this node. The unique
+ * (doctor_id, slot_start) index covers bookings made through other nodes.
+ */
+@Component
+public class DoctorBookingLocks {
+
+    @Value("${mediconnect.appointments.booking-lock-stripes:256}")
+    private int stripeCount;
+
+    private ReentrantLock[] stripes;
+
+    @PostConstruct
+    void init() {
+        // Power of two so the stripe index is a mask
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock forDoctor(Long doctorId) {
+        int hash = Long.hashCode(doctorId);
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,295 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory calendar of one doctor: weekly availability windows (DoctorAvailability rows, or
+ * the clinic timings on the Doctor when there are none) plus booked appointment intervals.
+ *
+ * Bookings are kept in a set ordered by start minute. Because no booking is longer than
+ * {@code maxBookingMinutes}, every booking overlapping [s, e) starts in
+ * [s - maxBookingMinutes, e), so an overlap test is one ordered range lookup over a handful
+ * of entries. All times are clinic-local minutes since the epoch.
+ */
+final class DoctorCalendar {
+
+    static final ZoneId CLINIC_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private static final Comparator<Booking> BY_START =
+        Comparator.comparingLong((Booking booking) -> booking.start).thenComparingLong(booking -> booking.appointmentId);
+
+    private final Long doctorId;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, AvailabilityWindow> windowsById = new HashMap<>();
+    private final Map<DayOfWeek, List<AvailabilityWindow>> windowsByDay = new EnumMap<>(DayOfWeek.class);
+    // Derived from Doctor.mondayTiming..sundayTiming; only used while the doctor has no availability rows
+    private List<AvailabilityWindow> timingWindows = Collections.emptyList();
+    private volatile boolean hasWindows;
+
+    private final NavigableSet<Booking> bookings = new TreeSet<>(BY_START);
+    private final Map<Long, Booking> bookingsById = new HashMap<>();
+    private long maxBookingMinutes;
+
+    DoctorCalendar(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    Long getDoctorId() {
+        return doctorId;
+    }
+
+    // ===== Availability =====
+
+    void putWindow(AvailabilityWindow window) {
+        lock.writeLock().lock();
+        try {
+            windowsById.put(window.getId(), window);
+            rebuildDays();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean removeWindow(Long availabilityId) {
+        lock.writeLock().lock();
+        try {
+            if (windowsById.remove(availabilityId) == null) {
+                return false;
+            }
+            rebuildDays();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void setTimingWindows(List<AvailabilityWindow> windows) {
+        lock.writeLock().lock();
+        try {
+            timingWindows = new ArrayList<>(windows);
+            rebuildDays();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildDays() {
+        windowsByDay.clear();
+        for (AvailabilityWindow window : windowsById.isEmpty() ? timingWindows : windowsById.values()) {
+            if (window.isBookable()) {
+                windowsByDay.computeIfAbsent(window.getDayOfWeek(), day -> new ArrayList<>()).add(window);
+            }
+        }
+        for (List<AvailabilityWindow> windows : windowsByDay.values()) {
+            windows.sort(Comparator.comparingInt(AvailabilityWindow::getStartMinute));
+        }
+        hasWindows = !windowsByDay.isEmpty();
+    }
+
+    // ===== Bookings =====
+
+    void putBooking(Long appointmentId, OffsetDateTime start, int durationMinutes) {
+        long startMinute = toMinute(start);
+        Booking booking = new Booking(appointmentId, startMinute, startMinute + Math.max(durationMinutes, 1));
+        lock.writeLock().lock();
+        try {
+            Booking previous = bookingsById.put(appointmentId, booking);
+            if (previous != null) {
+                bookings.remove(previous);
+            }
+            bookings.add(booking);
+            maxBookingMinutes = Math.max(maxBookingMinutes, booking.end - booking.start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean removeBooking(Long appointmentId) {
+        lock.writeLock().lock();
+        try {
+            Booking previous = bookingsById.remove(appointmentId);
+            if (previous == null) {
+                return false;
+            }
+            bookings.remove(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops bookings that ended before the given time; they can no longer block a slot.
+     *
+     * @return ids of the dropped appointments
+     */
+    List<Long> pruneBefore(OffsetDateTime cutoff) {
+        long cutoffMinute = toMinute(cutoff);
+        lock.writeLock().lock();
+        try {
+            List<Long> removed = new ArrayList<>();
+            while (!bookings.isEmpty() && bookings.first().start + maxBookingMinutes < cutoffMinute) {
+                Booking booking = bookings.pollFirst();
+                bookingsById.remove(booking.appointmentId);
+                removed.add(booking.appointmentId);
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Whether [start, start + durationMinutes) overlaps no booking other than
+     * {@code ignoreAppointmentId} (which may be null).
+     */
+    boolean isFree(OffsetDateTime start, int durationMinutes, Long ignoreAppointmentId) {
+        long startMinute = toMinute(start);
+        lock.readLock().lock();
+        try {
+            return !overlaps(startMinute, startMinute + Math.max(durationMinutes, 1), ignoreAppointmentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Free slots on the days [fromDay, toDay], ascending by start, never before notBefore and at
+     * most {@code limit} of them.
+     */
+    List<FreeSlot> freeSlots(LocalDate fromDay, LocalDate toDay, String type, OffsetDateTime notBefore, int limit) {
+        List<FreeSlot> slots = new ArrayList<>();
+        Iterator<FreeSlot> iterator = slotIterator(fromDay, toDay, type, notBefore);
+        while (slots.size() < limit && iterator.hasNext()) {
+            slots.add(iterator.next());
+        }
+        return slots;
+    }
+
+    /**
+     * Lazily generates free slots in ascending order. Each day is computed under the read lock
+     * only when the iterator reaches it, so callers that stop early never pay for later days.
+     */
+    Iterator<FreeSlot> slotIterator(LocalDate fromDay, LocalDate toDay, String type, OffsetDateTime notBefore) {
+        return new FreeSlotIterator(fromDay, toDay, type, toMinute(notBefore));
+    }
+
+    private List<FreeSlot> freeSlotsOn(LocalDate day, String type, long notBeforeMinute) {
+        lock.readLock().lock();
+        try {
+            List<AvailabilityWindow> windows = windowsByDay.get(day.getDayOfWeek());
+            if (windows == null) {
+                return Collections.emptyList();
+            }
+            long dayMinute = toMinute(day.atStartOfDay());
+            List<FreeSlot> slots = new ArrayList<>();
+            for (AvailabilityWindow window : windows) {
+                if (!window.serves(type)) {
+                    continue;
+                }
+                int step = window.getSlotMinutes();
+                for (int minute = window.getStartMinute(); minute + step <= window.getEndMinute(); minute += step) {
+                    long start = dayMinute + minute;
+                    if (start >= notBeforeMinute && !overlaps(start, start + step, null)) {
+                        slots.add(new FreeSlot(doctorId, toOffset(start), step, window.getTypeCode()));
+                    }
+                }
+            }
+            if (windows.size() > 1) {
+                // Windows of different types may interleave within a day
+                slots.sort(Comparator.comparing(FreeSlot::getStart));
+            }
+            return slots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds a lock
+    private boolean overlaps(long start, long end, Long ignoreAppointmentId) {
+        Booking from = new Booking(Long.MIN_VALUE, start - maxBookingMinutes, 0);
+        Booking to = new Booking(Long.MIN_VALUE, end, 0);
+        for (Booking booking : bookings.subSet(from, true, to, false)) {
+            if (booking.end > start && !booking.appointmentId.equals(ignoreAppointmentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long toMinute(OffsetDateTime time) {
+        return toMinute(time.atZoneSameInstant(CLINIC_ZONE).toLocalDateTime());
+    }
+
+    static long toMinute(LocalDateTime clinicTime) {
+        return clinicTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    static OffsetDateTime toOffset(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC).atZone(CLINIC_ZONE).toOffsetDateTime();
+    }
+
+    private final class FreeSlotIterator implements Iterator<FreeSlot> {
+        private final LocalDate toDay;
+        private final String type;
+        private final long notBeforeMinute;
+        private LocalDate nextDay;
+        private Iterator<FreeSlot> current = Collections.emptyIterator();
+
+        FreeSlotIterator(LocalDate fromDay, LocalDate toDay, String type, long notBeforeMinute) {
+            this.nextDay = fromDay;
+            this.toDay = toDay;
+            this.type = type;
+            this.notBeforeMinute = notBeforeMinute;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && hasWindows && !nextDay.isAfter(toDay)) {
+                current = freeSlotsOn(nextDay, type, notBeforeMinute).iterator();
+                nextDay = nextDay.plusDays(1);
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public FreeSlot next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    private static final class Booking {
+        private final Long appointmentId;
+        private final long start;
+        private final long end;
+
+        Booking(Long appointmentId, long start, long end) {
+            this.appointmentId = appointmentId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
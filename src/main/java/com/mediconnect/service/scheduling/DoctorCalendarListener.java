@@ -0,0 +1,80 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mediconnect.config.ApplicationContextProvider;
+import com.mediconnect.model.Appointment;
+import com.mediconnect.model.DoctorAvailability;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that keeps the {@link DoctorCalendarService} calendars in sync with
+ * Appointment and DoctorAvailability writes, applied after the transaction commits.
+ */
+public class DoctorCalendarListener {
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Appointment appointment) {
+            Long appointmentId = appointment.getId();
+            Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+            OffsetDateTime start = appointment.getAppointmentDateTime();
+            Integer duration = appointment.getDurationMinutes();
+            boolean blocking = appointment.getStatus() != Appointment.AppointmentStatus.cancelled
+                && doctorId != null && start != null;
+            afterCommit(calendars -> {
+                if (blocking) {
+                    calendars.putBooking(appointmentId, doctorId, start, duration);
+                } else {
+                    calendars.removeBooking(appointmentId);
+                }
+            });
+        } else if (entity instanceof DoctorAvailability availability) {
+            AvailabilityWindow window = AvailabilityWindow.from(availability);
+            afterCommit(calendars -> calendars.putWindow(window));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Appointment appointment) {
+            Long appointmentId = appointment.getId();
+            afterCommit(calendars -> calendars.removeBooking(appointmentId));
+        } else if (entity instanceof DoctorAvailability availability) {
+            Long availabilityId = availability.getId();
+            afterCommit(calendars -> calendars.removeWindow(availabilityId));
+        }
+    }
+
+    private void afterCommit(CalendarUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(CalendarUpdate update) {
+        DoctorCalendarService calendars = ApplicationContextProvider.getBean(DoctorCalendarService.class);
+        if (calendars != null) {
+            update.apply(calendars);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CalendarUpdate {
+        void apply(DoctorCalendarService calendars);
+    }
+}
@@ -0,0 +1,47 @@
+package com.mediconnect.service.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Housekeeping for the in-memory slot calendars
+ */
+@Service
+public class DoctorCalendarScheduledTasks {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorCalendarScheduledTasks.class);
+
+    @Autowired
+    private DoctorCalendarService calendarService;
+
+    /**
+     * Drop bookings that are over; they can no longer block a slot
+     */
+    @Scheduled(cron = "${mediconnect.scheduling.calendar.prune-cron:0 5 * * * *}")
+    public void pruneEndedBookings() {
+        try {
+            int removed = calendarService.pruneEndedBookings();
+            if (removed > 0) {
+                logger.debug("Pruned {} ended bookings from slot calendars", removed);
+            }
+        } catch (Exception e) {
+            logger.error("Error pruning slot calendars: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Full rebuild to pick up changes that bypassed entity listeners (bulk JPQL deletes,
+     * manual SQL)
+     */
+    @Scheduled(cron = "${mediconnect.scheduling.calendar.reload-cron:0 15 2 * * *}")
+    public void reloadCalendars() {
+        try {
+            calendarService.reload();
+        } catch (Exception e) {
+            logger.error("Error reloading slot calendars: {}", e.getMessage(), e);
+        }
+    }
+}
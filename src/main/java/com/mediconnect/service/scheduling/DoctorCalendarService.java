@@ -0,0 +1,284 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.exception.BadRequestException;
+import com.mediconnect.model.Appointment.AppointmentStatus;
+import com.mediconnect.repository.AppointmentRepository;
+import com.mediconnect.repository.DoctorAvailabilityRepository;
+
+/**
+ * Answers "which slots does doctor X have free" from memory.
+ *
+ * One {@link DoctorCalendar} per doctor merges the weekly DoctorAvailability windows (or, for
+ * doctors without any, windows derived from their clinic timings) with the doctor's upcoming
+ * non-cancelled appointments. Everything is loaded once at startup with two
+ * range queries; after that {@link DoctorCalendarListener} applies every booking, cancellation,
+ * status change and availability edit incrementally, so slot queries never touch the database.
+ * A nightly reload (see {@link DoctorCalendarScheduledTasks}) picks up bulk JPQL deletes that
+ * bypass entity listeners.
+ */
+@Service
+public class DoctorCalendarService {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorCalendarService.class);
+
+    // Appointments without a duration block this many minutes
+    public static final int DEFAULT_APPOINTMENT_MINUTES = 30;
+
+    // Bookings that ended this long ago are not loaded or kept
+    private static final int PAST_BOOKING_DAYS = 1;
+
+    @Autowired
+    private DoctorAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${mediconnect.scheduling.slots.default-range-days:7}")
+    private int defaultRangeDays;
+
+    @Value("${mediconnect.scheduling.slots.max-range-days:62}")
+    private int maxRangeDays;
+
+    private volatile CalendarState state = new CalendarState();
+
+    // Non-null while a reload is running: updates applied meanwhile are replayed onto the new state
+    private final Object reloadLock = new Object();
+    private List<Consumer<CalendarState>> replayDuringReload;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCalendars() {
+        reload();
+    }
+
+    /**
+     * Rebuilds every calendar from the database and swaps it in atomically.
+     */
+    public void reload() {
+        long started = System.currentTimeMillis();
+        synchronized (reloadLock) {
+            replayDuringReload = new ArrayList<>();
+        }
+        CalendarState fresh = new CalendarState();
+        try {
+            for (Object[] row : availabilityRepository.findAllForCalendar(null)) {
+                fresh.putWindow(toWindow(row));
+            }
+            OffsetDateTime since = OffsetDateTime.now().minusDays(PAST_BOOKING_DAYS);
+            for (Object[] row : appointmentRepository.findCalendarBookings(since, AppointmentStatus.cancelled, null)) {
+                fresh.putBooking((Long) row[0], (Long) row[1], (OffsetDateTime) row[2], (Integer) row[3]);
+            }
+        } catch (RuntimeException e) {
+            synchronized (reloadLock) {
+                replayDuringReload = null;
+            }
+            throw e;
+        }
+        synchronized (reloadLock) {
+            // Clinic timings come from the doctor directory, not from these queries
+            state.timingsByDoctor.forEach(fresh::putTimingWindows);
+            replayDuringReload.forEach(update -> update.accept(fresh));
+            replayDuringReload = null;
+            state = fresh;
+        }
+        log.info("Loaded slot calendars for {} doctors ({} windows, {} bookings) in {} ms",
+            fresh.calendars.size(), fresh.doctorByWindow.size(), fresh.doctorByAppointment.size(),
+            System.currentTimeMillis() - started);
+    }
+
+    // ===== Incremental updates =====
+
+    public void putBooking(Long appointmentId, Long doctorId, OffsetDateTime start, Integer durationMinutes) {
+        mutate(current -> current.putBooking(appointmentId, doctorId, start, durationMinutes));
+    }
+
+    public void removeBooking(Long appointmentId) {
+        mutate(current -> current.removeBooking(appointmentId));
+    }
+
+    public void putWindow(AvailabilityWindow window) {
+        mutate(current -> current.putWindow(window));
+    }
+
+    public void removeWindow(Long availabilityId) {
+        mutate(current -> current.removeWindow(availabilityId));
+    }
+
+    /**
+     * Replaces the fallback windows derived from a doctor's clinic timings; an empty list
+     * removes them.
+     */
+    public void putTimingWindows(Long doctorId, List<AvailabilityWindow> windows) {
+        mutate(current -> current.putTimingWindows(doctorId, windows));
+    }
+
+    private void mutate(Consumer<CalendarState> update) {
+        synchronized (reloadLock) {
+            if (replayDuringReload != null) {
+                replayDuringReload.add(update);
+            }
+        }
+        update.accept(state);
+    }
+
+    /**
+     * Forgets bookings that ended before the past-booking horizon.
+     */
+    public int pruneEndedBookings() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(PAST_BOOKING_DAYS);
+        CalendarState current = state;
+        int removed = 0;
+        for (DoctorCalendar calendar : current.calendars.values()) {
+            for (Long appointmentId : calendar.pruneBefore(cutoff)) {
+                current.doctorByAppointment.remove(appointmentId, calendar.getDoctorId());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Free slots of a doctor between two days (inclusive), optionally restricted to one
+     * appointment type code. Defaults to the next {@code default-range-days} days.
+     */
+    public List<FreeSlot> findFreeSlots(Long doctorId, LocalDate from, LocalDate to, String type) {
+        LocalDate today = LocalDate.now(DoctorCalendar.CLINIC_ZONE);
+        LocalDate start = from != null ? from : today;
+        LocalDate end = to != null ? to : start.plusDays(defaultRangeDays - 1L);
+        if (end.isBefore(start)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        if (start.plusDays(maxRangeDays).isBefore(end)) {
+            throw new BadRequestException("Slot range cannot exceed " + maxRangeDays + " days");
+        }
+        if (end.isBefore(today)) {
+            return Collections.emptyList();
+        }
+        return findFreeSlots(doctorId, start.isBefore(today) ? today : start, end, type, Integer.MAX_VALUE);
+    }
+
+    List<FreeSlot> findFreeSlots(Long doctorId, LocalDate from, LocalDate to, String type, int limit) {
+        DoctorCalendar calendar = state.calendars.get(doctorId);
+        if (calendar == null) {
+            return Collections.emptyList();
+        }
+        return calendar.freeSlots(from, to, type, OffsetDateTime.now(), limit);
+    }
+
+    /**
+     * Lazy ascending free-slot iterator for one doctor; empty when the doctor has no calendar.
+     */
+    Iterator<FreeSlot> slotIterator(Long doctorId, LocalDate from, LocalDate to, String type, OffsetDateTime notBefore) {
+        DoctorCalendar calendar = state.calendars.get(doctorId);
+        return calendar == null ? Collections.emptyIterator() : calendar.slotIterator(from, to, type, notBefore);
+    }
+
+    /**
+     * Whether the interval overlaps none of the doctor's bookings (other than
+     * ignoreAppointmentId, which may be null).
+     */
+    public boolean isFree(Long doctorId, OffsetDateTime start, int durationMinutes, Long ignoreAppointmentId) {
+        DoctorCalendar calendar = state.calendars.get(doctorId);
+        return calendar == null || calendar.isFree(start, durationMinutes, ignoreAppointmentId);
+    }
+
+    public Map<String, Object> getStats() {
+        CalendarState current = state;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("doctors", current.calendars.size());
+        stats.put("availabilityWindows", current.doctorByWindow.size());
+        stats.put("bookings", current.doctorByAppointment.size());
+        return stats;
+    }
+
+    private static AvailabilityWindow toWindow(Object[] row) {
+        DayOfWeek day = AvailabilityWindow.parseDay((String) row[2]);
+        return new AvailabilityWindow((Long) row[0], (Long) row[1], day, (LocalTime) row[3], (LocalTime) row[4],
+            (Integer) row[5], (String) row[7], Boolean.TRUE.equals(row[6]));
+    }
+
+    /**
+     * All calendars plus the reverse indexes needed to apply removals by id.
+     */
+    private static final class CalendarState {
+        private final Map<Long, DoctorCalendar> calendars = new ConcurrentHashMap<>();
+        private final Map<Long, Long> doctorByAppointment = new ConcurrentHashMap<>();
+        private final Map<Long, Long> doctorByWindow = new ConcurrentHashMap<>();
+        private final Map<Long, List<AvailabilityWindow>> timingsByDoctor = new ConcurrentHashMap<>();
+
+        void putBooking(Long appointmentId, Long doctorId, OffsetDateTime start, Integer durationMinutes) {
+            Long previousDoctor = doctorByAppointment.put(appointmentId, doctorId);
+            if (previousDoctor != null && !previousDoctor.equals(doctorId)) {
+                DoctorCalendar previous = calendars.get(previousDoctor);
+                if (previous != null) {
+                    previous.removeBooking(appointmentId);
+                }
+            }
+            int minutes = durationMinutes != null && durationMinutes > 0 ? durationMinutes : DEFAULT_APPOINTMENT_MINUTES;
+            calendars.computeIfAbsent(doctorId, DoctorCalendar::new).putBooking(appointmentId, start, minutes);
+        }
+
+        void removeBooking(Long appointmentId) {
+            Long doctorId = doctorByAppointment.remove(appointmentId);
+            DoctorCalendar calendar = doctorId != null ? calendars.get(doctorId) : null;
+            if (calendar != null) {
+                calendar.removeBooking(appointmentId);
+            }
+        }
+
+        void putWindow(AvailabilityWindow window) {
+            if (window.getId() == null || window.getDoctorId() == null) {
+                return;
+            }
+            Long previousDoctor = doctorByWindow.put(window.getId(), window.getDoctorId());
+            if (previousDoctor != null && !previousDoctor.equals(window.getDoctorId())) {
+                DoctorCalendar previous = calendars.get(previousDoctor);
+                if (previous != null) {
+                    previous.removeWindow(window.getId());
+                }
+            }
+            calendars.computeIfAbsent(window.getDoctorId(), DoctorCalendar::new).putWindow(window);
+        }
+
+        void putTimingWindows(Long doctorId, List<AvailabilityWindow> windows) {
+            if (windows.isEmpty()) {
+                if (timingsByDoctor.remove(doctorId) == null) {
+                    return;
+                }
+            } else {
+                timingsByDoctor.put(doctorId, windows);
+            }
+            calendars.computeIfAbsent(doctorId, DoctorCalendar::new).setTimingWindows(windows);
+        }
+
+        void removeWindow(Long availabilityId) {
+            Long doctorId = doctorByWindow.remove(availabilityId);
+            DoctorCalendar calendar = doctorId != null ? calendars.get(doctorId) : null;
+            if (calendar != null) {
+                calendar.removeWindow(availabilityId);
+            }
+        }
+    }
+}
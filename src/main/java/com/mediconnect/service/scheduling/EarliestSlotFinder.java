@@ -0,0 +1,206 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.mediconnect.service.search.DoctorDocument;
+import com.mediconnect.service.search.DoctorIndex;
+
+/**
+ * Finds the earliest free slots across all doctors matching a specialization and city.
+ *
+ * Every matching doctor contributes a lazy, ascending free-slot iterator from their
+ * {@link DoctorCalendar}; the iterators are k-way merged through a heap keyed on slot start
+ * (ties broken by rating or fee), and the merge stops as soon as the requested number of
+ * slots is found. Doctor facets come from the same in-memory directory feed as doctor
+ * search, which also supplies the clinic timings used for doctors without availability rows.
+ */
+@Service
+public class EarliestSlotFinder implements DoctorIndex {
+
+    public enum SortOrder { RATING, FEE }
+
+    @Autowired
+    private DoctorCalendarService calendarService;
+
+    @Value("${mediconnect.scheduling.earliest.horizon-days:14}")
+    private int horizonDays;
+
+    @Value("${mediconnect.scheduling.earliest.max-results:50}")
+    private int maxResults;
+
+    private final Map<Long, DoctorDocument> doctors = new ConcurrentHashMap<>();
+
+    // ===== DoctorIndex =====
+
+    @Override
+    public void rebuild(Collection<DoctorDocument> documents) {
+        doctors.clear();
+        for (DoctorDocument document : documents) {
+            index(document);
+        }
+    }
+
+    @Override
+    public void index(DoctorDocument document) {
+        doctors.put(document.getDoctorId(), document);
+        calendarService.putTimingWindows(document.getDoctorId(), timingWindows(document));
+    }
+
+    @Override
+    public void updateUserName(Long userId, String firstName, String lastName) {
+        for (DoctorDocument document : doctors.values()) {
+            if (userId.equals(document.getUserId())) {
+                doctors.put(document.getDoctorId(), document.withName(firstName, lastName));
+            }
+        }
+    }
+
+    @Override
+    public void remove(Long doctorId) {
+        doctors.remove(doctorId);
+        calendarService.putTimingWindows(doctorId, List.of());
+    }
+
+    private List<AvailabilityWindow> timingWindows(DoctorDocument document) {
+        List<AvailabilityWindow> windows = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            AvailabilityWindow window = AvailabilityWindow.fromTiming(document.getDoctorId(), day,
+                document.getTiming(day), DoctorCalendarService.DEFAULT_APPOINTMENT_MINUTES);
+            if (window != null) {
+                windows.add(window);
+            }
+        }
+        return windows;
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Earliest free slots for doctors whose specialization and city match (case-insensitive;
+     * either filter may be null), starting at notBefore (now when null).
+     *
+     * @param limit     number of slots to return, capped at max-results
+     * @param perDoctor at most this many slots per doctor; 0 for no cap
+     */
+    public List<Map<String, Object>> findEarliest(String specialization, String city, String type,
+                                                  OffsetDateTime notBefore, int limit, int perDoctor,
+                                                  SortOrder sort) {
+        int wanted = Math.max(1, Math.min(limit, maxResults));
+        OffsetDateTime from = notBefore != null && notBefore.isAfter(OffsetDateTime.now()) ? notBefore : OffsetDateTime.now();
+        LocalDate firstDay = from.atZoneSameInstant(DoctorCalendar.CLINIC_ZONE).toLocalDate();
+        LocalDate lastDay = firstDay.plusDays(horizonDays - 1L);
+
+        List<DoctorDocument> candidates = new ArrayList<>();
+        String specializationFilter = normalize(specialization);
+        String cityFilter = normalize(city);
+        for (DoctorDocument document : doctors.values()) {
+            if (matchesSpecialization(document, specializationFilter) && matchesCity(document, cityFilter)) {
+                candidates.add(document);
+            }
+        }
+        candidates.sort(rankOrder(sort));
+
+        // Heap of per-doctor cursors; the rank index breaks ties between slots starting together
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(candidates.size(), 1),
+            Comparator.comparing((Cursor cursor) -> cursor.head.getStart()).thenComparingInt(cursor -> cursor.rank));
+        for (int rank = 0; rank < candidates.size(); rank++) {
+            DoctorDocument document = candidates.get(rank);
+            Iterator<FreeSlot> slots = calendarService.slotIterator(document.getDoctorId(), firstDay, lastDay, type, from);
+            if (slots.hasNext()) {
+                heap.add(new Cursor(document, rank, slots, slots.next()));
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        while (results.size() < wanted && !heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            results.add(toResult(cursor.doctor, cursor.head));
+            cursor.taken++;
+            if ((perDoctor <= 0 || cursor.taken < perDoctor) && cursor.slots.hasNext()) {
+                cursor.head = cursor.slots.next();
+                heap.add(cursor);
+            }
+        }
+        return results;
+    }
+
+    private static Comparator<DoctorDocument> rankOrder(SortOrder sort) {
+        Comparator<DoctorDocument> byRating = Comparator.comparing(DoctorDocument::getAverageRating,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+        Comparator<DoctorDocument> byFee = Comparator.comparing(DoctorDocument::getConsultationFee,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+        Comparator<DoctorDocument> order = sort == SortOrder.FEE ? byFee.thenComparing(byRating) : byRating.thenComparing(byFee);
+        return order.thenComparing(DoctorDocument::getDoctorId);
+    }
+
+    // "cardiology" should find "Cardiologist" and vice versa, so compare on a shared stem
+    private static boolean matchesSpecialization(DoctorDocument document, String filter) {
+        if (filter == null) {
+            return true;
+        }
+        String value = normalize(document.getSpecialization());
+        if (value == null) {
+            return false;
+        }
+        if (value.contains(filter) || filter.contains(value)) {
+            return true;
+        }
+        int stem = Math.min(Math.min(value.length(), filter.length()), 7);
+        return stem >= 5 && value.regionMatches(0, filter, 0, stem);
+    }
+
+    private static boolean matchesCity(DoctorDocument document, String filter) {
+        return filter == null || filter.equals(normalize(document.getClinicCity()));
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, Object> toResult(DoctorDocument doctor, FreeSlot slot) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("doctorId", doctor.getDoctorId());
+        result.put("firstName", doctor.getFirstName());
+        result.put("lastName", doctor.getLastName());
+        result.put("specialization", doctor.getSpecialization());
+        result.put("clinicCity", doctor.getClinicCity());
+        result.put("rating", doctor.getAverageRating());
+        result.put("consultationFee", doctor.getConsultationFee());
+        result.put("start", slot.getStart());
+        result.put("end", slot.getEnd());
+        result.put("durationMinutes", slot.getDurationMinutes());
+        result.put("appointmentType", slot.getAppointmentType());
+        return result;
+    }
+
+    private static final class Cursor {
+        private final DoctorDocument doctor;
+        private final int rank;
+        private final Iterator<FreeSlot> slots;
+        private FreeSlot head;
+        private int taken;
+
+        Cursor(DoctorDocument doctor, int rank, Iterator<FreeSlot> slots, FreeSlot head) {
+            this.doctor = doctor;
+            this.rank = rank;
+            this.slots = slots;
+            this.head = head;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mediconnect.service.scheduling;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A bookable slot; start and end are in clinic time and can be posted back as
+ * appointmentDateTime unchanged.
+ */
+public final class FreeSlot {
+
+    private final Long doctorId;
+    private final OffsetDateTime start;
+    private final OffsetDateTime end;
+    private final int durationMinutes;
+    private final String appointmentType;
+
+    public FreeSlot(Long doctorId, OffsetDateTime start, int durationMinutes, String appointmentType) {
+        this.doctorId = doctorId;
+        this.start = start;
+        this.end = start.plusMinutes(durationMinutes);
+        this.durationMinutes = durationMinutes;
+        this.appointmentType = appointmentType;
+    }
+
+    public Long getDoctorId() { return doctorId; }
+    public OffsetDateTime getStart() { return start; }
+    public OffsetDateTime getEnd() { return end; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public String getAppointmentType() { return appointmentType; }
+}
@@ -0,0 +1,102 @@
+package com.mediconnect.service.search;
+
+import java.time.DayOfWeek;
+
+import com.mediconnect.model.Doctor;
+import com.mediconnect.model.User;
+
+/**
+ * Immutable snapshot of the searchable fields of a Doctor (and its User), captured when the
+ * entity is written so the index never has to go back to the database.
+ */
+public final class DoctorDocument {
+
+    private final Long doctorId;
+    private final Long userId;
+    private final String firstName;
+    private final String lastName;
+    private final String specialization;
+    private final String hospitalAffiliation;
+    private final String clinicName;
+    private final String clinicCity;
+    private final String clinicState;
+    private final String expertise;
+    private final String services;
+    private final Integer averageRating;
+    private final Integer reviewCount;
+    private final String patientCount;
+    private final Double consultationFee;
+    // Clinic timings Monday..Sunday, e.g. "09:00-17:00" or "Closed"
+    private final String[] weeklyTimings;
+
+    private DoctorDocument(Long doctorId, Long userId, String firstName, String lastName,
+                           String specialization, String hospitalAffiliation, String clinicName,
+                           String clinicCity, String clinicState, String expertise, String services,
+                           Integer averageRating, Integer reviewCount, String patientCount,
+                           Double consultationFee, String[] weeklyTimings) {
+        this.doctorId = doctorId;
+        this.userId = userId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.specialization = specialization;
+        this.hospitalAffiliation = hospitalAffiliation;
+        this.clinicName = clinicName;
+        this.clinicCity = clinicCity;
+        this.clinicState = clinicState;
+        this.expertise = expertise;
+        this.services = services;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.patientCount = patientCount;
+        this.consultationFee = consultationFee;
+        this.weeklyTimings = weeklyTimings;
+    }
+
+    public static DoctorDocument from(Doctor doctor) {
+        User user = doctor.getUser();
+        return new DoctorDocument(
+            doctor.getId(),
+            user != null ? user.getId() : null,
+            user != null ? user.getFirstName() : null,
+            user != null ? user.getLastName() : null,
+            doctor.getSpecialization(),
+            doctor.getHospitalAffiliation(),
+            doctor.getClinicName(),
+            doctor.getClinicCity(),
+            doctor.getClinicState(),
+            doctor.getExpertise(),
+            doctor.getServices(),
+            doctor.getAverageRating(),
+            doctor.getReviewCount(),
+            doctor.getPatientCount(),
+            doctor.getConsultationFee(),
+            new String[] {
+                doctor.getMondayTiming(), doctor.getTuesdayTiming(), doctor.getWednesdayTiming(),
+                doctor.getThursdayTiming(), doctor.getFridayTiming(), doctor.getSaturdayTiming(),
+                doctor.getSundayTiming()
+            });
+    }
+
+    public DoctorDocument withName(String firstName, String lastName) {
+        return new DoctorDocument(doctorId, userId, firstName, lastName, specialization,
+            hospitalAffiliation, clinicName, clinicCity, clinicState, expertise, services,
+            averageRating, reviewCount, patientCount, consultationFee, weeklyTimings);
+    }
+
+    public Long getDoctorId() { return doctorId; }
+    public Long getUserId() { return userId; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getSpecialization() { return specialization; }
+    public String getHospitalAffiliation() { return hospitalAffiliation; }
+    public String getClinicName() { return clinicName; }
+    public String getClinicCity() { return clinicCity; }
+    public String getClinicState() { return clinicState; }
+    public String getExpertise() { return expertise; }
+    public String getServices() { return services; }
+    public Integer getAverageRating() { return averageRating; }
+    public Integer getReviewCount() { return reviewCount; }
+    public String getPatientCount() { return patientCount; }
+    public Double getConsultationFee() { return consultationFee; }
+    public String getTiming(DayOfWeek day) { return weeklyTimings[day.getValue() - 1]; }
+}
@@ -0,0 +1,18 @@
+package com.mediconnect.service.search;
+
+import java.util.Collection;
+
+/**
+ * An in-memory view over the doctor directory that is loaded by {@link DoctorIndexLoader}
+ * and kept current by {@link DoctorSearchIndexListener}.
+ */
+public interface DoctorIndex {
+
+    void rebuild(Collection<DoctorDocument> documents);
+
+    void index(DoctorDocument document);
+
+    void updateUserName(Long userId, String firstName, String lastName);
+
+    void remove(Long doctorId);
+}
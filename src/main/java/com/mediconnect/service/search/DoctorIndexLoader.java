@@ -0,0 +1,45 @@
+package com.mediconnect.service.search;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mediconnect.repository.DoctorRepository;
+
+/**
+ * Loads the doctor directory once at startup and feeds every {@link DoctorIndex}.
+ */
+@Component
+public class DoctorIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorIndexLoader.class);
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private List<DoctorIndex> indexes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadAll() {
+        long start = System.currentTimeMillis();
+        List<DoctorDocument> documents = doctorRepository.findAll().stream()
+            .map(DoctorDocument::from)
+            .collect(Collectors.toList());
+
+        for (DoctorIndex index : indexes) {
+            index.rebuild(documents);
+        }
+
+        log.info("Loaded {} doctors into {} in-memory indexes in {} ms",
+            documents.size(), indexes.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,347 @@
+package com.mediconnect.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process inverted index over the searchable Doctor/User fields with BM25 ranking.
+ *
+ * Postings are kept in a sorted term dictionary so the last (possibly incomplete) query
+ * token can be expanded by prefix.
+ */
+@Service
+public class DoctorSearchIndex implements DoctorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorSearchIndex.class);
+
+    // Standard BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field weights applied to term frequencies (a cheap BM25F approximation)
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SPECIALIZATION_WEIGHT = 2.5f;
+    private static final float LOCATION_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Prefix matches score slightly below exact matches
+    private static final double PREFIX_MATCH_FACTOR = 0.8;
+
+    // Bound on how many dictionary terms a single short prefix may expand to
+    private static final int MAX_PREFIX_EXPANSIONS = 128;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private final Map<Long, IndexedDoctor> documents = new HashMap<>();
+    private final Map<Long, Long> doctorIdByUserId = new HashMap<>();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private double totalLength;
+
+    @Override
+    public void rebuild(Collection<DoctorDocument> snapshot) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            doctorIdByUserId.clear();
+            postings.clear();
+            totalLength = 0;
+            for (DoctorDocument document : snapshot) {
+                if (document.getDoctorId() != null) {
+                    addDocument(document);
+                }
+            }
+            log.info("Doctor search index built with {} doctors and {} terms", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the document for a doctor.
+     */
+    @Override
+    public void index(DoctorDocument document) {
+        if (document.getDoctorId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.getDoctorId());
+            addDocument(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the doctor owned by the given user after a name change. Users that are
+     * not doctors are ignored.
+     */
+    @Override
+    public void updateUserName(Long userId, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            Long doctorId = doctorIdByUserId.get(userId);
+            if (doctorId == null) {
+                return;
+            }
+            IndexedDoctor existing = documents.get(doctorId);
+            DoctorDocument document = existing.document;
+            if (Objects.equals(document.getFirstName(), firstName) && Objects.equals(document.getLastName(), lastName)) {
+                return;
+            }
+            removeDocument(doctorId);
+            addDocument(document.withName(firstName, lastName));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long doctorId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(doctorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked conjunctive search: every query token must match, the last one by prefix.
+     * Only the top (page + 1) * size hits are materialised.
+     */
+    public SearchPage search(String query, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<String> tokens = SearchTokenizer.tokenizeQuery(query);
+        if (tokens.isEmpty()) {
+            return new SearchPage(Collections.emptyList(), 0, pageNumber, pageSize);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return new SearchPage(Collections.emptyList(), 0, pageNumber, pageSize);
+            }
+
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                Map<Long, Double> tokenScores = scoreToken(tokens.get(i), i == tokens.size() - 1);
+                if (tokenScores.isEmpty()) {
+                    return new SearchPage(Collections.emptyList(), 0, pageNumber, pageSize);
+                }
+                scores = scores == null ? tokenScores : intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    return new SearchPage(Collections.emptyList(), 0, pageNumber, pageSize);
+                }
+            }
+
+            return new SearchPage(topK(scores, pageNumber, pageSize), scores.size(), pageNumber, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Index maintenance (caller holds the write lock) =====
+
+    private void addDocument(DoctorDocument document) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        addField(termFrequencies, document.getFirstName(), NAME_WEIGHT);
+        addField(termFrequencies, document.getLastName(), NAME_WEIGHT);
+        addField(termFrequencies, document.getSpecialization(), SPECIALIZATION_WEIGHT);
+        addField(termFrequencies, document.getHospitalAffiliation(), LOCATION_WEIGHT);
+        addField(termFrequencies, document.getClinicName(), LOCATION_WEIGHT);
+        addField(termFrequencies, document.getClinicCity(), LOCATION_WEIGHT);
+        addField(termFrequencies, document.getExpertise(), DESCRIPTION_WEIGHT);
+        addField(termFrequencies, document.getServices(), DESCRIPTION_WEIGHT);
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                .put(document.getDoctorId(), entry.getValue());
+            length += entry.getValue();
+        }
+
+        documents.put(document.getDoctorId(), new IndexedDoctor(document, termFrequencies.keySet(), length));
+        if (document.getUserId() != null) {
+            doctorIdByUserId.put(document.getUserId(), document.getDoctorId());
+        }
+        totalLength += length;
+    }
+
+    private void removeDocument(Long doctorId) {
+        IndexedDoctor existing = documents.remove(doctorId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(doctorId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        if (existing.document.getUserId() != null) {
+            doctorIdByUserId.remove(existing.document.getUserId());
+        }
+        totalLength -= existing.length;
+    }
+
+    private void addField(Map<String, Float> termFrequencies, String value, float weight) {
+        for (String token : SearchTokenizer.tokenize(value)) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+    }
+
+    // ===== Scoring (caller holds the read lock) =====
+
+    private Map<Long, Double> scoreToken(String token, boolean prefix) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            accumulate(tokenScores, exact, 1.0);
+        }
+
+        if (prefix) {
+            NavigableMap<String, Map<Long, Float>> expansions =
+                postings.subMap(token, false, token + Character.MAX_VALUE, false);
+            int expanded = 0;
+            for (Map<Long, Float> termPostings : expansions.values()) {
+                if (++expanded > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(tokenScores, termPostings, PREFIX_MATCH_FACTOR);
+            }
+        }
+        return tokenScores;
+    }
+
+    // Keeps the best-scoring matching term per document so a prefix that expands to
+    // several words in one profile is not rewarded for each of them
+    private void accumulate(Map<Long, Double> tokenScores, Map<Long, Float> termPostings, double factor) {
+        int documentCount = documents.size();
+        double averageLength = Math.max(totalLength / documentCount, 1.0);
+        int documentFrequency = termPostings.size();
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+        for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+            double tf = posting.getValue();
+            double length = documents.get(posting.getKey()).length;
+            double score = factor * idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+            tokenScores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private Map<Long, Double> intersect(Map<Long, Double> left, Map<Long, Double> right) {
+        Map<Long, Double> smaller = left.size() <= right.size() ? left : right;
+        Map<Long, Double> larger = smaller == left ? right : left;
+        Map<Long, Double> result = new HashMap<>();
+        for (Map.Entry<Long, Double> entry : smaller.entrySet()) {
+            Double other = larger.get(entry.getKey());
+            if (other != null) {
+                result.put(entry.getKey(), entry.getValue() + other);
+            }
+        }
+        return result;
+    }
+
+    private List<SearchHit> topK(Map<Long, Double> scores, int page, int size) {
+        // In longs, so a large page number cannot overflow into a small or negative limit
+        long from = (long) page * size;
+        if (from >= scores.size()) {
+            return Collections.emptyList();
+        }
+        int limit = (int) Math.min(from + size, scores.size());
+        Comparator<SearchHit> ranking = Comparator.comparingDouble(SearchHit::getScore)
+            .thenComparing(SearchHit::getDoctorId, Comparator.reverseOrder());
+        PriorityQueue<SearchHit> heap = new PriorityQueue<>(limit + 1, ranking);
+
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            SearchHit hit = new SearchHit(entry.getKey(), entry.getValue());
+            if (heap.size() < limit) {
+                heap.offer(hit);
+            } else if (ranking.compare(hit, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(hit);
+            }
+        }
+
+        List<SearchHit> ranked = new ArrayList<>(heap);
+        ranked.sort(ranking.reversed());
+        return new ArrayList<>(ranked.subList((int) from, ranked.size()));
+    }
+
+    private static final class IndexedDoctor {
+        private final DoctorDocument document;
+        private final List<String> terms;
+        private final float length;
+
+        private IndexedDoctor(DoctorDocument document, Set<String> terms, float length) {
+            this.document = document;
+            this.terms = new ArrayList<>(terms);
+            this.length = length;
+        }
+    }
+
+    public static final class SearchHit {
+        private final Long doctorId;
+        private final double score;
+
+        public SearchHit(Long doctorId, double score) {
+            this.doctorId = doctorId;
+            this.score = score;
+        }
+
+        public Long getDoctorId() { return doctorId; }
+        public double getScore() { return score; }
+    }
+
+    public static final class SearchPage {
+        private final List<SearchHit> hits;
+        private final long totalHits;
+        private final int page;
+        private final int size;
+
+        public SearchPage(List<SearchHit> hits, long totalHits, int page, int size) {
+            this.hits = hits;
+            this.totalHits = totalHits;
+            this.page = page;
+            this.size = size;
+        }
+
+        public List<SearchHit> getHits() { return hits; }
+        public long getTotalHits() { return totalHits; }
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+    }
+}
@@ -0,0 +1,72 @@
+package com.mediconnect.service.search;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.mediconnect.config.ApplicationContextProvider;
+import com.mediconnect.model.Doctor;
+import com.mediconnect.model.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that keeps every {@link DoctorIndex} in sync with Doctor and User writes.
+ *
+ * Entity state is snapshotted when the callback fires, but applied to the index only after
+ * the surrounding transaction commits so rolled-back writes never become searchable.
+ */
+public class DoctorSearchIndexListener {
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Doctor doctor) {
+            DoctorDocument document = DoctorDocument.from(doctor);
+            afterCommit(index -> index.index(document));
+        } else if (entity instanceof User user) {
+            Long userId = user.getId();
+            String firstName = user.getFirstName();
+            String lastName = user.getLastName();
+            afterCommit(index -> index.updateUserName(userId, firstName, lastName));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Doctor doctor) {
+            Long doctorId = doctor.getId();
+            afterCommit(index -> index.remove(doctorId));
+        }
+    }
+
+    private void afterCommit(IndexUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(IndexUpdate update) {
+        ApplicationContext context = ApplicationContextProvider.getApplicationContext();
+        if (context == null) {
+            return;
+        }
+        for (DoctorIndex index : context.getBeansOfType(DoctorIndex.class).values()) {
+            update.apply(index);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply(DoctorIndex index);
+    }
+}
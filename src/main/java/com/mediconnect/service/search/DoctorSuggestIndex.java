@@ -0,0 +1,425 @@
+package com.mediconnect.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Prefix trie backing the /api/doctors/suggest typeahead.
+ *
+ * Every suggestion (a doctor name, specialization, hospital, city or state) is inserted
+ * under each of its word starts, so "sha" finds "Rahul Sharma". Each trie node caches its
+ * best suggestions: score increases and inserts are merged into the cached lists along the
+ * path, while removals and score decreases drop the affected caches so they are rebuilt
+ * on the next lookup.
+ */
+@Service
+public class DoctorSuggestIndex implements DoctorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorSuggestIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private enum SuggestionType { DOCTOR, SPECIALIZATION, HOSPITAL, CITY, STATE }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+        .comparingDouble(Suggestion::getScore).reversed()
+        .thenComparing(Suggestion::getText);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All fields below are guarded by lock
+    private TrieNode root = new TrieNode();
+    private final Map<String, Suggestion> suggestionsByKey = new HashMap<>();
+    private final Map<Long, DoctorDocument> documents = new HashMap<>();
+    private final Map<Long, List<Suggestion>> suggestionsByDoctor = new HashMap<>();
+    private final Map<Long, Long> doctorIdByUserId = new HashMap<>();
+
+    @Override
+    public void rebuild(Collection<DoctorDocument> snapshot) {
+        lock.writeLock().lock();
+        try {
+            root = new TrieNode();
+            suggestionsByKey.clear();
+            documents.clear();
+            suggestionsByDoctor.clear();
+            doctorIdByUserId.clear();
+            for (DoctorDocument document : snapshot) {
+                if (document.getDoctorId() != null) {
+                    addDoctor(document);
+                }
+            }
+            log.info("Doctor suggest index built with {} suggestions", suggestionsByKey.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(DoctorDocument document) {
+        if (document.getDoctorId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDoctor(document.getDoctorId());
+            addDoctor(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateUserName(Long userId, String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            Long doctorId = doctorIdByUserId.get(userId);
+            if (doctorId == null) {
+                return;
+            }
+            DoctorDocument document = documents.get(doctorId);
+            if (Objects.equals(document.getFirstName(), firstName) && Objects.equals(document.getLastName(), lastName)) {
+                return;
+            }
+            removeDoctor(doctorId);
+            addDoctor(document.withName(firstName, lastName));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long doctorId) {
+        lock.writeLock().lock();
+        try {
+            removeDoctor(doctorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best suggestions whose text has a word starting with the given prefix, flattened
+     * into the JSON shape returned by the controller.
+     */
+    public List<Map<String, Object>> suggest(String query, int limit) {
+        String prefix = SearchTokenizer.normalize(query);
+        int max = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            TrieNode node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            List<Suggestion> top = node.top();
+            List<Map<String, Object>> response = new ArrayList<>(Math.min(top.size(), max));
+            for (Suggestion suggestion : top) {
+                if (response.size() == max) {
+                    break;
+                }
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("text", suggestion.text);
+                item.put("type", suggestion.type.name());
+                if (suggestion.doctorId != null) {
+                    item.put("doctorId", suggestion.doctorId);
+                }
+                item.put("doctorCount", suggestion.doctorScores.size());
+                response.add(item);
+            }
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Maintenance (caller holds the write lock) =====
+
+    private void addDoctor(DoctorDocument document) {
+        Long doctorId = document.getDoctorId();
+        double doctorScore = rankingScore(document);
+        List<Suggestion> contributed = new ArrayList<>();
+
+        String fullName = joinName(document.getFirstName(), document.getLastName());
+        contribute(contributed, SuggestionType.DOCTOR, fullName, "DOCTOR|" + doctorId, doctorId, doctorScore);
+        contribute(contributed, SuggestionType.SPECIALIZATION, document.getSpecialization(), null, doctorId, doctorScore);
+        contribute(contributed, SuggestionType.HOSPITAL, document.getHospitalAffiliation(), null, doctorId, doctorScore);
+        contribute(contributed, SuggestionType.CITY, document.getClinicCity(), null, doctorId, doctorScore);
+        contribute(contributed, SuggestionType.STATE, document.getClinicState(), null, doctorId, doctorScore);
+
+        documents.put(doctorId, document);
+        suggestionsByDoctor.put(doctorId, contributed);
+        if (document.getUserId() != null) {
+            doctorIdByUserId.put(document.getUserId(), doctorId);
+        }
+    }
+
+    private void removeDoctor(Long doctorId) {
+        DoctorDocument document = documents.remove(doctorId);
+        if (document == null) {
+            return;
+        }
+        if (document.getUserId() != null) {
+            doctorIdByUserId.remove(document.getUserId());
+        }
+
+        for (Suggestion suggestion : suggestionsByDoctor.remove(doctorId)) {
+            suggestion.doctorScores.remove(doctorId);
+            if (suggestion.doctorScores.isEmpty()) {
+                suggestionsByKey.remove(suggestion.key);
+                for (String path : suggestion.paths) {
+                    TrieNode terminal = root.find(path);
+                    if (terminal != null && terminal.terminals != null) {
+                        terminal.terminals.remove(suggestion);
+                    }
+                }
+                invalidate(suggestion);
+            } else if (suggestion.recomputeScore() < 0) {
+                invalidate(suggestion);
+            } else {
+                promote(suggestion);
+            }
+        }
+    }
+
+    private void contribute(List<Suggestion> contributed, SuggestionType type, String text,
+                            String key, Long doctorId, double doctorScore) {
+        String normalized = SearchTokenizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String suggestionKey = key != null ? key : type.name() + "|" + normalized;
+
+        Suggestion suggestion = suggestionsByKey.get(suggestionKey);
+        if (suggestion == null) {
+            suggestion = new Suggestion(suggestionKey, text.trim(), type,
+                type == SuggestionType.DOCTOR ? doctorId : null, wordStarts(normalized));
+            suggestionsByKey.put(suggestionKey, suggestion);
+            for (String path : suggestion.paths) {
+                TrieNode terminal = root.findOrCreate(path);
+                if (terminal.terminals == null) {
+                    terminal.terminals = new ArrayList<>(1);
+                }
+                terminal.terminals.add(suggestion);
+            }
+        }
+
+        suggestion.doctorScores.put(doctorId, doctorScore);
+        if (suggestion.recomputeScore() < 0) {
+            invalidate(suggestion);
+        } else {
+            promote(suggestion);
+        }
+        contributed.add(suggestion);
+    }
+
+    // Merges a new or improved suggestion into the cached top lists along its paths
+    private void promote(Suggestion suggestion) {
+        for (String path : suggestion.paths) {
+            TrieNode node = root;
+            for (int i = 0; i <= path.length() && node != null; i++) {
+                List<Suggestion> top = node.topCache;
+                if (top != null) {
+                    node.topCache = merge(top, suggestion);
+                }
+                node = i < path.length() ? node.child(path.charAt(i)) : null;
+            }
+        }
+    }
+
+    // Drops cached top lists that contain a removed or weakened suggestion
+    private void invalidate(Suggestion suggestion) {
+        for (String path : suggestion.paths) {
+            TrieNode node = root;
+            for (int i = 0; i <= path.length() && node != null; i++) {
+                List<Suggestion> top = node.topCache;
+                if (top != null && top.contains(suggestion)) {
+                    node.topCache = null;
+                }
+                node = i < path.length() ? node.child(path.charAt(i)) : null;
+            }
+        }
+    }
+
+    private static List<Suggestion> merge(List<Suggestion> top, Suggestion suggestion) {
+        List<Suggestion> merged = new ArrayList<>(top.size() + 1);
+        for (Suggestion existing : top) {
+            if (existing != suggestion) {
+                merged.add(existing);
+            }
+        }
+        merged.add(suggestion);
+        merged.sort(RANKING);
+        return merged.size() > MAX_SUGGESTIONS ? new ArrayList<>(merged.subList(0, MAX_SUGGESTIONS)) : merged;
+    }
+
+    // Rating dominates; review volume and patient count act as popularity tie-breakers
+    private static double rankingScore(DoctorDocument document) {
+        double rating = document.getAverageRating() != null ? document.getAverageRating() : 0;
+        double reviews = document.getReviewCount() != null ? document.getReviewCount() : 0;
+        double patients = parseLeadingNumber(document.getPatientCount());
+        return rating + Math.log10(1 + reviews) + 0.5 * Math.log10(1 + patients);
+    }
+
+    private static double parseLeadingNumber(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int end = 0;
+        while (end < value.length() && Character.isDigit(value.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? 0 : Double.parseDouble(value.substring(0, end));
+    }
+
+    private static List<String> wordStarts(String normalized) {
+        List<String> paths = new ArrayList<>();
+        paths.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            paths.add(normalized.substring(i + 1));
+        }
+        return paths;
+    }
+
+    private static String joinName(String firstName, String lastName) {
+        String first = firstName != null ? firstName.trim() : "";
+        String last = lastName != null ? lastName.trim() : "";
+        return (first + " " + last).trim();
+    }
+
+    private static final class Suggestion {
+        private final String key;
+        private final String text;
+        private final SuggestionType type;
+        private final Long doctorId;
+        private final List<String> paths;
+        private final Map<Long, Double> doctorScores = new HashMap<>();
+        private double score;
+
+        private Suggestion(String key, String text, SuggestionType type, Long doctorId, List<String> paths) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+            this.doctorId = doctorId;
+            this.paths = paths;
+        }
+
+        // Returns the sign of the score change
+        private int recomputeScore() {
+            double best = 0;
+            for (double doctorScore : doctorScores.values()) {
+                best = Math.max(best, doctorScore);
+            }
+            // Shared suggestions (specializations, cities) get a bonus for how many doctors they cover
+            double updated = type == SuggestionType.DOCTOR ? best : best + Math.log10(1 + doctorScores.size());
+            int change = Double.compare(updated, score);
+            score = updated;
+            return change;
+        }
+
+        private String getText() { return text; }
+        private double getScore() { return score; }
+    }
+
+    private static final class TrieNode {
+        private static final char[] NO_LABELS = new char[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        // Children kept in parallel arrays sorted by label to stay compact
+        private char[] labels = NO_LABELS;
+        private TrieNode[] children = NO_CHILDREN;
+        private List<Suggestion> terminals;
+        private volatile List<Suggestion> topCache;
+
+        private TrieNode child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private TrieNode find(String path) {
+            TrieNode node = this;
+            for (int i = 0; i < path.length() && node != null; i++) {
+                node = node.child(path.charAt(i));
+            }
+            return node;
+        }
+
+        private TrieNode findOrCreate(String path) {
+            TrieNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                char label = path.charAt(i);
+                int index = Arrays.binarySearch(node.labels, label);
+                if (index < 0) {
+                    int insertAt = -index - 1;
+                    char[] labels = new char[node.labels.length + 1];
+                    TrieNode[] children = new TrieNode[node.children.length + 1];
+                    System.arraycopy(node.labels, 0, labels, 0, insertAt);
+                    System.arraycopy(node.children, 0, children, 0, insertAt);
+                    labels[insertAt] = label;
+                    children[insertAt] = new TrieNode();
+                    System.arraycopy(node.labels, insertAt, labels, insertAt + 1, node.labels.length - insertAt);
+                    System.arraycopy(node.children, insertAt, children, insertAt + 1, node.children.length - insertAt);
+                    node.labels = labels;
+                    node.children = children;
+                    index = insertAt;
+                }
+                node = node.children[index];
+            }
+            return node;
+        }
+
+        // Called under the read lock; concurrent readers may both compute, which is harmless
+        private List<Suggestion> top() {
+            List<Suggestion> cached = topCache;
+            if (cached != null) {
+                return cached;
+            }
+
+            PriorityQueue<Suggestion> heap = new PriorityQueue<>(MAX_SUGGESTIONS + 1, RANKING.reversed());
+            Set<Suggestion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            collect(this, heap, seen);
+
+            List<Suggestion> computed = new ArrayList<>(heap);
+            computed.sort(RANKING);
+            topCache = Collections.unmodifiableList(computed);
+            return topCache;
+        }
+
+        private static void collect(TrieNode node, PriorityQueue<Suggestion> heap, Set<Suggestion> seen) {
+            if (node.terminals != null) {
+                for (Suggestion suggestion : node.terminals) {
+                    if (seen.add(suggestion)) {
+                        heap.offer(suggestion);
+                        if (heap.size() > MAX_SUGGESTIONS) {
+                            heap.poll();
+                        }
+                    }
+                }
+            }
+            for (TrieNode child : node.children) {
+                collect(child, heap, seen);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mediconnect.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits free text into lower-cased alphanumeric tokens for the in-memory doctor index.
+ */
+public final class SearchTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "at", "by", "dr", "for", "in", "of", "on", "or", "the", "to", "with");
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Tokens for indexing: every alphanumeric run, minus stop words.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = split(text);
+        tokens.removeIf(STOP_WORDS::contains);
+        return tokens;
+    }
+
+    /**
+     * Tokens for a query typed into a search box. The trailing token is kept even when it
+     * is a stop word because it is usually an incomplete word ("an" -> "anesthesiology").
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> raw = split(text);
+        List<String> tokens = new ArrayList<>(raw.size());
+        for (int i = 0; i < raw.size(); i++) {
+            String token = raw.get(i);
+            if (i == raw.size() - 1 || !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower-cases text and collapses every run of non-alphanumeric characters to a single
+     * space, e.g. "Dr. Anita  Rao" -> "dr anita rao".
+     */
+    public static String normalize(String text) {
+        return String.join(" ", split(text));
+    }
+
+    private static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean tokenChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mediconnect.util;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.mediconnect.service.document.CachedDocument;
+
+/**
+ * Builds download responses for cached PDFs.
+ *
+ * The body is a Resource carrying a strong ETag, so Spring MVC answers a matching If-None-Match
+ * with 304 Not Modified and a Range header with 206 Partial Content on its own. Browsers may
+ * keep the document but must revalidate it, since access to it is checked per request.
+ */
+public final class DocumentResponseUtil {
+
+    private DocumentResponseUtil() {
+    }
+
+    public static ResponseEntity<Resource> pdfAttachment(CachedDocument document, String fileName) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(document.getEtag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(document.toResource());
+    }
+}
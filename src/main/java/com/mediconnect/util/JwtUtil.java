@@ -3,6 +3,7 @@ package com.mediconnect.util;
 import java.security.Key;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -53,6 +54,7 @@ public class JwtUtil {
         return Jwts.builder()
                    .setClaims(claims)
                    .setSubject(subject)
+                   .setId(UUID.randomUUID().toString()) // unique per login so token digests never collide
                    .setIssuedAt(now)
                    .setExpiration(expiry)
                    .signWith(signingKey, SignatureAlgorithm.HS512)
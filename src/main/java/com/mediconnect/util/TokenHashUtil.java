@@ -0,0 +1,41 @@
+package com.mediconnect.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digests used as fixed-width lookup keys for long opaque tokens and content.
+ */
+public final class TokenHashUtil {
+
+    private TokenHashUtil() {
+    }
+
+    /**
+     * Returns the 64-character lower-case hex SHA-256 digest of the token, or null for null.
+     */
+    public static String sha256Hex(String token) {
+        if (token == null) {
+            return null;
+        }
+        return sha256Hex(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the 64-character lower-case hex SHA-256 digest of the bytes, or null for null.
+     */
+    public static String sha256Hex(byte[] content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}